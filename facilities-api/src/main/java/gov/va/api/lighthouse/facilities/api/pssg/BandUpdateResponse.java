@@ -8,6 +8,7 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import gov.va.api.lighthouse.facilities.api.pssg.deserializers.BandUpdateResponseDeserializer;
 import gov.va.api.lighthouse.facilities.api.pssg.serializers.BandUpdateResponseSerializer;
 import java.util.List;
+import java.util.Map;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -27,4 +28,7 @@ public final class BandUpdateResponse {
   private @NonNull List<String> bandsCreated;
 
   private @NonNull List<String> bandsUpdated;
+
+  /** Milliseconds spent in each stage of the upload, in stage order. */
+  private Map<String, Long> timings;
 }
@@ -16,21 +16,46 @@ import lombok.SneakyThrows;
  * allows serialization of {@link PssgDriveTimeBand} that can be deserialized directly to Java
  * Path2D objects.
  *
- * <p>Serialization uses a binary collection of integer values.
+ * <p>Version 2 writes a small uncompressed header followed by deflated, variable length
+ * coordinates. Coordinates are stored as the difference from the previous coordinate, zig-zag
+ * encoded so small negative values stay small, and written 7 bits per byte. Neighboring points of
+ * a band are close, so most coordinates take one or two bytes rather than four.
  *
  * <pre>
- *   raw := {magic-token}{version}{number-rings}{ring ...}
+ *   raw := {magic-token}{version}{uncompressed-length}{deflated body}
+ *   body := {number-rings}{ring ...}
+ *   ring := {number-coords}{coord ...}
+ *   coord := {delta-longitude}{delta-latitude}
+ *   magic-token := {int} Used to verify this array is understood
+ *   version := {int} Indicates the version of binary data format, 2
+ *   uncompressed-length := {int} The exact number of bytes of the inflated body
+ *   number-rings := {varint} The number of ring structures
+ *   number-coords := {varint} The number of coordinate structures
+ *   delta-longitude := {zig-zag varint} Scaled longitude minus the previous scaled longitude
+ *   delta-latitude := {zig-zag varint} Scaled latitude minus the previous scaled latitude
+ *   {int} := 4 bytes, big endian
+ *   {varint} := 7 bits per byte, least significant first, high bit set on all but the last byte
+ *
+ *   Scaled values are floating point values multiplied by 100000. The first coordinate is relative
+ *   to 0,0 and each ring continues from the last coordinate of the previous ring.
+ * </pre>
+ *
+ * <p>Decoding streams coordinates to a {@link RingVisitor}. Each thread reuses one Inflater and
+ * one scratch buffer, so decoding into a visitor, such as a reusable {@link ScaledRings}, does not
+ * allocate.
+ *
+ * <p>Version 1 deflated the entire packet, including the header, and wrote every scaled coordinate
+ * as a 4 byte int. It is no longer written but can still be decoded.
+ *
+ * <pre>
+ *   raw := deflated({magic-token}{version}{number-rings}{ring ...})
  *   ring := {number-coords}{coord ...}
  *   coord := {scaled-longitude}{scaled-latitude}
- *   magic-token := {int} First byte used to verify this array is understood
- *   version := {int} Indicates the version of binary data format
+ *   version := {int} 1
  *   number-rings := {int} The number of ring structures
  *   number-coords := {int} The number of coordinate structures
- *   scaled-longitude := {int} Floating point value multiple by 10000
- *   scaled-latitude := {int} Floating point value multiple by 10000
- *   {int} := 4 bytes
- *
- *   Scaled values can be divided by 10000.0 to return to double with precision 5.
+ *   scaled-longitude := {int} Floating point value multiple by 100000
+ *   scaled-latitude := {int} Floating point value multiple by 100000
  * </pre>
  */
 @AllArgsConstructor(staticName = "create")
@@ -39,22 +64,56 @@ public class PathEncoder {
    * The amount of space required in a ByteBuffer for an integer value. This is used to determine
    * the required buffer size.
    */
-  private static int BYTES_PER_INT = 4;
+  private static final int BYTES_PER_INT = 4;
+
+  /** The largest number of bytes needed for a 32 bit varint. */
+  private static final int MAX_BYTES_PER_VARINT = 5;
+
+  /** Deflate cannot compress better than this, larger lengths in a header are corrupt. */
+  private static final int MAX_COMPRESSION_RATIO = 1032;
 
   /** Random number to indicate the binary packet type. */
-  private static int MAGIC_NUMBER = 37337;
+  private static final int MAGIC_NUMBER = 37337;
+
+  /** The original, fully deflated format with absolute coordinates. */
+  private static final int VERSION_1 = 1;
 
   /**
    * The current version of encoding. Should a new information be needed, this version will be
    * incremented and backwards compatibility will be need to be maintained.
    */
-  private static int VERSION = 1;
+  private static final int VERSION_2 = 2;
+
+  /** Size of the buffer each thread starts with. */
+  private static final int INITIAL_BUFFER_BYTES = 8192;
+
+  /**
+   * Largest buffer kept by a thread between decodes. Real bands inflate to well under this, so
+   * their buffers are reused, while an outlier is not held by the thread afterwards.
+   */
+  private static final int MAX_RETAINED_BUFFER_BYTES = 1 << 20;
+
+  /** magic-token + version + uncompressed-length. */
+  private static final int VERSION_2_HEADER_BYTES = 3 * BYTES_PER_INT;
 
   /**
    * Scaling factor applied to floating point values to integers. Since lat long values range
    * between -180 and 180, there is no concern of integer overflow.
    */
-  private static int SCALE = 100000;
+  public static final int SCALE = 100000;
+
+  /**
+   * Inflater and inflated data of the decode in progress on each thread. Every thread that has
+   * decoded a path keeps its inflater, about 40 KiB of native memory, until the thread ends and the
+   * inflater is collected. Between decodes it keeps at most {@link #MAX_RETAINED_BUFFER_BYTES}
+   * of buffer, so an unusually large band does not pin its inflated size to every request thread.
+   */
+  private static final ThreadLocal<Scratch> SCRATCH =
+      ThreadLocal.withInitial(() -> new Scratch(true));
+
+  private static int intAt(byte[] b, int p) {
+    return (b[p] << 24) | ((b[p + 1] & 0xFF) << 16) | ((b[p + 2] & 0xFF) << 8) | (b[p + 3] & 0xFF);
+  }
 
   private static int scale(double value) {
     return (int) (value * SCALE);
@@ -70,47 +129,49 @@ public class PathEncoder {
     }
   }
 
-  private byte[] compress(byte[] data) {
+  private byte[] compress(byte[] data, int length, int offset) {
     Deflater compressor = new Deflater();
-    compressor.setInput(data);
+    compressor.setInput(data, 0, length);
     compressor.finish();
-    byte[] compressed = new byte[data.length];
-    int size = compressor.deflate(compressed);
+    /* Incompressible data can grow slightly, so keep going until the deflater has finished. */
+    byte[] compressed = new byte[offset + length / 2 + 64];
+    int size = offset;
+    while (!compressor.finished()) {
+      if (size == compressed.length) {
+        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+      }
+      size += compressor.deflate(compressed, size, compressed.length - size);
+    }
+    compressor.end();
     return Arrays.copyOf(compressed, size);
   }
 
-  private Path2D decode(byte[] compressPath) {
-    byte[] pathData = decompress(compressPath);
-    ByteBuffer buffer = ByteBuffer.wrap(pathData);
-    check(buffer.getInt() == MAGIC_NUMBER, "Unknown magic number");
-    check(buffer.getInt() == VERSION, "Unsupported version");
-    /*
-     * In the future, should a new format be required, the existing version MUST continue to be
-     * supported. Database entries will already exist and we will need to keep supporting them.
-     * Should that day come, this is where we'd switch deserializers on version number.
-     */
-    int numberOfRings = buffer.getInt();
-    check(numberOfRings > 0, "Number of rings");
-    Path2D path = new Path2D.Double();
-    for (int ringNumber = 0; ringNumber < numberOfRings; ringNumber++) {
-      int numberOfCoordinates = buffer.getInt();
-      check(
-          numberOfCoordinates > 0,
-          "Number of coordinates for ring " + ringNumber + ": " + numberOfCoordinates);
-      for (int coordNumber = 0; coordNumber < numberOfCoordinates; coordNumber++) {
-        int scaledLong = buffer.getInt();
-        int scaledLat = buffer.getInt();
-        double longitude = unscale(scaledLong);
-        double latitude = unscale(scaledLat);
-        if (coordNumber == 0) {
-          path.moveTo(longitude, latitude);
-        } else {
-          path.lineTo(longitude, latitude);
-        }
+  /**
+   * Decode a Path from the binary representation created by {@link #encode(PssgDriveTimeBand)}.
+   * Version 1 data is also supported.
+   */
+  public Path2D decode(@NonNull byte[] encoded) {
+    PathBuilder path = new PathBuilder();
+    decode(encoded, path);
+    return path.path;
+  }
+
+  /**
+   * Stream the scaled coordinates of the binary representation created by {@link
+   * #encode(PssgDriveTimeBand)} to the visitor. Version 1 data is also supported.
+   */
+  public void decode(@NonNull byte[] encoded, @NonNull RingVisitor visitor) {
+    boolean version2 = isVersion2(encoded);
+    Scratch scratch = version2 ? inflateVersion2(encoded) : decompress(encoded);
+    try {
+      if (version2) {
+        visitVersion2(scratch, visitor);
+      } else {
+        visitVersion1(scratch, visitor);
       }
-      path.closePath();
+    } finally {
+      scratch.release();
     }
-    return path;
   }
 
   /**
@@ -121,45 +182,110 @@ public class PathEncoder {
     return decode(Base64.getDecoder().decode(path64));
   }
 
+  /**
+   * Stream the scaled coordinates of Base 64 encoded binary representation created by {@link
+   * #encodeToBase64(PssgDriveTimeBand)} to the visitor.
+   */
+  public void decodeFromBase64(@NonNull String path64, @NonNull RingVisitor visitor) {
+    decode(Base64.getDecoder().decode(path64), visitor);
+  }
+
+  /**
+   * Decode the rings of a path from the binary representation created by {@link
+   * #encode(PssgDriveTimeBand)}, leaving coordinates scaled. Each ring holds alternating longitude
+   * and latitude values multiplied by {@link #SCALE}. Version 1 data is also supported.
+   */
+  public int[][] decodeScaledRings(@NonNull byte[] encoded) {
+    ScaledRings rings = new ScaledRings();
+    decode(encoded, rings);
+    return rings.toArrays();
+  }
+
+  /**
+   * Decode the rings of a path from Base 64 encoded binary representation created by {@link
+   * #encodeToBase64(PssgDriveTimeBand)}, leaving coordinates scaled. Each ring holds alternating
+   * longitude and latitude values multiplied by {@link #SCALE}.
+   */
+  public int[][] decodeScaledRingsFromBase64(@NonNull String path64) {
+    return decodeScaledRings(Base64.getDecoder().decode(path64));
+  }
+
+  /**
+   * Inflate version 1 data into scratch space. Version 1 does not record its length, so the buffer
+   * grows as needed.
+   */
   @SneakyThrows
-  private byte[] decompress(byte[] compressedData) {
+  private Scratch decompress(byte[] compressedData) {
     /*
      * When deserializing, we have to estimate how much space we need. According to zlib, typical
-     * compression is between 2:1 to 5:1. (https://zlib.net/zlib_tech.html) We'll choose 10:1.
+     * compression is between 2:1 to 5:1. (https://zlib.net/zlib_tech.html) We'll start at 10:1.
      */
-    byte[] uncompressed = new byte[compressedData.length * 10];
-    Inflater uncompressor = new Inflater();
-    uncompressor.setInput(compressedData);
-    int size = uncompressor.inflate(uncompressed);
-    uncompressor.end();
-    return Arrays.copyOf(uncompressed, size);
-  }
-
-  private byte[] encode(@NonNull PssgDriveTimeBand band) {
-    ByteBuffer buffer = ByteBuffer.allocate(sizeOf(band));
-    buffer.putInt(MAGIC_NUMBER);
-    buffer.putInt(VERSION);
+    int estimatedSize = compressedData.length * 10;
+    Scratch scratch = Scratch.acquire();
+    try {
+      byte[] uncompressed = scratch.capacity(estimatedSize, 0);
+      Inflater uncompressor = scratch.inflater;
+      uncompressor.setInput(compressedData);
+      int size = 0;
+      while (!uncompressor.finished()) {
+        if (size == uncompressed.length) {
+          uncompressed = scratch.capacity(size * 2, size);
+        }
+        int inflated = uncompressor.inflate(uncompressed, size, uncompressed.length - size);
+        if (inflated == 0 && (uncompressor.needsInput() || uncompressor.needsDictionary())) {
+          break;
+        }
+        size += inflated;
+      }
+      scratch.limit = size;
+      return scratch;
+    } catch (Exception e) {
+      scratch.release();
+      throw e;
+    }
+  }
+
+  /** Encode a drive time band into the binary representation that can be decoded into a Path. */
+  public byte[] encode(@NonNull PssgDriveTimeBand band) {
+    List<List<List<Double>>> rings =
+        band.geometry() == null ? List.of() : band.geometry().rings();
+    int[][] scaled = new int[rings.size()][];
+    for (int ringNumber = 0; ringNumber < scaled.length; ringNumber++) {
+      List<List<Double>> ring = rings.get(ringNumber);
+      scaled[ringNumber] = new int[ring.size() * 2];
+      for (int i = 0; i < ring.size(); i++) {
+        scaled[ringNumber][2 * i] = scale(ring.get(i).get(0));
+        scaled[ringNumber][2 * i + 1] = scale(ring.get(i).get(1));
+      }
+    }
+    return encodeScaledRings(scaled);
+  }
+
+  /**
+   * Encode rings of alternating scaled longitude and latitude values, as returned by {@link
+   * #decodeScaledRings(byte[])}. This allows version 1 data to be rewritten in the current version.
+   */
+  public byte[] encodeScaledRings(@NonNull int[][] rings) {
     /*
      * Encoding only needs to support the latest version. Should a format change be required in the
      * future, it can replace this format encoding, but decoding will still need to handle both.
      */
-    if (band.geometry() != null) {
-      buffer.putInt(band.geometry().rings().size());
-      band.geometry()
-          .rings()
-          .forEach(
-              ring -> {
-                buffer.putInt(ring.size());
-                ring.forEach(
-                    coords -> {
-                      int scaledLong = scale(coords.get(0));
-                      int scaledLat = scale(coords.get(1));
-                      buffer.putInt(scaledLong);
-                      buffer.putInt(scaledLat);
-                    });
-              });
-    }
-    return compress(buffer.array());
+    ByteBuffer buffer = ByteBuffer.allocate(sizeOf(rings));
+    writeVarint(buffer, rings.length);
+    int longitude = 0;
+    int latitude = 0;
+    for (int[] ring : rings) {
+      writeVarint(buffer, ring.length / 2);
+      for (int i = 0; i + 1 < ring.length; i += 2) {
+        writeVarint(buffer, zigzag(ring[i] - longitude));
+        writeVarint(buffer, zigzag(ring[i + 1] - latitude));
+        longitude = ring[i];
+        latitude = ring[i + 1];
+      }
+    }
+    byte[] encoded = compress(buffer.array(), buffer.position(), VERSION_2_HEADER_BYTES);
+    ByteBuffer.wrap(encoded).putInt(MAGIC_NUMBER).putInt(VERSION_2).putInt(buffer.position());
+    return encoded;
   }
 
   /** Encode a drive time band into a base 64 binary string that can be decoded into a Path. */
@@ -167,19 +293,141 @@ public class PathEncoder {
     return Base64.getEncoder().encodeToString(encode(band));
   }
 
-  /** Compute the amount of uncompressed space that will be required to serialize the band. */
-  private int sizeOf(PssgDriveTimeBand band) {
-    int sizeOfRings =
-        band.geometry() == null
-            ? 0
-            : band.geometry().rings().stream().mapToInt(this::sizeOfRing).sum();
-    // magic-token + version +  number-rings + sizeOfRings
-    return BYTES_PER_INT + BYTES_PER_INT + BYTES_PER_INT + sizeOfRings;
+  /** Inflate the body of version 2 data into scratch space of exactly the recorded length. */
+  @SneakyThrows
+  private Scratch inflateVersion2(byte[] encoded) {
+    int length = intAt(encoded, 2 * BYTES_PER_INT);
+    int compressedLength = encoded.length - VERSION_2_HEADER_BYTES;
+    check(
+        length > 0 && length / MAX_COMPRESSION_RATIO <= compressedLength,
+        "Uncompressed length: " + length);
+    Scratch scratch = Scratch.acquire();
+    try {
+      Inflater uncompressor = scratch.inflater;
+      uncompressor.setInput(encoded, VERSION_2_HEADER_BYTES, compressedLength);
+      int size = uncompressor.inflate(scratch.capacity(length, 0), 0, length);
+      check(size == length && uncompressor.finished(), "Uncompressed length: " + size);
+      scratch.limit = length;
+      return scratch;
+    } catch (Exception e) {
+      scratch.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Version 1 data is entirely deflated, so it starts with a zlib header, which is never zero.
+   * Version 2 data starts with the magic number, whose first byte is zero.
+   */
+  private boolean isVersion2(byte[] encoded) {
+    return encoded.length >= VERSION_2_HEADER_BYTES
+        && intAt(encoded, 0) == MAGIC_NUMBER
+        && intAt(encoded, BYTES_PER_INT) == VERSION_2;
+  }
+
+  private int readInt(Scratch scratch) {
+    check(scratch.position + BYTES_PER_INT <= scratch.limit, "Unexpected end of data");
+    int value = intAt(scratch.buffer, scratch.position);
+    scratch.position += BYTES_PER_INT;
+    return value;
+  }
+
+  private int readVarint(Scratch scratch) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      check(scratch.position < scratch.limit, "Unexpected end of data");
+      byte b = scratch.buffer[scratch.position++];
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new PathEncodingException("Malformed varint");
   }
 
-  private int sizeOfRing(List<List<Double>> ring) {
-    // number-coords + (coords lat and long)
-    return BYTES_PER_INT + BYTES_PER_INT * ring.size() * 2;
+  /** The largest amount of uncompressed space that will be required to serialize the rings. */
+  private int sizeOf(int[][] rings) {
+    int size = MAX_BYTES_PER_VARINT;
+    for (int[] ring : rings) {
+      size += MAX_BYTES_PER_VARINT + MAX_BYTES_PER_VARINT * ring.length;
+    }
+    return size;
+  }
+
+  private int unzigzag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private void visitVersion1(Scratch scratch, RingVisitor visitor) {
+    check(readInt(scratch) == MAGIC_NUMBER, "Unknown magic number");
+    check(readInt(scratch) == VERSION_1, "Unsupported version");
+    int numberOfRings = readInt(scratch);
+    check(numberOfRings > 0, "Number of rings");
+    visitor.start(numberOfRings);
+    for (int ringNumber = 0; ringNumber < numberOfRings; ringNumber++) {
+      int numberOfCoordinates = readInt(scratch);
+      check(
+          numberOfCoordinates > 0,
+          "Number of coordinates for ring " + ringNumber + ": " + numberOfCoordinates);
+      visitor.startRing(numberOfCoordinates);
+      for (int coordNumber = 0; coordNumber < numberOfCoordinates; coordNumber++) {
+        int longitude = readInt(scratch);
+        visitor.coordinate(longitude, readInt(scratch));
+      }
+      visitor.endRing();
+    }
+  }
+
+  private void visitVersion2(Scratch scratch, RingVisitor visitor) {
+    int numberOfRings = readVarint(scratch);
+    check(numberOfRings > 0, "Number of rings");
+    visitor.start(numberOfRings);
+    int longitude = 0;
+    int latitude = 0;
+    for (int ringNumber = 0; ringNumber < numberOfRings; ringNumber++) {
+      int numberOfCoordinates = readVarint(scratch);
+      check(
+          numberOfCoordinates > 0,
+          "Number of coordinates for ring " + ringNumber + ": " + numberOfCoordinates);
+      visitor.startRing(numberOfCoordinates);
+      for (int coordNumber = 0; coordNumber < numberOfCoordinates; coordNumber++) {
+        longitude += unzigzag(readVarint(scratch));
+        latitude += unzigzag(readVarint(scratch));
+        visitor.coordinate(longitude, latitude);
+      }
+      visitor.endRing();
+    }
+  }
+
+  private void writeVarint(ByteBuffer buffer, int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  private int zigzag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  /**
+   * Receives the coordinates of a path as they are decoded. Coordinates are scaled, divide by
+   * {@link #SCALE} to return to degrees. Visitors are called on the decoding thread and must not
+   * keep references to anything between calls.
+   */
+  public interface RingVisitor {
+    /** Called once per ring, after its last coordinate. */
+    default void endRing() {}
+
+    /** Called for each coordinate of the current ring. */
+    void coordinate(int scaledLongitude, int scaledLatitude);
+
+    /** Called once per path, before the first ring. */
+    default void start(int numberOfRings) {}
+
+    /** Called once per ring, before its first coordinate. */
+    default void startRing(int numberOfCoordinates) {}
   }
 
   /** Should something go wrong ... you get this. */
@@ -188,4 +436,170 @@ public class PathEncoder {
       super(message);
     }
   }
+
+  private static final class PathBuilder implements RingVisitor {
+    private final Path2D path = new Path2D.Double();
+
+    private boolean first;
+
+    @Override
+    public void coordinate(int scaledLongitude, int scaledLatitude) {
+      if (first) {
+        path.moveTo(unscale(scaledLongitude), unscale(scaledLatitude));
+        first = false;
+      } else {
+        path.lineTo(unscale(scaledLongitude), unscale(scaledLatitude));
+      }
+    }
+
+    @Override
+    public void endRing() {
+      path.closePath();
+    }
+
+    @Override
+    public void startRing(int numberOfCoordinates) {
+      first = true;
+    }
+  }
+
+  /**
+   * Reusable destination for decoded coordinates. Coordinates of every ring are stored one after
+   * another in a single array of alternating scaled longitude and latitude values, which only grows
+   * when a path is larger than any decoded before. Contents are replaced by each decode.
+   */
+  public static final class ScaledRings implements RingVisitor {
+    private int[] coordinates = new int[256];
+
+    private int[] ringEnds = new int[4];
+
+    private int size;
+
+    private int rings;
+
+    @Override
+    public void coordinate(int scaledLongitude, int scaledLatitude) {
+      if (size + 2 > coordinates.length) {
+        coordinates = Arrays.copyOf(coordinates, Math.max(coordinates.length * 2, size + 2));
+      }
+      coordinates[size++] = scaledLongitude;
+      coordinates[size++] = scaledLatitude;
+    }
+
+    /**
+     * Alternating scaled longitude and latitude values of every ring. Only the first {@link
+     * #size()} values are meaningful.
+     */
+    public int[] coordinates() {
+      return coordinates;
+    }
+
+    @Override
+    public void endRing() {
+      if (rings == ringEnds.length) {
+        ringEnds = Arrays.copyOf(ringEnds, rings * 2);
+      }
+      ringEnds[rings++] = size;
+    }
+
+    /** Index in {@link #coordinates()} after the last value of the ring. */
+    public int ringEnd(int ring) {
+      return ringEnds[ring];
+    }
+
+    /** Index in {@link #coordinates()} of the first value of the ring. */
+    public int ringStart(int ring) {
+      return ring == 0 ? 0 : ringEnds[ring - 1];
+    }
+
+    /** The number of rings decoded. */
+    public int rings() {
+      return rings;
+    }
+
+    /** The number of values in {@link #coordinates()}, twice the number of coordinates. */
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public void start(int numberOfRings) {
+      size = 0;
+      rings = 0;
+      if (ringEnds.length < numberOfRings) {
+        ringEnds = new int[numberOfRings];
+      }
+    }
+
+    @Override
+    public void startRing(int numberOfCoordinates) {
+      if (size + 2 * numberOfCoordinates > coordinates.length) {
+        coordinates = Arrays.copyOf(coordinates, size + 2 * numberOfCoordinates);
+      }
+    }
+
+    /** Copy each ring to its own array. */
+    public int[][] toArrays() {
+      int[][] arrays = new int[rings][];
+      for (int ring = 0; ring < rings; ring++) {
+        arrays[ring] = Arrays.copyOfRange(coordinates, ringStart(ring), ringEnd(ring));
+      }
+      return arrays;
+    }
+  }
+
+  /**
+   * Inflater and inflated data of the decode in progress. Each thread has one that is reused.
+   * Should a visitor decode another path, the nested decode uses a temporary one.
+   */
+  private static final class Scratch {
+    private final Inflater inflater = new Inflater();
+
+    private final boolean pooled;
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_BYTES];
+
+    private int position;
+
+    private int limit;
+
+    private boolean inUse;
+
+    private Scratch(boolean pooled) {
+      this.pooled = pooled;
+    }
+
+    static Scratch acquire() {
+      Scratch scratch = SCRATCH.get();
+      if (scratch.inUse) {
+        scratch = new Scratch(false);
+      }
+      scratch.inUse = true;
+      scratch.position = 0;
+      scratch.limit = 0;
+      return scratch;
+    }
+
+    /** The buffer, grown to at least the size, keeping the first values if it must grow. */
+    byte[] capacity(int size, int keep) {
+      if (buffer.length < size) {
+        byte[] larger = new byte[Math.max(size, buffer.length * 2)];
+        System.arraycopy(buffer, 0, larger, 0, keep);
+        buffer = larger;
+      }
+      return buffer;
+    }
+
+    void release() {
+      inUse = false;
+      if (pooled) {
+        inflater.reset();
+        if (buffer.length > MAX_RETAINED_BUFFER_BYTES) {
+          buffer = new byte[INITIAL_BUFFER_BYTES];
+        }
+      } else {
+        inflater.end();
+      }
+    }
+  }
 }
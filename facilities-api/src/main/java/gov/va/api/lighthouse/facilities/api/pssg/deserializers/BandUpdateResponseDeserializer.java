@@ -11,6 +11,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import gov.va.api.lighthouse.facilities.api.pssg.BandUpdateResponse;
 import java.util.List;
+import java.util.Map;
 import lombok.SneakyThrows;
 
 public class BandUpdateResponseDeserializer extends StdDeserializer<BandUpdateResponse> {
@@ -32,6 +33,7 @@ public class BandUpdateResponseDeserializer extends StdDeserializer<BandUpdateRe
     JsonNode node = jp.getCodec().readTree(jp);
     JsonNode bandsUpdatedNode = node.get("bandsUpdated");
     JsonNode bandsCreatedNode = node.get("bandsCreated");
+    JsonNode timingsNode = node.get("timings");
 
     TypeReference<List<String>> bandsList = new TypeReference<>() {};
     return BandUpdateResponse.builder()
@@ -43,6 +45,10 @@ public class BandUpdateResponseDeserializer extends StdDeserializer<BandUpdateRe
             isBlank(bandsCreatedNode)
                 ? emptyList()
                 : MAPPER.convertValue(bandsCreatedNode, bandsList))
+        .timings(
+            isBlank(timingsNode)
+                ? null
+                : MAPPER.convertValue(timingsNode, new TypeReference<Map<String, Long>>() {}))
         .build();
   }
 
@@ -23,6 +23,7 @@ public class BandUpdateResponseSerializer extends StdSerializer<BandUpdateRespon
     jgen.writeStartObject();
     writeNonEmpty(jgen, "bandsCreated", bandUpdateResponse.bandsCreated());
     writeNonEmpty(jgen, "bandsUpdated", bandUpdateResponse.bandsUpdated());
+    writeNonEmpty(jgen, "timings", bandUpdateResponse.timings());
     jgen.writeEndObject();
   }
 
@@ -0,0 +1,77 @@
+package gov.va.api.lighthouse.facilities.api.v1;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.parameters.RequestBody;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+
+public interface FacilitiesBatchApi {
+  @Operation(
+      summary = "Retrieve many facilities by ID",
+      description =
+          "Retrieves up to "
+              + FacilitiesBatchRequest.MAX_IDS
+              + " facilities by ID, in the order requested. "
+              + "Unknown IDs are skipped. "
+              + "Use this instead of `ids` when there are too many IDs for a URL.",
+      operationId = "getFacilitiesBatch",
+      tags = {"facilities"},
+      security = @SecurityRequirement(name = "apikey"))
+  @POST
+  @Path("/facilities/batch")
+  @ApiResponse(
+      responseCode = "200",
+      description = "Success",
+      content = {
+        @Content(
+            mediaType = "application/json",
+            schema = @Schema(implementation = FacilitiesResponse.class))
+      })
+  @ApiResponse(
+      responseCode = "400",
+      description = "Bad request - too many IDs",
+      content =
+          @Content(
+              mediaType = "application/json",
+              schema = @Schema(implementation = ApiError.class)))
+  @ApiResponse(
+      responseCode = "401",
+      description = "Missing API token",
+      content =
+          @Content(
+              mediaType = "application/json",
+              schema = @Schema(implementation = GenericError.class)))
+  @ApiResponse(
+      responseCode = "403",
+      description = "Invalid API token",
+      content =
+          @Content(
+              mediaType = "application/json",
+              schema = @Schema(implementation = GenericError.class)))
+  @ApiResponse(
+      responseCode = "406",
+      description = "Requested format unacceptable",
+      content =
+          @Content(
+              mediaType = "application/json",
+              schema = @Schema(implementation = ApiError.class)))
+  @ApiResponse(
+      responseCode = "429",
+      description = "API rate limit exceeded",
+      content =
+          @Content(
+              mediaType = "application/json",
+              schema = @Schema(implementation = ApiError.class)))
+  FacilitiesResponse getFacilitiesBatch(
+      @RequestBody(
+              required = true,
+              content =
+                  @Content(
+                      mediaType = "application/json",
+                      schema = @Schema(implementation = FacilitiesBatchRequest.class)))
+          FacilitiesBatchRequest request);
+}
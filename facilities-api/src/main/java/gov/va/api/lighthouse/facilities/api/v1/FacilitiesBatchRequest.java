@@ -0,0 +1,33 @@
+package gov.va.api.lighthouse.facilities.api.v1;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import javax.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
+@Schema(description = "Request for many facilities by ID.")
+public final class FacilitiesBatchRequest {
+  /** The most IDs that may be requested at once. */
+  public static final int MAX_IDS = 5000;
+
+  @ArraySchema(
+      arraySchema =
+          @Schema(
+              description =
+                  "Facility IDs, in the form `<prefix>_<station>`. "
+                      + "Facilities are returned in the order requested.",
+              example = "[\"vha_688\", \"vba_348\"]"),
+      maxItems = MAX_IDS)
+  @Size(max = MAX_IDS)
+  List<String> ids;
+}
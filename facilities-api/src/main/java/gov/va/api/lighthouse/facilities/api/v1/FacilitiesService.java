@@ -123,4 +123,5 @@ public interface FacilitiesService
         DetailedServicesApi,
         DetailedServiceApi,
         FacilitiesIdsApi,
-        FacilitiesNearbyApi {}
+        FacilitiesNearbyApi,
+        FacilitiesBatchApi {}
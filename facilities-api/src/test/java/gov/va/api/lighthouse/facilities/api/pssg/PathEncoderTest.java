@@ -8,15 +8,105 @@ import gov.va.api.lighthouse.facilities.api.pssg.PssgDriveTimeBand.Attributes;
 import gov.va.api.lighthouse.facilities.api.pssg.PssgDriveTimeBand.Geometry;
 import java.awt.geom.Path2D;
 import java.awt.geom.PathIterator;
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 
 @Slf4j
 public class PathEncoderTest {
+  @Test
+  void decodeScaledRings() {
+    List<List<Double>> ring = PssgDriveTimeBand.newRing(3);
+    ring.add(PssgDriveTimeBand.coord(1.111, -1.111));
+    ring.add(PssgDriveTimeBand.coord(1.111, -4.444));
+    ring.add(PssgDriveTimeBand.coord(-2.222, 4.444));
+    List<List<List<Double>>> rings = PssgDriveTimeBand.newListOfRings();
+    rings.add(ring);
+    rings.add(ring);
+    var band =
+        PssgDriveTimeBand.builder()
+            .attributes(Attributes.builder().stationNumber("No1").fromBreak(10).toBreak(20).build())
+            .geometry(Geometry.builder().rings(rings).build())
+            .build();
+    int[][] scaled =
+        PathEncoder.create().decodeScaledRingsFromBase64(PathEncoder.create().encodeToBase64(band));
+    assertThat(scaled).hasDimensions(2, 6);
+    assertThat(scaled[0]).containsExactly(111100, -111100, 111100, -444400, -222200, 444400);
+    assertThat(scaled[1]).isEqualTo(scaled[0]);
+  }
+
+  @Test
+  void decodesVersion1() {
+    // Single ring of (1.111,-1.111) (1.111,-4.444) (-2.222,4.444), fully deflated
+    String version1 = "eJxjYJh4k4GBgRGKmRkYN/75/8+PBUz/tBD4/2cOBwPb8Q8Ayz8Ntw==";
+    assertThat(PathEncoder.create().decodeScaledRingsFromBase64(version1))
+        .isEqualTo(new int[][] {{111100, -111100, 111100, -444400, -222200, 444400}});
+    assertThat(PathEncoder.create().decodeFromBase64(version1).getBounds2D().getMinX())
+        .isCloseTo(-2.222, offset(0.00001));
+  }
+
+  @Test
+  void decodeToReusedScaledRings() {
+    PathEncoder encoder = PathEncoder.create();
+    PathEncoder.ScaledRings rings = new PathEncoder.ScaledRings();
+    int[][] large = {new int[2000], {1, 2, 3, 4}};
+    encoder.decode(encoder.encodeScaledRings(large), rings);
+    assertThat(rings.rings()).isEqualTo(2);
+    assertThat(rings.size()).isEqualTo(2004);
+    assertThat(rings.toArrays()).isEqualTo(large);
+    int[] coordinates = rings.coordinates();
+    encoder.decode(encoder.encodeScaledRings(new int[][] {{5, 6, 7, 8}}), rings);
+    assertThat(rings.coordinates()).isSameAs(coordinates);
+    assertThat(rings.rings()).isEqualTo(1);
+    assertThat(rings.ringStart(0)).isEqualTo(0);
+    assertThat(rings.ringEnd(0)).isEqualTo(4);
+    assertThat(rings.toArrays()).isEqualTo(new int[][] {{5, 6, 7, 8}});
+  }
+
+  @Test
+  void decodeWithinVisitor() {
+    PathEncoder encoder = PathEncoder.create();
+    byte[] outer = encoder.encodeScaledRings(new int[][] {{1, 2, 3, 4}});
+    byte[] inner = encoder.encodeScaledRings(new int[][] {{5, 6}});
+    List<String> visited = new ArrayList<>();
+    encoder.decode(
+        outer,
+        new PathEncoder.RingVisitor() {
+          @Override
+          public void coordinate(int scaledLongitude, int scaledLatitude) {
+            visited.add(scaledLongitude + "," + scaledLatitude);
+            visited.add(Arrays.deepToString(encoder.decodeScaledRings(inner)));
+          }
+
+          @Override
+          public void endRing() {
+            visited.add("end");
+          }
+        });
+    assertThat(visited).containsExactly("1,2", "[[5, 6]]", "3,4", "[[5, 6]]", "end");
+  }
+
+  @Test
+  void encodesVersion2() {
+    int[][] rings = {
+      {Integer.MAX_VALUE, Integer.MIN_VALUE, -18000000, 9000000, -17999999, 8999998},
+      {0, 0, 127, -64, 128, -65}
+    };
+    byte[] encoded = PathEncoder.create().encodeScaledRings(rings);
+    assertThat(Arrays.copyOf(encoded, 8)).isEqualTo(new byte[] {0, 0, -111, -39, 0, 0, 0, 2});
+    assertThat(PathEncoder.create().decodeScaledRings(encoded)).isEqualTo(rings);
+    byte[] truncated = Arrays.copyOf(encoded, encoded.length - 1);
+    assertThatThrownBy(() -> PathEncoder.create().decodeScaledRings(truncated))
+        .isInstanceOf(PathEncoder.PathEncodingException.class);
+  }
+
   @Test
   @SneakyThrows
   void exceptions() {
@@ -35,6 +125,30 @@ public class PathEncoderTest {
                 "Cannot read the array length because \"compressedData\" is null"));
   }
 
+  @SneakyThrows
+  private static byte[] scratchBuffer() {
+    Field scratchField = PathEncoder.class.getDeclaredField("SCRATCH");
+    scratchField.setAccessible(true);
+    Object scratch = ((ThreadLocal<?>) scratchField.get(null)).get();
+    Field buffer = scratch.getClass().getDeclaredField("buffer");
+    buffer.setAccessible(true);
+    return (byte[]) buffer.get(scratch);
+  }
+
+  @Test
+  void largeBandsReuseScratchBuffer() {
+    PathEncoder encoder = PathEncoder.create();
+    int[][] large = {new Random(1).ints(20000, -1000000, 1000000).toArray()};
+    byte[] encoded = encoder.encodeScaledRings(large);
+    PathEncoder.ScaledRings rings = new PathEncoder.ScaledRings();
+    encoder.decode(encoded, rings);
+    byte[] buffer = scratchBuffer();
+    assertThat(buffer.length).isGreaterThan(8192);
+    encoder.decode(encoded, rings);
+    assertThat(scratchBuffer()).isSameAs(buffer);
+    assertThat(rings.toArrays()).isEqualTo(large);
+  }
+
   @Test
   void roundTrip() {
     List<List<Double>> ring1 = PssgDriveTimeBand.newRing(6);
@@ -6,6 +6,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import gov.va.api.lighthouse.facilities.api.pssg.BandUpdateResponse;
 import java.util.List;
+import java.util.Map;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
 
@@ -47,5 +48,15 @@ public class DeserializerTest {
             .bandsCreated(emptyList())
             .build();
     assertJson("{\"bandsUpdated\":[\"vba_123\",\"vba_456\"]}", BandUpdateResponse.class, response);
+    response =
+        BandUpdateResponse.builder()
+            .bandsUpdated(emptyList())
+            .bandsCreated(List.of("vba_789"))
+            .timings(Map.of("encode", 5L, "write", 12L))
+            .build();
+    assertJson(
+        "{\"bandsCreated\":[\"vba_789\"],\"timings\":{\"encode\":5,\"write\":12}}",
+        BandUpdateResponse.class,
+        response);
   }
 }
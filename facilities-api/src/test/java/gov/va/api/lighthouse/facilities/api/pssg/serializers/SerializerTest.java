@@ -6,7 +6,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import gov.va.api.lighthouse.facilities.api.pssg.BandUpdateResponse;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
 
@@ -56,5 +58,14 @@ public class SerializerTest {
             .bandsCreated(emptyList())
             .build();
     assertJson(response, "{\"bandsUpdated\":[\"vba_123\",\"vba_456\"]}");
+    response =
+        BandUpdateResponse.builder()
+            .bandsUpdated(emptyList())
+            .bandsCreated(List.of("vba_789"))
+            .timings(new LinkedHashMap<>(Map.of("encode", 5L)))
+            .build();
+    response.timings().put("write", 12L);
+    assertJson(
+        response, "{\"bandsCreated\":[\"vba_789\"],\"timings\":{\"encode\":5,\"write\":12}}");
   }
 }
@@ -61,6 +61,11 @@ public class ModelTest {
             .build());
   }
 
+  @Test
+  void facilitiesBatchRequest() {
+    roundTrip(FacilitiesBatchRequest.builder().ids(List.of("vha_688", "vba_348")).build());
+  }
+
   @Test
   void facilitiesReadResponse() {
     roundTrip(
@@ -0,0 +1,173 @@
+package gov.va.api.lighthouse.facilities;
+
+import static java.util.stream.Collectors.toList;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.va.api.health.autoconfig.configuration.JacksonConfig;
+import gov.va.api.lighthouse.facilities.api.pssg.PathEncoder;
+import gov.va.api.lighthouse.facilities.api.pssg.PssgDriveTimeBand;
+import gov.va.api.lighthouse.facilities.api.pssg.PssgResponse;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding, decoding, and searching of drive time bands. Bands are the PSSG responses served by
+ * facilities-mock-services. Encoding, decoding, and containment tests cycle through every band, the
+ * nearby search considers all of them at once from the center of the first.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DriveTimeBandBenchmarks {
+  private static final List<String> RESOURCES =
+      List.of(
+          "/pssg-drive-time-bands-0.json",
+          "/pssg-drive-time-bands-1.json",
+          "/pssg-drive-time-bands-2.json");
+
+  private final PathEncoder encoder = PathEncoder.create();
+
+  private final PathEncoder.ScaledRings scaledRings = new PathEncoder.ScaledRings();
+
+  private List<PssgDriveTimeBand> bands;
+
+  private List<DriveTimeBandEntity> entities;
+
+  private List<byte[]> payloads;
+
+  private List<Path2D> paths;
+
+  private List<DriveTimeBandPolygon> polygons;
+
+  private List<Point2D> centers;
+
+  private BigDecimal longitude;
+
+  private BigDecimal latitude;
+
+  private int next;
+
+  private static Rectangle2D boundsOf(PssgDriveTimeBand band) {
+    Rectangle2D bounds = null;
+    for (List<List<Double>> ring : band.geometry().rings()) {
+      for (List<Double> coord : ring) {
+        double x = coord.get(PssgDriveTimeBand.INDEX_LONGITUDE);
+        double y = coord.get(PssgDriveTimeBand.INDEX_LATITUDE);
+        if (bounds == null) {
+          bounds = new Rectangle2D.Double(x, y, 0, 0);
+        } else {
+          bounds.add(x, y);
+        }
+      }
+    }
+    return bounds == null ? new Rectangle2D.Double() : bounds;
+  }
+
+  @SneakyThrows
+  private static List<PssgDriveTimeBand> readBands() {
+    ObjectMapper mapper = JacksonConfig.createMapper();
+    List<PssgDriveTimeBand> bands = new ArrayList<>();
+    for (String resource : RESOURCES) {
+      try (InputStream in = DriveTimeBandBenchmarks.class.getResourceAsStream(resource)) {
+        bands.addAll(mapper.readValue(in, PssgResponse.class).features());
+      }
+    }
+    return bands;
+  }
+
+  private static DriveTimeBandEntity toEntity(PssgDriveTimeBand band, String encoded) {
+    Rectangle2D bounds = boundsOf(band);
+    return DriveTimeBandEntity.builder()
+        .id(
+            DriveTimeBandEntity.Pk.of(
+                band.attributes().stationNumber(),
+                band.attributes().fromBreak(),
+                band.attributes().toBreak()))
+        .minLongitude(bounds.getMinX())
+        .minLatitude(bounds.getMinY())
+        .maxLongitude(bounds.getMaxX())
+        .maxLatitude(bounds.getMaxY())
+        .monthYear(band.attributes().monthYear())
+        .band(encoded)
+        .build();
+  }
+
+  @Benchmark
+  public boolean containsPath() {
+    int i = nextIndex();
+    return paths.get(i).contains(centers.get(i));
+  }
+
+  @Benchmark
+  public boolean containsPolygon() {
+    int i = nextIndex();
+    Point2D center = centers.get(i);
+    return polygons.get(i).contains(center.getX(), center.getY());
+  }
+
+  @Benchmark
+  public Path2D decodeFromBase64() {
+    return encoder.decodeFromBase64(entities.get(nextIndex()).band());
+  }
+
+  @Benchmark
+  public int decodeToScaledRings() {
+    encoder.decode(payloads.get(nextIndex()), scaledRings);
+    return scaledRings.size();
+  }
+
+  @Benchmark
+  public String encodeToBase64() {
+    return encoder.encodeToBase64(bands.get(nextIndex()));
+  }
+
+  @Benchmark
+  public Map<String, DriveTimeBandEntity> intersections() {
+    return NearbyUtils.intersections(longitude, latitude, entities);
+  }
+
+  private int nextIndex() {
+    next = (next + 1) % bands.size();
+    return next;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    bands = readBands();
+    entities =
+        bands.stream().map(b -> toEntity(b, encoder.encodeToBase64(b))).collect(toList());
+    payloads = bands.stream().map(encoder::encode).collect(toList());
+    paths = entities.stream().map(e -> encoder.decodeFromBase64(e.band())).collect(toList());
+    polygons = entities.stream().map(NearbyUtils::toPolygon).collect(toList());
+    centers =
+        bands.stream()
+            .map(DriveTimeBandBenchmarks::boundsOf)
+            .map(r -> new Point2D.Double(r.getCenterX(), r.getCenterY()))
+            .collect(toList());
+    Rectangle2D first = boundsOf(bands.get(0));
+    longitude = BigDecimal.valueOf(first.getCenterX());
+    latitude = BigDecimal.valueOf(first.getCenterY());
+  }
+}
@@ -0,0 +1,104 @@
+package gov.va.api.lighthouse.facilities;
+
+import static gov.va.api.lighthouse.facilities.api.ServiceLinkBuilder.buildLinkerUrlV1;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transformation and serialization of a single facility, from the stored payload through to the
+ * bytes of the V0 and V1 responses. Samples are the {@link FacilitySamples} fixtures.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FacilityBenchmarks {
+  private static final List<String> SERVICE_SOURCES =
+      List.of("ATC", "CMS", "DST", "internal", "BISL");
+
+  private final String linkerUrl = buildLinkerUrlV1("http://foo/", "bp");
+
+  private final ObjectMapper datamartMapper = DatamartFacilitiesJacksonConfig.createMapper();
+
+  private final ObjectMapper mapperV0 = FacilitiesJacksonConfigV0.createMapper();
+
+  private final ObjectMapper mapperV1 = FacilitiesJacksonConfigV1.createMapper();
+
+  @Param({"vha_691GB", "vha_740GA", "vha_757"})
+  private String id;
+
+  private FacilityEntity entity;
+
+  private DatamartFacility datamartFacility;
+
+  private gov.va.api.lighthouse.facilities.api.v0.Facility facilityV0;
+
+  private gov.va.api.lighthouse.facilities.api.v1.Facility facilityV1;
+
+  private byte[] servicesJson;
+
+  @Benchmark
+  public List<String> csvRowV1() {
+    return CsvTransformerV1.builder().facility(facilityV1).build().toRow();
+  }
+
+  @Benchmark
+  @SneakyThrows
+  public DatamartFacility.Services deserializeDatamartServices() {
+    return datamartMapper.readValue(servicesJson, DatamartFacility.Services.class);
+  }
+
+  @Benchmark
+  public gov.va.api.lighthouse.facilities.api.v1.Facility overlayV1() {
+    return FacilityOverlayV1.builder().build().apply(entity, linkerUrl, SERVICE_SOURCES);
+  }
+
+  @Benchmark
+  @SneakyThrows
+  public byte[] serializeV0() {
+    return mapperV0.writeValueAsBytes(facilityV0);
+  }
+
+  @Benchmark
+  @SneakyThrows
+  public byte[] serializeV1() {
+    return mapperV1.writeValueAsBytes(facilityV1);
+  }
+
+  @Setup
+  @SneakyThrows
+  public void setup() {
+    FacilitySamples samples = FacilitySamples.defaultSamples(linkerUrl);
+    entity = samples.facilityEntity(id);
+    datamartFacility = FacilityPayloads.read(entity);
+    facilityV0 = FacilityTransformerV0.toFacility(datamartFacility);
+    facilityV1 = FacilityTransformerV1.toFacility(datamartFacility, linkerUrl, SERVICE_SOURCES);
+    servicesJson = datamartMapper.writeValueAsBytes(datamartFacility.attributes().services());
+  }
+
+  @Benchmark
+  public gov.va.api.lighthouse.facilities.api.v0.Facility transformV0() {
+    return FacilityTransformerV0.toFacility(datamartFacility);
+  }
+
+  @Benchmark
+  public gov.va.api.lighthouse.facilities.api.v1.Facility transformV1() {
+    return FacilityTransformerV1.toFacility(datamartFacility, linkerUrl, SERVICE_SOURCES);
+  }
+}
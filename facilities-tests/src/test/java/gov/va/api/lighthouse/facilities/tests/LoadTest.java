@@ -0,0 +1,385 @@
+package gov.va.api.lighthouse.facilities.tests;
+
+import static gov.va.api.lighthouse.facilities.tests.SystemDefinitions.CLIENT_KEY_DEFAULT;
+import static gov.va.api.lighthouse.facilities.tests.SystemDefinitions.systemDefinition;
+import static java.util.stream.Collectors.toList;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.va.api.health.autoconfig.configuration.JacksonConfig;
+import gov.va.api.health.sentinel.ExpectedResponse;
+import gov.va.api.lighthouse.facilities.api.pssg.PssgDriveTimeBand;
+import gov.va.api.lighthouse.facilities.api.pssg.PssgResponse;
+import gov.va.api.lighthouse.facilities.api.v0.FacilitiesIdsResponse;
+import gov.va.api.lighthouse.facilities.api.v1.CmsOverlay;
+import gov.va.api.lighthouse.facilities.api.v1.Facility.OperatingStatus;
+import gov.va.api.lighthouse.facilities.api.v1.Facility.OperatingStatusCode;
+import io.restassured.RestAssured;
+import io.restassured.http.Method;
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drives a weighted mix of requests at the Facilities API from concurrent clients, then reports
+ * throughput and latency percentiles per endpoint. Run with the load-test profile, which boots the
+ * application against the local H2 database and the mock services.
+ *
+ * <p>Configured with system properties:
+ *
+ * <ul>
+ *   <li>load.concurrency - Number of concurrent clients, default 8
+ *   <li>load.warmup - Seconds of requests that are not recorded, default 15
+ *   <li>load.duration - Seconds of recorded requests, default 60
+ *   <li>load.mix - Weight of each scenario, e.g. read=40,state=10, default {@link #DEFAULT_MIX}
+ *   <li>load.report - JSON report file, default target/load-test-report.json
+ * </ul>
+ */
+@Slf4j
+public class LoadTest {
+  static final String DEFAULT_MIX =
+      "read=40,state=10,zip=10,bbox=10,latlong=10,nearby=12,all=2,cms-overlay=6";
+
+  private static final ObjectMapper MAPPER = JacksonConfig.createMapper();
+
+  private static final List<String> BANDS =
+      List.of("/pssg-drive-time-bands-0.json", "/pssg-drive-time-bands-1.json");
+
+  private final String baseUrl = facilitiesUrl();
+
+  private final HttpClient client =
+      HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+  private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+  private final List<String> ids;
+
+  private final List<Scenario> scenarios;
+
+  private final int totalWeight;
+
+  private volatile boolean recording;
+
+  LoadTest(@NonNull List<String> ids, @NonNull Map<String, Integer> mix) {
+    this.ids = ids;
+    Map<String, Scenario> available = scenarios();
+    scenarios =
+        mix.entrySet().stream()
+            .filter(e -> e.getValue() > 0)
+            .map(
+                e -> {
+                  Scenario s = available.get(e.getKey());
+                  if (s == null) {
+                    throw new IllegalArgumentException(
+                        "Unknown scenario " + e.getKey() + ", expected " + available.keySet());
+                  }
+                  return s.withWeight(e.getValue());
+                })
+            .collect(toList());
+    totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+    if (totalWeight <= 0) {
+      throw new IllegalArgumentException("Load test mix is empty");
+    }
+  }
+
+  private static String facilitiesUrl() {
+    SystemDefinitions.Service svc = systemDefinition().facilities();
+    String apiPath = svc.apiPath();
+    return svc.url()
+        + ":"
+        + svc.port()
+        + (apiPath.startsWith("/") ? "" : "/")
+        + apiPath
+        + (apiPath.endsWith("/") ? "" : "/");
+  }
+
+  private static int intProperty(String name, int defaultValue) {
+    return Integer.parseInt(System.getProperty(name, String.valueOf(defaultValue)));
+  }
+
+  private static List<String> loadIds() {
+    SystemDefinitions.Service svc = systemDefinition().facilities();
+    List<String> ids =
+        ExpectedResponse.of(
+                RestAssured.given()
+                    .baseUri(svc.url())
+                    .port(svc.port())
+                    .relaxedHTTPSValidation()
+                    .request(Method.GET, svc.urlWithApiPath() + "v0/ids"))
+            .expect(200)
+            .expectValid(FacilitiesIdsResponse.class)
+            .data();
+    if (ids.isEmpty()) {
+      throw new IllegalStateException("No facilities are loaded");
+    }
+    return ids;
+  }
+
+  /** Run the load test, see the class documentation for configuration. */
+  @SneakyThrows
+  public static void main(String[] args) {
+    RequiresFacilitiesExtension.loadIfNecessary();
+    uploadDriveTimeBands();
+    LoadTest test = new LoadTest(loadIds(), parseMix(System.getProperty("load.mix", DEFAULT_MIX)));
+    List<EndpointReport> report =
+        test.run(
+            intProperty("load.concurrency", 8),
+            Duration.ofSeconds(intProperty("load.warmup", 15)),
+            Duration.ofSeconds(intProperty("load.duration", 60)));
+    report.forEach(r -> log.info("{}", r.summary()));
+    File file = new File(System.getProperty("load.report", "target/load-test-report.json"));
+    MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, report);
+    log.info("Report written to {}", file.getAbsolutePath());
+  }
+
+  static Map<String, Integer> parseMix(@NonNull String mix) {
+    Map<String, Integer> weights = new LinkedHashMap<>();
+    for (String entry : mix.split(",")) {
+      String[] nameAndWeight = entry.trim().split("=");
+      if (nameAndWeight.length != 2) {
+        throw new IllegalArgumentException("Expected name=weight, got " + entry);
+      }
+      weights.put(nameAndWeight[0].trim(), Integer.parseInt(nameAndWeight[1].trim()));
+    }
+    return weights;
+  }
+
+  /** Drive time bands are needed for nearby searches to do any work. */
+  @SneakyThrows
+  private static void uploadDriveTimeBands() {
+    SystemDefinitions.Service svc = systemDefinition().facilitiesInternal();
+    for (String resource : BANDS) {
+      List<PssgDriveTimeBand> bands =
+          MAPPER.readValue(
+              LoadTest.class.getResource(resource),
+              new TypeReference<List<PssgDriveTimeBand>>() {});
+      ExpectedResponse.of(
+              RestAssured.given()
+                  .baseUri(svc.url())
+                  .port(svc.port())
+                  .relaxedHTTPSValidation()
+                  .header("client-key", System.getProperty("client-key", CLIENT_KEY_DEFAULT))
+                  .contentType("application/json")
+                  .body(MAPPER.writeValueAsString(PssgResponse.builder().features(bands).build()))
+                  .request(Method.POST, svc.urlWithApiPath() + "internal/management/bands"))
+          .expect(200);
+    }
+  }
+
+  @SneakyThrows
+  private static HttpRequest.BodyPublisher cmsOverlayBody() {
+    return HttpRequest.BodyPublishers.ofString(
+        MAPPER.writeValueAsString(
+            CmsOverlay.builder()
+                .operatingStatus(
+                    OperatingStatus.builder()
+                        .code(OperatingStatusCode.NORMAL)
+                        .additionalInfo("Load test")
+                        .build())
+                .build()));
+  }
+
+  private HttpRequest.Builder get(String path) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .timeout(Duration.ofSeconds(60))
+        .header("Accept", "application/json")
+        .GET();
+  }
+
+  private String randomId() {
+    return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+  }
+
+  private Scenario randomScenario() {
+    int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+    for (Scenario s : scenarios) {
+      pick -= s.weight();
+      if (pick < 0) {
+        return s;
+      }
+    }
+    throw new IllegalStateException("Weights changed");
+  }
+
+  /** Requests and expected responses by scenario name. */
+  private Map<String, Scenario> scenarios() {
+    SystemDefinitions.Ids known = systemDefinition().ids();
+    String bbox = known.bbox().replace("[]", "%5B%5D");
+    String latLong = "lat=" + known.latitude() + "&long=" + known.longitude();
+    List<Scenario> all =
+        List.of(
+            Scenario.of("read", () -> get("v1/facilities/" + randomId())),
+            Scenario.of("state", () -> get("v1/facilities?state=" + known.state())),
+            Scenario.of("zip", () -> get("v1/facilities?zip=" + known.zip())),
+            Scenario.of("bbox", () -> get("v1/facilities?" + bbox)),
+            Scenario.of("latlong", () -> get("v1/facilities?" + latLong)),
+            Scenario.of(
+                "nearby",
+                () ->
+                    get("v1/nearby?lat=" + known.latitude() + "&lng=" + known.longitude())),
+            Scenario.of("all", () -> get("v0/facilities/all")),
+            Scenario.of(
+                "cms-overlay",
+                () ->
+                    HttpRequest.newBuilder(
+                            URI.create(baseUrl + "v1/facilities/" + randomId() + "/cms-overlay"))
+                        .timeout(Duration.ofSeconds(60))
+                        .header("Content-Type", "application/json")
+                        .POST(cmsOverlayBody())));
+    Map<String, Scenario> byName = new LinkedHashMap<>();
+    all.forEach(s -> byName.put(s.name(), s));
+    return byName;
+  }
+
+  private void client(long stopAt) {
+    while (System.nanoTime() < stopAt) {
+      Scenario scenario = randomScenario();
+      HttpRequest request = scenario.request().get().build();
+      long start = System.nanoTime();
+      boolean ok;
+      try {
+        HttpResponse<Void> response =
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        ok = response.statusCode() < 400;
+      } catch (Exception e) {
+        ok = false;
+      }
+      long elapsed = System.nanoTime() - start;
+      if (recording) {
+        stats.computeIfAbsent(scenario.name(), n -> new Stats()).record(elapsed, ok);
+      }
+    }
+  }
+
+  /** Warm up, then record requests for the given duration. */
+  @SneakyThrows
+  List<EndpointReport> run(int concurrency, Duration warmup, Duration duration) {
+    log.info(
+        "Load testing {} with {} clients, {} warm up, {} recorded: {}",
+        baseUrl,
+        concurrency,
+        warmup,
+        duration,
+        scenarios);
+    long stopAt = System.nanoTime() + warmup.toNanos() + duration.toNanos();
+    ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+    for (int i = 0; i < concurrency; i++) {
+      executor.execute(() -> client(stopAt));
+    }
+    Thread.sleep(warmup.toMillis());
+    recording = true;
+    executor.shutdown();
+    if (!executor.awaitTermination(duration.toSeconds() + 120, TimeUnit.SECONDS)) {
+      executor.shutdownNow();
+    }
+    double seconds = duration.toMillis() / 1000.0;
+    return scenarios.stream()
+        .map(s -> stats.getOrDefault(s.name(), new Stats()).report(s.name(), seconds))
+        .collect(toList());
+  }
+
+  @Value
+  @Builder
+  static final class EndpointReport {
+    String endpoint;
+
+    long requests;
+
+    long errors;
+
+    double throughput;
+
+    double p50Millis;
+
+    double p95Millis;
+
+    double p99Millis;
+
+    double maxMillis;
+
+    String summary() {
+      return String.format(
+          "%-12s %7d requests %5d errors %8.1f/s p50 %8.1fms p95 %8.1fms p99 %8.1fms max %8.1fms",
+          endpoint, requests, errors, throughput, p50Millis, p95Millis, p99Millis, maxMillis);
+    }
+  }
+
+  @Value
+  @Builder(toBuilder = true)
+  private static final class Scenario {
+    String name;
+
+    int weight;
+
+    Supplier<HttpRequest.Builder> request;
+
+    static Scenario of(String name, Supplier<HttpRequest.Builder> request) {
+      return Scenario.builder().name(name).weight(1).request(request).build();
+    }
+
+    Scenario withWeight(int newWeight) {
+      return toBuilder().weight(newWeight).build();
+    }
+
+    @Override
+    public String toString() {
+      return name + "=" + weight;
+    }
+  }
+
+  /** Latencies of one endpoint, in nanoseconds. */
+  private static final class Stats {
+    private final List<Long> latencies = new ArrayList<>();
+
+    private long errors;
+
+    private static double millis(long[] sorted, double percentile) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+      return sorted[Math.max(rank - 1, 0)] / 1_000_000.0;
+    }
+
+    synchronized void record(long nanos, boolean ok) {
+      latencies.add(nanos);
+      if (!ok) {
+        errors++;
+      }
+    }
+
+    synchronized EndpointReport report(String endpoint, double seconds) {
+      long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+      Arrays.sort(sorted);
+      return EndpointReport.builder()
+          .endpoint(endpoint)
+          .requests(sorted.length)
+          .errors(errors)
+          .throughput(sorted.length / seconds)
+          .p50Millis(millis(sorted, 50))
+          .p95Millis(millis(sorted, 95))
+          .p99Millis(millis(sorted, 99))
+          .maxMillis(millis(sorted, 100))
+          .build();
+    }
+  }
+}
@@ -28,7 +28,7 @@ public class RequiresFacilitiesExtension implements BeforeAllCallback {
 
   /** Statically synchronized to manage state for the entire test suite. */
   @Synchronized
-  private static void loadIfNecessary() {
+  static void loadIfNecessary() {
     if (loaded) {
       return;
     }
@@ -29,11 +29,15 @@ public abstract class BaseCmsOverlayController {
 
   private final CmsOverlayRepository cmsOverlayRepository;
 
+  private final FacilitySnapshotManager facilitySnapshots;
+
   public BaseCmsOverlayController(
       @NonNull FacilityRepository facilityRepository,
-      @NonNull CmsOverlayRepository cmsOverlayRepository) {
+      @NonNull CmsOverlayRepository cmsOverlayRepository,
+      FacilitySnapshotManager facilitySnapshots) {
     this.facilityRepository = facilityRepository;
     this.cmsOverlayRepository = cmsOverlayRepository;
+    this.facilitySnapshots = facilitySnapshots;
   }
 
   private void applyAtcWaitTimeToCmsService(
@@ -64,8 +68,7 @@ public abstract class BaseCmsOverlayController {
       // No ATC wait times to process if facility doesn't exist
       return;
     }
-    DatamartFacility datamartFacility =
-        DATAMART_MAPPER.readValue(opt.get().facility(), DatamartFacility.class);
+    DatamartFacility datamartFacility = FacilityPayloads.read(opt.get());
     WaitTimes atcWaitTimes = datamartFacility.attributes().waitTimes();
     if (atcWaitTimes == null || atcWaitTimes.health() == null) {
       return;
@@ -195,6 +198,14 @@ public abstract class BaseCmsOverlayController {
         || Facility.OtherService.isRecognizedServiceId(serviceId);
   }
 
+  /** Save facility changes made by an overlay and keep the facility snapshot current. */
+  protected void saveFacility(@NonNull FacilityEntity facilityEntity) {
+    FacilityEntity saved = facilityRepository.save(facilityEntity);
+    if (facilitySnapshots != null && saved != null) {
+      facilitySnapshots.update(saved);
+    }
+  }
+
   @SneakyThrows
   protected void updateCmsOverlayData(
       @NonNull Optional<CmsOverlayEntity> existingCmsOverlayEntity,
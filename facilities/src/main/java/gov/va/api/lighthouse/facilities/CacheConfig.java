@@ -0,0 +1,43 @@
+package gov.va.api.lighthouse.facilities;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bounded caches registered with the Caffeine cache manager. Statistics are recorded so that hit,
+ * miss, and eviction counts are published with the other cache metrics.
+ */
+@Slf4j
+@Configuration
+public class CacheConfig {
+  @Bean
+  CacheManagerCustomizer<CaffeineCacheManager> driveTimeBandPathCacheCustomizer(
+      @Value("${facilities.drive-time-band-cache.maximum-bytes:67108864}") long maximumBytes) {
+    return cacheManager -> {
+      log.info("Caching up to {} bytes of decoded drive time bands", maximumBytes);
+      cacheManager.registerCustomCache(
+          DriveTimeBandPathCache.CACHE_NAME,
+          Caffeine.newBuilder()
+              .maximumWeight(maximumBytes)
+              .weigher(DriveTimeBandPathCache::weigh)
+              .recordStats()
+              .build());
+    };
+  }
+
+  @Bean
+  CacheManagerCustomizer<CaffeineCacheManager> renderedFacilityCacheCustomizer(
+      @Value("${facilities.rendered-cache.maximum-size:20000}") long maximumSize) {
+    return cacheManager -> {
+      log.info("Caching up to {} rendered facilities", maximumSize);
+      cacheManager.registerCustomCache(
+          RenderedFacilityCache.CACHE_NAME,
+          Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build());
+    };
+  }
+}
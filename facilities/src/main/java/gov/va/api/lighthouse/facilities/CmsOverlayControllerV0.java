@@ -49,8 +49,9 @@ public class CmsOverlayControllerV0 extends BaseCmsOverlayController {
   @Builder
   CmsOverlayControllerV0(
       @Autowired FacilityRepository facilityRepository,
-      @Autowired CmsOverlayRepository cmsOverlayRepository) {
-    super(facilityRepository, cmsOverlayRepository);
+      @Autowired CmsOverlayRepository cmsOverlayRepository,
+      @Autowired FacilitySnapshotManager facilitySnapshots) {
+    super(facilityRepository, cmsOverlayRepository, facilitySnapshots);
   }
 
   /** Obtain service id for specified service name. */
@@ -278,8 +279,7 @@ public class CmsOverlayControllerV0 extends BaseCmsOverlayController {
       facilityEntity.overlayServices(detailedServiceIds);
     }
 
-    DatamartFacility facility =
-        DATAMART_MAPPER.readValue(facilityEntity.facility(), DatamartFacility.class);
+    DatamartFacility facility = FacilityPayloads.read(facilityEntity);
 
     if (facility != null) {
       DatamartFacility.OperatingStatus operatingStatus = overlay.operatingStatus();
@@ -373,9 +373,9 @@ public class CmsOverlayControllerV0 extends BaseCmsOverlayController {
       Collections.sort(facilityHealthServiceList);
       facility.attributes().services().other(facilityOtherServiceList);
 
-      facilityEntity.facility(DATAMART_MAPPER.writeValueAsString(facility));
+      FacilityPayloads.write(facilityEntity, facility);
     }
 
-    facilityRepository.save(facilityEntity);
+    saveFacility(facilityEntity);
   }
 }
@@ -63,9 +63,10 @@ public class CmsOverlayControllerV1 extends BaseCmsOverlayController {
   CmsOverlayControllerV1(
       @Autowired FacilityRepository facilityRepository,
       @Autowired CmsOverlayRepository cmsOverlayRepository,
+      @Autowired FacilitySnapshotManager facilitySnapshots,
       @Value("${facilities.url}") String baseUrl,
       @Value("${facilities.base-path}") String basePath) {
-    super(facilityRepository, cmsOverlayRepository);
+    super(facilityRepository, cmsOverlayRepository, facilitySnapshots);
     linkerUrl = buildLinkerUrlV1(baseUrl, basePath);
   }
 
@@ -335,8 +336,7 @@ public class CmsOverlayControllerV1 extends BaseCmsOverlayController {
       facilityEntity.overlayServices(detailedServiceIds);
     }
 
-    final DatamartFacility facility =
-        DATAMART_MAPPER.readValue(facilityEntity.facility(), DatamartFacility.class);
+    final DatamartFacility facility = FacilityPayloads.read(facilityEntity);
 
     if (facility != null) {
       DatamartFacility.OperatingStatus operatingStatus = overlay.operatingStatus();
@@ -430,9 +430,9 @@ public class CmsOverlayControllerV1 extends BaseCmsOverlayController {
       Collections.sort(facilityOtherServiceList);
       facility.attributes().services().other(facilityOtherServiceList);
 
-      facilityEntity.facility(DATAMART_MAPPER.writeValueAsString(facility));
+      FacilityPayloads.write(facilityEntity, facility);
     }
 
-    facilityRepository.save(facilityEntity);
+    saveFacility(facilityEntity);
   }
 }
@@ -20,6 +20,7 @@ import lombok.Builder.Default;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 @Data
 @Entity
@@ -43,6 +44,7 @@ public class CmsOverlayEntity {
 
   @Default
   @ElementCollection(targetClass = String.class)
+  @BatchSize(size = FacilityEntity.COLLECTION_BATCH_SIZE)
   @CollectionTable(
       name = "cms_overlay_detailed_services",
       schema = "app",
@@ -0,0 +1,26 @@
+package gov.va.api.lighthouse.facilities;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read endpoint whose responses carry an entity tag. Requests with a matching
+ * If-None-Match header are answered with 304 Not Modified before the endpoint is invoked, see
+ * {@link ConditionalGetInterceptor}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@interface ConditionalGet {
+  Validator value();
+
+  enum Validator {
+    /** Strong tag from the version of the facility named by the {@code id} path variable. */
+    FACILITY,
+    /** Weak tag from the fingerprint of every facility being served. */
+    DATASET
+  }
+}
@@ -0,0 +1,110 @@
+package gov.va.api.lighthouse.facilities;
+
+import static org.apache.commons.lang3.StringUtils.strip;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.Builder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Answers conditional reads of {@link ConditionalGet} endpoints. Entity tags are computed from
+ * facility versions and the dataset fingerprint alone, so unchanged data is confirmed without
+ * loading or transforming any facility payloads.
+ *
+ * <p>Tags include the API version and the endpoint, since the same path may have several
+ * representations. The tag of a single facility is strong, the bytes only change with its version
+ * and last update.
+ * The tag of a list is weak, it changes with every facility even if the list does not.
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+  private final FacilityRepository facilityRepository;
+
+  private final FacilitySnapshotManager facilitySnapshots;
+
+  @Builder
+  ConditionalGetInterceptor(
+      @Autowired FacilityRepository facilityRepository,
+      @Autowired FacilitySnapshotManager facilitySnapshots) {
+    this.facilityRepository = facilityRepository;
+    this.facilitySnapshots = facilitySnapshots;
+  }
+
+  private static String representation(HandlerMethod handler) {
+    RequestMapping mapping =
+        AnnotatedElementUtils.findMergedAnnotation(handler.getBeanType(), RequestMapping.class);
+    String api =
+        mapping == null || mapping.value().length == 0 ? "" : strip(mapping.value()[0], "/");
+    return api + "-" + handler.getMethod().getName();
+  }
+
+  /**
+   * The version and last update of the facility. A facility that is removed and loaded again
+   * starts over at version 0, so the version alone could repeat with different content.
+   */
+  private static String versionTag(FacilityVersionRepository.FacilityVersion version) {
+    long lastUpdated = version.lastUpdated() == null ? 0 : version.lastUpdated().toEpochMilli();
+    return version.version() + "-" + lastUpdated;
+  }
+
+  private String datasetTag(String representation) {
+    return "W/\"" + representation + "-" + facilitySnapshots.fingerprint().tag() + "\"";
+  }
+
+  /** The entity tag of the response, if one can be determined without invoking the handler. */
+  Optional<String> etag(HttpServletRequest request, HandlerMethod handler) {
+    ConditionalGet conditional = handler.getMethodAnnotation(ConditionalGet.class);
+    if (conditional == null) {
+      return Optional.empty();
+    }
+    String representation = representation(handler);
+    switch (conditional.value()) {
+      case FACILITY:
+        return facilityTag(request, representation);
+      case DATASET:
+        return Optional.of(datasetTag(representation));
+      default:
+        throw new IllegalStateException("Unknown validator: " + conditional.value());
+    }
+  }
+
+  private Optional<String> facilityTag(HttpServletRequest request, String representation) {
+    @SuppressWarnings("unchecked")
+    Map<String, String> variables =
+        (Map<String, String>)
+            request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+    String id = variables == null ? null : variables.get("id");
+    if (id == null) {
+      return Optional.empty();
+    }
+    // Unknown facilities are left to the handler to report
+    return FacilityEntity.Pk.optionalFromIdString(id)
+        .flatMap(pk -> facilityRepository.findVersionsByIdIn(List.of(pk)).stream().findFirst())
+        .map(v -> "\"" + representation + "-" + v.id().toIdString() + "-" + versionTag(v) + "\"");
+  }
+
+  @Override
+  public boolean preHandle(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    if (!(handler instanceof HandlerMethod)) {
+      return true;
+    }
+    Optional<String> etag = etag(request, (HandlerMethod) handler);
+    if (etag.isEmpty()) {
+      return true;
+    }
+    // Sets the ETag header, and the 304 status if the client's copy is current
+    return !new ServletWebRequest(request, response).checkNotModified(etag.get());
+  }
+}
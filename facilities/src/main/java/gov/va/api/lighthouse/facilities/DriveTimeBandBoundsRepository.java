@@ -0,0 +1,58 @@
+package gov.va.api.lighthouse.facilities;
+
+import java.util.Collection;
+import java.util.List;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Bounding boxes of drive time bands, without the band geometry. Candidate bands can be selected
+ * from the bounds alone, and only the geometry of the candidates loaded.
+ */
+public interface DriveTimeBandBoundsRepository {
+  /** The bounds of every band, in no particular order. */
+  List<DriveTimeBandBounds> findAllBounds();
+
+  /** The bounds of every band of the given stations, in no particular order. */
+  List<DriveTimeBandBounds> findBoundsByStationNumberIn(Collection<String> stationNumbers);
+
+  /** The geometry of the given bands, without their bounds. Missing bands are omitted. */
+  List<DriveTimeBandPayload> findPayloadsByIdIn(Collection<DriveTimeBandEntity.Pk> ids);
+
+  @Value
+  @Builder
+  class DriveTimeBandBounds {
+    @NonNull DriveTimeBandEntity.Pk id;
+
+    Integer version;
+
+    String monthYear;
+
+    double minLatitude;
+
+    double minLongitude;
+
+    double maxLatitude;
+
+    double maxLongitude;
+
+    StrTree.Envelope envelope() {
+      return StrTree.Envelope.of(minLongitude, maxLongitude, minLatitude, maxLatitude);
+    }
+  }
+
+  @Value
+  @Builder
+  class DriveTimeBandPayload {
+    @NonNull DriveTimeBandEntity.Pk id;
+
+    Integer version;
+
+    String monthYear;
+
+    String band;
+
+    byte[] bandPayload;
+  }
+}
@@ -0,0 +1,113 @@
+package gov.va.api.lighthouse.facilities;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Selects either the bounds or the geometry columns of drive time bands, so neither is read when
+ * only the other is needed. The geometry columns are only lazy with bytecode enhancement, which
+ * this application does not use.
+ */
+class DriveTimeBandBoundsRepositoryImpl implements DriveTimeBandBoundsRepository {
+  private final EntityManager entityManager;
+
+  DriveTimeBandBoundsRepositoryImpl(@Autowired EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  public List<DriveTimeBandBounds> findAllBounds() {
+    return findBounds(null);
+  }
+
+  /** The bounds of the bands of the given stations, or of every band if null. */
+  private List<DriveTimeBandBounds> findBounds(Collection<String> stationNumbers) {
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+    Root<DriveTimeBandEntity> root = query.from(DriveTimeBandEntity.class);
+    Path<DriveTimeBandEntity.Pk> id = root.get("id");
+    query.multiselect(
+        id.get("stationNumber"),
+        id.get("fromMinutes"),
+        id.get("toMinutes"),
+        root.get("version"),
+        root.get("monthYear"),
+        root.get("minLatitude"),
+        root.get("minLongitude"),
+        root.get("maxLatitude"),
+        root.get("maxLongitude"));
+    if (stationNumbers != null) {
+      query.where(id.get("stationNumber").in(stationNumbers));
+    }
+    return entityManager.createQuery(query).getResultList().stream()
+        .map(
+            t ->
+                DriveTimeBandBounds.builder()
+                    .id(
+                        DriveTimeBandEntity.Pk.of(
+                            t.get(0, String.class),
+                            t.get(1, Integer.class),
+                            t.get(2, Integer.class)))
+                    .version(t.get(3, Integer.class))
+                    .monthYear(t.get(4, String.class))
+                    .minLatitude(t.get(5, Double.class))
+                    .minLongitude(t.get(6, Double.class))
+                    .maxLatitude(t.get(7, Double.class))
+                    .maxLongitude(t.get(8, Double.class))
+                    .build())
+        .collect(toList());
+  }
+
+  @Override
+  public List<DriveTimeBandBounds> findBoundsByStationNumberIn(Collection<String> stationNumbers) {
+    if (stationNumbers.isEmpty()) {
+      return List.of();
+    }
+    return findBounds(stationNumbers);
+  }
+
+  @Override
+  public List<DriveTimeBandPayload> findPayloadsByIdIn(Collection<DriveTimeBandEntity.Pk> ids) {
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+    Root<DriveTimeBandEntity> root = query.from(DriveTimeBandEntity.class);
+    Path<DriveTimeBandEntity.Pk> id = root.get("id");
+    query
+        .multiselect(
+            id.get("stationNumber"),
+            id.get("fromMinutes"),
+            id.get("toMinutes"),
+            root.get("version"),
+            root.get("monthYear"),
+            root.get("band"),
+            root.get("bandPayload"))
+        .where(id.in(ids));
+    return entityManager.createQuery(query).getResultList().stream()
+        .map(
+            t ->
+                DriveTimeBandPayload.builder()
+                    .id(
+                        DriveTimeBandEntity.Pk.of(
+                            t.get(0, String.class),
+                            t.get(1, Integer.class),
+                            t.get(2, Integer.class)))
+                    .version(t.get(3, Integer.class))
+                    .monthYear(t.get(4, String.class))
+                    .band(t.get(5, String.class))
+                    .bandPayload(t.get(6, byte[].class))
+                    .build())
+        .collect(toList());
+  }
+}
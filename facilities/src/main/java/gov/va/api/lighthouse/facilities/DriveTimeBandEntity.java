@@ -59,6 +59,11 @@ public class DriveTimeBandEntity {
   @Column
   private String band;
 
+  /** Replaces band for rows saved in the PathEncoder binary format. */
+  @Basic(fetch = FetchType.LAZY)
+  @Column(name = "band_payload")
+  private byte[] bandPayload;
+
   @Version private Integer version;
 
   @Data
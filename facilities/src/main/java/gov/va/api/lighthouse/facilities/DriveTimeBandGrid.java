@@ -0,0 +1,286 @@
+package gov.va.api.lighthouse.facilities;
+
+import static java.util.stream.Collectors.toMap;
+
+import gov.va.api.lighthouse.facilities.api.pssg.PathEncoder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.Value;
+
+/**
+ * Precomputed answers to nearby searches. Every station has a raster of square tiles covering its
+ * bands. Each tile holds the closest band of the station that contains the whole tile, NONE if no
+ * band touches the tile, or BOUNDARY if a band edge may pass through it before a band contains it.
+ * A search reads one tile of each station whose raster contains the point, and only boundary
+ * stations need exact polygon tests.
+ *
+ * <p>Tiles are stored four bits each, so a station can have up to 14 indexed bands. Tiles of any
+ * further bands are marked as boundaries.
+ */
+final class DriveTimeBandGrid {
+  static final int NONE = 0;
+
+  static final int BOUNDARY = 15;
+
+  static final int MAX_BANDS = 14;
+
+  private static final int MAGIC = 0x44544247;
+
+  private static final int VERSION = 1;
+
+  private final int tileSize;
+
+  private final Map<String, Station> stations;
+
+  private final StrTree<Station> tree;
+
+  private DriveTimeBandGrid(int tileSize, Collection<Station> stations) {
+    this.tileSize = tileSize;
+    this.stations = stations.stream().collect(toMap(Station::stationNumber, Function.identity()));
+    this.tree = StrTree.of(stations, s -> s.envelope(tileSize));
+  }
+
+  /** Read a grid written by {@link #toBytes()}. */
+  @SneakyThrows
+  static DriveTimeBandGrid fromBytes(@NonNull byte[] bytes) {
+    try (DataInputStream in =
+        new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not a drive time band grid");
+      }
+      int tileSize = in.readInt();
+      int stationCount = in.readInt();
+      List<Station> stations = new ArrayList<>(stationCount);
+      for (int s = 0; s < stationCount; s++) {
+        String stationNumber = in.readUTF();
+        int bandCount = in.readInt();
+        List<DriveTimeBandEntity.Pk> bands = new ArrayList<>(bandCount);
+        for (int b = 0; b < bandCount; b++) {
+          bands.add(DriveTimeBandEntity.Pk.of(stationNumber, in.readInt(), in.readInt()));
+        }
+        int originX = in.readInt();
+        int originY = in.readInt();
+        int columns = in.readInt();
+        int rows = in.readInt();
+        byte[] tiles = new byte[packedLength(columns * rows)];
+        in.readFully(tiles);
+        stations.add(
+            Station.builder()
+                .stationNumber(stationNumber)
+                .bands(bands)
+                .originX(originX)
+                .originY(originY)
+                .columns(columns)
+                .rows(rows)
+                .tiles(tiles)
+                .build());
+      }
+      return new DriveTimeBandGrid(tileSize, stations);
+    }
+  }
+
+  static DriveTimeBandGrid of(int tileSize, @NonNull Collection<Station> stations) {
+    return new DriveTimeBandGrid(tileSize, stations);
+  }
+
+  private static int packedLength(int tileCount) {
+    return (tileCount + 1) / 2;
+  }
+
+  /**
+   * Rasterize the bands of a station. Bands must be sorted by drive time, closest first, and
+   * edges must be in the same order as bands.
+   */
+  static Station rasterize(
+      int tileSize,
+      @NonNull String stationNumber,
+      @NonNull List<DriveTimeBandEntity.Pk> bands,
+      @NonNull List<DriveTimeBandPolygon.Edges> edges) {
+    int minX = Integer.MAX_VALUE;
+    int minY = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE;
+    int maxY = Integer.MIN_VALUE;
+    for (DriveTimeBandPolygon.Edges e : edges) {
+      if (!e.isEmpty()) {
+        minX = Math.min(minX, e.minX());
+        minY = Math.min(minY, e.minY());
+        maxX = Math.max(maxX, e.maxX());
+        maxY = Math.max(maxY, e.maxY());
+      }
+    }
+    if (minX > maxX) {
+      minX = 0;
+      minY = 0;
+      maxX = 0;
+      maxY = 0;
+    }
+    int originX = (int) (Math.floorDiv((long) minX, tileSize) * tileSize);
+    int originY = (int) (Math.floorDiv((long) minY, tileSize) * tileSize);
+    int columns = (int) Math.floorDiv((long) maxX - originX, tileSize) + 1;
+    int rows = (int) Math.floorDiv((long) maxY - originY, tileSize) + 1;
+    byte[] values = new byte[columns * rows];
+    for (int b = 0; b < edges.size(); b++) {
+      byte[] classes = edges.get(b).classify(originX, originY, tileSize, columns, rows);
+      for (int t = 0; t < values.length; t++) {
+        if (values[t] != NONE || classes[t] == DriveTimeBandPolygon.OUTSIDE) {
+          continue;
+        }
+        boolean indexed = b < MAX_BANDS && classes[t] == DriveTimeBandPolygon.INSIDE;
+        values[t] = (byte) (indexed ? b + 1 : BOUNDARY);
+      }
+    }
+    byte[] tiles = new byte[packedLength(values.length)];
+    for (int t = 0; t < values.length; t++) {
+      tiles[t / 2] |= (byte) ((t % 2 == 0) ? values[t] : values[t] << 4);
+    }
+    return Station.builder()
+        .stationNumber(stationNumber)
+        .bands(List.copyOf(bands))
+        .originX(originX)
+        .originY(originY)
+        .columns(columns)
+        .rows(rows)
+        .tiles(tiles)
+        .build();
+  }
+
+  /** Estimated bytes held by the tiles of every station. */
+  long estimatedBytes() {
+    return stations.values().stream().mapToLong(s -> s.tiles().length).sum();
+  }
+
+  /**
+   * Look up the point in the tiles of every station. Stations whose closest band is beyond the
+   * maximum drive time are left out.
+   */
+  Lookup lookup(double longitude, double latitude, Integer maxDriveTime) {
+    double x = longitude * PathEncoder.SCALE;
+    double y = latitude * PathEncoder.SCALE;
+    Map<String, DriveTimeBandEntity.Pk> bands = new HashMap<>();
+    Set<String> boundaries = new HashSet<>();
+    for (Station station : tree.search(longitude, longitude, latitude, latitude)) {
+      int value = station.tile(x, y, tileSize);
+      if (value == NONE) {
+        continue;
+      }
+      if (value == BOUNDARY) {
+        boundaries.add(station.stationNumber());
+        continue;
+      }
+      DriveTimeBandEntity.Pk band = station.bands().get(value - 1);
+      if (maxDriveTime == null || band.toMinutes() <= maxDriveTime) {
+        bands.put(station.stationNumber(), band);
+      }
+    }
+    return Lookup.builder().bands(bands).boundaryStations(boundaries).build();
+  }
+
+  int stationCount() {
+    return stations.size();
+  }
+
+  int tileSize() {
+    return tileSize;
+  }
+
+  /** Compressed binary form of the grid, see {@link #fromBytes(byte[])}. */
+  @SneakyThrows
+  byte[] toBytes() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(tileSize);
+      out.writeInt(stations.size());
+      for (Station station : stations.values()) {
+        out.writeUTF(station.stationNumber());
+        out.writeInt(station.bands().size());
+        for (DriveTimeBandEntity.Pk band : station.bands()) {
+          out.writeInt(band.fromMinutes());
+          out.writeInt(band.toMinutes());
+        }
+        out.writeInt(station.originX());
+        out.writeInt(station.originY());
+        out.writeInt(station.columns());
+        out.writeInt(station.rows());
+        out.write(station.tiles());
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  /** A copy of this grid with the rasters of the given stations replaced or removed. */
+  DriveTimeBandGrid withStations(
+      @NonNull Collection<String> stationNumbers, @NonNull Collection<Station> replacements) {
+    Map<String, Station> updated = new HashMap<>(stations);
+    stationNumbers.forEach(updated::remove);
+    replacements.forEach(s -> updated.put(s.stationNumber(), s));
+    return new DriveTimeBandGrid(tileSize, updated.values());
+  }
+
+  @Value
+  @Builder
+  static class Lookup {
+    /** Closest band of each station, for stations answered by their tile. */
+    @NonNull Map<String, DriveTimeBandEntity.Pk> bands;
+
+    /** Stations whose tile is a boundary, and need exact polygon tests. */
+    @NonNull Set<String> boundaryStations;
+  }
+
+  @Value
+  @Builder
+  static class Station {
+    @NonNull String stationNumber;
+
+    /** Bands in drive time order, a tile value of n is the n-th band. */
+    @NonNull List<DriveTimeBandEntity.Pk> bands;
+
+    int originX;
+
+    int originY;
+
+    int columns;
+
+    int rows;
+
+    /** Tile values, two per byte, low nibble first, row by row from the south west corner. */
+    @NonNull byte[] tiles;
+
+    StrTree.Envelope envelope(int tileSize) {
+      return StrTree.Envelope.of(
+          (double) originX / PathEncoder.SCALE,
+          ((double) originX + (long) columns * tileSize) / PathEncoder.SCALE,
+          (double) originY / PathEncoder.SCALE,
+          ((double) originY + (long) rows * tileSize) / PathEncoder.SCALE);
+    }
+
+    /** The value of the tile containing the scaled point, NONE if outside the raster. */
+    int tile(double x, double y, int tileSize) {
+      double column = Math.floor((x - originX) / tileSize);
+      double row = Math.floor((y - originY) / tileSize);
+      if (column < 0 || column >= columns || row < 0 || row >= rows) {
+        return NONE;
+      }
+      int t = (int) row * columns + (int) column;
+      int packed = tiles[t / 2];
+      return (t % 2 == 0 ? packed : packed >> 4) & 0xF;
+    }
+  }
+}
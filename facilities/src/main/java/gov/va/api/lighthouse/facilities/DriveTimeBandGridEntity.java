@@ -0,0 +1,43 @@
+package gov.va.api.lighthouse.facilities;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@Entity
+@Builder
+@Table(name = "drive_time_band_grid", schema = "app")
+@NoArgsConstructor(access = AccessLevel.PUBLIC)
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class DriveTimeBandGridEntity {
+  @EqualsAndHashCode.Include @Id private String id;
+
+  /** Fingerprint of the drive time band table the grid was built from. */
+  @Column(name = "band_count")
+  private long bandCount;
+
+  @Column(name = "band_version_total")
+  private long bandVersionTotal;
+
+  /** Tile size in PathEncoder scaled units. */
+  @Column(name = "tile_size")
+  private int tileSize;
+
+  /** See DriveTimeBandGrid.toBytes(). */
+  @Lob
+  @Basic(fetch = FetchType.EAGER)
+  @Column(name = "grid")
+  private byte[] grid;
+}
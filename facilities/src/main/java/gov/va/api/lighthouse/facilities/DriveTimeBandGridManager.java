@@ -0,0 +1,235 @@
+package gov.va.api.lighthouse.facilities;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+import com.google.common.base.Stopwatch;
+import gov.va.api.lighthouse.facilities.DriveTimeBandBoundsRepository.DriveTimeBandBounds;
+import gov.va.api.lighthouse.facilities.DriveTimeBandIndex.Fingerprint;
+import gov.va.api.lighthouse.facilities.api.pssg.PathEncoder;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Owns the precomputed nearby grid, see DriveTimeBandGrid. Building the grid decodes every band,
+ * so the grid is saved with the fingerprint of the band table it was built from. Nodes load the
+ * saved grid while the fingerprint matches and only build one when it does not. Uploads made by
+ * this node rasterize just the uploaded stations again, and the updated grid is saved by the next
+ * refresh check, or built again by it if other uploads ran at the same time. Until a grid is
+ * available, callers fall back to exact polygon tests.
+ */
+@Slf4j
+@Component
+public class DriveTimeBandGridManager {
+  static final String GRID_ID = "nearby";
+
+  /** About 1.1 km north to south. */
+  private static final double DEFAULT_TILE_DEGREES = 0.01;
+
+  private final DriveTimeBandRepository repository;
+
+  private final DriveTimeBandGridRepository gridRepository;
+
+  private final int tileSize;
+
+  private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+  @Builder
+  DriveTimeBandGridManager(
+      @Autowired DriveTimeBandRepository repository,
+      @Autowired DriveTimeBandGridRepository gridRepository,
+      @Value("${facilities.drive-time-band-grid.tile-degrees:0.01}") Double tileDegrees) {
+    this.repository = repository;
+    this.gridRepository = gridRepository;
+    double degrees = tileDegrees == null || tileDegrees <= 0 ? DEFAULT_TILE_DEGREES : tileDegrees;
+    this.tileSize = Math.max(1, (int) Math.round(degrees * PathEncoder.SCALE));
+  }
+
+  private static Map<String, List<DriveTimeBandEntity.Pk>> idsByStation(
+      List<DriveTimeBandBounds> bounds) {
+    return bounds.stream()
+        .map(DriveTimeBandBounds::id)
+        .collect(groupingBy(DriveTimeBandEntity.Pk::stationNumber));
+  }
+
+  /**
+   * Rasterize the stations of bands changed by this node. If the band table has changed by more
+   * than these bands, another upload is running too. The stations are still rasterized, but the
+   * grid keeps its old fingerprint so the next refresh check builds it once every upload is done.
+   */
+  public synchronized void bandsChanged(@NonNull Collection<DriveTimeBandEntity.Pk> changed) {
+    Snapshot snapshot = current.get();
+    if (snapshot == null || changed.isEmpty()) {
+      return;
+    }
+    Stopwatch timer = Stopwatch.createStarted();
+    Fingerprint before = snapshot.fingerprint();
+    Fingerprint after = Fingerprint.of(repository);
+    long changes =
+        after.count() - before.count() + after.versionTotal() - before.versionTotal();
+    if (changes != changed.size()) {
+      log.info("Drive time band table has other changes, grid is rebuilt by the refresh check.");
+    }
+    Set<String> stationNumbers =
+        changed.stream().map(DriveTimeBandEntity.Pk::stationNumber).collect(toSet());
+    List<DriveTimeBandBounds> bounds = repository.findBoundsByStationNumberIn(stationNumbers);
+    List<DriveTimeBandGrid.Station> stations =
+        idsByStation(bounds).entrySet().stream()
+            .map(e -> rasterize(e.getKey(), e.getValue()))
+            .collect(toList());
+    current.set(
+        Snapshot.builder()
+            .grid(snapshot.grid().withStations(stationNumbers, stations))
+            .fingerprint(changes == changed.size() ? after : before)
+            .saved(false)
+            .build());
+    log.info(
+        "Updated {} stations of drive time band grid in {} ms",
+        stationNumbers.size(),
+        timer.elapsed(TimeUnit.MILLISECONDS));
+  }
+
+  /** Load the saved grid once the application is ready to serve requests. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void initialize() {
+    try {
+      load();
+    } catch (Exception e) {
+      log.error("Failed to load drive time band grid, using polygons: {}", e.getMessage());
+    }
+  }
+
+  /** Load the saved grid, or build and save a new one if the band table has changed since. */
+  public synchronized int load() {
+    Fingerprint fingerprint = Fingerprint.of(repository);
+    Optional<DriveTimeBandGridEntity> saved =
+        gridRepository
+            .findById(GRID_ID)
+            .filter(
+                g ->
+                    g.tileSize() == tileSize
+                        && g.bandCount() == fingerprint.count()
+                        && g.bandVersionTotal() == fingerprint.versionTotal());
+    if (saved.isEmpty()) {
+      return rebuild();
+    }
+    DriveTimeBandGrid grid = DriveTimeBandGrid.fromBytes(saved.get().grid());
+    current.set(Snapshot.builder().grid(grid).fingerprint(fingerprint).saved(true).build());
+    log.info("Loaded drive time band grid of {} stations", grid.stationCount());
+    return grid.stationCount();
+  }
+
+  /**
+   * Tiles containing the point, up to the maximum drive time if specified. Empty if no grid is
+   * available.
+   */
+  Optional<DriveTimeBandGrid.Lookup> lookup(
+      @NonNull BigDecimal longitude, @NonNull BigDecimal latitude, Integer maxDriveTime) {
+    Snapshot snapshot = current.get();
+    if (snapshot == null) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        snapshot.grid().lookup(longitude.doubleValue(), latitude.doubleValue(), maxDriveTime));
+  }
+
+  private DriveTimeBandGrid.Station rasterize(
+      String stationNumber, List<DriveTimeBandEntity.Pk> ids) {
+    List<DriveTimeBandEntity> bands =
+        repository.findByIdIn(ids).stream()
+            .sorted(Comparator.comparingInt(b -> b.id().fromMinutes()))
+            .collect(toList());
+    return DriveTimeBandGrid.rasterize(
+        tileSize,
+        stationNumber,
+        bands.stream().map(DriveTimeBandEntity::id).collect(toList()),
+        bands.stream().map(NearbyUtils::toEdges).collect(toList()));
+  }
+
+  /** Rasterize every station, then save the grid. */
+  public synchronized int rebuild() {
+    Stopwatch timer = Stopwatch.createStarted();
+    Fingerprint before = Fingerprint.of(repository);
+    List<DriveTimeBandGrid.Station> stations =
+        idsByStation(repository.findAllBounds()).entrySet().stream()
+            .map(e -> rasterize(e.getKey(), e.getValue()))
+            .collect(toList());
+    DriveTimeBandGrid grid = DriveTimeBandGrid.of(tileSize, stations);
+    Snapshot snapshot = Snapshot.builder().grid(grid).fingerprint(before).saved(false).build();
+    current.set(snapshot);
+    log.info(
+        "Built drive time band grid of {} stations, {} bytes of tiles, in {} ms",
+        grid.stationCount(),
+        grid.estimatedBytes(),
+        timer.elapsed(TimeUnit.MILLISECONDS));
+    save(snapshot);
+    return grid.stationCount();
+  }
+
+  /** Save the grid if this node has changed it, or load the grid if another node changed bands. */
+  @Scheduled(
+      initialDelayString = "${facilities.drive-time-band-grid.refresh-check-millis:60000}",
+      fixedDelayString = "${facilities.drive-time-band-grid.refresh-check-millis:60000}")
+  public synchronized void refresh() {
+    Snapshot snapshot = current.get();
+    if (snapshot == null || !Objects.equals(snapshot.fingerprint(), Fingerprint.of(repository))) {
+      log.info("Drive time band table has changed, loading grid.");
+      load();
+    } else if (!snapshot.saved()) {
+      save(snapshot);
+    }
+  }
+
+  /** Save the grid, a failed save is retried by the next refresh check. */
+  private void save(Snapshot snapshot) {
+    try {
+      gridRepository.save(
+          DriveTimeBandGridEntity.builder()
+              .id(GRID_ID)
+              .bandCount(snapshot.fingerprint().count())
+              .bandVersionTotal(snapshot.fingerprint().versionTotal())
+              .tileSize(tileSize)
+              .grid(snapshot.grid().toBytes())
+              .build());
+    } catch (Exception e) {
+      log.error("Failed to save drive time band grid: {}", e.getMessage());
+      return;
+    }
+    current.compareAndSet(
+        snapshot,
+        Snapshot.builder()
+            .grid(snapshot.grid())
+            .fingerprint(snapshot.fingerprint())
+            .saved(true)
+            .build());
+  }
+
+  @lombok.Value
+  @Builder
+  private static class Snapshot {
+    DriveTimeBandGrid grid;
+
+    Fingerprint fingerprint;
+
+    /** Whether the grid has been saved since it last changed. */
+    boolean saved;
+  }
+}
@@ -0,0 +1,262 @@
+package gov.va.api.lighthouse.facilities;
+
+import static java.util.stream.Collectors.toSet;
+
+import com.google.common.base.Stopwatch;
+import gov.va.api.lighthouse.facilities.DriveTimeBandBoundsRepository.DriveTimeBandBounds;
+import gov.va.api.lighthouse.facilities.DriveTimeBandBoundsRepository.DriveTimeBandPayload;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * In-memory R-tree of the bounding boxes of every drive time band, so nearby searches select
+ * candidate bands without a range query. Only the geometry of candidates that have not already
+ * been decoded is loaded from the database. Until the index is built, callers fall back to the
+ * database. Uploads made by this node replace the bounds of just the uploaded stations. Uploads
+ * made by other nodes are detected by periodically comparing a cheap fingerprint of the band table.
+ */
+@Slf4j
+@Component
+public class DriveTimeBandIndex {
+  private final DriveTimeBandRepository repository;
+
+  private final DriveTimeBandPathCache pathCache;
+
+  private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+  @Builder
+  DriveTimeBandIndex(
+      @Autowired DriveTimeBandRepository repository,
+      @Autowired DriveTimeBandPathCache pathCache) {
+    this.repository = repository;
+    this.pathCache = pathCache;
+  }
+
+  /**
+   * Bands whose bounds contain the point, up to the maximum drive time if specified. Empty if the
+   * index has not been built.
+   */
+  Optional<Candidates> candidates(
+      @NonNull BigDecimal longitude, @NonNull BigDecimal latitude, Integer maxDriveTime) {
+    return candidates(longitude, latitude, maxDriveTime, stationNumber -> true);
+  }
+
+  /**
+   * Candidate bands of only the stations accepted by the filter. Bands already decoded in the path
+   * cache are built from their bounds, only the geometry of the others is loaded.
+   */
+  Optional<Candidates> candidates(
+      @NonNull BigDecimal longitude,
+      @NonNull BigDecimal latitude,
+      Integer maxDriveTime,
+      @NonNull Predicate<String> stations) {
+    Snapshot snapshot = current.get();
+    if (snapshot == null) {
+      return Optional.empty();
+    }
+    double x = longitude.doubleValue();
+    double y = latitude.doubleValue();
+    List<DriveTimeBandEntity> bands = new ArrayList<>();
+    Map<DriveTimeBandEntity.Pk, DriveTimeBandPolygon> decoded = new HashMap<>();
+    Map<DriveTimeBandEntity.Pk, DriveTimeBandBounds> undecoded = new HashMap<>();
+    snapshot.bounds().search(x, x, y, y).stream()
+        .filter(b -> maxDriveTime == null || b.id().toMinutes() <= maxDriveTime)
+        .filter(b -> stations.test(b.id().stationNumber()))
+        .forEach(
+            b -> {
+              Optional<DriveTimeBandPolygon> polygon =
+                  pathCache == null
+                      ? Optional.empty()
+                      : pathCache.decoded(b.id(), b.version(), b.monthYear());
+              if (polygon.isPresent()) {
+                decoded.put(b.id(), polygon.get());
+                bands.add(entity(b, b.version(), b.monthYear()).build());
+              } else {
+                undecoded.put(b.id(), b);
+              }
+            });
+    if (!undecoded.isEmpty()) {
+      for (DriveTimeBandPayload payload : repository.findPayloadsByIdIn(undecoded.keySet())) {
+        bands.add(
+            entity(undecoded.get(payload.id()), payload.version(), payload.monthYear())
+                .band(payload.band())
+                .bandPayload(payload.bandPayload())
+                .build());
+      }
+    }
+    return Optional.of(
+        Candidates.builder().bands(bands).decoded(decoded).pathCache(pathCache).build());
+  }
+
+  /**
+   * A detached band built from its bounds. The version is taken from wherever the geometry came
+   * from, so a band changed since the index was built is not cached under its old version.
+   */
+  private static DriveTimeBandEntity.DriveTimeBandEntityBuilder entity(
+      DriveTimeBandBounds bounds, Integer version, String monthYear) {
+    return DriveTimeBandEntity.builder()
+        .id(bounds.id())
+        .version(version)
+        .monthYear(monthYear)
+        .minLatitude(bounds.minLatitude())
+        .minLongitude(bounds.minLongitude())
+        .maxLatitude(bounds.maxLatitude())
+        .maxLongitude(bounds.maxLongitude());
+  }
+
+  /**
+   * Replace the bounds of the stations of bands changed by this node, without reading the rest of
+   * the band table. If the table has changed by more than these bands, another upload is running
+   * too, so the index keeps its old fingerprint and the next refresh check rebuilds it.
+   */
+  @Transactional(readOnly = true)
+  public synchronized void bandsChanged(@NonNull Collection<DriveTimeBandEntity.Pk> changed) {
+    Snapshot snapshot = current.get();
+    if (snapshot == null || changed.isEmpty()) {
+      return;
+    }
+    Stopwatch timer = Stopwatch.createStarted();
+    Fingerprint before = snapshot.fingerprint();
+    Fingerprint after = Fingerprint.of(repository);
+    long changes =
+        after.count() - before.count() + after.versionTotal() - before.versionTotal();
+    if (changes != changed.size()) {
+      log.info("Drive time band table has other changes, index is rebuilt by the refresh check.");
+    }
+    Set<String> stationNumbers =
+        changed.stream().map(DriveTimeBandEntity.Pk::stationNumber).collect(toSet());
+    List<DriveTimeBandBounds> bounds = new ArrayList<>(snapshot.entries().size());
+    for (DriveTimeBandBounds b : snapshot.entries()) {
+      if (!stationNumbers.contains(b.id().stationNumber())) {
+        bounds.add(b);
+      }
+    }
+    bounds.addAll(repository.findBoundsByStationNumberIn(stationNumbers));
+    current.set(Snapshot.of(bounds, changes == changed.size() ? after : before));
+    log.info(
+        "Updated {} stations of drive time band index in {} ms",
+        stationNumbers.size(),
+        timer.elapsed(TimeUnit.MILLISECONDS));
+  }
+
+  /** Build the first index once the application is ready to serve requests. */
+  @Transactional(readOnly = true)
+  @EventListener(ApplicationReadyEvent.class)
+  public void initialize() {
+    try {
+      rebuild();
+    } catch (Exception e) {
+      log.error("Failed to build drive time band index, using database: {}", e.getMessage());
+    }
+  }
+
+  /** Rebuild the index from all band bounds in the database. */
+  @Transactional(readOnly = true)
+  public synchronized int rebuild() {
+    Stopwatch timer = Stopwatch.createStarted();
+    Fingerprint before = Fingerprint.of(repository);
+    List<DriveTimeBandBounds> bounds = repository.findAllBounds();
+    current.set(Snapshot.of(bounds, before));
+    log.info(
+        "Built drive time band index of {} bands in {} ms",
+        bounds.size(),
+        timer.elapsed(TimeUnit.MILLISECONDS));
+    return bounds.size();
+  }
+
+  /** Rebuild the index from the database if another node has uploaded bands. */
+  @Scheduled(
+      initialDelayString = "${facilities.drive-time-band-index.refresh-check-millis:60000}",
+      fixedDelayString = "${facilities.drive-time-band-index.refresh-check-millis:60000}")
+  @Transactional(readOnly = true)
+  public void rebuildIfStale() {
+    Snapshot snapshot = current.get();
+    if (snapshot == null || !Objects.equals(snapshot.fingerprint(), Fingerprint.of(repository))) {
+      log.info("Drive time band table has changed, rebuilding index.");
+      rebuild();
+    }
+  }
+
+  /**
+   * Candidate bands and the polygons of those that were already decoded. Those bands are loaded
+   * without their geometry, so their polygons are held here rather than looked up again and risk
+   * being evicted in between.
+   */
+  @Value
+  @Builder
+  static class Candidates {
+    @NonNull List<DriveTimeBandEntity> bands;
+
+    @NonNull Map<DriveTimeBandEntity.Pk, DriveTimeBandPolygon> decoded;
+
+    DriveTimeBandPathCache pathCache;
+
+    /** Candidates loaded with their geometry, such as from a database query. */
+    static Candidates of(List<DriveTimeBandEntity> bands, DriveTimeBandPathCache pathCache) {
+      return Candidates.builder().bands(bands).decoded(Map.of()).pathCache(pathCache).build();
+    }
+
+    /** The polygon of one of the candidate bands. */
+    DriveTimeBandPolygon polygon(@NonNull DriveTimeBandEntity band) {
+      DriveTimeBandPolygon polygon = decoded.get(band.id());
+      if (polygon != null) {
+        return polygon;
+      }
+      return pathCache == null ? NearbyUtils.toPolygon(band) : pathCache.polygon(band);
+    }
+  }
+
+  /** Changes whenever a band is added or updated. */
+  @Value
+  @Builder
+  static class Fingerprint {
+    long count;
+
+    long versionTotal;
+
+    static Fingerprint of(DriveTimeBandRepository repository) {
+      return Fingerprint.builder()
+          .count(repository.count())
+          .versionTotal(repository.findVersionTotal())
+          .build();
+    }
+  }
+
+  @Value
+  @Builder
+  private static class Snapshot {
+    List<DriveTimeBandBounds> entries;
+
+    StrTree<DriveTimeBandBounds> bounds;
+
+    Fingerprint fingerprint;
+
+    static Snapshot of(List<DriveTimeBandBounds> entries, Fingerprint fingerprint) {
+      return Snapshot.builder()
+          .entries(entries)
+          .bounds(StrTree.of(entries, DriveTimeBandBounds::envelope))
+          .fingerprint(fingerprint)
+          .build();
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package gov.va.api.lighthouse.facilities;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of drive time band geometries that have already been decoded. Entries are keyed by band ID,
+ * entity version, and band version (month and year), so a band that has changed is decoded again
+ * under a new key. Bands replaced by the management API are also evicted explicitly, so stale
+ * geometries do not hold memory until they age out.
+ *
+ * <p>The cache is bounded by the estimated size of the decoded polygons rather than a number of
+ * entries, since bands vary from a few to thousands of points.
+ */
+@Component
+public class DriveTimeBandPathCache {
+  static final String CACHE_NAME = "drive-time-band-paths";
+
+  private final com.github.benmanes.caffeine.cache.Cache<Object, Object> cache;
+
+  @Builder
+  DriveTimeBandPathCache(
+      @Autowired CacheManager cacheManager, @Autowired MeterRegistry meterRegistry) {
+    cache = nativeCache(cacheManager == null ? null : cacheManager.getCache(CACHE_NAME));
+    if (cache != null && meterRegistry != null) {
+      Gauge.builder(FacilityMetrics.DRIVE_TIME_BAND_PATHS + ".size", cache, c -> c.estimatedSize())
+          .description("Decoded drive time bands held in memory")
+          .register(meterRegistry);
+      Gauge.builder(FacilityMetrics.DRIVE_TIME_BAND_PATHS + ".bytes", cache, c -> weightedSize(c))
+          .description("Estimated memory held by decoded drive time bands")
+          .baseUnit("bytes")
+          .register(meterRegistry);
+      Gauge.builder(
+              FacilityMetrics.DRIVE_TIME_BAND_PATHS + ".hit.ratio",
+              cache,
+              c -> c.stats().hitRate())
+          .description("Ratio of drive time band lookups that did not need decoding")
+          .register(meterRegistry);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache(
+      Cache springCache) {
+    if (!(springCache instanceof CaffeineCache)) {
+      return null;
+    }
+    return ((CaffeineCache) springCache).getNativeCache();
+  }
+
+  /** Caffeine weigher of the entries of this cache. */
+  static int weigh(Object key, Object value) {
+    return value instanceof DriveTimeBandPolygon
+        ? ((DriveTimeBandPolygon) value).estimatedBytes()
+        : 1;
+  }
+
+  private static long weightedSize(com.github.benmanes.caffeine.cache.Cache<?, ?> c) {
+    return c.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L);
+  }
+
+  /**
+   * The polygon of the band version if it has already been decoded, so its geometry does not need
+   * to be loaded.
+   */
+  Optional<DriveTimeBandPolygon> decoded(
+      @NonNull DriveTimeBandEntity.Pk id, Integer version, String monthYear) {
+    if (cache == null) {
+      return Optional.empty();
+    }
+    Key key = Key.builder().id(id).version(version).monthYear(monthYear).build();
+    return Optional.ofNullable((DriveTimeBandPolygon) cache.getIfPresent(key));
+  }
+
+  /** Evict every version of the given bands. */
+  void invalidate(@NonNull Collection<DriveTimeBandEntity.Pk> ids) {
+    if (cache == null || ids.isEmpty()) {
+      return;
+    }
+    Set<DriveTimeBandEntity.Pk> evict = Set.copyOf(ids);
+    cache.asMap().keySet().removeIf(k -> k instanceof Key && evict.contains(((Key) k).id()));
+  }
+
+  /** Get the decoded polygon of the band, decoding and caching it if necessary. */
+  DriveTimeBandPolygon polygon(@NonNull DriveTimeBandEntity entity) {
+    if (cache == null || entity.id() == null) {
+      return NearbyUtils.toPolygon(entity);
+    }
+    Key key =
+        Key.builder()
+            .id(entity.id())
+            .version(entity.version())
+            .monthYear(entity.monthYear())
+            .build();
+    return (DriveTimeBandPolygon) cache.get(key, k -> NearbyUtils.toPolygon(entity));
+  }
+
+  @Value
+  @Builder
+  private static final class Key {
+    DriveTimeBandEntity.Pk id;
+
+    Integer version;
+
+    String monthYear;
+  }
+}
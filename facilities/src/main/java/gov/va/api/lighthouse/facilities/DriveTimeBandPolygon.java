@@ -0,0 +1,416 @@
+package gov.va.api.lighthouse.facilities;
+
+import gov.va.api.lighthouse.facilities.api.pssg.PathEncoder;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+import lombok.NonNull;
+
+/**
+ * Point in polygon test over the scaled integer coordinates produced by {@link PathEncoder}.
+ * Containment is decided by ray casting over primitive edge arrays, so a test allocates nothing.
+ *
+ * <p>Rings are combined with the non-zero winding rule, the same rule as the {@link Path2D} this
+ * replaces. PSSG interior rings run opposite to their exterior ring, so they are holes under either
+ * rule, but non-zero also keeps overlapping rings of the same direction filled.
+ *
+ * <p>Polygons with many edges also bucket their edges into horizontal rows. A horizontal ray can
+ * only cross edges that span its latitude, so a test only considers the edges of a single row
+ * instead of every edge of the polygon.
+ */
+final class DriveTimeBandPolygon {
+  /** Polygons with at least this many edges are bucketed into rows. */
+  static final int GRID_THRESHOLD = 256;
+
+  /** Average number of edges per row of a bucketed polygon. */
+  private static final int EDGES_PER_ROW = 8;
+
+  private static final int MAX_ROWS = 4096;
+
+  /** Object headers and the fields of this class, in addition to its arrays. */
+  private static final int OVERHEAD_BYTES = 96;
+
+  /** Tile classification, see {@link Edges#classify(int, int, int, int, int)}. */
+  static final byte OUTSIDE = 0;
+
+  static final byte INSIDE = 1;
+
+  static final byte PARTIAL = 2;
+
+  /** Non-horizontal edges as consecutive x1, y1, x2, y2 values. */
+  private final int[] edges;
+
+  private final int minX;
+
+  private final int maxX;
+
+  private final int minY;
+
+  private final int maxY;
+
+  private final double rowHeight;
+
+  /** Start of the edges of each row in rowEdges, with an extra entry for the end of the last. */
+  private final int[] rowOffsets;
+
+  /** Offsets into edges, grouped by row. */
+  private final int[] rowEdges;
+
+  private DriveTimeBandPolygon(int[] edges) {
+    this.edges = edges;
+    int lowX = Integer.MAX_VALUE;
+    int highX = Integer.MIN_VALUE;
+    int lowY = Integer.MAX_VALUE;
+    int highY = Integer.MIN_VALUE;
+    for (int i = 0; i < edges.length; i += 2) {
+      lowX = Math.min(lowX, edges[i]);
+      highX = Math.max(highX, edges[i]);
+      lowY = Math.min(lowY, edges[i + 1]);
+      highY = Math.max(highY, edges[i + 1]);
+    }
+    minX = lowX;
+    maxX = highX;
+    minY = lowY;
+    maxY = highY;
+    int edgeCount = edges.length / 4;
+    if (edgeCount < GRID_THRESHOLD) {
+      rowHeight = 0;
+      rowOffsets = null;
+      rowEdges = null;
+      return;
+    }
+    int rows = Math.min(MAX_ROWS, edgeCount / EDGES_PER_ROW);
+    rowHeight = ((double) maxY - minY) / rows;
+    rowOffsets = new int[rows + 1];
+    for (int e = 0; e < edges.length; e += 4) {
+      for (int row = firstRow(e); row <= lastRow(e); row++) {
+        rowOffsets[row + 1]++;
+      }
+    }
+    for (int row = 0; row < rows; row++) {
+      rowOffsets[row + 1] += rowOffsets[row];
+    }
+    rowEdges = new int[rowOffsets[rows]];
+    int[] next = Arrays.copyOf(rowOffsets, rows);
+    for (int e = 0; e < edges.length; e += 4) {
+      for (int row = firstRow(e); row <= lastRow(e); row++) {
+        rowEdges[next[row]++] = e;
+      }
+    }
+  }
+
+  /** Collect the edges of a polygon as it is decoded, see {@link #toPolygon()}. */
+  static Edges edges() {
+    return new Edges();
+  }
+
+  /** Collect the straight segments of a path, scaling coordinates. */
+  static Edges edges(@NonNull Path2D path) {
+    Edges edges = edges();
+    double[] coords = new double[6];
+    for (PathIterator i = path.getPathIterator(null); !i.isDone(); i.next()) {
+      int type = i.currentSegment(coords);
+      if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_CLOSE) {
+        edges.endRing();
+      }
+      if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_LINETO) {
+        edges.coordinate(scale(coords[0]), scale(coords[1]));
+      }
+    }
+    edges.endRing();
+    return edges;
+  }
+
+  /**
+   * Create a polygon from rings of alternating scaled longitude and latitude values, as decoded by
+   * {@link PathEncoder#decodeScaledRingsFromBase64(String)}. Rings are implicitly closed.
+   */
+  static DriveTimeBandPolygon of(@NonNull int[][] rings) {
+    Edges edges = edges();
+    for (int[] ring : rings) {
+      edges.startRing(ring.length / 2);
+      for (int i = 0; i + 1 < ring.length; i += 2) {
+        edges.coordinate(ring[i], ring[i + 1]);
+      }
+      edges.endRing();
+    }
+    return edges.toPolygon();
+  }
+
+  /** Create a polygon from the straight segments of a path, scaling coordinates. */
+  static DriveTimeBandPolygon of(@NonNull Path2D path) {
+    return edges(path).toPolygon();
+  }
+
+  private static int scale(double value) {
+    return (int) Math.round(value * PathEncoder.SCALE);
+  }
+
+  /** Positive if the point is left of the edge, negative if right, zero if on its line. */
+  private static double side(int x1, int y1, int x2, int y2, double x, double y) {
+    return ((double) x2 - x1) * (y - y1) - (x - x1) * ((double) y2 - y1);
+  }
+
+  /** Whether the unscaled longitude and latitude are inside the polygon. */
+  boolean contains(double longitude, double latitude) {
+    double x = longitude * PathEncoder.SCALE;
+    double y = latitude * PathEncoder.SCALE;
+    if (edges.length == 0 || x < minX || x > maxX || y < minY || y > maxY) {
+      return false;
+    }
+    int winding = 0;
+    if (rowEdges == null) {
+      for (int e = 0; e < edges.length; e += 4) {
+        winding += crossing(e, x, y);
+      }
+    } else {
+      int row = row(y);
+      for (int i = rowOffsets[row]; i < rowOffsets[row + 1]; i++) {
+        winding += crossing(rowEdges[i], x, y);
+      }
+    }
+    return winding != 0;
+  }
+
+  /**
+   * The contribution of an edge to the winding number of the point: 1 if an upward edge passes to
+   * the right of the point, -1 if a downward edge does, otherwise 0.
+   */
+  private int crossing(int e, double x, double y) {
+    int x1 = edges[e];
+    int y1 = edges[e + 1];
+    int x2 = edges[e + 2];
+    int y2 = edges[e + 3];
+    if (y1 <= y) {
+      if (y2 > y && side(x1, y1, x2, y2, x, y) > 0) {
+        return 1;
+      }
+    } else if (y2 <= y && side(x1, y1, x2, y2, x, y) < 0) {
+      return -1;
+    }
+    return 0;
+  }
+
+  int edgeCount() {
+    return edges.length / 4;
+  }
+
+  /** Estimated bytes held by this polygon. */
+  int estimatedBytes() {
+    int rowBytes = rowEdges == null ? 0 : (rowOffsets.length + rowEdges.length) * Integer.BYTES;
+    return OVERHEAD_BYTES + edges.length * Integer.BYTES + rowBytes;
+  }
+
+  private int firstRow(int e) {
+    return row(Math.min(edges[e + 1], edges[e + 3]));
+  }
+
+  boolean isBucketed() {
+    return rowEdges != null;
+  }
+
+  private int lastRow(int e) {
+    return row(Math.max(edges[e + 1], edges[e + 3]));
+  }
+
+  private int row(double y) {
+    int row = (int) ((y - minY) / rowHeight);
+    return Math.max(0, Math.min(rowOffsets.length - 2, row));
+  }
+
+  /**
+   * Collects non-horizontal edges from decoded coordinates. Each ring is closed by an edge from
+   * its last coordinate back to its first. Horizontal edges cannot be crossed by a horizontal ray
+   * and are left out of the polygon, but they are kept here to classify tiles.
+   */
+  static final class Edges implements PathEncoder.RingVisitor {
+    private int[] edges = new int[256];
+
+    private int size;
+
+    private int[] horizontals = new int[16];
+
+    private int horizontalSize;
+
+    private int minX = Integer.MAX_VALUE;
+
+    private int minY = Integer.MAX_VALUE;
+
+    private int maxX = Integer.MIN_VALUE;
+
+    private int maxY = Integer.MIN_VALUE;
+
+    private boolean ringStarted;
+
+    private int firstX;
+
+    private int firstY;
+
+    private int lastX;
+
+    private int lastY;
+
+    private Edges() {}
+
+    /** Mark the tiles overlapping the bounds of each edge, clipped to the grid. */
+    private static void markPartial(
+        byte[] tiles,
+        int[] edges,
+        int size,
+        int originX,
+        int originY,
+        int tileSize,
+        int columns,
+        int rows) {
+      for (int e = 0; e < size; e += 4) {
+        int firstColumn = tile(Math.min(edges[e], edges[e + 2]), originX, tileSize, columns);
+        int lastColumn = tile(Math.max(edges[e], edges[e + 2]), originX, tileSize, columns);
+        int firstRow = tile(Math.min(edges[e + 1], edges[e + 3]), originY, tileSize, rows);
+        int lastRow = tile(Math.max(edges[e + 1], edges[e + 3]), originY, tileSize, rows);
+        for (int row = firstRow; row <= lastRow; row++) {
+          Arrays.fill(tiles, row * columns + firstColumn, row * columns + lastColumn + 1, PARTIAL);
+        }
+      }
+    }
+
+    /** The tile containing the scaled value, clamped to the grid. */
+    private static int tile(int value, int origin, int tileSize, int count) {
+      int tile = (int) Math.floorDiv((long) value - origin, tileSize);
+      return Math.max(0, Math.min(count - 1, tile));
+    }
+
+    private void add(int x1, int y1, int x2, int y2) {
+      if (y1 == y2) {
+        if (horizontalSize + 4 > horizontals.length) {
+          horizontals = Arrays.copyOf(horizontals, horizontals.length * 2);
+        }
+        horizontals[horizontalSize++] = x1;
+        horizontals[horizontalSize++] = y1;
+        horizontals[horizontalSize++] = x2;
+        horizontals[horizontalSize++] = y2;
+        return;
+      }
+      if (size + 4 > edges.length) {
+        edges = Arrays.copyOf(edges, edges.length * 2);
+      }
+      edges[size++] = x1;
+      edges[size++] = y1;
+      edges[size++] = x2;
+      edges[size++] = y2;
+    }
+
+    /**
+     * Classify the tiles of a grid against the polygon, row by row from the south west corner. A
+     * tile is PARTIAL if an edge may pass through it, otherwise it is entirely INSIDE or OUTSIDE
+     * and is classified by ray casting from its center. Tiles are half open squares of scaled
+     * coordinates, [origin + n * tileSize, origin + (n + 1) * tileSize).
+     */
+    byte[] classify(int originX, int originY, int tileSize, int columns, int rows) {
+      byte[] tiles = new byte[columns * rows];
+      markPartial(tiles, edges, size, originX, originY, tileSize, columns, rows);
+      markPartial(tiles, horizontals, horizontalSize, originX, originY, tileSize, columns, rows);
+      double[] crossings = new double[16];
+      int[] directions = new int[16];
+      for (int row = 0; row < rows; row++) {
+        double y = originY + (row + 0.5) * tileSize;
+        int count = 0;
+        int winding = 0;
+        for (int e = 0; e < size; e += 4) {
+          int y1 = edges[e + 1];
+          int y2 = edges[e + 3];
+          if ((y1 <= y) == (y2 <= y)) {
+            continue;
+          }
+          if (count == crossings.length) {
+            crossings = Arrays.copyOf(crossings, count * 2);
+            directions = Arrays.copyOf(directions, count * 2);
+          }
+          double x = edges[e] + (y - y1) * ((double) edges[e + 2] - edges[e]) / ((double) y2 - y1);
+          int direction = y1 < y2 ? 1 : -1;
+          // insertion sort, rows are crossed by a handful of edges
+          int i = count++;
+          while (i > 0 && crossings[i - 1] > x) {
+            crossings[i] = crossings[i - 1];
+            directions[i] = directions[i - 1];
+            i--;
+          }
+          crossings[i] = x;
+          directions[i] = direction;
+          winding += direction;
+        }
+        // winding is the sum of the crossings to the right of the tile center
+        int next = 0;
+        for (int column = 0; column < columns; column++) {
+          double x = originX + (column + 0.5) * tileSize;
+          while (next < count && crossings[next] <= x) {
+            winding -= directions[next++];
+          }
+          int tile = row * columns + column;
+          if (tiles[tile] == OUTSIDE && winding != 0) {
+            tiles[tile] = INSIDE;
+          }
+        }
+      }
+      return tiles;
+    }
+
+    @Override
+    public void coordinate(int scaledLongitude, int scaledLatitude) {
+      minX = Math.min(minX, scaledLongitude);
+      minY = Math.min(minY, scaledLatitude);
+      maxX = Math.max(maxX, scaledLongitude);
+      maxY = Math.max(maxY, scaledLatitude);
+      if (ringStarted) {
+        add(lastX, lastY, scaledLongitude, scaledLatitude);
+      } else {
+        firstX = scaledLongitude;
+        firstY = scaledLatitude;
+        ringStarted = true;
+      }
+      lastX = scaledLongitude;
+      lastY = scaledLatitude;
+    }
+
+    @Override
+    public void endRing() {
+      if (ringStarted) {
+        add(lastX, lastY, firstX, firstY);
+      }
+      ringStarted = false;
+    }
+
+    @Override
+    public void startRing(int numberOfCoordinates) {
+      ringStarted = false;
+      int required = size + 4 * numberOfCoordinates;
+      if (required > edges.length) {
+        edges = Arrays.copyOf(edges, required);
+      }
+    }
+
+    /** Whether any coordinates have been collected. */
+    boolean isEmpty() {
+      return minX > maxX;
+    }
+
+    int maxX() {
+      return maxX;
+    }
+
+    int maxY() {
+      return maxY;
+    }
+
+    int minX() {
+      return minX;
+    }
+
+    int minY() {
+      return minY;
+    }
+
+    DriveTimeBandPolygon toPolygon() {
+      return new DriveTimeBandPolygon(Arrays.copyOf(edges, size));
+    }
+  }
+}
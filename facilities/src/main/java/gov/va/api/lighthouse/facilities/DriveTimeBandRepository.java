@@ -3,6 +3,7 @@ package gov.va.api.lighthouse.facilities;
 import gov.va.api.health.autoconfig.logging.Loggable;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
@@ -11,21 +12,40 @@ import javax.persistence.criteria.Root;
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.CrudRepository;
 
 @Loggable
 public interface DriveTimeBandRepository
     extends CrudRepository<DriveTimeBandEntity, DriveTimeBandEntity.Pk>,
-        JpaSpecificationExecutor<DriveTimeBandEntity> {
+        JpaSpecificationExecutor<DriveTimeBandEntity>,
+        DriveTimeBandBoundsRepository {
   @Query("select distinct e.monthYear from #{#entityName} e")
   List<String> findAllBandVersions();
 
   @Query("select e.id from #{#entityName} e")
   List<DriveTimeBandEntity.Pk> findAllIds();
 
+  /** Bands still stored as base 64 text or PSSG JSON, see PathEncoder. */
+  List<DriveTimeBandEntity> findByBandPayloadIsNull(Pageable pageable);
+
+  /** Bands still stored as base 64 text or PSSG JSON, other than the given ones. */
+  List<DriveTimeBandEntity> findByBandPayloadIsNullAndIdNotIn(
+      Collection<DriveTimeBandEntity.Pk> ids, Pageable pageable);
+
+  List<DriveTimeBandEntity> findByIdIn(Collection<DriveTimeBandEntity.Pk> ids);
+
+  /** The IDs that exist, without loading any bands. */
+  @Query("select e.id from #{#entityName} e where e.id in :ids")
+  List<DriveTimeBandEntity.Pk> findIdsByIdIn(@Param("ids") Collection<DriveTimeBandEntity.Pk> ids);
+
+  @Query("select coalesce(sum(e.version), 0) from #{#entityName} e")
+  Long findVersionTotal();
+
   @Query("select min(e.monthYear) from #{#entityName} e")
   String getDefaultBandVersion();
 
@@ -0,0 +1,267 @@
+package gov.va.api.lighthouse.facilities;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import gov.va.api.lighthouse.facilities.api.pssg.PathEncoder;
+import gov.va.api.lighthouse.facilities.api.pssg.PssgDriveTimeBand;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes PSSG drive time band uploads in stages. Bands are encoded in parallel on a bounded pool,
+ * the uploaded ids that already exist are queried a chunk at a time, and bands are written a chunk
+ * at a time, each chunk in its own transaction so Hibernate sends its inserts and updates as JDBC
+ * batches. The time spent in each stage is returned with the upload.
+ */
+@Slf4j
+@Component
+public class DriveTimeBandUploader {
+  private static final int DEFAULT_CHUNK_SIZE = 100;
+
+  private static final int QUEUED_BANDS_PER_THREAD = 64;
+
+  private final DriveTimeBandRepository repository;
+
+  private final TransactionTemplate transactions;
+
+  /** Flushed and cleared after each chunk, null if bands are not written in transactions. */
+  private final EntityManager entityManager;
+
+  private final int chunkSize;
+
+  /** Null if bands are encoded on the calling thread. */
+  private final ExecutorService encoders;
+
+  @Builder
+  DriveTimeBandUploader(
+      @Autowired DriveTimeBandRepository repository,
+      @Autowired TransactionTemplate transactions,
+      @Autowired EntityManager entityManager,
+      @Value("${facilities.band-upload.chunk-size:100}") Integer chunkSize,
+      @Value("${facilities.band-upload.encoder-threads:4}") Integer encoderThreads) {
+    this.repository = repository;
+    this.transactions = transactions;
+    this.entityManager = transactions == null ? null : entityManager;
+    this.chunkSize = chunkSize == null || chunkSize <= 0 ? DEFAULT_CHUNK_SIZE : chunkSize;
+    if (encoderThreads == null || encoderThreads <= 1) {
+      encoders = null;
+    } else {
+      // daemon threads need no shutdown, callers encode bands themselves once the queue is full
+      encoders =
+          new ThreadPoolExecutor(
+              encoderThreads,
+              encoderThreads,
+              0,
+              TimeUnit.MILLISECONDS,
+              new ArrayBlockingQueue<>(encoderThreads * QUEUED_BANDS_PER_THREAD),
+              new ThreadFactoryBuilder().setDaemon(true).setNameFormat("band-encoder-%d").build(),
+              new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+  }
+
+  private static DriveTimeBandEntity apply(EncodedBand band, DriveTimeBandEntity entity) {
+    entity.minLongitude(band.minLongitude());
+    entity.minLatitude(band.minLatitude());
+    entity.maxLongitude(band.maxLongitude());
+    entity.maxLatitude(band.maxLatitude());
+    entity.monthYear(band.monthYear());
+    entity.bandPayload(band.payload());
+    entity.band(null);
+    return entity;
+  }
+
+  /** Encode the band with the bounds of its coordinates, a point at the origin if it has none. */
+  private static EncodedBand encode(@NonNull PssgDriveTimeBand band) {
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    if (band.geometry() != null) {
+      for (List<List<Double>> ring : band.geometry().rings()) {
+        for (List<Double> coord : ring) {
+          double x = coord.get(PssgDriveTimeBand.INDEX_LONGITUDE);
+          double y = coord.get(PssgDriveTimeBand.INDEX_LATITUDE);
+          minX = Math.min(minX, x);
+          minY = Math.min(minY, y);
+          maxX = Math.max(maxX, x);
+          maxY = Math.max(maxY, y);
+        }
+      }
+    }
+    if (minX > maxX) {
+      minX = 0;
+      minY = 0;
+      maxX = 0;
+      maxY = 0;
+    }
+    return EncodedBand.builder()
+        .id(
+            DriveTimeBandEntity.Pk.of(
+                band.attributes().stationNumber(),
+                band.attributes().fromBreak(),
+                band.attributes().toBreak()))
+        .minLongitude(minX)
+        .minLatitude(minY)
+        .maxLongitude(maxX)
+        .maxLatitude(maxY)
+        .monthYear(band.attributes().monthYear())
+        .payload(PathEncoder.create().encode(band))
+        .build();
+  }
+
+  private List<EncodedBand> encodeAll(List<PssgDriveTimeBand> bands) {
+    if (encoders == null) {
+      return bands.stream().map(DriveTimeBandUploader::encode).collect(toList());
+    }
+    List<CompletableFuture<EncodedBand>> encoding =
+        bands.stream()
+            .map(b -> CompletableFuture.supplyAsync(() -> encode(b), encoders))
+            .collect(toList());
+    try {
+      return encoding.stream().map(CompletableFuture::join).collect(toList());
+    } catch (CompletionException e) {
+      encoding.forEach(f -> f.cancel(false));
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+    }
+  }
+
+  private long elapsed(Stopwatch timer) {
+    long millis = timer.elapsed(TimeUnit.MILLISECONDS);
+    timer.reset().start();
+    return millis;
+  }
+
+  /** The uploaded bands that already exist, queried a chunk at a time. */
+  private Set<DriveTimeBandEntity.Pk> existingIds(List<EncodedBand> encoded) {
+    List<DriveTimeBandEntity.Pk> ids =
+        encoded.stream().map(EncodedBand::id).distinct().collect(toList());
+    Set<DriveTimeBandEntity.Pk> existing = new HashSet<>();
+    for (List<DriveTimeBandEntity.Pk> chunk : Lists.partition(ids, chunkSize)) {
+      existing.addAll(repository.findIdsByIdIn(chunk));
+    }
+    return existing;
+  }
+
+  /** Encode, then create or update each band. A band repeated in the upload is written once. */
+  Upload upload(@NonNull List<PssgDriveTimeBand> bands) {
+    Map<String, Long> timings = new LinkedHashMap<>();
+    Stopwatch timer = Stopwatch.createStarted();
+    List<EncodedBand> encoded = encodeAll(bands);
+    timings.put("encode", elapsed(timer));
+    Set<DriveTimeBandEntity.Pk> existing = existingIds(encoded);
+    timings.put("prefetch", elapsed(timer));
+    List<String> created = new ArrayList<>();
+    List<String> updated = new ArrayList<>();
+    Map<DriveTimeBandEntity.Pk, EncodedBand> latest = new LinkedHashMap<>();
+    for (EncodedBand band : encoded) {
+      if (existing.contains(band.id()) || latest.containsKey(band.id())) {
+        updated.add(band.id().name());
+      } else {
+        created.add(band.id().name());
+      }
+      latest.put(band.id(), band);
+    }
+    for (List<EncodedBand> chunk : Lists.partition(new ArrayList<>(latest.values()), chunkSize)) {
+      if (transactions == null) {
+        write(chunk, existing);
+      } else {
+        transactions.executeWithoutResult(status -> write(chunk, existing));
+      }
+    }
+    timings.put("write", elapsed(timer));
+    log.info("Uploaded {} bands in chunks of {}, stage ms {}", latest.size(), chunkSize, timings);
+    return Upload.builder()
+        .created(created)
+        .updated(updated)
+        .changed(List.copyOf(latest.keySet()))
+        .timings(timings)
+        .build();
+  }
+
+  /**
+   * Load the existing bands of the chunk with one query, then save the whole chunk. With
+   * open-in-view, every chunk shares the request's entity manager, so it is cleared after each
+   * chunk rather than holding every band of the upload until the request ends.
+   */
+  private void write(List<EncodedBand> chunk, Set<DriveTimeBandEntity.Pk> existing) {
+    List<DriveTimeBandEntity.Pk> updateIds =
+        chunk.stream().map(EncodedBand::id).filter(existing::contains).collect(toList());
+    Map<DriveTimeBandEntity.Pk, DriveTimeBandEntity> entities =
+        updateIds.isEmpty()
+            ? Map.of()
+            : repository.findByIdIn(updateIds).stream()
+                .collect(toMap(DriveTimeBandEntity::id, Function.identity()));
+    repository.saveAll(
+        chunk.stream()
+            .map(
+                b -> {
+                  DriveTimeBandEntity entity = entities.get(b.id());
+                  if (entity == null) {
+                    entity = DriveTimeBandEntity.builder().id(b.id()).build();
+                  }
+                  return apply(b, entity);
+                })
+            .collect(toList()));
+    if (entityManager != null) {
+      entityManager.flush();
+      entityManager.clear();
+    }
+  }
+
+  @lombok.Value
+  @Builder
+  private static class EncodedBand {
+    DriveTimeBandEntity.Pk id;
+
+    double minLongitude;
+
+    double minLatitude;
+
+    double maxLongitude;
+
+    double maxLatitude;
+
+    String monthYear;
+
+    byte[] payload;
+  }
+
+  @lombok.Value
+  @Builder
+  static class Upload {
+    /** Names of the bands created, in upload order. */
+    List<String> created;
+
+    /** Names of the bands updated, in upload order. */
+    List<String> updated;
+
+    /** Ids of the bands written, once each. */
+    List<DriveTimeBandEntity.Pk> changed;
+
+    /** Milliseconds spent in each stage, in stage order. */
+    Map<String, Long> timings;
+  }
+}
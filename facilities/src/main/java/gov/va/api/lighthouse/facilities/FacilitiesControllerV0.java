@@ -28,6 +28,7 @@ import gov.va.api.lighthouse.facilities.api.v0.GeoFacility;
 import gov.va.api.lighthouse.facilities.api.v0.GeoFacilityReadResponse;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
@@ -36,22 +37,29 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import javax.validation.constraints.Min;
 import lombok.Builder;
 import lombok.Data;
 import lombok.SneakyThrows;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Validated
 @RestController
@@ -61,8 +69,24 @@ public class FacilitiesControllerV0 {
 
   private static final FacilityOverlayV0 FACILITY_OVERLAY = FacilityOverlayV0.builder().build();
 
+  private static final List<MediaType> ALL_GEO_JSON_TYPES =
+      List.of(
+          MediaType.APPLICATION_JSON,
+          MediaType.parseMediaType("application/geo+json"),
+          MediaType.parseMediaType("application/vnd.geo+json"));
+
+  static final String ALL_GEO_JSON_EXPORT = "v0-all.geojson";
+
+  static final String ALL_CSV_EXPORT = "v0-all.csv";
+
   private final FacilityRepository facilityRepository;
 
+  private final FacilitySnapshotManager facilitySnapshots;
+
+  private final RenderedFacilityCache renderedFacilities;
+
+  private final FacilityExportArtifacts exportArtifacts;
+
   private final String linkerUrl;
 
   private final List<String> serviceSources;
@@ -70,9 +94,15 @@ public class FacilitiesControllerV0 {
   @Builder
   FacilitiesControllerV0(
       @Autowired FacilityRepository facilityRepository,
+      @Autowired FacilitySnapshotManager facilitySnapshots,
+      @Autowired RenderedFacilityCache renderedFacilities,
+      @Autowired FacilityExportArtifacts exportArtifacts,
       @Value("${facilities.url}") String baseUrl,
       @Value("${facilities.base-path}") String basePath) {
     this.facilityRepository = facilityRepository;
+    this.facilitySnapshots = facilitySnapshots;
+    this.renderedFacilities = renderedFacilities;
+    this.exportArtifacts = exportArtifacts;
     linkerUrl = buildLinkerUrlV0(baseUrl, basePath);
     this.serviceSources =
         List.of(
@@ -80,6 +110,10 @@ public class FacilitiesControllerV0 {
             Source.DST.toString(),
             Source.BISL.toString(),
             Source.internal.toString());
+    if (exportArtifacts != null) {
+      exportArtifacts.register(ALL_GEO_JSON_EXPORT, s -> allGeoJsonExport(Optional.of(s)));
+      exportArtifacts.register(ALL_CSV_EXPORT, s -> allCsvExport(Optional.of(s)));
+    }
   }
 
   @SneakyThrows
@@ -91,47 +125,51 @@ public class FacilitiesControllerV0 {
     return GeoFacilityTransformerV0.builder().facility(facility).build().toGeoFacility();
   }
 
-  /** Get all facilities. */
-  @SneakyThrows
+  /**
+   * Get all facilities. The export written from the current snapshot is served if there is one,
+   * otherwise facilities are streamed a chunk at a time.
+   */
   @GetMapping(
       value = "/facilities/all",
       produces = {"application/json", "application/geo+json", "application/vnd.geo+json"})
-  String all() {
-    StringBuilder sb = new StringBuilder();
-    sb.append("{\"type\":\"FeatureCollection\",\"features\":[");
-    List<HasFacilityPayload> all = facilityRepository.findAllProjectedBy();
-    if (!all.isEmpty()) {
-      all.parallelStream()
-          .map(
-              e ->
-                  FacilitiesJacksonConfigV0.quietlyWriteValueAsString(
-                      MAPPER_V0, geoFacility(facility(e))))
-          .forEachOrdered(g -> sb.append(g).append(","));
-      sb.deleteCharAt(sb.length() - 1);
-    }
-    sb.append("]}");
-    return sb.toString();
+  ResponseEntity<?> all(
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+          String acceptEncoding) {
+    return export(
+        ALL_GEO_JSON_EXPORT,
+        FacilityExports.negotiate(accept, ALL_GEO_JSON_TYPES),
+        acceptEncoding,
+        () -> allGeoJsonExport(snapshot()));
   }
 
-  /** Get all facilities as CSV. */
-  @SneakyThrows
+  /**
+   * Get all facilities as CSV. The export written from the current snapshot is served if there is
+   * one, otherwise facilities are streamed a chunk at a time.
+   */
   @GetMapping(value = "/facilities/all", produces = "text/csv")
-  String allCsv() {
-    List<List<String>> rows =
-        facilityRepository.findAllProjectedBy().stream()
-            .parallel()
-            .map(e -> CsvTransformerV0.builder().facility(facility(e)).build().toRow())
-            .collect(toList());
-    StringBuilder sb = new StringBuilder();
-    try (CSVPrinter printer =
-        CSVFormat.DEFAULT
-            .withHeader(CsvTransformerV0.HEADERS.stream().toArray(String[]::new))
-            .print(sb)) {
-      for (List<String> row : rows) {
-        printer.printRecord(row);
-      }
-      return sb.toString();
-    }
+  ResponseEntity<?> allCsv(
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+          String acceptEncoding) {
+    return export(
+        ALL_CSV_EXPORT,
+        FacilityExports.TEXT_CSV,
+        acceptEncoding,
+        () -> allCsvExport(snapshot()));
+  }
+
+  private StreamingResponseBody allCsvExport(Optional<FacilitySnapshot> snapshot) {
+    return FacilityExports.csv(
+        FacilityExports.chunks(facilityRepository, snapshot),
+        CsvTransformerV0.HEADERS,
+        e -> CsvTransformerV0.builder().facility(render(e)).build().toRow());
+  }
+
+  private StreamingResponseBody allGeoJsonExport(Optional<FacilitySnapshot> snapshot) {
+    return FacilityExports.geoJson(
+        MAPPER_V0,
+        FacilityExports.chunks(facilityRepository, snapshot),
+        e -> geoFacility(render(e)));
   }
 
   private Set<String> buildServiceFilterStrings(Set<ServiceType> datamartServices) {
@@ -174,46 +212,95 @@ public class FacilitiesControllerV0 {
     return serviceStrings;
   }
 
-  private List<FacilityEntity> entitiesByBoundingBox(
-      List<BigDecimal> bbox, String rawType, List<String> rawServices, Boolean rawMobile) {
+  /**
+   * One page of the facilities in the bounding box, nearest to its center first. Without a
+   * snapshot, the candidates are found and sorted by location alone, and payloads are only loaded
+   * for the facilities on the page.
+   */
+  private Page<? extends HasFacilityPayload> entitiesPageByBoundingBox(
+      List<BigDecimal> bbox,
+      String rawType,
+      List<String> rawServices,
+      Boolean rawMobile,
+      int page,
+      int perPage) {
     if (bbox.size() != 4) {
       throw new ExceptionsUtils.InvalidParameter("bbox", bbox);
     }
     FacilityEntity.Type facilityType = validateFacilityType(rawType);
     Set<ServiceType> datamartServices = convertToDatamartServices(validateServices(rawServices));
     Set<String> serviceStrings = buildServiceFilterStrings(datamartServices);
-    // lng lat lng lat
-    List<FacilityEntity> allEntities =
-        facilityRepository.findAll(
-            FacilityRepository.BoundingBoxSpecification.builder()
-                .minLongitude(bbox.get(0).min(bbox.get(2)))
-                .maxLongitude(bbox.get(0).max(bbox.get(2)))
-                .minLatitude(bbox.get(1).min(bbox.get(3)))
-                .maxLatitude(bbox.get(1).max(bbox.get(3)))
-                .facilityType(facilityType)
-                .services(serviceStrings)
-                .mobile(rawMobile)
-                .build());
     double centerLng = (bbox.get(0).doubleValue() + bbox.get(2).doubleValue()) / 2;
     double centerLat = (bbox.get(1).doubleValue() + bbox.get(3).doubleValue()) / 2;
-    return allEntities.stream()
-        .sorted(
-            (left, right) ->
-                Double.compare(
-                    distance(left, centerLng, centerLat), distance(right, centerLng, centerLat)))
-        .collect(toList());
+    Optional<FacilitySnapshot> snapshot = snapshot();
+    if (snapshot.isPresent()) {
+      // lng lat lng lat
+      List<FacilitySnapshot.Entry> entities =
+          snapshot
+              .get()
+              .findByBoundingBox(
+                  bbox.get(0).min(bbox.get(2)).doubleValue(),
+                  bbox.get(0).max(bbox.get(2)).doubleValue(),
+                  bbox.get(1).min(bbox.get(3)).doubleValue(),
+                  bbox.get(1).max(bbox.get(3)).doubleValue(),
+                  facilityType,
+                  serviceStrings,
+                  rawMobile)
+              .stream()
+              .sorted(
+                  Comparator.comparingDouble(
+                      e -> distance(e.longitude(), e.latitude(), centerLng, centerLat)))
+              .collect(toList());
+      return new PageImpl<>(page(entities, page, perPage), Pageable.unpaged(), entities.size());
+    }
+    // lng lat lng lat
+    List<FacilityLocationRepository.FacilityLocation> locations =
+        facilityRepository
+            .findAllLocations(
+                FacilityRepository.BoundingBoxSpecification.builder()
+                    .minLongitude(bbox.get(0).min(bbox.get(2)))
+                    .maxLongitude(bbox.get(0).max(bbox.get(2)))
+                    .minLatitude(bbox.get(1).min(bbox.get(3)))
+                    .maxLatitude(bbox.get(1).max(bbox.get(3)))
+                    .facilityType(facilityType)
+                    .services(serviceStrings)
+                    .mobile(rawMobile)
+                    .build())
+            .stream()
+            .sorted(
+                Comparator.comparingDouble(
+                    l -> distance(l.longitude(), l.latitude(), centerLng, centerLat)))
+            .collect(toList());
+    List<FacilityEntity.Pk> pksPage =
+        page(locations, page, perPage).stream().map(l -> l.id()).collect(toList());
+    return new PageImpl<>(entitiesByIds(pksPage), Pageable.unpaged(), locations.size());
   }
 
-  private List<FacilityEntity> entitiesByIds(String ids) {
-    List<FacilityEntity.Pk> pks = entityIds(ids);
+  /** Facilities with the given IDs, in the order requested. Unknown IDs are skipped. */
+  private List<? extends HasFacilityPayload> entitiesByIds(List<FacilityEntity.Pk> pks) {
+    Optional<FacilitySnapshot> snapshot = snapshot();
+    if (snapshot.isPresent()) {
+      return snapshot.get().findByIds(pks);
+    }
+    if (pks.isEmpty()) {
+      return List.of();
+    }
     Map<FacilityEntity.Pk, FacilityEntity> entities =
         facilityRepository.findByIdIn(pks).stream()
             .collect(toMap(e -> e.id(), Function.identity()));
     return pks.stream().map(pk -> entities.get(pk)).filter(Objects::nonNull).collect(toList());
   }
 
+  private List<? extends HasFacilityPayload> entitiesByIds(String ids) {
+    return entitiesByIds(entityIds(ids));
+  }
+
+  /**
+   * Facilities matching the search, with their distance from the point. Facilities outside of the
+   * radius are excluded, the rest are not ranked.
+   */
   @SneakyThrows
-  private List<DistanceEntity> entitiesByLatLong(
+  private Stream<DistanceEntity> entitiesByLatLong(
       BigDecimal longitude,
       BigDecimal latitude,
       Optional<BigDecimal> radius,
@@ -224,32 +311,59 @@ public class FacilitiesControllerV0 {
     FacilityEntity.Type facilityType = validateFacilityType(rawType);
     Set<ServiceType> datamartServices = convertToDatamartServices(validateServices(rawServices));
     Set<String> serviceStrings = buildServiceFilterStrings(datamartServices);
-    List<FacilityEntity> entities =
-        facilityRepository.findAll(
-            FacilityRepository.TypeServicesIdsSpecification.builder()
-                .ids(entityIds(ids))
-                .facilityType(facilityType)
-                .services(serviceStrings)
-                .mobile(rawMobile)
-                .build());
     double lng = longitude.doubleValue();
     double lat = latitude.doubleValue();
-    return entities.stream()
-        .map(
-            e ->
-                DistanceEntity.builder()
-                    .entity(e)
-                    .distance(BigDecimal.valueOf(haversine(e, lng, lat)))
-                    .build())
-        .filter(
-            radius.isPresent()
-                ? de -> radius.get().compareTo(de.distance().abs()) >= 0
-                : de -> true)
-        .sorted((left, right) -> left.distance().compareTo(right.distance()))
-        .collect(toList());
+    double maxDistance = radius.map(BigDecimal::doubleValue).orElse(Double.POSITIVE_INFINITY);
+    List<FacilityEntity.Pk> pks = entityIds(ids);
+    Optional<FacilitySnapshot> snapshot = snapshot();
+    Stream<DistanceEntity> distanceEntities;
+    if (snapshot.isPresent() && pks.isEmpty() && radius.isPresent()) {
+      // Nearest first, so the search stops at the first facility outside of the radius
+      distanceEntities =
+          snapshot
+              .get()
+              .findNearest(lng, lat, facilityType, serviceStrings, rawMobile)
+              .takeWhile(n -> n.distance() <= maxDistance)
+              .map(n -> distanceEntity(n.value(), n.distance()));
+    } else if (snapshot.isPresent()) {
+      distanceEntities =
+          snapshot
+              .get()
+              .findByTypeServicesIds(pks, facilityType, serviceStrings, rawMobile)
+              .stream()
+              .map(e -> distanceEntity(e, haversine(e.longitude(), e.latitude(), lng, lat)));
+    } else if (pks.isEmpty() && radius.isPresent()) {
+      // Only facilities in the rectangle around the circle are loaded
+      distanceEntities =
+          facilityRepository
+              .findAll(
+                  FacilityRepository.RadiusSpecification.builder()
+                      .longitude(lng)
+                      .latitude(lat)
+                      .radius(maxDistance)
+                      .facilityType(facilityType)
+                      .services(serviceStrings)
+                      .mobile(rawMobile)
+                      .build())
+              .stream()
+              .map(e -> distanceEntity(e, haversine(e, lng, lat)));
+    } else {
+      distanceEntities =
+          facilityRepository
+              .findAll(
+                  FacilityRepository.TypeServicesIdsSpecification.builder()
+                      .ids(pks)
+                      .facilityType(facilityType)
+                      .services(serviceStrings)
+                      .mobile(rawMobile)
+                      .build())
+              .stream()
+              .map(e -> distanceEntity(e, haversine(e, lng, lat)));
+    }
+    return distanceEntities.filter(de -> de.distance() <= maxDistance);
   }
 
-  private Page<FacilityEntity> entitiesPageByState(
+  private Page<? extends HasFacilityPayload> entitiesPageByState(
       String rawState,
       String rawType,
       List<String> rawServices,
@@ -262,6 +376,13 @@ public class FacilitiesControllerV0 {
     FacilityEntity.Type facilityType = validateFacilityType(rawType);
     Set<ServiceType> datamartServices = convertToDatamartServices(validateServices(rawServices));
     Set<String> serviceStrings = buildServiceFilterStrings(datamartServices);
+    Optional<FacilitySnapshot> snapshot = snapshot();
+    if (snapshot.isPresent()) {
+      return FacilitySnapshot.page(
+          snapshot.get().findByState(state, facilityType, serviceStrings, rawMobile),
+          page,
+          perPage);
+    }
     return facilityRepository.findAll(
         FacilityRepository.StateSpecification.builder()
             .state(state)
@@ -272,7 +393,7 @@ public class FacilitiesControllerV0 {
         PageRequest.of(page - 1, perPage, FacilityEntity.naturalOrder()));
   }
 
-  private Page<FacilityEntity> entitiesPageByZip(
+  private Page<? extends HasFacilityPayload> entitiesPageByZip(
       String rawZip,
       String rawType,
       List<String> rawServices,
@@ -285,6 +406,11 @@ public class FacilitiesControllerV0 {
     Set<ServiceType> datamartServices = convertToDatamartServices(validateServices(rawServices));
     Set<String> serviceStrings = buildServiceFilterStrings(datamartServices);
     String zip = rawZip.substring(0, Math.min(rawZip.length(), 5));
+    Optional<FacilitySnapshot> snapshot = snapshot();
+    if (snapshot.isPresent()) {
+      return FacilitySnapshot.page(
+          snapshot.get().findByZip(zip, facilityType, serviceStrings, rawMobile), page, perPage);
+    }
     return facilityRepository.findAll(
         FacilityRepository.ZipSpecification.builder()
             .zip(zip)
@@ -295,6 +421,36 @@ public class FacilitiesControllerV0 {
         PageRequest.of(page - 1, perPage, FacilityEntity.naturalOrder()));
   }
 
+  private List<? extends HasFacilityPayload> entitiesByVisn(String visn) {
+    Optional<FacilitySnapshot> snapshot = snapshot();
+    if (snapshot.isPresent()) {
+      return snapshot.get().findByVisn(visn);
+    }
+    return facilityRepository.findByVisn(visn);
+  }
+
+  /** Serve a prebuilt export if it is current, otherwise stream the export. */
+  private ResponseEntity<?> export(
+      String name,
+      MediaType contentType,
+      String acceptEncoding,
+      Supplier<StreamingResponseBody> stream) {
+    Optional<FacilityExportArtifacts.Artifact> artifact =
+        exportArtifacts == null ? Optional.empty() : exportArtifacts.current(name);
+    if (artifact.isPresent()) {
+      return artifact.get().response(contentType, acceptEncoding);
+    }
+    return ResponseEntity.ok().contentType(contentType).body(stream.get());
+  }
+
+  private DistanceEntity distanceEntity(HasFacilityPayload entity, double distance) {
+    return DistanceEntity.builder()
+        .entity(entity)
+        .distance(distance)
+        .renderer(this::render)
+        .build();
+  }
+
   private FacilityEntity entityById(String id) {
     FacilityEntity.Pk pk = null;
     try {
@@ -310,6 +466,7 @@ public class FacilitiesControllerV0 {
   }
 
   /** Get all facility IDs as a list by Type. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/ids",
       produces = {"application/json"})
@@ -326,6 +483,7 @@ public class FacilitiesControllerV0 {
   }
 
   /** Get facilities by bounding box. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = {"application/geo+json", "application/vnd.geo+json"},
@@ -340,13 +498,14 @@ public class FacilitiesControllerV0 {
     return GeoFacilitiesResponse.builder()
         .type(GeoFacilitiesResponse.Type.FeatureCollection)
         .features(
-            page(entitiesByBoundingBox(bbox, type, services, mobile), page, perPage).stream()
-                .map(e -> geoFacility(facility(e)))
+            entitiesPageByBoundingBox(bbox, type, services, mobile, page, perPage).stream()
+                .map(e -> geoFacility(render(e)))
                 .collect(toList()))
         .build();
   }
 
   /** Get facilities by IDs. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = {"application/geo+json", "application/vnd.geo+json"},
@@ -359,12 +518,13 @@ public class FacilitiesControllerV0 {
         .type(GeoFacilitiesResponse.Type.FeatureCollection)
         .features(
             page(entitiesByIds(ids), page, perPage).stream()
-                .map(e -> geoFacility(facility(e)))
+                .map(e -> geoFacility(render(e)))
                 .collect(toList()))
         .build();
   }
 
   /** Get facilities by coordinates. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = {"application/geo+json", "application/vnd.geo+json"},
@@ -382,27 +542,23 @@ public class FacilitiesControllerV0 {
     if (radius != null && radius.compareTo(BigDecimal.ZERO) < 0) {
       throw new ExceptionsUtils.InvalidParameter("radius", radius);
     }
+    NearestSelector.Selection<DistanceEntity> nearest =
+        NearestSelector.select(
+            entitiesByLatLong(
+                longitude, latitude, Optional.ofNullable(radius), ids, type, services, mobile),
+            DistanceEntity::distance,
+            NearestSelector.limit(page, perPage));
     return GeoFacilitiesResponse.builder()
         .type(GeoFacilitiesResponse.Type.FeatureCollection)
         .features(
-            page(
-                    entitiesByLatLong(
-                        longitude,
-                        latitude,
-                        Optional.ofNullable(radius),
-                        ids,
-                        type,
-                        services,
-                        mobile),
-                    page,
-                    perPage)
-                .stream()
+            page(nearest.nearest(), page, perPage).stream()
                 .map(e -> geoFacility(e.facility()))
                 .collect(toList()))
         .build();
   }
 
   /** Get facilities by state. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = {"application/geo+json", "application/vnd.geo+json"},
@@ -420,12 +576,13 @@ public class FacilitiesControllerV0 {
             perPage == 0
                 ? emptyList()
                 : entitiesPageByState(state, type, services, mobile, page, perPage).stream()
-                    .map(e -> geoFacility(facility(e)))
+                    .map(e -> geoFacility(render(e)))
                     .collect(toList()))
         .build();
   }
 
   /** Get facilities by VISN. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = {"application/geo+json", "application/vnd.geo+json"},
@@ -437,13 +594,14 @@ public class FacilitiesControllerV0 {
     return GeoFacilitiesResponse.builder()
         .type(GeoFacilitiesResponse.Type.FeatureCollection)
         .features(
-            page(facilityRepository.findByVisn(visn), page, perPage).stream()
-                .map(e -> geoFacility(facility(e)))
+            page(entitiesByVisn(visn), page, perPage).stream()
+                .map(e -> geoFacility(render(e)))
                 .collect(toList()))
         .build();
   }
 
   /** Get facilities by zip. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = {"application/geo+json", "application/vnd.geo+json"},
@@ -461,12 +619,13 @@ public class FacilitiesControllerV0 {
             perPage == 0
                 ? emptyList()
                 : entitiesPageByZip(zip, type, services, mobile, page, perPage).stream()
-                    .map(e -> geoFacility(facility(e)))
+                    .map(e -> geoFacility(render(e)))
                     .collect(toList()))
         .build();
   }
 
   /** Get facilities by bounding box. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = "application/json",
@@ -478,7 +637,8 @@ public class FacilitiesControllerV0 {
       @RequestParam(value = "mobile", required = false) Boolean mobile,
       @RequestParam(value = "page", defaultValue = "1") @Min(1) int page,
       @RequestParam(value = "per_page", defaultValue = "10") @Min(0) int perPage) {
-    List<FacilityEntity> entities = entitiesByBoundingBox(bbox, type, services, mobile);
+    Page<? extends HasFacilityPayload> entities =
+        entitiesPageByBoundingBox(bbox, type, services, mobile, page, perPage);
     PageLinkerV0 linker =
         PageLinkerV0.builder()
             .url(linkerUrl + "facilities")
@@ -491,10 +651,10 @@ public class FacilitiesControllerV0 {
                     .add("page", page)
                     .add("per_page", perPage)
                     .build())
-            .totalEntries(entities.size())
+            .totalEntries((int) entities.getTotalElements())
             .build();
     return FacilitiesResponse.builder()
-        .data(page(entities, page, perPage).stream().map(e -> facility(e)).collect(toList()))
+        .data(entities.stream().map(e -> render(e)).collect(toList()))
         .links(linker.links())
         .meta(
             FacilitiesResponse.FacilitiesMetadata.builder().pagination(linker.pagination()).build())
@@ -502,6 +662,7 @@ public class FacilitiesControllerV0 {
   }
 
   /** Get facilities by IDs. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = "application/json",
@@ -510,7 +671,7 @@ public class FacilitiesControllerV0 {
       @RequestParam(value = "ids") String ids,
       @RequestParam(value = "page", defaultValue = "1") @Min(1) int page,
       @RequestParam(value = "per_page", defaultValue = "10") @Min(0) int perPage) {
-    List<FacilityEntity> entities = entitiesByIds(ids);
+    List<? extends HasFacilityPayload> entities = entitiesByIds(ids);
     PageLinkerV0 linker =
         PageLinkerV0.builder()
             .url(linkerUrl + "facilities")
@@ -523,7 +684,7 @@ public class FacilitiesControllerV0 {
             .totalEntries(entities.size())
             .build();
     return FacilitiesResponse.builder()
-        .data(page(entities, page, perPage).stream().map(e -> facility(e)).collect(toList()))
+        .data(page(entities, page, perPage).stream().map(e -> render(e)).collect(toList()))
         .links(linker.links())
         .meta(
             FacilitiesResponse.FacilitiesMetadata.builder().pagination(linker.pagination()).build())
@@ -531,6 +692,7 @@ public class FacilitiesControllerV0 {
   }
 
   /** Get facilities by coordinates. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = "application/json",
@@ -548,9 +710,12 @@ public class FacilitiesControllerV0 {
     if (radius != null && radius.compareTo(BigDecimal.ZERO) < 0) {
       throw new ExceptionsUtils.InvalidParameter("radius", radius);
     }
-    List<DistanceEntity> entities =
-        entitiesByLatLong(
-            longitude, latitude, Optional.ofNullable(radius), ids, type, services, mobile);
+    NearestSelector.Selection<DistanceEntity> nearest =
+        NearestSelector.select(
+            entitiesByLatLong(
+                longitude, latitude, Optional.ofNullable(radius), ids, type, services, mobile),
+            DistanceEntity::distance,
+            NearestSelector.limit(page, perPage));
     PageLinkerV0 linker =
         PageLinkerV0.builder()
             .url(linkerUrl + "facilities")
@@ -565,16 +730,17 @@ public class FacilitiesControllerV0 {
                     .add("page", page)
                     .add("per_page", perPage)
                     .build())
-            .totalEntries(entities.size())
+            .totalEntries(nearest.total())
             .build();
-    List<DistanceEntity> entitiesPage = page(entities, page, perPage);
+    List<DistanceEntity> entitiesPage = page(nearest.nearest(), page, perPage);
     List<FacilitiesResponse.Distance> distances =
         entitiesPage.stream()
             .map(
                 e ->
                     FacilitiesResponse.Distance.builder()
                         .id(e.facility().id())
-                        .distance(e.distance().setScale(2, RoundingMode.HALF_EVEN))
+                        .distance(
+                            BigDecimal.valueOf(e.distance()).setScale(2, RoundingMode.HALF_EVEN))
                         .build())
             .collect(toList());
     return FacilitiesResponse.builder()
@@ -589,6 +755,7 @@ public class FacilitiesControllerV0 {
   }
 
   /** Get facilities by state. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = "application/json",
@@ -600,7 +767,7 @@ public class FacilitiesControllerV0 {
       @RequestParam(value = "mobile", required = false) Boolean mobile,
       @RequestParam(value = "page", defaultValue = "1") @Min(1) int page,
       @RequestParam(value = "per_page", defaultValue = "10") @Min(0) int perPage) {
-    Page<FacilityEntity> entitiesPage =
+    Page<? extends HasFacilityPayload> entitiesPage =
         entitiesPageByState(state, type, services, mobile, page, Math.max(perPage, 1));
     PageLinkerV0 linker =
         PageLinkerV0.builder()
@@ -620,7 +787,7 @@ public class FacilitiesControllerV0 {
         .data(
             perPage == 0
                 ? emptyList()
-                : entitiesPage.stream().map(e -> facility(e)).collect(toList()))
+                : entitiesPage.stream().map(e -> render(e)).collect(toList()))
         .links(linker.links())
         .meta(
             FacilitiesResponse.FacilitiesMetadata.builder().pagination(linker.pagination()).build())
@@ -628,6 +795,7 @@ public class FacilitiesControllerV0 {
   }
 
   /** Get facilities by VISN. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = "application/json",
@@ -636,7 +804,7 @@ public class FacilitiesControllerV0 {
       @RequestParam(value = "visn") String visn,
       @RequestParam(value = "page", defaultValue = "1") @Min(1) int page,
       @RequestParam(value = "per_page", defaultValue = "10") @Min(0) int perPage) {
-    List<FacilityEntity> entities = facilityRepository.findByVisn(visn);
+    List<? extends HasFacilityPayload> entities = entitiesByVisn(visn);
     PageLinkerV0 linker =
         PageLinkerV0.builder()
             .url(linkerUrl + "facilities")
@@ -649,7 +817,7 @@ public class FacilitiesControllerV0 {
             .totalEntries(entities.size())
             .build();
     return FacilitiesResponse.builder()
-        .data(page(entities, page, perPage).stream().map(e -> facility(e)).collect(toList()))
+        .data(page(entities, page, perPage).stream().map(e -> render(e)).collect(toList()))
         .links(linker.links())
         .meta(
             FacilitiesResponse.FacilitiesMetadata.builder().pagination(linker.pagination()).build())
@@ -657,6 +825,7 @@ public class FacilitiesControllerV0 {
   }
 
   /** Get facilities by zip. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = "application/json",
@@ -668,7 +837,7 @@ public class FacilitiesControllerV0 {
       @RequestParam(value = "mobile", required = false) Boolean mobile,
       @RequestParam(value = "page", defaultValue = "1") @Min(1) int page,
       @RequestParam(value = "per_page", defaultValue = "10") @Min(0) int perPage) {
-    Page<FacilityEntity> entitiesPage =
+    Page<? extends HasFacilityPayload> entitiesPage =
         entitiesPageByZip(zip, type, services, mobile, page, Math.max(perPage, 1));
     PageLinkerV0 linker =
         PageLinkerV0.builder()
@@ -688,39 +857,55 @@ public class FacilitiesControllerV0 {
         .data(
             perPage == 0
                 ? emptyList()
-                : entitiesPage.stream().map(e -> facility(e)).collect(toList()))
+                : entitiesPage.stream().map(e -> render(e)).collect(toList()))
         .links(linker.links())
         .meta(
             FacilitiesResponse.FacilitiesMetadata.builder().pagination(linker.pagination()).build())
         .build();
   }
 
+  /** Transform the entity, reusing a previous rendering of the same entity version if possible. */
+  private Facility render(HasFacilityPayload entity) {
+    if (renderedFacilities == null) {
+      return facility(entity);
+    }
+    return renderedFacilities.get(entity, "v0", null, () -> facility(entity));
+  }
+
+  private Optional<FacilitySnapshot> snapshot() {
+    return facilitySnapshots == null ? Optional.empty() : facilitySnapshots.current();
+  }
+
   /** Read geo facility. */
+  @ConditionalGet(ConditionalGet.Validator.FACILITY)
   @GetMapping(
       value = "/facilities/{id}",
       produces = {"application/geo+json", "application/vnd.geo+json"})
   GeoFacilityReadResponse readGeoJson(@PathVariable("id") String id) {
-    return GeoFacilityReadResponse.of(geoFacility(facility(entityById(id))));
+    return GeoFacilityReadResponse.of(geoFacility(render(entityById(id))));
   }
 
   /** Read facility. */
+  @ConditionalGet(ConditionalGet.Validator.FACILITY)
   @GetMapping(value = "/facilities/{id}", produces = "application/json")
   FacilityReadResponse readJson(@PathVariable("id") String id) {
-    return FacilityReadResponse.builder().facility(facility(entityById(id))).build();
+    return FacilityReadResponse.builder().facility(render(entityById(id))).build();
   }
 
   @Data
   @Builder
   private static final class DistanceEntity {
-    final FacilityEntity entity;
+    final HasFacilityPayload entity;
+
+    final double distance;
 
-    final BigDecimal distance;
+    final Function<HasFacilityPayload, Facility> renderer;
 
     Facility facility;
 
     Facility facility() {
       if (facility == null) {
-        facility = FacilitiesControllerV0.facility(entity);
+        facility = renderer.apply(entity);
       }
       return facility;
     }
@@ -16,14 +16,19 @@ import static java.util.stream.Collectors.toMap;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
 import gov.va.api.lighthouse.facilities.DatamartFacility.Service.Source;
 import gov.va.api.lighthouse.facilities.api.ServiceType;
+import gov.va.api.lighthouse.facilities.api.v1.FacilitiesBatchRequest;
 import gov.va.api.lighthouse.facilities.api.v1.FacilitiesIdsResponse;
 import gov.va.api.lighthouse.facilities.api.v1.FacilitiesResponse;
 import gov.va.api.lighthouse.facilities.api.v1.Facility;
 import gov.va.api.lighthouse.facilities.api.v1.FacilityReadResponse;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
@@ -33,24 +38,32 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NonNull;
 import lombok.SneakyThrows;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.lang3.EnumUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Validated
 @RestController
@@ -60,8 +73,19 @@ public class FacilitiesControllerV1 {
 
   private static final FacilityOverlayV1 FACILITY_OVERLAY = FacilityOverlayV1.builder().build();
 
+  /** Keeps IN lists well under the SQL Server limit of 2100 parameters. */
+  private static final int IDS_PER_QUERY = 1000;
+
+  static final String ALL_CSV_EXPORT = "v1-all.csv";
+
   private final FacilityRepository facilityRepository;
 
+  private final FacilitySnapshotManager facilitySnapshots;
+
+  private final RenderedFacilityCache renderedFacilities;
+
+  private final FacilityExportArtifacts exportArtifacts;
+
   private final String linkerUrl;
 
   private final List<String> serviceSources;
@@ -69,16 +93,25 @@ public class FacilitiesControllerV1 {
   @Builder
   FacilitiesControllerV1(
       @Autowired FacilityRepository facilityRepository,
+      @Autowired FacilitySnapshotManager facilitySnapshots,
+      @Autowired RenderedFacilityCache renderedFacilities,
+      @Autowired FacilityExportArtifacts exportArtifacts,
       @Value("${facilities.url}") String baseUrl,
       @Value("${facilities.base-path}") String basePath,
       @Value("${facility-services-source-v1:}#{T(java.util.Collections).emptyList()}")
           List<String> serviceSources) {
     this.facilityRepository = facilityRepository;
+    this.facilitySnapshots = facilitySnapshots;
+    this.renderedFacilities = renderedFacilities;
+    this.exportArtifacts = exportArtifacts;
     linkerUrl = buildLinkerUrlV1(baseUrl, basePath);
     this.serviceSources =
         serviceSources.stream()
             .filter(s -> EnumUtils.isValidEnum(Source.class, s))
             .collect(Collectors.toList());
+    if (exportArtifacts != null) {
+      exportArtifacts.register(ALL_CSV_EXPORT, s -> allCsvExport(Optional.of(s)));
+    }
   }
 
   @SneakyThrows
@@ -89,25 +122,28 @@ public class FacilitiesControllerV1 {
 
   /** Get all facilities. */
   @SneakyThrows
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = {"application/json"})
   String all(
       @RequestParam(value = "page", defaultValue = "1") @Min(1) int page,
       @RequestParam(value = "per_page", defaultValue = "10") @Min(0) int perPage) {
-    List<HasFacilityPayload> allFacilities = facilityRepository.findAllProjectedBy();
+    Page<? extends HasFacilityPayload> entitiesPage = allEntitiesPage(page, Math.max(perPage, 1));
     PageLinkerV1 linker =
         PageLinkerV1.builder()
             .url(linkerUrl + "facilities")
             .params(Parameters.builder().add("page", page).add("per_page", perPage).build())
-            .totalEntries(allFacilities.size())
+            .totalEntries((int) entitiesPage.getTotalElements())
             .build();
     return MAPPER_V1.writeValueAsString(
         FacilitiesResponse.builder()
             .data(
-                page(allFacilities, page, perPage).stream()
-                    .map(e -> facility(e, linkerUrl, serviceSources))
-                    .collect(toList()))
+                perPage == 0
+                    ? emptyList()
+                    : entitiesPage.stream()
+                        .map(e -> render(e))
+                        .collect(toList()))
             .links(linker.links())
             .meta(
                 FacilitiesResponse.FacilitiesMetadata.builder()
@@ -116,34 +152,61 @@ public class FacilitiesControllerV1 {
             .build());
   }
 
-  /** Get all facilities as CSV. */
-  @SneakyThrows
+  /**
+   * Get all facilities as CSV. The export written from the current snapshot is served if there is
+   * one, otherwise facilities are streamed a chunk at a time.
+   */
   @GetMapping(value = "/facilities", produces = "text/csv")
-  String allCsv() {
-    List<List<String>> rows =
-        facilityRepository.findAllProjectedBy().stream()
-            .parallel()
-            .map(
-                e ->
-                    CsvTransformerV1.builder()
-                        .facility(facility(e, linkerUrl, serviceSources))
-                        .build()
-                        .toRow())
-            .collect(toList());
-    StringBuilder sb = new StringBuilder();
-    try (CSVPrinter printer =
-        CSVFormat.DEFAULT
-            .withHeader(CsvTransformerV1.HEADERS.stream().toArray(String[]::new))
-            .print(sb)) {
-      for (List<String> row : rows) {
-        printer.printRecord(row);
-      }
-      return sb.toString();
+  ResponseEntity<?> allCsv(
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+          String acceptEncoding) {
+    Optional<FacilityExportArtifacts.Artifact> artifact =
+        exportArtifacts == null ? Optional.empty() : exportArtifacts.current(ALL_CSV_EXPORT);
+    if (artifact.isPresent()) {
+      return artifact.get().response(FacilityExports.TEXT_CSV, acceptEncoding);
+    }
+    return ResponseEntity.ok()
+        .contentType(FacilityExports.TEXT_CSV)
+        .body(allCsvExport(snapshot()));
+  }
+
+  private StreamingResponseBody allCsvExport(Optional<FacilitySnapshot> snapshot) {
+    return FacilityExports.csv(
+        FacilityExports.chunks(facilityRepository, snapshot),
+        CsvTransformerV1.HEADERS,
+        e -> CsvTransformerV1.builder().facility(render(e)).build().toRow());
+  }
+
+  /**
+   * One page of every facility, in natural order. The snapshot is paged if there is one. Otherwise
+   * only the payloads on the page are loaded, and the total is counted by the database.
+   */
+  private Page<? extends HasFacilityPayload> allEntitiesPage(int page, int perPage) {
+    checkArgument(page >= 1);
+    checkArgument(perPage >= 1);
+    Optional<FacilitySnapshot> snapshot = snapshot();
+    if (snapshot.isPresent()) {
+      return FacilitySnapshot.page(snapshot.get().entries(), page, perPage);
     }
+    PageRequest pageRequest = PageRequest.of(page - 1, perPage, FacilityEntity.naturalOrder());
+    return new PageImpl<>(
+        facilityRepository.findAllProjectedBy(pageRequest),
+        pageRequest,
+        facilityRepository.count());
   }
 
-  private List<FacilityEntity> entitiesByBoundingBox(
-      List<BigDecimal> bbox, String rawType, List<String> rawServices, Boolean rawMobile) {
+  /**
+   * One page of the facilities in the bounding box, nearest to its center first. Without a
+   * snapshot, the candidates are found and sorted by location alone, and payloads are only loaded
+   * for the facilities on the page.
+   */
+  private Page<? extends HasFacilityPayload> entitiesPageByBoundingBox(
+      List<BigDecimal> bbox,
+      String rawType,
+      List<String> rawServices,
+      Boolean rawMobile,
+      int page,
+      int perPage) {
     if (bbox.size() != 4) {
       throw new ExceptionsUtils.InvalidParameter("bbox", bbox);
     }
@@ -172,38 +235,101 @@ public class FacilitiesControllerV1 {
                       });
             });
 
-    // lng lat lng lat
-    List<FacilityEntity> allEntities =
-        facilityRepository.findAll(
-            FacilityRepository.BoundingBoxSpecification.builder()
-                .minLongitude(bbox.get(0).min(bbox.get(2)))
-                .maxLongitude(bbox.get(0).max(bbox.get(2)))
-                .minLatitude(bbox.get(1).min(bbox.get(3)))
-                .maxLatitude(bbox.get(1).max(bbox.get(3)))
-                .facilityType(facilityType)
-                .services(serviceStrings)
-                .mobile(rawMobile)
-                .build());
     double centerLng = (bbox.get(0).doubleValue() + bbox.get(2).doubleValue()) / 2;
     double centerLat = (bbox.get(1).doubleValue() + bbox.get(3).doubleValue()) / 2;
-    return allEntities.stream()
-        .sorted(
-            (left, right) ->
-                Double.compare(
-                    distance(left, centerLng, centerLat), distance(right, centerLng, centerLat)))
-        .collect(toList());
+    Optional<FacilitySnapshot> snapshot = snapshot();
+    if (snapshot.isPresent()) {
+      // lng lat lng lat
+      List<FacilitySnapshot.Entry> entities =
+          snapshot
+              .get()
+              .findByBoundingBox(
+                  bbox.get(0).min(bbox.get(2)).doubleValue(),
+                  bbox.get(0).max(bbox.get(2)).doubleValue(),
+                  bbox.get(1).min(bbox.get(3)).doubleValue(),
+                  bbox.get(1).max(bbox.get(3)).doubleValue(),
+                  facilityType,
+                  serviceStrings,
+                  rawMobile)
+              .stream()
+              .sorted(
+                  Comparator.comparingDouble(
+                      e -> distance(e.longitude(), e.latitude(), centerLng, centerLat)))
+              .collect(toList());
+      return new PageImpl<>(page(entities, page, perPage), Pageable.unpaged(), entities.size());
+    }
+    // lng lat lng lat
+    List<FacilityLocationRepository.FacilityLocation> locations =
+        facilityRepository
+            .findAllLocations(
+                FacilityRepository.BoundingBoxSpecification.builder()
+                    .minLongitude(bbox.get(0).min(bbox.get(2)))
+                    .maxLongitude(bbox.get(0).max(bbox.get(2)))
+                    .minLatitude(bbox.get(1).min(bbox.get(3)))
+                    .maxLatitude(bbox.get(1).max(bbox.get(3)))
+                    .facilityType(facilityType)
+                    .services(serviceStrings)
+                    .mobile(rawMobile)
+                    .build())
+            .stream()
+            .sorted(
+                Comparator.comparingDouble(
+                    l -> distance(l.longitude(), l.latitude(), centerLng, centerLat)))
+            .collect(toList());
+    List<FacilityEntity.Pk> pksPage =
+        page(locations, page, perPage).stream().map(l -> l.id()).collect(toList());
+    return new PageImpl<>(entitiesByIds(pksPage), Pageable.unpaged(), locations.size());
   }
 
-  private List<FacilityEntity> entitiesByIds(String ids) {
+  /**
+   * Facilities with the given IDs, in the order requested. Unknown IDs are skipped. The snapshot is
+   * used if it is loaded, otherwise facilities are loaded in chunks to keep IN lists short.
+   */
+  private List<? extends HasFacilityPayload> entitiesByIds(List<FacilityEntity.Pk> pks) {
+    Optional<FacilitySnapshot> snapshot = snapshot();
+    if (snapshot.isPresent()) {
+      return snapshot.get().findByIds(pks);
+    }
+    Map<FacilityEntity.Pk, FacilityEntity> entities = new HashMap<>(pks.size());
+    for (List<FacilityEntity.Pk> chunk : Lists.partition(pks, IDS_PER_QUERY)) {
+      facilityRepository.findByIdIn(chunk).forEach(e -> entities.put(e.id(), e));
+    }
+    return pks.stream().map(pk -> entities.get(pk)).filter(Objects::nonNull).collect(toList());
+  }
+
+  /**
+   * One page of the requested facilities, in the order requested. Unknown IDs are skipped. The IDs
+   * are checked first, so that only the payloads on the page are loaded.
+   */
+  private Page<? extends HasFacilityPayload> entitiesPageByIds(String ids, int page, int perPage) {
     List<FacilityEntity.Pk> pks = entityIds(ids);
+    Optional<FacilitySnapshot> snapshot = snapshot();
+    if (snapshot.isPresent()) {
+      return FacilitySnapshot.page(snapshot.get().findByIds(pks), page, perPage);
+    }
+    Set<FacilityEntity.Pk> existing =
+        pks.isEmpty() ? Set.of() : new HashSet<>(facilityRepository.findIdsByIdIn(pks));
+    Page<FacilityEntity.Pk> pksPage =
+        FacilitySnapshot.page(
+            pks.stream().filter(existing::contains).collect(toList()), page, perPage);
+    if (pksPage.getContent().isEmpty()) {
+      return new PageImpl<>(List.of(), pksPage.getPageable(), pksPage.getTotalElements());
+    }
     Map<FacilityEntity.Pk, FacilityEntity> entities =
-        facilityRepository.findByIdIn(pks).stream()
+        facilityRepository.findByIdIn(pksPage.getContent()).stream()
             .collect(toMap(e -> e.id(), Function.identity()));
-    return pks.stream().map(pk -> entities.get(pk)).filter(Objects::nonNull).collect(toList());
+    return new PageImpl<>(
+        pksPage.stream().map(pk -> entities.get(pk)).filter(Objects::nonNull).collect(toList()),
+        pksPage.getPageable(),
+        pksPage.getTotalElements());
   }
 
+  /**
+   * Facilities matching the search, with their distance from the point. Facilities outside of the
+   * radius are excluded, the rest are not ranked.
+   */
   @SneakyThrows
-  private List<DistanceEntity> entitiesByLatLong(
+  private Stream<DistanceEntity> entitiesByLatLong(
       BigDecimal longitude,
       BigDecimal latitude,
       Optional<BigDecimal> radius,
@@ -236,34 +362,59 @@ public class FacilitiesControllerV1 {
                       });
             });
 
-    List<FacilityEntity> entities =
-        facilityRepository.findAll(
-            FacilityRepository.TypeServicesIdsSpecification.builder()
-                .ids(entityIds(ids))
-                .facilityType(facilityType)
-                .services(serviceStrings)
-                .mobile(rawMobile)
-                .build());
     double lng = longitude.doubleValue();
     double lat = latitude.doubleValue();
-    return entities.stream()
-        .map(
-            e ->
-                DistanceEntity.builder()
-                    .entity(e)
-                    .distance(BigDecimal.valueOf(haversine(e, lng, lat)))
-                    .linkerUrl(linkerUrl)
-                    .serviceSources(serviceSources)
-                    .build())
-        .filter(
-            radius.isPresent()
-                ? de -> radius.get().compareTo(de.distance().abs()) >= 0
-                : de -> true)
-        .sorted((left, right) -> left.distance().compareTo(right.distance()))
-        .collect(toList());
+    double maxDistance = radius.map(BigDecimal::doubleValue).orElse(Double.POSITIVE_INFINITY);
+    List<FacilityEntity.Pk> pks = entityIds(ids);
+    Optional<FacilitySnapshot> snapshot = snapshot();
+    Stream<DistanceEntity> distanceEntities;
+    if (snapshot.isPresent() && pks.isEmpty() && radius.isPresent()) {
+      // Nearest first, so the search stops at the first facility outside of the radius
+      distanceEntities =
+          snapshot
+              .get()
+              .findNearest(lng, lat, facilityType, serviceStrings, rawMobile)
+              .takeWhile(n -> n.distance() <= maxDistance)
+              .map(n -> distanceEntity(n.value(), n.distance()));
+    } else if (snapshot.isPresent()) {
+      distanceEntities =
+          snapshot
+              .get()
+              .findByTypeServicesIds(pks, facilityType, serviceStrings, rawMobile)
+              .stream()
+              .map(e -> distanceEntity(e, haversine(e.longitude(), e.latitude(), lng, lat)));
+    } else if (pks.isEmpty() && radius.isPresent()) {
+      // Only facilities in the rectangle around the circle are loaded
+      distanceEntities =
+          facilityRepository
+              .findAll(
+                  FacilityRepository.RadiusSpecification.builder()
+                      .longitude(lng)
+                      .latitude(lat)
+                      .radius(maxDistance)
+                      .facilityType(facilityType)
+                      .services(serviceStrings)
+                      .mobile(rawMobile)
+                      .build())
+              .stream()
+              .map(e -> distanceEntity(e, haversine(e, lng, lat)));
+    } else {
+      distanceEntities =
+          facilityRepository
+              .findAll(
+                  FacilityRepository.TypeServicesIdsSpecification.builder()
+                      .ids(pks)
+                      .facilityType(facilityType)
+                      .services(serviceStrings)
+                      .mobile(rawMobile)
+                      .build())
+              .stream()
+              .map(e -> distanceEntity(e, haversine(e, lng, lat)));
+    }
+    return distanceEntities.filter(de -> de.distance() <= maxDistance);
   }
 
-  private Page<FacilityEntity> entitiesPageByState(
+  private Page<? extends HasFacilityPayload> entitiesPageByState(
       String rawState,
       String rawType,
       List<String> rawServices,
@@ -298,6 +449,13 @@ public class FacilitiesControllerV1 {
                       });
             });
 
+    Optional<FacilitySnapshot> snapshot = snapshot();
+    if (snapshot.isPresent()) {
+      return FacilitySnapshot.page(
+          snapshot.get().findByState(state, facilityType, serviceStrings, rawMobile),
+          page,
+          perPage);
+    }
     return facilityRepository.findAll(
         FacilityRepository.StateSpecification.builder()
             .state(state)
@@ -308,7 +466,7 @@ public class FacilitiesControllerV1 {
         PageRequest.of(page - 1, perPage, FacilityEntity.naturalOrder()));
   }
 
-  private Page<FacilityEntity> entitiesPageByZip(
+  private Page<? extends HasFacilityPayload> entitiesPageByZip(
       String rawZip,
       String rawType,
       List<String> rawServices,
@@ -343,6 +501,11 @@ public class FacilitiesControllerV1 {
             });
 
     String zip = rawZip.substring(0, Math.min(rawZip.length(), 5));
+    Optional<FacilitySnapshot> snapshot = snapshot();
+    if (snapshot.isPresent()) {
+      return FacilitySnapshot.page(
+          snapshot.get().findByZip(zip, facilityType, serviceStrings, rawMobile), page, perPage);
+    }
     return facilityRepository.findAll(
         FacilityRepository.ZipSpecification.builder()
             .zip(zip)
@@ -353,6 +516,26 @@ public class FacilitiesControllerV1 {
         PageRequest.of(page - 1, perPage, FacilityEntity.naturalOrder()));
   }
 
+  private Page<? extends HasFacilityPayload> entitiesPageByVisn(
+      String visn, int page, int perPage) {
+    checkArgument(page >= 1);
+    checkArgument(perPage >= 1);
+    Optional<FacilitySnapshot> snapshot = snapshot();
+    if (snapshot.isPresent()) {
+      return FacilitySnapshot.page(snapshot.get().findByVisn(visn), page, perPage);
+    }
+    return facilityRepository.findByVisn(
+        visn, PageRequest.of(page - 1, perPage, FacilityEntity.naturalOrder()));
+  }
+
+  private DistanceEntity distanceEntity(HasFacilityPayload entity, double distance) {
+    return DistanceEntity.builder()
+        .entity(entity)
+        .distance(distance)
+        .renderer(this::render)
+        .build();
+  }
+
   private FacilityEntity entityById(String id) {
     FacilityEntity.Pk pk = null;
     try {
@@ -368,6 +551,7 @@ public class FacilitiesControllerV1 {
   }
 
   /** Get all facility IDs as a list by Type. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/ids",
       produces = {"application/json"})
@@ -384,6 +568,7 @@ public class FacilitiesControllerV1 {
   }
 
   /** Get facilities by bounding box. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = "application/json",
@@ -395,7 +580,8 @@ public class FacilitiesControllerV1 {
       @RequestParam(value = "mobile", required = false) Boolean mobile,
       @RequestParam(value = "page", defaultValue = "1") @Min(1) int page,
       @RequestParam(value = "per_page", defaultValue = "10") @Min(0) int perPage) {
-    List<FacilityEntity> entities = entitiesByBoundingBox(bbox, type, services, mobile);
+    Page<? extends HasFacilityPayload> entities =
+        entitiesPageByBoundingBox(bbox, type, services, mobile, page, perPage);
     PageLinkerV1 linker =
         PageLinkerV1.builder()
             .url(linkerUrl + "facilities")
@@ -408,20 +594,27 @@ public class FacilitiesControllerV1 {
                     .add("page", page)
                     .add("per_page", perPage)
                     .build())
-            .totalEntries(entities.size())
+            .totalEntries((int) entities.getTotalElements())
             .build();
     return FacilitiesResponse.builder()
-        .data(
-            page(entities, page, perPage).stream()
-                .map(e -> facility(e, linkerUrl, serviceSources))
-                .collect(toList()))
+        .data(entities.stream().map(e -> render(e)).collect(toList()))
         .links(linker.links())
         .meta(
             FacilitiesResponse.FacilitiesMetadata.builder().pagination(linker.pagination()).build())
         .build();
   }
 
+  /** Get many facilities by ID, in the order requested. */
+  @PostMapping(
+      value = "/facilities/batch",
+      consumes = "application/json",
+      produces = "application/json")
+  FacilitiesResponse jsonFacilitiesBatch(@Valid @RequestBody FacilitiesBatchRequest request) {
+    return FacilitiesResponse.builder().data(renderByIds(entityIds(request.ids()))).build();
+  }
+
   /** Get facilities by IDs. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = "application/json",
@@ -430,7 +623,8 @@ public class FacilitiesControllerV1 {
       @RequestParam(value = "ids") String ids,
       @RequestParam(value = "page", defaultValue = "1") @Min(1) int page,
       @RequestParam(value = "per_page", defaultValue = "10") @Min(0) int perPage) {
-    List<FacilityEntity> entities = entitiesByIds(ids);
+    Page<? extends HasFacilityPayload> entitiesPage =
+        entitiesPageByIds(ids, page, Math.max(perPage, 1));
     PageLinkerV1 linker =
         PageLinkerV1.builder()
             .url(linkerUrl + "facilities")
@@ -440,13 +634,15 @@ public class FacilitiesControllerV1 {
                     .add("page", page)
                     .add("per_page", perPage)
                     .build())
-            .totalEntries(entities.size())
+            .totalEntries((int) entitiesPage.getTotalElements())
             .build();
     return FacilitiesResponse.builder()
         .data(
-            page(entities, page, perPage).stream()
-                .map(e -> facility(e, linkerUrl, serviceSources))
-                .collect(toList()))
+            perPage == 0
+                ? emptyList()
+                : entitiesPage.stream()
+                    .map(e -> render(e))
+                    .collect(toList()))
         .links(linker.links())
         .meta(
             FacilitiesResponse.FacilitiesMetadata.builder().pagination(linker.pagination()).build())
@@ -454,6 +650,7 @@ public class FacilitiesControllerV1 {
   }
 
   /** Get facilities by coordinates. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = "application/json",
@@ -471,9 +668,12 @@ public class FacilitiesControllerV1 {
     if (radius != null && radius.compareTo(BigDecimal.ZERO) < 0) {
       throw new ExceptionsUtils.InvalidParameter("radius", radius);
     }
-    List<DistanceEntity> entities =
-        entitiesByLatLong(
-            longitude, latitude, Optional.ofNullable(radius), ids, type, services, mobile);
+    NearestSelector.Selection<DistanceEntity> nearest =
+        NearestSelector.select(
+            entitiesByLatLong(
+                longitude, latitude, Optional.ofNullable(radius), ids, type, services, mobile),
+            DistanceEntity::distance,
+            NearestSelector.limit(page, perPage));
     PageLinkerV1 linker =
         PageLinkerV1.builder()
             .url(linkerUrl + "facilities")
@@ -488,16 +688,17 @@ public class FacilitiesControllerV1 {
                     .add("page", page)
                     .add("per_page", perPage)
                     .build())
-            .totalEntries(entities.size())
+            .totalEntries(nearest.total())
             .build();
-    List<DistanceEntity> entitiesPage = page(entities, page, perPage);
+    List<DistanceEntity> entitiesPage = page(nearest.nearest(), page, perPage);
     List<FacilitiesResponse.Distance> distances =
         entitiesPage.stream()
             .map(
                 e ->
                     FacilitiesResponse.Distance.builder()
                         .id(e.facility().id())
-                        .distance(e.distance().setScale(2, RoundingMode.HALF_EVEN))
+                        .distance(
+                            BigDecimal.valueOf(e.distance()).setScale(2, RoundingMode.HALF_EVEN))
                         .build())
             .collect(toList());
     return FacilitiesResponse.builder()
@@ -512,6 +713,7 @@ public class FacilitiesControllerV1 {
   }
 
   /** Get facilities by state. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = "application/json",
@@ -523,7 +725,7 @@ public class FacilitiesControllerV1 {
       @RequestParam(value = "mobile", required = false) Boolean mobile,
       @RequestParam(value = "page", defaultValue = "1") @Min(1) int page,
       @RequestParam(value = "per_page", defaultValue = "10") @Min(0) int perPage) {
-    Page<FacilityEntity> entitiesPage =
+    Page<? extends HasFacilityPayload> entitiesPage =
         entitiesPageByState(state, type, services, mobile, page, Math.max(perPage, 1));
     PageLinkerV1 linker =
         PageLinkerV1.builder()
@@ -544,7 +746,7 @@ public class FacilitiesControllerV1 {
             perPage == 0
                 ? emptyList()
                 : entitiesPage.stream()
-                    .map(e -> facility(e, linkerUrl, serviceSources))
+                    .map(e -> render(e))
                     .collect(toList()))
         .links(linker.links())
         .meta(
@@ -553,6 +755,7 @@ public class FacilitiesControllerV1 {
   }
 
   /** Get facilities by VISN. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = "application/json",
@@ -561,7 +764,8 @@ public class FacilitiesControllerV1 {
       @RequestParam(value = "visn") String visn,
       @RequestParam(value = "page", defaultValue = "1") @Min(1) int page,
       @RequestParam(value = "per_page", defaultValue = "10") @Min(0) int perPage) {
-    List<FacilityEntity> entities = facilityRepository.findByVisn(visn);
+    Page<? extends HasFacilityPayload> entitiesPage =
+        entitiesPageByVisn(visn, page, Math.max(perPage, 1));
     PageLinkerV1 linker =
         PageLinkerV1.builder()
             .url(linkerUrl + "facilities")
@@ -571,13 +775,15 @@ public class FacilitiesControllerV1 {
                     .add("page", page)
                     .add("per_page", perPage)
                     .build())
-            .totalEntries(entities.size())
+            .totalEntries((int) entitiesPage.getTotalElements())
             .build();
     return FacilitiesResponse.builder()
         .data(
-            page(entities, page, perPage).stream()
-                .map(e -> facility(e, linkerUrl, serviceSources))
-                .collect(toList()))
+            perPage == 0
+                ? emptyList()
+                : entitiesPage.stream()
+                    .map(e -> render(e))
+                    .collect(toList()))
         .links(linker.links())
         .meta(
             FacilitiesResponse.FacilitiesMetadata.builder().pagination(linker.pagination()).build())
@@ -585,6 +791,7 @@ public class FacilitiesControllerV1 {
   }
 
   /** Get facilities by zip. */
+  @ConditionalGet(ConditionalGet.Validator.DATASET)
   @GetMapping(
       value = "/facilities",
       produces = "application/json",
@@ -596,7 +803,7 @@ public class FacilitiesControllerV1 {
       @RequestParam(value = "mobile", required = false) Boolean mobile,
       @RequestParam(value = "page", defaultValue = "1") @Min(1) int page,
       @RequestParam(value = "per_page", defaultValue = "10") @Min(0) int perPage) {
-    Page<FacilityEntity> entitiesPage =
+    Page<? extends HasFacilityPayload> entitiesPage =
         entitiesPageByZip(zip, type, services, mobile, page, Math.max(perPage, 1));
     PageLinkerV1 linker =
         PageLinkerV1.builder()
@@ -617,7 +824,7 @@ public class FacilitiesControllerV1 {
             perPage == 0
                 ? emptyList()
                 : entitiesPage.stream()
-                    .map(e -> facility(e, linkerUrl, serviceSources))
+                    .map(e -> render(e))
                     .collect(toList()))
         .links(linker.links())
         .meta(
@@ -625,31 +832,71 @@ public class FacilitiesControllerV1 {
         .build();
   }
 
+  private Optional<FacilitySnapshot> snapshot() {
+    return facilitySnapshots == null ? Optional.empty() : facilitySnapshots.current();
+  }
+
+  /** Transform the entity, reusing a previous rendering of the same entity version if possible. */
+  private Facility render(HasFacilityPayload entity) {
+    if (renderedFacilities == null) {
+      return facility(entity, linkerUrl, serviceSources);
+    }
+    return renderedFacilities.get(
+        entity, "v1", serviceSources, () -> facility(entity, linkerUrl, serviceSources));
+  }
+
+  /**
+   * Render the facilities with the given IDs, in the order requested. Unknown IDs are skipped.
+   * Without a snapshot, versions are checked first, and only facilities that have not been
+   * rendered at their current version are loaded.
+   */
+  private List<Facility> renderByIds(List<FacilityEntity.Pk> pks) {
+    if (renderedFacilities == null || snapshot().isPresent()) {
+      return entitiesByIds(pks).parallelStream().map(e -> render(e)).collect(toList());
+    }
+    Map<FacilityEntity.Pk, Facility> rendered = new HashMap<>(pks.size());
+    List<FacilityEntity.Pk> unrendered = new ArrayList<>();
+    for (List<FacilityEntity.Pk> chunk : Lists.partition(pks, IDS_PER_QUERY)) {
+      for (FacilityVersionRepository.FacilityVersion version :
+          facilityRepository.findVersionsByIdIn(chunk)) {
+        Optional<Facility> facility = renderedFacilities.find(version, "v1", serviceSources);
+        if (facility.isPresent()) {
+          rendered.put(version.id(), facility.get());
+        } else {
+          unrendered.add(version.id());
+        }
+      }
+    }
+    rendered.putAll(
+        entitiesByIds(unrendered).parallelStream()
+            .collect(toMap(HasFacilityPayload::id, e -> render(e))));
+    return pks.stream().map(rendered::get).filter(Objects::nonNull).collect(toList());
+  }
+
   /** Read facility. */
+  @ConditionalGet(ConditionalGet.Validator.FACILITY)
   @GetMapping(value = "/facilities/{id}", produces = "application/json")
   FacilityReadResponse readJson(@PathVariable("id") String id) {
     return FacilityReadResponse.builder()
-        .facility(facility(entityById(id), linkerUrl, serviceSources))
+        .facility(render(entityById(id)))
         .build();
   }
 
   @Data
   @Builder
   private static final class DistanceEntity {
-    @NonNull final FacilityEntity entity;
-
-    final BigDecimal distance;
+    @NonNull final HasFacilityPayload entity;
 
-    @NonNull final String linkerUrl;
+    final double distance;
 
-    List<String> serviceSources;
+    @NonNull final Function<HasFacilityPayload, Facility> renderer;
 
     Facility facility;
 
     Facility facility() {
 
       if (facility == null) {
-        facility = FacilitiesControllerV1.facility(entity, linkerUrl, serviceSources);
+        facility = renderer.apply(entity);
       }
       return facility;
     }
@@ -7,10 +7,12 @@ import static org.apache.commons.lang3.StringUtils.capitalize;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
 import gov.va.api.lighthouse.facilities.DatamartFacility.Service;
 import gov.va.api.lighthouse.facilities.api.ServiceType;
 import gov.va.api.lighthouse.facilities.api.TypedService;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.HashSet;
 import java.util.Optional;
@@ -27,6 +29,8 @@ import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.Lob;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.persistence.Version;
 import lombok.AccessLevel;
@@ -38,6 +42,7 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import lombok.SneakyThrows;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.domain.Sort;
 
 @Data
@@ -48,6 +53,12 @@ import org.springframework.data.domain.Sort;
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class FacilityEntity implements HasFacilityPayload {
+  /**
+   * Lazy service collections of up to this many loaded facilities are fetched together, instead of
+   * with a select per facility.
+   */
+  static final int COLLECTION_BATCH_SIZE = 100;
+
   private static final ObjectMapper DATAMART_MAPPER = createMapper();
 
   /**
@@ -69,6 +80,7 @@ public class FacilityEntity implements HasFacilityPayload {
   @Column private double longitude;
 
   @ElementCollection(targetClass = String.class)
+  @BatchSize(size = COLLECTION_BATCH_SIZE)
   @CollectionTable(
       name = "facility_services",
       schema = "app",
@@ -81,6 +93,12 @@ public class FacilityEntity implements HasFacilityPayload {
   @Column
   private String facility;
 
+  /** Replaces facility for rows saved in the compact format, see FacilityPayloads. */
+  @Lob
+  @Basic(fetch = FetchType.EAGER)
+  @Column(name = "facility_payload")
+  private byte[] facilityPayload;
+
   @Lob
   @Basic(fetch = FetchType.EAGER)
   @Column(name = "cms_operating_status")
@@ -93,6 +111,7 @@ public class FacilityEntity implements HasFacilityPayload {
 
   @Default
   @ElementCollection(targetClass = String.class)
+  @BatchSize(size = COLLECTION_BATCH_SIZE)
   @CollectionTable(
       name = "cms_overlay_detailed_services",
       schema = "app",
@@ -114,6 +133,20 @@ public class FacilityEntity implements HasFacilityPayload {
   @Column(name = "mobile")
   private Boolean mobile;
 
+  /**
+   * Fingerprints of the services, kept in step with them, so that facilities can be filtered by
+   * service with an indexed integer lookup instead of comparing JSON strings.
+   */
+  @Default
+  @ElementCollection(targetClass = Long.class)
+  @BatchSize(size = COLLECTION_BATCH_SIZE)
+  @CollectionTable(
+      name = "facility_service_keys",
+      schema = "app",
+      joinColumns = {@JoinColumn(name = "station_number"), @JoinColumn(name = "type")})
+  @Column(name = "service_key")
+  private Set<Long> serviceKeys = new HashSet<>();
+
   /** Builder alternative that allows enums to be specified instead of strings. */
   @Builder(
       builderMethodName = "typeSafeBuilder",
@@ -151,6 +184,7 @@ public class FacilityEntity implements HasFacilityPayload {
                 })
             .collect(toSet()),
         facility,
+        null,
         cmsOperatingStatus,
         cmsServices,
         overlayServiceTypes.stream()
@@ -160,7 +194,14 @@ public class FacilityEntity implements HasFacilityPayload {
         missingTimestamp,
         lastUpdated,
         visn,
-        mobile);
+        mobile,
+        new HashSet<>());
+    updateServiceKeys();
+  }
+
+  /** Stable key for a serialized service, the same value is stored for the facility services. */
+  static long serviceKey(@NonNull String service) {
+    return Hashing.farmHashFingerprint64().hashString(service, StandardCharsets.UTF_8).asLong();
   }
 
   static Sort naturalOrder() {
@@ -189,6 +230,24 @@ public class FacilityEntity implements HasFacilityPayload {
                   }
                 })
             .collect(toSet()));
+    updateServiceKeys();
+  }
+
+  /** Recompute the service keys if the services have changed. */
+  @PrePersist
+  @PreUpdate
+  void updateServiceKeys() {
+    Set<Long> keys =
+        services == null
+            ? Set.of()
+            : services.stream().map(FacilityEntity::serviceKey).collect(toSet());
+    if (serviceKeys == null) {
+      serviceKeys = new HashSet<>(keys);
+    } else if (!serviceKeys.equals(keys)) {
+      // Modified in place, so a managed collection is updated rather than replaced
+      serviceKeys.clear();
+      serviceKeys.addAll(keys);
+    }
   }
 
   public enum Type {
@@ -0,0 +1,232 @@
+package gov.va.api.lighthouse.facilities;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Bulk exports written once per facility snapshot instead of once per request. Each export is
+ * written to a file as is and again gzip-compressed, then served as a file so that conditional and
+ * range requests are handled by Spring. An export is only served while the snapshot it was written
+ * from is current, until then callers stream the export instead.
+ */
+@Slf4j
+@Component
+public class FacilityExportArtifacts {
+  private final FacilitySnapshotManager facilitySnapshots;
+
+  private final Path directory;
+
+  private final Map<String, Function<FacilitySnapshot, StreamingResponseBody>> exports =
+      new ConcurrentHashMap<>();
+
+  private final Map<String, Artifact> current = new ConcurrentHashMap<>();
+
+  /** Replaced artifacts, deleted on the next rebuild so that in-flight downloads can finish. */
+  private final List<Artifact> retired = new ArrayList<>();
+
+  private long generation;
+
+  @Builder
+  @SneakyThrows
+  FacilityExportArtifacts(
+      @Autowired FacilitySnapshotManager facilitySnapshots,
+      @Value("${facilities.exports.directory:}") String directory) {
+    this.facilitySnapshots = facilitySnapshots;
+    this.directory =
+        isBlank(directory)
+            ? Files.createTempDirectory("facility-exports")
+            : Files.createDirectories(Path.of(directory));
+  }
+
+  /** True if the Accept-Encoding header allows gzip. */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (isBlank(acceptEncoding)) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.trim().split(";");
+      if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+        continue;
+      }
+      for (int i = 1; i < parts.length; i++) {
+        String param = parts[i].trim();
+        if (param.startsWith("q=") && !isPositiveQuality(param.substring(2))) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private static void delete(Artifact artifact) {
+    try {
+      Files.deleteIfExists(artifact.identity());
+      Files.deleteIfExists(artifact.gzip());
+    } catch (IOException e) {
+      log.warn("Failed to delete export {}: {}", artifact.identity(), e.getMessage());
+    }
+  }
+
+  /** True if the quality value is above zero. Malformed values do not accept the coding. */
+  private static boolean isPositiveQuality(String quality) {
+    try {
+      return Double.parseDouble(quality) > 0;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  private Artifact build(
+      String name,
+      FacilitySnapshot snapshot,
+      Function<FacilitySnapshot, StreamingResponseBody> export)
+      throws IOException {
+    Path identity = directory.resolve(name + "." + generation);
+    Path gzip = directory.resolve(name + "." + generation + ".gz");
+    HashingOutputStream hashing =
+        new HashingOutputStream(
+            Hashing.sha256(), new BufferedOutputStream(Files.newOutputStream(identity)));
+    try (OutputStream out = hashing) {
+      export.apply(snapshot).writeTo(out);
+    }
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip), 64 * 1024)) {
+      Files.copy(identity, out);
+    }
+    return Artifact.builder()
+        .snapshot(snapshot)
+        .identity(identity)
+        .gzip(gzip)
+        .etag(hashing.hash().toString().substring(0, 32))
+        .build();
+  }
+
+  /** The artifact for an export, if it was written from the current snapshot. */
+  public Optional<Artifact> current(@NonNull String name) {
+    Artifact artifact = current.get(name);
+    if (artifact == null || facilitySnapshots == null) {
+      return Optional.empty();
+    }
+    FacilitySnapshot snapshot = facilitySnapshots.current().orElse(null);
+    return artifact.snapshot() == snapshot ? Optional.of(artifact) : Optional.empty();
+  }
+
+  /**
+   * Register an export to be written from each new snapshot. The export is not available until the
+   * next rebuild.
+   */
+  public void register(
+      @NonNull String name, @NonNull Function<FacilitySnapshot, StreamingResponseBody> export) {
+    exports.put(name, export);
+  }
+
+  /**
+   * Write every registered export from the current snapshot. Exports that fail are dropped, so that
+   * callers stream them instead of being served stale data.
+   */
+  public synchronized void rebuild() {
+    Optional<FacilitySnapshot> snapshot =
+        facilitySnapshots == null ? Optional.empty() : facilitySnapshots.current();
+    if (snapshot.isEmpty()) {
+      log.info("No facility snapshot, bulk exports will be streamed.");
+      return;
+    }
+    retired.forEach(FacilityExportArtifacts::delete);
+    retired.clear();
+    generation++;
+    for (Map.Entry<String, Function<FacilitySnapshot, StreamingResponseBody>> export :
+        exports.entrySet()) {
+      Stopwatch timer = Stopwatch.createStarted();
+      Artifact replaced;
+      try {
+        Artifact artifact = build(export.getKey(), snapshot.get(), export.getValue());
+        replaced = current.put(export.getKey(), artifact);
+        log.info(
+            "Wrote export {} ({} bytes, {} gzipped) in {} ms",
+            export.getKey(),
+            Files.size(artifact.identity()),
+            Files.size(artifact.gzip()),
+            timer.elapsed(TimeUnit.MILLISECONDS));
+      } catch (IOException | RuntimeException e) {
+        log.error("Failed to write export {}: {}", export.getKey(), e.getMessage());
+        replaced = current.remove(export.getKey());
+      }
+      if (replaced != null) {
+        retired.add(replaced);
+      }
+    }
+  }
+
+  /** Rewrite the exports if the snapshot has changed since they were written. */
+  @Scheduled(
+      initialDelayString = "${facilities.exports.refresh-check-millis:60000}",
+      fixedDelayString = "${facilities.exports.refresh-check-millis:60000}")
+  public void rebuildIfStale() {
+    if (exports.keySet().stream().anyMatch(name -> current(name).isEmpty())) {
+      rebuild();
+    }
+  }
+
+  /** A written export. */
+  @lombok.Value
+  @Builder
+  public static class Artifact {
+    @NonNull FacilitySnapshot snapshot;
+
+    @NonNull Path identity;
+
+    @NonNull Path gzip;
+
+    /** Hash of the uncompressed content. */
+    @NonNull String etag;
+
+    /**
+     * The artifact as a file response, gzip-compressed if the client accepts it. The entity tag
+     * differs between the encodings, since they are different representations.
+     */
+    public ResponseEntity<Resource> response(
+        @NonNull MediaType contentType, String acceptEncoding) {
+      boolean compressed = acceptsGzip(acceptEncoding);
+      ResponseEntity.BodyBuilder response =
+          ResponseEntity.ok()
+              .contentType(contentType)
+              .eTag(compressed ? etag + "-gzip" : etag)
+              .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+              .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+      if (compressed) {
+        response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+      }
+      return response.body(new FileSystemResource(compressed ? gzip : identity));
+    }
+  }
+}
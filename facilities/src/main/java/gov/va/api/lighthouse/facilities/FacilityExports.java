@@ -0,0 +1,155 @@
+package gov.va.api.lighthouse.facilities;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Function;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Bulk exports of every facility, streamed to the response. Facilities are read a chunk at a time
+ * in natural order, rendered in parallel within the chunk, and written before the next chunk is
+ * read. Memory use depends on the chunk size instead of the size of the dataset.
+ */
+@UtilityClass
+final class FacilityExports {
+  static final int CHUNK_SIZE = 500;
+
+  static final MediaType TEXT_CSV = new MediaType("text", "csv", UTF_8);
+
+  /**
+   * Every facility, a chunk at a time. The first chunk is read right away, so that database errors
+   * are reported before the response is committed.
+   */
+  static Iterator<List<HasFacilityPayload>> chunks(
+      @NonNull FacilityRepository repository, @NonNull Optional<FacilitySnapshot> snapshot) {
+    if (snapshot.isPresent()) {
+      return Iterators.transform(
+          Lists.partition(snapshot.get().entries(), CHUNK_SIZE).iterator(),
+          chunk -> Collections.<HasFacilityPayload>unmodifiableList(chunk));
+    }
+    return new RepositoryChunks(repository);
+  }
+
+  /** Write a header and then a row per facility. */
+  static StreamingResponseBody csv(
+      @NonNull Iterator<List<HasFacilityPayload>> chunks,
+      @NonNull List<String> headers,
+      @NonNull Function<HasFacilityPayload, List<String>> toRow) {
+    return out -> {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+      CSVPrinter printer =
+          CSVFormat.DEFAULT.withHeader(headers.stream().toArray(String[]::new)).print(writer);
+      while (chunks.hasNext()) {
+        for (List<String> row : render(chunks.next(), toRow)) {
+          printer.printRecord(row);
+        }
+      }
+      printer.flush();
+    };
+  }
+
+  /** Write a GeoJSON feature collection with a feature per facility. */
+  static StreamingResponseBody geoJson(
+      @NonNull ObjectMapper mapper,
+      @NonNull Iterator<List<HasFacilityPayload>> chunks,
+      @NonNull Function<HasFacilityPayload, Object> toFeature) {
+    // Flushing after every feature would send a chunk to the client per facility
+    ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    return out -> {
+      JsonGenerator generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+      generator.writeStartObject();
+      generator.writeStringField("type", "FeatureCollection");
+      generator.writeArrayFieldStart("features");
+      while (chunks.hasNext()) {
+        for (Object feature : render(chunks.next(), toFeature)) {
+          writer.writeValue(generator, feature);
+        }
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+      generator.flush();
+    };
+  }
+
+  /**
+   * The first of the producible types that the client accepts, in order of the client's
+   * preference. The first producible type is used when the client accepts anything.
+   */
+  static MediaType negotiate(String accept, @NonNull List<MediaType> producible) {
+    if (isBlank(accept)) {
+      return producible.get(0);
+    }
+    List<MediaType> acceptable = MediaType.parseMediaTypes(accept);
+    MediaType.sortBySpecificityAndQuality(acceptable);
+    for (MediaType type : acceptable) {
+      for (MediaType candidate : producible) {
+        if (type.isCompatibleWith(candidate)) {
+          return candidate;
+        }
+      }
+    }
+    return producible.get(0);
+  }
+
+  private static <T> List<T> render(
+      List<HasFacilityPayload> chunk, Function<HasFacilityPayload, T> renderer) {
+    return chunk.parallelStream().map(renderer).collect(toList());
+  }
+
+  /** Pages through the repository until a short page is read. */
+  private static final class RepositoryChunks implements Iterator<List<HasFacilityPayload>> {
+    private final FacilityRepository repository;
+
+    private int page;
+
+    private List<HasFacilityPayload> next;
+
+    RepositoryChunks(FacilityRepository repository) {
+      this.repository = repository;
+      next = read();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !next.isEmpty();
+    }
+
+    @Override
+    public List<HasFacilityPayload> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      List<HasFacilityPayload> chunk = next;
+      next = chunk.size() < CHUNK_SIZE ? List.of() : read();
+      return chunk;
+    }
+
+    private List<HasFacilityPayload> read() {
+      return repository.findAllProjectedBy(
+          PageRequest.of(page++, CHUNK_SIZE, FacilityEntity.naturalOrder()));
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package gov.va.api.lighthouse.facilities;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Searches that only need to know where facilities are. Payloads and services are not loaded, so
+ * candidates can be filtered and sorted cheaply before the payloads of the few that are rendered
+ * are loaded.
+ */
+public interface FacilityLocationRepository {
+  /** The locations of facilities matching the specification, in no particular order. */
+  List<FacilityLocation> findAllLocations(@NonNull Specification<FacilityEntity> specification);
+
+  @Value
+  @Builder
+  class FacilityLocation {
+    @NonNull FacilityEntity.Pk id;
+
+    double latitude;
+
+    double longitude;
+
+    Boolean mobile;
+
+    FacilityEntity.Type type() {
+      return id.type();
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package gov.va.api.lighthouse.facilities;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+
+/** Selects location columns with the predicates of the existing specifications. */
+class FacilityLocationRepositoryImpl implements FacilityLocationRepository {
+  private final EntityManager entityManager;
+
+  FacilityLocationRepositoryImpl(@Autowired EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  public List<FacilityLocation> findAllLocations(
+      @NonNull Specification<FacilityEntity> specification) {
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+    Root<FacilityEntity> root = query.from(FacilityEntity.class);
+    Path<FacilityEntity.Pk> id = root.get("id");
+    query.multiselect(
+        id.get("type"),
+        id.get("stationNumber"),
+        root.get("latitude"),
+        root.get("longitude"),
+        root.get("mobile"));
+    Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+    if (predicate != null) {
+      query.where(predicate);
+    }
+    return entityManager.createQuery(query).getResultList().stream()
+        .map(
+            t ->
+                FacilityLocation.builder()
+                    .id(
+                        FacilityEntity.Pk.of(
+                            t.get(0, FacilityEntity.Type.class), t.get(1, String.class)))
+                    .latitude(t.get(2, Double.class))
+                    .longitude(t.get(3, Double.class))
+                    .mobile(t.get(4, Boolean.class))
+                    .build())
+        .collect(toList());
+  }
+}
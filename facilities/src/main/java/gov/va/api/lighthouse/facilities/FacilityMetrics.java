@@ -0,0 +1,59 @@
+package gov.va.api.lighthouse.facilities;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.function.Supplier;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Names and builders of the facility meters. Every timer and summary publishes a percentile
+ * histogram, so percentiles can be aggregated across instances from the Prometheus endpoint.
+ *
+ * <p>Beans record to the injected registry. Static code, e.g. transformers, records to the global
+ * registry, which Spring Boot backs with the same registries.
+ */
+@UtilityClass
+final class FacilityMetrics {
+  /** Controller method durations, by controller and method. */
+  static final String CONTROLLER = "facilities.controller";
+
+  /** Repository method durations, by repository and method. */
+  static final String REPOSITORY = "facilities.repository";
+
+  /** Entities or values returned by repository methods. */
+  static final String REPOSITORY_ROWS = "facilities.repository.rows";
+
+  /** Estimated size of the payload columns of the entities returned by repository methods. */
+  static final String REPOSITORY_LOB_BYTES = "facilities.repository.lob.bytes";
+
+  /** Duration of each stage of transforming a stored facility for an API version. */
+  static final String TRANSFORM = "facilities.transform";
+
+  /** Duration of writing JSON responses, by response type. */
+  static final String SERIALIZATION = "facilities.serialization";
+
+  /** Size, memory, and hit ratio of the cache of decoded drive time bands. */
+  static final String DRIVE_TIME_BAND_PATHS = "facilities.drive-time-band.paths";
+
+  /** Duration of finding the drive time band of a station that contains a point. */
+  static final String NEARBY_INTERSECTION = "facilities.nearby.intersection";
+
+  static DistributionSummary summary(
+      MeterRegistry registry, String name, String baseUnit, String... tags) {
+    return DistributionSummary.builder(name)
+        .baseUnit(baseUnit)
+        .tags(tags)
+        .publishPercentileHistogram()
+        .register(registry);
+  }
+
+  static <T> T time(String name, Supplier<T> work, String... tags) {
+    return timer(Metrics.globalRegistry, name, tags).record(work);
+  }
+
+  static Timer timer(MeterRegistry registry, String name, String... tags) {
+    return Timer.builder(name).tags(tags).publishPercentileHistogram().register(registry);
+  }
+}
@@ -1,9 +1,5 @@
 package gov.va.api.lighthouse.facilities;
 
-import static gov.va.api.lighthouse.facilities.DatamartFacilitiesJacksonConfig.createMapper;
-import static gov.va.api.lighthouse.facilities.FacilityOverlayHelper.filterOutInvalidDetailedServices;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
 import gov.va.api.lighthouse.facilities.api.v0.Facility;
 import java.util.function.Function;
 import lombok.Builder;
@@ -14,15 +10,25 @@ import lombok.Value;
 @Value
 public class FacilityOverlayV0 implements Function<HasFacilityPayload, Facility> {
 
-  private static final ObjectMapper DATAMART_MAPPER = createMapper();
-
   @Override
   @SneakyThrows
   public Facility apply(HasFacilityPayload entity) {
+    DatamartFacility datamartFacility =
+        FacilityMetrics.time(
+            FacilityMetrics.TRANSFORM,
+            () -> FacilityPayloads.cleaned(entity),
+            "api",
+            "v0",
+            "stage",
+            "decode");
     Facility facility =
-        FacilityTransformerV0.toFacility(
-            filterOutInvalidDetailedServices(
-                DATAMART_MAPPER.readValue(entity.facility(), DatamartFacility.class)));
+        FacilityMetrics.time(
+            FacilityMetrics.TRANSFORM,
+            () -> FacilityTransformerV0.toFacility(datamartFacility),
+            "api",
+            "v0",
+            "stage",
+            "transform");
     return facility;
   }
 }
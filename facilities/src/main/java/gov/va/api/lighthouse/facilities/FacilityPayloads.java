@@ -0,0 +1,118 @@
+package gov.va.api.lighthouse.facilities;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static gov.va.api.lighthouse.facilities.DatamartFacilitiesJacksonConfig.createMapper;
+import static gov.va.api.lighthouse.facilities.FacilityOverlayHelper.filterOutInvalidDetailedServices;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Storage format of facility payloads. Payloads are written as Smile, Jackson's binary form of
+ * JSON, and deflated when they are large enough to benefit. The first byte identifies the format.
+ * Rows saved before this format existed hold JSON text in the facility column instead, both are
+ * read.
+ *
+ * <p>The datamart mapper does the (de)serialization either way, so custom serializers and
+ * deserializers apply to both formats.
+ */
+@UtilityClass
+final class FacilityPayloads {
+  /** Smile payloads smaller than this are not worth deflating. */
+  static final int DEFLATE_THRESHOLD = 1024;
+
+  static final byte SMILE = 1;
+
+  static final byte SMILE_DEFLATED = 2;
+
+  private static final ObjectMapper DATAMART_MAPPER = createMapper();
+
+  private static final SmileFactory SMILE_FACTORY = smileFactory();
+
+  /**
+   * The payload cleaned of invalid detailed services. A payload that the source has already parsed
+   * and cleaned is reused.
+   */
+  static DatamartFacility cleaned(@NonNull HasFacilityPayload entity) {
+    Optional<DatamartFacility> parsed = entity.datamartFacility();
+    if (parsed.isPresent()) {
+      return parsed.get();
+    }
+    return filterOutInvalidDetailedServices(read(entity));
+  }
+
+  /** Decode a payload written by {@link #encode(DatamartFacility)}. */
+  @SneakyThrows
+  static DatamartFacility decode(@NonNull byte[] payload) {
+    checkArgument(payload.length > 0, "Empty facility payload");
+    InputStream in = new ByteArrayInputStream(payload, 1, payload.length - 1);
+    switch (payload[0]) {
+      case SMILE:
+        break;
+      case SMILE_DEFLATED:
+        in = new InflaterInputStream(in);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown facility payload format: " + payload[0]);
+    }
+    try (JsonParser parser = SMILE_FACTORY.createParser(in)) {
+      return DATAMART_MAPPER.readValue(parser, DatamartFacility.class);
+    }
+  }
+
+  /** Encode a payload as Smile, deflated if it is large enough. */
+  @SneakyThrows
+  static byte[] encode(@NonNull DatamartFacility facility) {
+    ByteArrayOutputStream smile = new ByteArrayOutputStream(4 * DEFLATE_THRESHOLD);
+    smile.write(SMILE);
+    try (JsonGenerator generator = SMILE_FACTORY.createGenerator(smile)) {
+      DATAMART_MAPPER.writeValue(generator, facility);
+    }
+    byte[] encoded = smile.toByteArray();
+    if (encoded.length - 1 < DEFLATE_THRESHOLD) {
+      return encoded;
+    }
+    ByteArrayOutputStream deflated = new ByteArrayOutputStream(encoded.length / 2);
+    deflated.write(SMILE_DEFLATED);
+    try (DeflaterOutputStream out = new DeflaterOutputStream(deflated)) {
+      out.write(encoded, 1, encoded.length - 1);
+    }
+    return deflated.toByteArray();
+  }
+
+  /** The payload of an entity, in whichever format it was stored. */
+  @SneakyThrows
+  static DatamartFacility read(@NonNull HasFacilityPayload entity) {
+    byte[] payload = entity.facilityPayload();
+    if (payload != null) {
+      return decode(payload);
+    }
+    return DATAMART_MAPPER.readValue(entity.facility(), DatamartFacility.class);
+  }
+
+  private static SmileFactory smileFactory() {
+    SmileFactory factory = new SmileFactory();
+    factory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+    // Deserializers that read trees use the codec of the parser
+    factory.setCodec(DATAMART_MAPPER);
+    return factory;
+  }
+
+  /** Store the payload of an entity in the compact format, replacing any JSON text. */
+  static void write(@NonNull FacilityEntity entity, @NonNull DatamartFacility facility) {
+    entity.facilityPayload(encode(facility));
+    entity.facility(null);
+  }
+}
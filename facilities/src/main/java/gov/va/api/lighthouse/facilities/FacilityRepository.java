@@ -1,6 +1,7 @@
 package gov.va.api.lighthouse.facilities;
 
 import static java.util.Collections.emptySet;
+import static java.util.stream.Collectors.toSet;
 import static org.springframework.util.CollectionUtils.isEmpty;
 
 import gov.va.api.health.autoconfig.logging.Loggable;
@@ -12,45 +13,90 @@ import java.util.List;
 import java.util.Set;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 @Loggable
 public interface FacilityRepository
     extends CrudRepository<FacilityEntity, FacilityEntity.Pk>,
-        JpaSpecificationExecutor<FacilityEntity> {
+        JpaSpecificationExecutor<FacilityEntity>,
+        FacilityLocationRepository,
+        FacilityVersionRepository {
 
   @Query("select e.id from #{#entityName} e")
   List<FacilityEntity.Pk> findAllIds();
 
   List<HasFacilityPayload> findAllProjectedBy();
 
+  /** One page of facilities, without counting them. */
+  List<HasFacilityPayload> findAllProjectedBy(Pageable pageable);
+
   List<FacilityEntity> findByIdIn(Collection<FacilityEntity.Pk> ids);
 
+  /** The IDs that exist, without loading any payloads. */
+  @Query("select e.id from #{#entityName} e where e.id in :ids")
+  List<FacilityEntity.Pk> findIdsByIdIn(@Param("ids") Collection<FacilityEntity.Pk> ids);
+
+  /** Facilities with services but no service keys, saved before service keys existed. */
+  @Query(
+      "select e from #{#entityName} e where e.services is not empty and e.serviceKeys is empty")
+  List<FacilityEntity> findMissingServiceKeys(Pageable pageable);
+
+  /** Facilities with services but no service keys, other than the given ones. */
+  @Query(
+      "select e from #{#entityName} e where e.services is not empty and e.serviceKeys is empty"
+          + " and e.id not in :ids")
+  List<FacilityEntity> findMissingServiceKeysAndIdNotIn(
+      @Param("ids") Collection<FacilityEntity.Pk> ids, Pageable pageable);
+
+  /** Facilities still stored as JSON text, see FacilityPayloads. */
+  List<FacilityEntity> findByFacilityPayloadIsNull(Pageable pageable);
+
+  /** Facilities still stored as JSON text, other than the given ones. */
+  List<FacilityEntity> findByFacilityPayloadIsNullAndIdNotIn(
+      Collection<FacilityEntity.Pk> ids, Pageable pageable);
+
   List<FacilityEntity> findByVisn(String visn);
 
+  Page<FacilityEntity> findByVisn(String visn, Pageable pageable);
+
   @Query("select max(e.lastUpdated) from #{#entityName} e")
   Instant findLastUpdated();
 
+  @Query("select coalesce(sum(e.version), 0) from #{#entityName} e")
+  Long findVersionTotal();
+
   abstract class ServicesSpecificationHelper implements Specification<FacilityEntity> {
 
+    /**
+     * Facilities offering any of the services. Services are matched by key, with a single indexed
+     * subquery, rather than comparing each serialized service.
+     */
     @SneakyThrows
     protected Predicate buildServicesPredicate(
-        Root<FacilityEntity> root, CriteriaBuilder criteriaBuilder, Set<String> services) {
-      Predicate[] servicePredicates =
-          services.stream()
-              .map(s -> criteriaBuilder.isMember(s, root.get("services")))
-              .toArray(Predicate[]::new);
-      return criteriaBuilder.or(servicePredicates);
+        Root<FacilityEntity> root,
+        CriteriaQuery<?> criteriaQuery,
+        CriteriaBuilder criteriaBuilder,
+        Set<String> services) {
+      Set<Long> keys = services.stream().map(FacilityEntity::serviceKey).collect(toSet());
+      Subquery<Long> subquery = criteriaQuery.subquery(Long.class);
+      Join<FacilityEntity, Long> serviceKeys = subquery.correlate(root).join("serviceKeys");
+      subquery.select(serviceKeys).where(serviceKeys.in(keys));
+      return criteriaBuilder.exists(subquery);
     }
   }
 
@@ -96,7 +142,92 @@ public interface FacilityRepository
         return combinedBase;
       }
       return criteriaBuilder.and(
-          combinedBase, buildServicesPredicate(root, criteriaBuilder, services));
+          combinedBase, buildServicesPredicate(root, criteriaQuery, criteriaBuilder, services));
+    }
+  }
+
+  /**
+   * Facilities that could be within the radius, in miles, of the point. The circle is approximated
+   * by a slightly larger bounding rectangle, so that the latitude and longitude index can be used.
+   * Results must still be checked against the exact distance.
+   */
+  @Value
+  @Builder
+  @EqualsAndHashCode(callSuper = false)
+  final class RadiusSpecification extends ServicesSpecificationHelper {
+    /** Padding, in degrees, so rounding never excludes a facility on the edge of the circle. */
+    static final double MARGIN_DEGREES = 0.0001;
+
+    static final double EARTH_RADIUS_MILES = 3958.8;
+
+    double longitude;
+
+    double latitude;
+
+    double radius;
+
+    FacilityEntity.Type facilityType;
+
+    @Builder.Default Set<String> services = emptySet();
+
+    Boolean mobile;
+
+    /**
+     * Half of the width of the bounding rectangle in degrees of longitude, or NaN if the circle
+     * reaches a pole or the anti-meridian and longitude cannot be constrained.
+     */
+    double longitudeDelta() {
+      double angle = radius / EARTH_RADIUS_MILES;
+      double sin = Math.sin(angle) / Math.cos(Math.toRadians(latitude));
+      if (angle >= Math.PI / 2 || sin >= 1 || Math.abs(latitude) + latitudeDelta() >= 90) {
+        return Double.NaN;
+      }
+      double delta = Math.toDegrees(Math.asin(sin)) + MARGIN_DEGREES;
+      if (longitude - delta < -180 || longitude + delta > 180) {
+        return Double.NaN;
+      }
+      return delta;
+    }
+
+    /** Half of the height of the bounding rectangle in degrees of latitude. */
+    double latitudeDelta() {
+      return Math.toDegrees(radius / EARTH_RADIUS_MILES) + MARGIN_DEGREES;
+    }
+
+    @Override
+    @SneakyThrows
+    public Predicate toPredicate(
+        Root<FacilityEntity> root,
+        CriteriaQuery<?> criteriaQuery,
+        CriteriaBuilder criteriaBuilder) {
+      List<Predicate> basePredicates = new ArrayList<>(6);
+      double latitudeDelta = latitudeDelta();
+      basePredicates.add(
+          criteriaBuilder.greaterThanOrEqualTo(root.get("latitude"), latitude - latitudeDelta));
+      basePredicates.add(
+          criteriaBuilder.lessThanOrEqualTo(root.get("latitude"), latitude + latitudeDelta));
+      double longitudeDelta = longitudeDelta();
+      if (!Double.isNaN(longitudeDelta)) {
+        basePredicates.add(
+            criteriaBuilder.greaterThanOrEqualTo(
+                root.get("longitude"), longitude - longitudeDelta));
+        basePredicates.add(
+            criteriaBuilder.lessThanOrEqualTo(root.get("longitude"), longitude + longitudeDelta));
+      }
+      if (facilityType != null) {
+        basePredicates.add(criteriaBuilder.equal(root.get("id").get("type"), facilityType));
+      }
+
+      if (mobile != null) {
+        basePredicates.add(criteriaBuilder.equal(root.get("mobile"), mobile));
+      }
+
+      Predicate combinedBase = criteriaBuilder.and(basePredicates.toArray(new Predicate[0]));
+      if (isEmpty(services)) {
+        return combinedBase;
+      }
+      return criteriaBuilder.and(
+          combinedBase, buildServicesPredicate(root, criteriaQuery, criteriaBuilder, services));
     }
   }
 
@@ -133,7 +264,7 @@ public interface FacilityRepository
         return combinedBase;
       }
       return criteriaBuilder.and(
-          combinedBase, buildServicesPredicate(root, criteriaBuilder, services));
+          combinedBase, buildServicesPredicate(root, criteriaQuery, criteriaBuilder, services));
     }
   }
 
@@ -173,7 +304,7 @@ public interface FacilityRepository
         return combinedBase;
       }
       return criteriaBuilder.and(
-          combinedBase, buildServicesPredicate(root, criteriaBuilder, services));
+          combinedBase, buildServicesPredicate(root, criteriaQuery, criteriaBuilder, services));
     }
   }
 
@@ -214,7 +345,7 @@ public interface FacilityRepository
         return combinedBase;
       }
       return criteriaBuilder.and(
-          combinedBase, buildServicesPredicate(root, criteriaBuilder, services));
+          combinedBase, buildServicesPredicate(root, criteriaQuery, criteriaBuilder, services));
     }
   }
 
@@ -251,7 +382,7 @@ public interface FacilityRepository
         return combinedBase;
       }
       return criteriaBuilder.and(
-          combinedBase, buildServicesPredicate(root, criteriaBuilder, services));
+          combinedBase, buildServicesPredicate(root, criteriaQuery, criteriaBuilder, services));
     }
   }
 }
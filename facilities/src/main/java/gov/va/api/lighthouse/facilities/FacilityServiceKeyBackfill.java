@@ -0,0 +1,95 @@
+package gov.va.api.lighthouse.facilities;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Fills in the service keys of facilities saved before service keys existed. Services filters
+ * match by key, so until then those facilities match no services[] filter when searches fall back
+ * to the database. Facilities are updated a batch at a time, each batch in its own transaction, and
+ * a facility whose keys cannot be computed is skipped so it does not block the rest.
+ */
+@Slf4j
+@Component
+public class FacilityServiceKeyBackfill {
+  private static final int BATCH_SIZE = 100;
+
+  private final FacilityRepository facilityRepository;
+
+  private final TransactionTemplate transactions;
+
+  @Builder
+  FacilityServiceKeyBackfill(
+      @Autowired FacilityRepository facilityRepository,
+      @Autowired TransactionTemplate transactions) {
+    this.facilityRepository = facilityRepository;
+    this.transactions = transactions;
+  }
+
+  /** Fill in missing service keys once the application is ready, if any facility needs them. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void initialize() {
+    try {
+      if (!facilityRepository.findMissingServiceKeys(PageRequest.of(0, 1)).isEmpty()) {
+        populate();
+      }
+    } catch (Exception e) {
+      log.error("Failed to populate service keys at startup. {}", e.getMessage());
+    }
+  }
+
+  /** Fill in the service keys of every facility that is missing them. */
+  public void populate() {
+    log.warn("Attempting to populate service keys for all facilities.");
+    Set<FacilityEntity.Pk> failed = new LinkedHashSet<>();
+    int populated = 0;
+    int batchSize;
+    do {
+      batchSize =
+          transactions == null
+              ? populateBatch(failed)
+              : transactions.execute(status -> populateBatch(failed));
+      populated += batchSize;
+    } while (batchSize > 0);
+    log.warn(
+        "Completed populating service keys for {} facilities, {} failed: {}",
+        populated - failed.size(),
+        failed.size(),
+        failed.stream().map(FacilityEntity.Pk::toIdString).collect(Collectors.toList()));
+  }
+
+  /** Update one batch, returning how many facilities were loaded. */
+  private int populateBatch(Set<FacilityEntity.Pk> failed) {
+    PageRequest page = PageRequest.of(0, BATCH_SIZE);
+    List<FacilityEntity> batch =
+        failed.isEmpty()
+            ? facilityRepository.findMissingServiceKeys(page)
+            : facilityRepository.findMissingServiceKeysAndIdNotIn(failed, page);
+    List<FacilityEntity> updated = new ArrayList<>(batch.size());
+    for (FacilityEntity f : batch) {
+      try {
+        f.updateServiceKeys();
+        updated.add(f);
+      } catch (Exception e) {
+        failed.add(f.id());
+        log.error(
+            "Failed to populate facility {} service keys. {}",
+            f.id().toIdString(),
+            e.getMessage());
+      }
+    }
+    facilityRepository.saveAll(updated);
+    return batch.size();
+  }
+}
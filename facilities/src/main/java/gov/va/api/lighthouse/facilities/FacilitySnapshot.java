@@ -0,0 +1,296 @@
+package gov.va.api.lighthouse.facilities;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static gov.va.api.lighthouse.facilities.FacilityOverlayHelper.filterOutInvalidDetailedServices;
+import static gov.va.api.lighthouse.facilities.FacilityUtils.haversine;
+import static gov.va.api.lighthouse.facilities.FacilityUtils.haversineLowerBound;
+import static java.util.stream.Collectors.toList;
+import static org.springframework.util.CollectionUtils.isEmpty;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Immutable, in-memory copy of every facility. Facility payloads are deserialized once, when the
+ * snapshot is built, and the columns used by the search endpoints are indexed so that searches can
+ * be answered without a database round-trip. Locations are indexed in an R-tree for bounding box
+ * and nearest facility searches. A snapshot is never modified, changes produce a new snapshot.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+final class FacilitySnapshot {
+  /** Matches the ordering of FacilityEntity.naturalOrder(). */
+  static final Comparator<FacilityEntity.Pk> NATURAL_ORDER =
+      Comparator.comparing((FacilityEntity.Pk pk) -> pk.type().name())
+          .thenComparing(FacilityEntity.Pk::stationNumber);
+
+  private static final Comparator<Entry> ENTRY_ORDER =
+      Comparator.comparing(Entry::id, NATURAL_ORDER);
+
+  @Getter private final ImmutableList<Entry> entries;
+
+  private final ImmutableMap<FacilityEntity.Pk, Entry> byId;
+
+  private final ImmutableListMultimap<String, Entry> byState;
+
+  private final ImmutableListMultimap<String, Entry> byZip;
+
+  private final ImmutableListMultimap<String, Entry> byVisn;
+
+  private final StrTree<Entry> locations;
+
+  @Getter private final Instant created;
+
+  /** Create a snapshot from the given entities. */
+  static FacilitySnapshot of(@NonNull Collection<FacilityEntity> entities) {
+    return ofEntries(entities.stream().map(Entry::of).collect(toList()));
+  }
+
+  private static FacilitySnapshot ofEntries(Collection<Entry> unsorted) {
+    ImmutableList<Entry> entries =
+        unsorted.stream()
+            .sorted(ENTRY_ORDER)
+            .collect(ImmutableList.toImmutableList());
+    return new FacilitySnapshot(
+        entries,
+        entries.stream().collect(ImmutableMap.toImmutableMap(Entry::id, Function.identity())),
+        index(entries, Entry::state),
+        index(entries, Entry::zip),
+        index(entries, Entry::visn),
+        StrTree.of(entries, e -> StrTree.Envelope.point(e.longitude(), e.latitude())),
+        Instant.now());
+  }
+
+  private static ImmutableListMultimap<String, Entry> index(
+      List<Entry> entries, Function<Entry, String> key) {
+    return entries.stream()
+        .filter(e -> key.apply(e) != null)
+        .collect(ImmutableListMultimap.toImmutableListMultimap(key, Function.identity()));
+  }
+
+  private static boolean matches(
+      Entry entry, FacilityEntity.Type facilityType, Set<String> services, Boolean mobile) {
+    if (facilityType != null && entry.id().type() != facilityType) {
+      return false;
+    }
+    if (mobile != null && !mobile.equals(entry.mobile())) {
+      return false;
+    }
+    if (isEmpty(services)) {
+      return true;
+    }
+    return services.stream().anyMatch(entry.services()::contains);
+  }
+
+  /** Facilities within the bounding box, in natural order. */
+  List<Entry> findByBoundingBox(
+      double minLongitude,
+      double maxLongitude,
+      double minLatitude,
+      double maxLatitude,
+      FacilityEntity.Type facilityType,
+      Set<String> services,
+      Boolean mobile) {
+    return locations.search(minLongitude, maxLongitude, minLatitude, maxLatitude).stream()
+        .filter(e -> matches(e, facilityType, services, mobile))
+        .sorted(ENTRY_ORDER)
+        .collect(toList());
+  }
+
+  Optional<Entry> findById(@NonNull FacilityEntity.Pk id) {
+    return Optional.ofNullable(byId.get(id));
+  }
+
+  /** Facilities with the given IDs, in the order requested. Unknown IDs are skipped. */
+  List<Entry> findByIds(@NonNull List<FacilityEntity.Pk> ids) {
+    return ids.stream().map(byId::get).filter(Objects::nonNull).collect(toList());
+  }
+
+  /**
+   * Facilities matching the filters, nearest to the point first, with their Haversine distance in
+   * miles. Facilities at the same distance are in natural order. The stream is lazy, facilities
+   * farther away are not visited until they are needed.
+   */
+  Stream<StrTree.Neighbor<Entry>> findNearest(
+      double longitude,
+      double latitude,
+      FacilityEntity.Type facilityType,
+      Set<String> services,
+      Boolean mobile) {
+    return locations
+        .nearest(
+            box ->
+                haversineLowerBound(
+                    longitude, latitude, box.minX(), box.maxX(), box.minY(), box.maxY()),
+            e -> haversine(e.longitude(), e.latitude(), longitude, latitude),
+            ENTRY_ORDER)
+        .filter(n -> matches(n.value(), facilityType, services, mobile));
+  }
+
+  /** Facilities in the given state, in natural order. */
+  List<Entry> findByState(
+      @NonNull String state,
+      FacilityEntity.Type facilityType,
+      Set<String> services,
+      Boolean mobile) {
+    return byState.get(state).stream()
+        .filter(e -> matches(e, facilityType, services, mobile))
+        .collect(toList());
+  }
+
+  /**
+   * Facilities matching the type, services, and mobile filters, in natural order. If IDs are given,
+   * only those facilities are considered.
+   */
+  List<Entry> findByTypeServicesIds(
+      Collection<FacilityEntity.Pk> ids,
+      FacilityEntity.Type facilityType,
+      Set<String> services,
+      Boolean mobile) {
+    Stream<Entry> candidates =
+        isEmpty(ids)
+            ? entries.stream()
+            : ids.stream().map(byId::get).filter(Objects::nonNull).sorted(ENTRY_ORDER);
+    return candidates.filter(e -> matches(e, facilityType, services, mobile)).collect(toList());
+  }
+
+  /** Facilities in the given VISN, in natural order. */
+  List<Entry> findByVisn(@NonNull String visn) {
+    return byVisn.get(visn);
+  }
+
+  /** Facilities in the given 5 digit zip, in natural order. */
+  List<Entry> findByZip(
+      @NonNull String zip, FacilityEntity.Type facilityType, Set<String> services, Boolean mobile) {
+    return byZip.get(zip).stream()
+        .filter(e -> matches(e, facilityType, services, mobile))
+        .collect(toList());
+  }
+
+  /** Page through results the same way Spring Data would, for callers that expect a Page. */
+  static <T> Page<T> page(List<T> all, int page, int perPage) {
+    checkArgument(page >= 1);
+    checkArgument(perPage >= 1);
+    int fromIndex = (page - 1) * perPage;
+    List<T> content =
+        all.size() <= fromIndex
+            ? List.of()
+            : all.subList(fromIndex, Math.min(fromIndex + perPage, all.size()));
+    return new PageImpl<>(
+        content, PageRequest.of(page - 1, perPage, FacilityEntity.naturalOrder()), all.size());
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  /** Create a new snapshot with the given facility removed. */
+  FacilitySnapshot without(@NonNull FacilityEntity.Pk id) {
+    if (!byId.containsKey(id)) {
+      return this;
+    }
+    return ofEntries(entries.stream().filter(e -> !e.id().equals(id)).collect(toList()));
+  }
+
+  /** Create a new snapshot with the given facility added or replaced. */
+  FacilitySnapshot with(@NonNull FacilityEntity entity) {
+    return ofEntries(
+        Stream.concat(
+                entries.stream().filter(e -> !e.id().equals(entity.id())),
+                Stream.of(Entry.of(entity)))
+            .collect(toList()));
+  }
+
+  /**
+   * A detached, read-only copy of a facility entity along with its deserialized payload. The
+   * payload has already been cleaned of invalid detailed services.
+   */
+  @Value
+  @Builder
+  static final class Entry implements HasFacilityPayload {
+    @NonNull FacilityEntity.Pk id;
+
+    String zip;
+
+    String state;
+
+    double latitude;
+
+    double longitude;
+
+    String visn;
+
+    Boolean mobile;
+
+    @NonNull Set<String> services;
+
+    Integer version;
+
+    Instant lastUpdated;
+
+    String facility;
+
+    byte[] facilityPayload;
+
+    String cmsOperatingStatus;
+
+    String cmsServices;
+
+    @NonNull Set<String> overlayServices;
+
+    @Getter(AccessLevel.NONE)
+    DatamartFacility datamartFacility;
+
+    static Entry of(@NonNull FacilityEntity entity) {
+      return Entry.builder()
+          .id(entity.id())
+          .zip(entity.zip())
+          .state(entity.state())
+          .latitude(entity.latitude())
+          .longitude(entity.longitude())
+          .visn(entity.visn())
+          .mobile(entity.mobile())
+          .services(
+              entity.services() == null ? Set.of() : ImmutableSet.copyOf(entity.services()))
+          .version(entity.version())
+          .lastUpdated(entity.lastUpdated())
+          .facility(entity.facility())
+          .facilityPayload(entity.facilityPayload())
+          .cmsOperatingStatus(entity.cmsOperatingStatus())
+          .cmsServices(entity.cmsServices())
+          .overlayServices(
+              entity.overlayServices() == null
+                  ? Set.of()
+                  : ImmutableSet.copyOf(entity.overlayServices()))
+          .datamartFacility(
+              entity.facility() == null && entity.facilityPayload() == null
+                  ? null
+                  : filterOutInvalidDetailedServices(FacilityPayloads.read(entity)))
+          .build();
+    }
+
+    @Override
+    public Optional<DatamartFacility> datamartFacility() {
+      return Optional.ofNullable(datamartFacility);
+    }
+  }
+}
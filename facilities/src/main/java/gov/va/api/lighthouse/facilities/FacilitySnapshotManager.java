@@ -0,0 +1,195 @@
+package gov.va.api.lighthouse.facilities;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Streams;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Owns the current facility snapshot. Snapshots are swapped atomically, readers always see a
+ * complete snapshot. Until the first snapshot is built, callers fall back to the database. The
+ * snapshot is rebuilt after reloads and updated after CMS overlay writes made by this node. Writes
+ * made by other nodes are detected by periodically comparing a cheap fingerprint of the facility
+ * table.
+ */
+@Slf4j
+@Component
+public class FacilitySnapshotManager {
+  private final FacilityRepository facilityRepository;
+
+  private final AtomicReference<FacilitySnapshot> current = new AtomicReference<>();
+
+  private final AtomicReference<Fingerprint> fingerprint = new AtomicReference<>();
+
+  @Builder
+  FacilitySnapshotManager(@Autowired FacilityRepository facilityRepository) {
+    this.facilityRepository = facilityRepository;
+  }
+
+  /** Get the current snapshot, if one has been built. */
+  public Optional<FacilitySnapshot> current() {
+    return Optional.ofNullable(current.get());
+  }
+
+  private Fingerprint currentFingerprint() {
+    return Fingerprint.builder()
+        .count(facilityRepository.count())
+        .versionTotal(facilityRepository.findVersionTotal())
+        .lastUpdated(facilityRepository.findLastUpdated())
+        .build();
+  }
+
+  /**
+   * Fingerprint of the facilities being served. This is the fingerprint that the current snapshot
+   * was built from, or the fingerprint of the facility table if there is no snapshot.
+   */
+  public Fingerprint fingerprint() {
+    Fingerprint built = current.get() == null ? null : fingerprint.get();
+    return built == null ? currentFingerprint() : built;
+  }
+
+  /** Build the first snapshot once the application is ready to serve requests. */
+  @Transactional(readOnly = true)
+  @EventListener(ApplicationReadyEvent.class)
+  public void initialize() {
+    try {
+      rebuild();
+    } catch (Exception e) {
+      log.error("Failed to build facility snapshot, using database: {}", e.getMessage());
+    }
+  }
+
+  /** Rebuild the snapshot from the database if another node has changed facilities. */
+  @Scheduled(
+      initialDelayString = "${facilities.snapshot.refresh-check-millis:60000}",
+      fixedDelayString = "${facilities.snapshot.refresh-check-millis:60000}")
+  @Transactional(readOnly = true)
+  public void rebuildIfStale() {
+    if (!Objects.equals(fingerprint.get(), currentFingerprint())) {
+      log.info("Facility table has changed, rebuilding snapshot.");
+      rebuild();
+    }
+  }
+
+  /** Rebuild the snapshot from all facilities in the database. */
+  @Transactional(readOnly = true)
+  public synchronized FacilitySnapshot rebuild() {
+    Stopwatch timer = Stopwatch.createStarted();
+    Fingerprint before = currentFingerprint();
+    List<FacilityEntity> entities =
+        Streams.stream(facilityRepository.findAll()).collect(Collectors.toList());
+    FacilitySnapshot snapshot = FacilitySnapshot.of(entities);
+    current.set(snapshot);
+    fingerprint.set(before);
+    log.info(
+        "Built facility snapshot of {} facilities in {} ms",
+        snapshot.size(),
+        timer.elapsed(TimeUnit.MILLISECONDS));
+    return snapshot;
+  }
+
+  /**
+   * Remove a deleted facility from the snapshot, if one has been built. The fingerprint only moves
+   * forward if this removal is the only change to the table, otherwise the snapshot is left stale
+   * for the next scheduled check to rebuild.
+   */
+  public synchronized void remove(@NonNull FacilityEntity.Pk id) {
+    FacilitySnapshot snapshot = current.get();
+    if (snapshot == null) {
+      return;
+    }
+    Fingerprint actual = currentFingerprint();
+    Optional<FacilitySnapshot.Entry> previous = snapshot.findById(id);
+    current.set(snapshot.without(id));
+    advanceFingerprint(
+        previous.map(p -> fingerprint.get().afterRemove(p)).orElse(fingerprint.get()), actual);
+  }
+
+  /**
+   * Add or replace a saved facility in the snapshot, if one has been built. The fingerprint only
+   * moves forward if this save is the only change to the table, otherwise the snapshot is left
+   * stale for the next scheduled check to rebuild.
+   */
+  public synchronized void update(@NonNull FacilityEntity entity) {
+    FacilitySnapshot snapshot = current.get();
+    if (snapshot == null) {
+      return;
+    }
+    Fingerprint actual = currentFingerprint();
+    Optional<FacilitySnapshot.Entry> previous = snapshot.findById(entity.id());
+    current.set(snapshot.with(entity));
+    advanceFingerprint(fingerprint.get().afterSave(previous.orElse(null), entity), actual);
+  }
+
+  private void advanceFingerprint(Fingerprint expected, Fingerprint actual) {
+    if (Objects.equals(expected, actual)) {
+      fingerprint.set(actual);
+    } else {
+      log.info("Facility table has other changes, snapshot will be rebuilt.");
+    }
+  }
+
+  /** Changes whenever a facility is added, changed, or removed. */
+  @Value
+  @Builder
+  public static final class Fingerprint {
+    long count;
+
+    Long versionTotal;
+
+    Instant lastUpdated;
+
+    private static long orZero(Number value) {
+      return value == null ? 0 : value.longValue();
+    }
+
+    /** The fingerprint after only the given facility is removed. */
+    Fingerprint afterRemove(@NonNull FacilitySnapshot.Entry removed) {
+      return Fingerprint.builder()
+          .count(count - 1)
+          .versionTotal(orZero(versionTotal) - orZero(removed.version()))
+          .lastUpdated(lastUpdated)
+          .build();
+    }
+
+    /** The fingerprint after only the given facility is saved, replacing its previous entry. */
+    Fingerprint afterSave(FacilitySnapshot.Entry previous, @NonNull FacilityEntity saved) {
+      Instant updated = saved.lastUpdated();
+      return Fingerprint.builder()
+          .count(previous == null ? count + 1 : count)
+          .versionTotal(
+              orZero(versionTotal)
+                  + orZero(saved.version())
+                  - (previous == null ? 0 : orZero(previous.version())))
+          .lastUpdated(
+              lastUpdated == null || (updated != null && updated.isAfter(lastUpdated))
+                  ? updated
+                  : lastUpdated)
+          .build();
+    }
+
+    /** A compact form of the fingerprint, suitable for an entity tag. */
+    public String tag() {
+      return count
+          + "-"
+          + (versionTotal == null ? 0 : versionTotal)
+          + "-"
+          + (lastUpdated == null ? 0 : lastUpdated.toEpochMilli());
+    }
+  }
+}
@@ -6,8 +6,10 @@ import static org.apache.commons.lang3.StringUtils.trimToNull;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.base.Splitter;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
@@ -15,9 +17,9 @@ import lombok.experimental.UtilityClass;
 @UtilityClass
 public class FacilityUtils {
   /** Unitless distance approximation based on geometric distance formula. For sorting only. */
-  static double distance(@NonNull FacilityEntity entity, double lng, double lat) {
-    double lngDiff = entity.longitude() - lng;
-    double latDiff = entity.latitude() - lat;
+  static double distance(double fromLng, double fromLat, double lng, double lat) {
+    double lngDiff = fromLng - lng;
+    double latDiff = fromLat - lat;
     return Math.sqrt(lngDiff * lngDiff + latDiff * latDiff);
   }
 
@@ -25,9 +27,19 @@ public class FacilityUtils {
     if (ids == null) {
       return emptyList();
     }
-    return Splitter.on(",")
-        .splitToStream(ids)
-        .map(id -> trimToNull(id))
+    return entityIds(Splitter.on(",").splitToStream(ids));
+  }
+
+  /** Parse IDs, skipping blanks, duplicates, and anything that is not a facility ID. */
+  static List<FacilityEntity.Pk> entityIds(Collection<String> ids) {
+    if (ids == null) {
+      return emptyList();
+    }
+    return entityIds(ids.stream());
+  }
+
+  private static List<FacilityEntity.Pk> entityIds(Stream<String> ids) {
+    return ids.map(id -> trimToNull(id))
         .filter(Objects::nonNull)
         .distinct()
         .map(id -> FacilityEntity.Pk.optionalFromIdString(id).orElse(null))
@@ -37,8 +49,13 @@ public class FacilityUtils {
 
   /** Distance in miles using Haversine algorithm. */
   static double haversine(@NonNull FacilityEntity entity, double lng, double lat) {
-    double lon1 = Math.toRadians(entity.longitude());
-    double lat1 = Math.toRadians(entity.latitude());
+    return haversine(entity.longitude(), entity.latitude(), lng, lat);
+  }
+
+  /** Distance in miles using Haversine algorithm. */
+  static double haversine(double fromLng, double fromLat, double lng, double lat) {
+    double lon1 = Math.toRadians(fromLng);
+    double lat1 = Math.toRadians(fromLat);
     double lon2 = Math.toRadians(lng);
     double lat2 = Math.toRadians(lat);
     double lonDiff = lon2 - lon1;
@@ -50,6 +67,28 @@ public class FacilityUtils {
     return 3958.8 * 2 * Math.asin(Math.sqrt(x * x + coeff * y * y));
   }
 
+  /**
+   * Smallest possible Haversine distance in miles from the point to anywhere in the rectangle. The
+   * latitude and longitude gaps are minimized independently, which can only under estimate.
+   */
+  static double haversineLowerBound(
+      double lng, double lat, double minLng, double maxLng, double minLat, double maxLat) {
+    double latGap = lat < minLat ? minLat - lat : lat > maxLat ? lat - maxLat : 0;
+    double lngGap = 0;
+    if (lng < minLng || lng > maxLng) {
+      // Measure both ways around, longitude wraps at the anti-meridian
+      double east = ((minLng - lng) % 360 + 360) % 360;
+      double west = ((lng - maxLng) % 360 + 360) % 360;
+      lngGap = Math.min(Math.min(east, west), 180);
+    }
+    double x = Math.sin(Math.toRadians(latGap) / 2);
+    double y = Math.sin(Math.toRadians(lngGap) / 2);
+    double farthestLat = Math.min(Math.max(Math.abs(minLat), Math.abs(maxLat)), 90);
+    double coeff = Math.cos(Math.toRadians(lat)) * Math.cos(Math.toRadians(farthestLat));
+    // Shave a little off so floating point error never puts the bound above an exact distance
+    return 3958.8 * 2 * Math.asin(Math.min(1, Math.sqrt(x * x + coeff * y * y))) * (1 - 1e-9);
+  }
+
   @SneakyThrows
   static void writeNonNull(JsonGenerator jgen, String fieldName, Object value) {
     if (value != null) {
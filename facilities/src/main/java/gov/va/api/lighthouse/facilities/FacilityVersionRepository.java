@@ -0,0 +1,27 @@
+package gov.va.api.lighthouse.facilities;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Versions of facilities, without their payloads. A facility already rendered at its current
+ * version can be served without loading its payload, see RenderedFacilityCache.
+ */
+public interface FacilityVersionRepository {
+  /** The versions of the facilities that exist, in no particular order. */
+  List<FacilityVersion> findVersionsByIdIn(@NonNull Collection<FacilityEntity.Pk> ids);
+
+  @Value
+  @Builder
+  class FacilityVersion {
+    @NonNull FacilityEntity.Pk id;
+
+    Integer version;
+
+    Instant lastUpdated;
+  }
+}
@@ -0,0 +1,49 @@
+package gov.va.api.lighthouse.facilities;
+
+import static java.util.stream.Collectors.toList;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/** Selects the version columns of facilities, leaving the payloads unread. */
+class FacilityVersionRepositoryImpl implements FacilityVersionRepository {
+  private final EntityManager entityManager;
+
+  FacilityVersionRepositoryImpl(@Autowired EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  public List<FacilityVersion> findVersionsByIdIn(@NonNull Collection<FacilityEntity.Pk> ids) {
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+    Root<FacilityEntity> root = query.from(FacilityEntity.class);
+    Path<FacilityEntity.Pk> id = root.get("id");
+    query.multiselect(
+        id.get("type"), id.get("stationNumber"), root.get("version"), root.get("lastUpdated"));
+    query.where(id.in(ids));
+    return entityManager.createQuery(query).getResultList().stream()
+        .map(
+            t ->
+                FacilityVersion.builder()
+                    .id(
+                        FacilityEntity.Pk.of(
+                            t.get(0, FacilityEntity.Type.class), t.get(1, String.class)))
+                    .version(t.get(2, Integer.class))
+                    .lastUpdated(t.get(3, Instant.class))
+                    .build())
+        .collect(toList());
+  }
+}
@@ -1,5 +1,7 @@
 package gov.va.api.lighthouse.facilities;
 
+import java.time.Instant;
+import java.util.Optional;
 import java.util.Set;
 
 /** A DTO projection of the FacilityEntity. */
@@ -8,6 +10,14 @@ public interface HasFacilityPayload {
 
   String cmsServices();
 
+  /**
+   * The facility payload, already deserialized, if this source holds one. When present, it can be
+   * transformed directly instead of parsing the facility JSON string again.
+   */
+  default Optional<DatamartFacility> datamartFacility() {
+    return Optional.empty();
+  }
+
   /**
    * In order to be API version agnostic, facility data is persisted as a JSON string representing a
    * DatamartFacility object. When retrieved from the facility entity, the JSON string is then
@@ -15,5 +25,18 @@ public interface HasFacilityPayload {
    */
   String facility();
 
+  /**
+   * The facility payload in the compact storage format of {@link FacilityPayloads}, or null if
+   * this facility was stored as a JSON string.
+   */
+  byte[] facilityPayload();
+
+  FacilityEntity.Pk id();
+
+  Instant lastUpdated();
+
   Set<String> overlayServices();
+
+  /** The entity version, which changes whenever the facility payload or overlay is updated. */
+  Integer version();
 }
@@ -3,23 +3,26 @@ package gov.va.api.lighthouse.facilities;
 import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
 
+import com.google.common.base.Stopwatch;
 import gov.va.api.health.autoconfig.logging.Loggable;
 import gov.va.api.lighthouse.facilities.api.pssg.BandResult;
 import gov.va.api.lighthouse.facilities.api.pssg.BandUpdateResponse;
-import gov.va.api.lighthouse.facilities.api.pssg.PathEncoder;
 import gov.va.api.lighthouse.facilities.api.pssg.PssgDriveTimeBand;
 import gov.va.api.lighthouse.facilities.api.pssg.PssgResponse;
-import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.NonNull;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -35,8 +38,18 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping(value = "/internal/management/bands", produces = "application/json")
 @AllArgsConstructor(onConstructor = @__(@Autowired))
 public class InternalDriveTimeBandController {
+  private static final int PAYLOAD_BATCH_SIZE = 100;
+
   private final DriveTimeBandRepository repository;
 
+  private final DriveTimeBandPathCache driveTimeBandPaths;
+
+  private final DriveTimeBandIndex driveTimeBandIndex;
+
+  private final DriveTimeBandGridManager driveTimeBandGrid;
+
+  private final DriveTimeBandUploader uploader;
+
   @GetMapping("/{name}")
   BandResult band(@PathVariable("name") String name) {
     return repository
@@ -52,7 +65,10 @@ public class InternalDriveTimeBandController {
                     .maxLatitude(result.maxLatitude())
                     .maxLongitude(result.maxLongitude())
                     .monthYear(result.monthYear())
-                    .band(result.band())
+                    .band(
+                        result.bandPayload() == null
+                            ? result.band()
+                            : Base64.getEncoder().encodeToString(result.bandPayload()))
                     .version(result.version() == null ? 0 : result.version())
                     .build())
         .orElseThrow(() -> new ExceptionsUtils.NotFound(name));
@@ -63,27 +79,20 @@ public class InternalDriveTimeBandController {
     return repository.findAllBandVersions();
   }
 
-  private Rectangle2D boundsOf(PssgDriveTimeBand band) {
-    var rect = new AtomicReference<Rectangle2D>();
-    if (band.geometry() != null) {
-      band.geometry().rings().stream()
-          .flatMap(r -> r.stream())
-          .forEach(
-              coord -> {
-                double x = coord.get(PssgDriveTimeBand.INDEX_LONGITUDE);
-                double y = coord.get(PssgDriveTimeBand.INDEX_LATITUDE);
-                if (rect.get() == null) {
-                  rect.set(new Rectangle2D.Double(x, y, x, y));
-                } else {
-                  rect.get().add(x, y);
-                }
-              });
+  private void bandsChanged(List<DriveTimeBandEntity.Pk> changed) {
+    if (changed.isEmpty()) {
+      return;
+    }
+    // Decoded geometries of the previous versions will not be looked up again
+    if (driveTimeBandPaths != null) {
+      driveTimeBandPaths.invalidate(changed);
+    }
+    if (driveTimeBandIndex != null) {
+      driveTimeBandIndex.bandsChanged(changed);
     }
-    /* If there now rings for some reason, bounds are a point. */
-    if (rect.get() == null) {
-      return new Rectangle2D.Double();
+    if (driveTimeBandGrid != null) {
+      driveTimeBandGrid.bandsChanged(changed);
     }
-    return rect.get();
   }
 
   @GetMapping
@@ -91,42 +100,76 @@ public class InternalDriveTimeBandController {
     return repository.findAllIds().stream().map(DriveTimeBandEntity.Pk::name).collect(toList());
   }
 
+  @GetMapping(value = "/populate-band-payloads")
+  void populateBandPayloads() {
+    // uploads store bands in the binary format, this converts bands saved as base 64 text or PSSG
+    // JSON before the format existed, a batch at a time. Bands that cannot be decoded are skipped,
+    // so they do not block the conversion of the rest.
+    boolean noErrors = true;
+    List<DriveTimeBandEntity.Pk> converted = new ArrayList<>();
+    Set<DriveTimeBandEntity.Pk> failed = new LinkedHashSet<>();
+    try {
+      log.warn("Attempting to convert drive time bands to the binary format.");
+      List<DriveTimeBandEntity> batch = unconvertedBands(failed);
+      while (!batch.isEmpty()) {
+        List<DriveTimeBandEntity> decoded = new ArrayList<>(batch.size());
+        for (DriveTimeBandEntity e : batch) {
+          try {
+            e.bandPayload(NearbyUtils.toBandPayload(e));
+            e.band(null);
+            decoded.add(e);
+          } catch (Exception ex) {
+            failed.add(e.id());
+            log.error("Failed to convert drive time band {}. {}", e.id().name(), ex.getMessage());
+          }
+        }
+        repository.saveAll(decoded);
+        decoded.forEach(e -> converted.add(e.id()));
+        batch = unconvertedBands(failed);
+      }
+    } catch (Exception e) {
+      noErrors = false;
+      log.error("Failed to convert drive time bands. {}", e.getMessage());
+    }
+    bandsChanged(converted);
+    if (noErrors) {
+      log.warn(
+          "Completed converting {} drive time bands to the binary format, {} failed: {}",
+          converted.size(),
+          failed.size(),
+          failed.stream().map(DriveTimeBandEntity.Pk::name).collect(toList()));
+    }
+  }
+
+  /** The next batch of bands stored as text, other than those that failed. */
+  private List<DriveTimeBandEntity> unconvertedBands(Set<DriveTimeBandEntity.Pk> failed) {
+    PageRequest page = PageRequest.of(0, PAYLOAD_BATCH_SIZE);
+    return failed.isEmpty()
+        ? repository.findByBandPayloadIsNull(page)
+        : repository.findByBandPayloadIsNullAndIdNotIn(failed, page);
+  }
+
   @Loggable(arguments = false)
   @PostMapping(consumes = "application/json")
   BandUpdateResponse update(@RequestBody PssgResponse pssg) {
     List<PssgDriveTimeBand> bands = Optional.ofNullable(pssg.features()).orElse(emptyList());
     log.info("Updating {} bands", bands.size());
-    BandUpdateResponse response =
-        BandUpdateResponse.builder()
-            .bandsCreated(new CopyOnWriteArrayList<>())
-            .bandsUpdated(new CopyOnWriteArrayList<>())
-            .build();
-    bands.stream().forEach(f -> updateBand(f, response));
-    return response;
+    DriveTimeBandUploader.Upload upload = uploader().upload(bands);
+    Map<String, Long> timings = new LinkedHashMap<>(upload.timings());
+    Stopwatch timer = Stopwatch.createStarted();
+    bandsChanged(upload.changed());
+    timings.put("refresh", timer.elapsed(TimeUnit.MILLISECONDS));
+    return BandUpdateResponse.builder()
+        .bandsCreated(upload.created())
+        .bandsUpdated(upload.updated())
+        .timings(timings)
+        .build();
   }
 
-  @SneakyThrows
-  private void updateBand(@NonNull PssgDriveTimeBand band, @NonNull BandUpdateResponse response) {
-    var pk =
-        DriveTimeBandEntity.Pk.of(
-            band.attributes().stationNumber(),
-            band.attributes().fromBreak(),
-            band.attributes().toBreak());
-    var entity = repository.findById(pk).orElse(null);
-    if (entity == null) {
-      entity = DriveTimeBandEntity.builder().id(pk).build();
-      response.bandsCreated().add(pk.name());
-    } else {
-      response.bandsUpdated().add(pk.name());
+  private DriveTimeBandUploader uploader() {
+    if (uploader == null) {
+      return DriveTimeBandUploader.builder().repository(repository).build();
     }
-
-    var bounds = boundsOf(band);
-    entity.minLongitude(bounds.getMinX());
-    entity.minLatitude(bounds.getMinY());
-    entity.maxLongitude(bounds.getMaxX());
-    entity.maxLatitude(bounds.getMaxY());
-    entity.monthYear(band.attributes().monthYear());
-    entity.band(PathEncoder.create().encodeToBase64(band));
-    repository.save(entity);
+    return uploader;
   }
 }
@@ -3,7 +3,6 @@ package gov.va.api.lighthouse.facilities;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static gov.va.api.health.autoconfig.logging.LogSanitizer.sanitize;
-import static gov.va.api.lighthouse.facilities.DatamartFacilitiesJacksonConfig.createMapper;
 import static gov.va.api.lighthouse.facilities.DatamartFacility.FacilityType.va_benefits_facility;
 import static gov.va.api.lighthouse.facilities.DatamartFacility.FacilityType.va_cemetery;
 import static gov.va.api.lighthouse.facilities.DatamartFacility.FacilityType.va_health_facility;
@@ -15,7 +14,6 @@ import static gov.va.api.lighthouse.facilities.collector.Transformers.isBlank;
 import static java.util.stream.Collectors.toCollection;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Streams;
@@ -45,6 +43,7 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -89,7 +88,7 @@ public class InternalFacilitiesController {
 
   private static final Pattern ZIP_PATTERN = Pattern.compile(ZIP_REGEX);
 
-  private static final ObjectMapper DATAMART_MAPPER = createMapper();
+  private static final int PAYLOAD_BATCH_SIZE = 100;
 
   private final FacilitiesCollector collector;
 
@@ -97,6 +96,12 @@ public class InternalFacilitiesController {
 
   private final FacilityRepository facilityRepository;
 
+  private final FacilitySnapshotManager facilitySnapshots;
+
+  private final FacilityExportArtifacts exportArtifacts;
+
+  private final FacilityServiceKeyBackfill serviceKeyBackfill;
+
   // Max distance in miles where two facilities are considered to be duplicates
   private final Double duplicateFacilityOverlapRange = 0.02;
 
@@ -135,7 +140,7 @@ public class InternalFacilitiesController {
     record.state(stateOf(datamartFacility));
     record.zip(zipOf(datamartFacility));
     record.servicesFromServiceTypes(serviceTypesOf(datamartFacility));
-    record.facility(DATAMART_MAPPER.writeValueAsString(datamartFacility));
+    FacilityPayloads.write(record, datamartFacility);
     record.visn(datamartFacility.attributes().visn());
     record.mobile(datamartFacility.attributes().mobile());
     return record;
@@ -266,8 +271,7 @@ public class InternalFacilitiesController {
       }
 
       if (thisNodeOnly == null || thisNodeOnly.equalsIgnoreCase("detailed_services")) {
-        DatamartFacility df =
-            DATAMART_MAPPER.readValue(facilityEntity.facility(), DatamartFacility.class);
+        DatamartFacility df = FacilityPayloads.read(facilityEntity);
         if (df.attributes().services().health() != null) {
           List<Service<HealthService>> healthServicesWithoutCovid19Vaccine =
               df.attributes().services().health().parallelStream()
@@ -288,10 +292,10 @@ public class InternalFacilitiesController {
             facilityEntity.services().remove("Covid19Vaccine");
           }
 
-          facilityEntity.facility(DATAMART_MAPPER.writeValueAsString(df));
+          FacilityPayloads.write(facilityEntity, df);
         }
       }
-      facilityRepository.save(facilityEntity);
+      updateSnapshot(facilityRepository.save(facilityEntity));
     }
     return ResponseEntity.ok().build();
   }
@@ -306,6 +310,9 @@ public class InternalFacilitiesController {
     }
     log.info("Deleting facility {}", sanitize(id));
     facilityRepository.delete(entity.get());
+    if (facilitySnapshots != null) {
+      facilitySnapshots.remove(entity.get().id());
+    }
     return ResponseEntity.ok().build();
   }
 
@@ -404,6 +411,57 @@ public class InternalFacilitiesController {
     }
   }
 
+  @GetMapping(value = "/populate-service-keys")
+  void populateServiceKeys() {
+    // reloads keep service keys up to date, and facilities saved before service keys existed
+    // are filled in at startup, this runs the same backfill on demand
+    try {
+      serviceKeyBackfill.populate();
+    } catch (Exception e) {
+      log.error("Failed to populate service keys for all facilities. {}", e.getMessage());
+    }
+  }
+
+  @GetMapping(value = "/populate-facility-payloads")
+  void populateFacilityPayloads() {
+    // reloads store payloads in the compact format, this converts facilities saved as JSON text
+    // before the format existed, a batch at a time. Facilities that cannot be read are skipped,
+    // so they do not block the conversion of the rest.
+    boolean noErrors = true;
+    int converted = 0;
+    Set<FacilityEntity.Pk> failed = new LinkedHashSet<>();
+    try {
+      log.warn("Attempting to convert facility payloads to the compact format.");
+      List<FacilityEntity> batch = unconvertedFacilities(failed);
+      while (!batch.isEmpty()) {
+        List<FacilityEntity> readable = new ArrayList<>(batch.size());
+        for (FacilityEntity f : batch) {
+          try {
+            FacilityPayloads.write(f, FacilityPayloads.read(f));
+            readable.add(f);
+          } catch (Exception e) {
+            failed.add(f.id());
+            log.error(
+                "Failed to convert facility {} payload. {}", f.id().toIdString(), e.getMessage());
+          }
+        }
+        facilityRepository.saveAll(readable);
+        converted += readable.size();
+        batch = unconvertedFacilities(failed);
+      }
+    } catch (Exception e) {
+      noErrors = false;
+      log.error("Failed to convert facility payloads. {}", e.getMessage());
+    }
+    if (noErrors) {
+      log.warn(
+          "Completed converting {} facility payloads to the compact format, {} failed: {}",
+          converted,
+          failed.size(),
+          failed.stream().map(FacilityEntity.Pk::toIdString).collect(Collectors.toList()));
+    }
+  }
+
   private ResponseEntity<ReloadResponse> process(
       ReloadResponse response, List<DatamartFacility> collectedFacilities) {
     response.timing().markCompleteCollection();
@@ -418,6 +476,8 @@ public class InternalFacilitiesController {
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     } finally {
       response.timing().markComplete();
+      rebuildSnapshot();
+      rebuildExports();
     }
     return ResponseEntity.ok(response);
   }
@@ -439,6 +499,28 @@ public class InternalFacilitiesController {
     facilityRepository.delete(entity);
   }
 
+  private void rebuildExports() {
+    if (exportArtifacts == null) {
+      return;
+    }
+    try {
+      exportArtifacts.rebuild();
+    } catch (Exception e) {
+      log.error("Failed to rebuild facility exports: {}", e.getMessage());
+    }
+  }
+
+  private void rebuildSnapshot() {
+    if (facilitySnapshots == null) {
+      return;
+    }
+    try {
+      facilitySnapshots.rebuild();
+    } catch (Exception e) {
+      log.error("Failed to rebuild facility snapshot: {}", e.getMessage());
+    }
+  }
+
   /** Reload all facility information. */
   @GetMapping(value = "/reload")
   ResponseEntity<ReloadResponse> reload() {
@@ -486,6 +568,14 @@ public class InternalFacilitiesController {
     }
   }
 
+  /** The next batch of facilities stored as JSON text, other than those that failed. */
+  private List<FacilityEntity> unconvertedFacilities(Set<FacilityEntity.Pk> failed) {
+    PageRequest page = PageRequest.of(0, PAYLOAD_BATCH_SIZE);
+    return failed.isEmpty()
+        ? facilityRepository.findByFacilityPayloadIsNull(page)
+        : facilityRepository.findByFacilityPayloadIsNullAndIdNotIn(failed, page);
+  }
+
   @SneakyThrows
   void updateAndSave(
       ReloadResponse response, FacilityEntity record, DatamartFacility datamartFacility) {
@@ -663,6 +753,12 @@ public class InternalFacilitiesController {
     }
   }
 
+  private void updateSnapshot(FacilityEntity saved) {
+    if (facilitySnapshots != null && saved != null) {
+      facilitySnapshots.update(saved);
+    }
+  }
+
   private void updateFacility(ReloadResponse response, DatamartFacility datamartFacility) {
     FacilityEntity.Pk pk;
     try {
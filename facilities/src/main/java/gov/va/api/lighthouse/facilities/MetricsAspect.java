@@ -0,0 +1,172 @@
+package gov.va.api.lighthouse.facilities;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import lombok.Builder;
+import lombok.NonNull;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every controller and repository method. Repository results are also measured, by rows
+ * returned and by the size of the payload columns loaded with them, so that slow requests can be
+ * traced to the queries and payloads behind them.
+ */
+@Aspect
+@Component
+public class MetricsAspect {
+  private static final List<Class<?>> REPOSITORIES =
+      List.of(FacilityRepository.class, DriveTimeBandRepository.class, CmsOverlayRepository.class);
+
+  private final MeterRegistry meterRegistry;
+
+  @Builder
+  MetricsAspect(@Autowired MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /** Characters stand in for bytes, so text columns are not encoded just to be measured. */
+  private static long length(String value) {
+    return value == null ? 0 : value.length();
+  }
+
+  /**
+   * The estimated size of the payload columns of the entities in a repository result. Binary
+   * columns are counted in bytes and text columns in characters.
+   */
+  static long lobBytes(Object result) {
+    return values(result)
+        .mapToLong(
+            value -> {
+              if (value instanceof FacilityEntity) {
+                FacilityEntity e = (FacilityEntity) value;
+                return payloadBytes(e) + length(e.cmsOperatingStatus()) + length(e.cmsServices());
+              }
+              if (value instanceof HasFacilityPayload) {
+                return payloadBytes((HasFacilityPayload) value);
+              }
+              if (value instanceof CmsOverlayEntity) {
+                CmsOverlayEntity e = (CmsOverlayEntity) value;
+                return length(e.cmsOperatingStatus())
+                    + length(e.cmsServices())
+                    + length(e.healthCareSystem());
+              }
+              if (value instanceof DriveTimeBandEntity) {
+                DriveTimeBandEntity e = (DriveTimeBandEntity) value;
+                return length(e.band()) + (e.bandPayload() == null ? 0 : e.bandPayload().length);
+              }
+              return 0;
+            })
+        .sum();
+  }
+
+  private static long payloadBytes(HasFacilityPayload entity) {
+    return length(entity.facility())
+        + (entity.facilityPayload() == null ? 0 : entity.facilityPayload().length);
+  }
+
+  private static String repository(Object proxy) {
+    return REPOSITORIES.stream()
+        .filter(type -> type.isInstance(proxy))
+        .map(Class::getSimpleName)
+        .findFirst()
+        .orElseGet(() -> proxy.getClass().getSimpleName());
+  }
+
+  /** The number of entities or values in a repository result. */
+  static long rows(Object result) {
+    return values(result).count();
+  }
+
+  private static Stream<?> values(Object result) {
+    if (result == null) {
+      return Stream.empty();
+    }
+    if (result instanceof Optional) {
+      return ((Optional<?>) result).stream();
+    }
+    if (result instanceof Slice) {
+      return ((Slice<?>) result).getContent().stream();
+    }
+    if (result instanceof Collection) {
+      return ((Collection<?>) result).stream();
+    }
+    if (result instanceof Iterable) {
+      return StreamSupport.stream(((Iterable<?>) result).spliterator(), false);
+    }
+    return Stream.of(result);
+  }
+
+  @Around("@within(org.springframework.web.bind.annotation.RestController)")
+  public Object controllers(ProceedingJoinPoint point) throws Throwable {
+    return time(
+        point,
+        FacilityMetrics.CONTROLLER,
+        "controller",
+        point.getSignature().getDeclaringType().getSimpleName());
+  }
+
+  @Around(
+      "target(gov.va.api.lighthouse.facilities.FacilityRepository)"
+          + " || target(gov.va.api.lighthouse.facilities.DriveTimeBandRepository)"
+          + " || target(gov.va.api.lighthouse.facilities.CmsOverlayRepository)")
+  public Object repositories(ProceedingJoinPoint point) throws Throwable {
+    String repository = repository(point.getThis());
+    String method = point.getSignature().getName();
+    Object result = time(point, FacilityMetrics.REPOSITORY, "repository", repository);
+    FacilityMetrics.summary(
+            meterRegistry,
+            FacilityMetrics.REPOSITORY_ROWS,
+            "rows",
+            "repository",
+            repository,
+            "method",
+            method)
+        .record(rows(result));
+    long lobBytes = lobBytes(result);
+    if (lobBytes > 0) {
+      FacilityMetrics.summary(
+              meterRegistry,
+              FacilityMetrics.REPOSITORY_LOB_BYTES,
+              "bytes",
+              "repository",
+              repository,
+              "method",
+              method)
+          .record(lobBytes);
+    }
+    return result;
+  }
+
+  private Object time(@NonNull ProceedingJoinPoint point, String name, String type, String owner)
+      throws Throwable {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String exception = "none";
+    try {
+      return point.proceed();
+    } catch (Throwable e) {
+      exception = e.getClass().getSimpleName();
+      throw e;
+    } finally {
+      sample.stop(
+          FacilityMetrics.timer(
+              meterRegistry,
+              name,
+              type,
+              owner,
+              "method",
+              point.getSignature().getName(),
+              "exception",
+              exception));
+    }
+  }
+}
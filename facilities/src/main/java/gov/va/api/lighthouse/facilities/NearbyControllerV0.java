@@ -4,9 +4,11 @@ import static gov.va.api.lighthouse.facilities.ControllersV0.validateServices;
 import static gov.va.api.lighthouse.facilities.DatamartFacilitiesJacksonConfig.createMapper;
 import static gov.va.api.lighthouse.facilities.NearbyUtils.Coordinates;
 import static gov.va.api.lighthouse.facilities.NearbyUtils.NearbyId;
+import static gov.va.api.lighthouse.facilities.NearbyUtils.gridIntersections;
 import static gov.va.api.lighthouse.facilities.NearbyUtils.intersections;
 import static gov.va.api.lighthouse.facilities.NearbyUtils.validateDriveTime;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -27,6 +29,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.SneakyThrows;
@@ -55,6 +58,12 @@ public class NearbyControllerV0 {
 
   private final DriveTimeBandRepository driveTimeBandRepository;
 
+  private final DriveTimeBandPathCache driveTimeBandPaths;
+
+  private final DriveTimeBandIndex driveTimeBandIndex;
+
+  private final DriveTimeBandGridManager driveTimeBandGrid;
+
   private final RestTemplate restTemplate;
 
   private final String bingKey;
@@ -67,11 +76,17 @@ public class NearbyControllerV0 {
   NearbyControllerV0(
       @Autowired FacilityRepository facilityRepository,
       @Autowired DriveTimeBandRepository driveTimeBandRepository,
+      @Autowired DriveTimeBandPathCache driveTimeBandPaths,
+      @Autowired DriveTimeBandIndex driveTimeBandIndex,
+      @Autowired DriveTimeBandGridManager driveTimeBandGrid,
       @Autowired InsecureRestTemplateProvider restTemplateProvider,
       @Value("${bing.key}") String bingKey,
       @Value("${bing.url}") String bingUrl) {
     this.facilityRepository = facilityRepository;
     this.driveTimeBandRepository = driveTimeBandRepository;
+    this.driveTimeBandPaths = driveTimeBandPaths;
+    this.driveTimeBandIndex = driveTimeBandIndex;
+    this.driveTimeBandGrid = driveTimeBandGrid;
     this.restTemplate = restTemplateProvider.restTemplate();
     this.bingKey = bingKey;
     this.bingUrl = bingUrl.endsWith("/") ? bingUrl : bingUrl + "/";
@@ -124,6 +139,66 @@ public class NearbyControllerV0 {
   }
 
   @SneakyThrows
+  /**
+   * Candidate bands of the accepted stations, from the in-memory index if it has been built,
+   * otherwise from the database.
+   */
+  private DriveTimeBandIndex.Candidates candidateBands(
+      BigDecimal longitude, BigDecimal latitude, Integer maxDriveTime, Predicate<String> stations) {
+    var timer = Stopwatch.createStarted();
+    DriveTimeBandIndex.Candidates maybeBands =
+        indexedBands(longitude, latitude, maxDriveTime, stations)
+            .orElseGet(
+                () ->
+                    DriveTimeBandIndex.Candidates.of(
+                        driveTimeBandRepository
+                            .findAll(
+                                DriveTimeBandRepository.MinMaxSpecification.builder()
+                                    .longitude(longitude)
+                                    .latitude(latitude)
+                                    .maxDriveTime(maxDriveTime)
+                                    .build())
+                            .stream()
+                            .filter(b -> stations.test(b.id().stationNumber()))
+                            .collect(toList()),
+                        driveTimeBandPaths));
+    log.info(
+        "{} bands found in {} ms",
+        maybeBands.bands().size(),
+        timer.elapsed(TimeUnit.MILLISECONDS));
+    return maybeBands;
+  }
+
+  /**
+   * The closest band of each station containing the point. Stations are looked up in the grid if
+   * it is available, and only stations on a tile boundary are tested against their polygons.
+   */
+  private Map<String, DriveTimeBandEntity.Pk> closestBands(
+      BigDecimal longitude, BigDecimal latitude, Integer maxDriveTime) {
+    Optional<DriveTimeBandGrid.Lookup> lookup =
+        driveTimeBandGrid == null
+            ? Optional.empty()
+            : driveTimeBandGrid.lookup(longitude, latitude, maxDriveTime);
+    if (lookup.isPresent()) {
+      Set<String> boundaries = lookup.get().boundaryStations();
+      log.info(
+          "{} stations found in grid, {} on tile boundaries",
+          lookup.get().bands().size(),
+          boundaries.size());
+      DriveTimeBandIndex.Candidates boundaryBands =
+          boundaries.isEmpty()
+              ? DriveTimeBandIndex.Candidates.of(List.of(), driveTimeBandPaths)
+              : candidateBands(longitude, latitude, maxDriveTime, boundaries::contains);
+      return gridIntersections(longitude, latitude, lookup.get(), boundaryBands);
+    }
+    Map<String, DriveTimeBandEntity> bands =
+        intersections(
+            longitude,
+            latitude,
+            candidateBands(longitude, latitude, maxDriveTime, stationNumber -> true));
+    return bands.entrySet().stream().collect(toMap(Map.Entry::getKey, e -> e.getValue().id()));
+  }
+
   private Coordinates geocodeAddress(
       @NonNull String street, @NonNull String city, @NonNull String state, @NonNull String zip) {
     String address = street + " " + city + " " + state + " " + zip;
@@ -199,6 +274,15 @@ public class NearbyControllerV0 {
         .build();
   }
 
+  /** Candidate bands from the in-memory index, if it has been built. */
+  private Optional<DriveTimeBandIndex.Candidates> indexedBands(
+      BigDecimal longitude, BigDecimal latitude, Integer maxDriveTime, Predicate<String> stations) {
+    if (driveTimeBandIndex == null) {
+      return Optional.empty();
+    }
+    return driveTimeBandIndex.candidates(longitude, latitude, maxDriveTime, stations);
+  }
+
   private NearbyResponse.Nearby nearbyFacility(@NonNull NearbyId entity) {
     return NearbyResponse.Nearby.builder()
         .id(entity.facilityId())
@@ -226,29 +310,21 @@ public class NearbyControllerV0 {
         latitude.doubleValue(),
         maxDriveTime,
         services.size());
-    var timer = Stopwatch.createStarted();
-    List<DriveTimeBandEntity> maybeBands =
-        driveTimeBandRepository.findAll(
-            DriveTimeBandRepository.MinMaxSpecification.builder()
-                .longitude(longitude)
-                .latitude(latitude)
-                .maxDriveTime(maxDriveTime)
-                .build());
-    log.info("{} bands found in {} ms", maybeBands.size(), timer.elapsed(TimeUnit.MILLISECONDS));
-    Map<String, DriveTimeBandEntity> bandsByStation =
-        intersections(longitude, latitude, maybeBands);
-    List<FacilityEntity> facilityEntities =
-        facilityRepository.findAll(
+    Map<String, DriveTimeBandEntity.Pk> bandsByStation =
+        closestBands(longitude, latitude, maxDriveTime);
+    // Only IDs are returned, so facility payloads are never loaded
+    List<FacilityLocationRepository.FacilityLocation> facilityLocations =
+        facilityRepository.findAllLocations(
             FacilityRepository.StationNumbersSpecification.builder()
                 .stationNumbers(bandsByStation.keySet())
                 .facilityType(FacilityEntity.Type.vha)
                 .services(serviceStrings)
                 .build());
-    return facilityEntities.stream()
+    return facilityLocations.stream()
         .map(
             e ->
                 NearbyId.builder()
-                    .bandId(bandsByStation.get(e.id().stationNumber()).id())
+                    .bandId(bandsByStation.get(e.id().stationNumber()))
                     .facilityId(e.id().toIdString())
                     .build())
         .sorted(Comparator.comparingInt(left -> left.bandId().toMinutes()))
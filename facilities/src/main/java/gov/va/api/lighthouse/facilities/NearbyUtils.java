@@ -6,17 +6,19 @@ import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.base.Stopwatch;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import gov.va.api.health.autoconfig.configuration.JacksonConfig;
 import gov.va.api.lighthouse.facilities.api.pssg.PathEncoder;
 import gov.va.api.lighthouse.facilities.api.pssg.PssgDriveTimeBand;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -36,24 +38,39 @@ public class NearbyUtils {
 
   static final Set<Integer> DRIVE_TIME_VALUES = Set.of(10, 20, 30, 40, 50, 60, 70, 80, 90);
 
-  @SneakyThrows
+  private static final PathEncoder PATH_ENCODER = PathEncoder.create();
+
   static Optional<DriveTimeBandEntity> firstIntersection(
       @NonNull Point2D point, List<DriveTimeBandEntity> entities) {
-    Stopwatch timer = Stopwatch.createStarted();
+    return firstIntersection(point, entities, NearbyUtils::toPolygon);
+  }
+
+  @SneakyThrows
+  static Optional<DriveTimeBandEntity> firstIntersection(
+      @NonNull Point2D point,
+      List<DriveTimeBandEntity> entities,
+      @NonNull Function<DriveTimeBandEntity, DriveTimeBandPolygon> polygons) {
+    Timer.Sample sample = Timer.start(Metrics.globalRegistry);
     int count = 0;
     for (DriveTimeBandEntity entity : entities) {
       count++;
-      Path2D path2D = toPath(entity);
-      if (path2D.contains(point)) {
+      if (polygons.apply(entity).contains(point.getX(), point.getY())) {
+        long nanos =
+            sample.stop(
+                FacilityMetrics.timer(
+                    Metrics.globalRegistry, FacilityMetrics.NEARBY_INTERSECTION, "found", "true"));
         log.info(
             "Found {} intersection in {} ms, looked at {} of {} options",
             entity.id().stationNumber(),
-            timer.elapsed(TimeUnit.MILLISECONDS),
+            TimeUnit.NANOSECONDS.toMillis(nanos),
             count,
             entities.size());
         return Optional.of(entity);
       }
     }
+    sample.stop(
+        FacilityMetrics.timer(
+            Metrics.globalRegistry, FacilityMetrics.NEARBY_INTERSECTION, "found", "false"));
     log.info("No matches found in {} options", entities.size());
     return Optional.empty();
   }
@@ -62,6 +79,37 @@ public class NearbyUtils {
       @NonNull BigDecimal longitude,
       @NonNull BigDecimal latitude,
       List<DriveTimeBandEntity> entities) {
+    return intersections(longitude, latitude, entities, NearbyUtils::toPolygon);
+  }
+
+  /**
+   * The closest band of each station that contains the point. Stations decided by their grid tile
+   * are taken from the lookup, the candidate bands of boundary stations are tested exactly.
+   */
+  static Map<String, DriveTimeBandEntity.Pk> gridIntersections(
+      @NonNull BigDecimal longitude,
+      @NonNull BigDecimal latitude,
+      @NonNull DriveTimeBandGrid.Lookup lookup,
+      @NonNull DriveTimeBandIndex.Candidates boundaryBands) {
+    Map<String, DriveTimeBandEntity.Pk> bands = new HashMap<>(lookup.bands());
+    intersections(longitude, latitude, boundaryBands)
+        .forEach((stationNumber, band) -> bands.put(stationNumber, band.id()));
+    return bands;
+  }
+
+  /** The closest band of each station that contains the point, with the candidates' polygons. */
+  static Map<String, DriveTimeBandEntity> intersections(
+      @NonNull BigDecimal longitude,
+      @NonNull BigDecimal latitude,
+      @NonNull DriveTimeBandIndex.Candidates candidates) {
+    return intersections(longitude, latitude, candidates.bands(), candidates::polygon);
+  }
+
+  static Map<String, DriveTimeBandEntity> intersections(
+      @NonNull BigDecimal longitude,
+      @NonNull BigDecimal latitude,
+      List<DriveTimeBandEntity> entities,
+      @NonNull Function<DriveTimeBandEntity, DriveTimeBandPolygon> polygons) {
     ListMultimap<String, DriveTimeBandEntity> bandsForStation = ArrayListMultimap.create();
     for (DriveTimeBandEntity e : entities) {
       bandsForStation.put(e.id().stationNumber(), e);
@@ -74,25 +122,56 @@ public class NearbyUtils {
                   entry.getValue().stream()
                       .sorted(Comparator.comparingInt(left -> left.id().fromMinutes()))
                       .collect(toList());
-              return firstIntersection(point, sortedEntities).orElse(null);
+              return firstIntersection(point, sortedEntities, polygons).orElse(null);
             })
         .filter(Objects::nonNull)
         .collect(toMap(b -> b.id().stationNumber(), Function.identity()));
   }
 
+  /** Stream the band directly into the edges of a polygon. */
   @SneakyThrows
-  static Path2D toPath(DriveTimeBandEntity entity) {
+  static DriveTimeBandPolygon.Edges toEdges(DriveTimeBandEntity entity) {
     if (deprecatedPssgDriveTimeBandSupport.isPssgDriveTimeBand(entity)) {
-      return deprecatedPssgDriveTimeBandSupport.toPath(entity);
+      return DriveTimeBandPolygon.edges(deprecatedPssgDriveTimeBandSupport.toPath(entity));
     }
     try {
-      return PathEncoder.create().decodeFromBase64(entity.band());
+      DriveTimeBandPolygon.Edges edges = DriveTimeBandPolygon.edges();
+      if (entity.bandPayload() != null) {
+        PATH_ENCODER.decode(entity.bandPayload(), edges);
+      } else {
+        PATH_ENCODER.decodeFromBase64(entity.band(), edges);
+      }
+      return edges;
     } catch (Exception e) {
       log.info("Failed to decode {}", entity.id());
       throw e;
     }
   }
 
+  /** Decode the band to a polygon for containment tests. */
+  static DriveTimeBandPolygon toPolygon(DriveTimeBandEntity entity) {
+    return toEdges(entity).toPolygon();
+  }
+
+  /** Encode the band in the current binary format, whichever format it is stored in. */
+  static byte[] toBandPayload(DriveTimeBandEntity entity) {
+    if (deprecatedPssgDriveTimeBandSupport.isPssgDriveTimeBand(entity)) {
+      return PATH_ENCODER.encode(deprecatedPssgDriveTimeBandSupport.toBand(entity));
+    }
+    return PATH_ENCODER.encodeScaledRings(toScaledRings(entity));
+  }
+
+  /**
+   * Decode the band to scaled coordinates, from the binary column if it has been written, otherwise
+   * from the base 64 text of older rows.
+   */
+  static int[][] toScaledRings(DriveTimeBandEntity entity) {
+    if (entity.bandPayload() != null) {
+      return PATH_ENCODER.decodeScaledRings(entity.bandPayload());
+    }
+    return PATH_ENCODER.decodeScaledRingsFromBase64(entity.band());
+  }
+
   static Integer validateDriveTime(Integer val) {
     if (val != null && !DRIVE_TIME_VALUES.contains(val)) {
       throw new ExceptionsUtils.InvalidParameter("drive_time", val);
@@ -110,12 +189,18 @@ public class NearbyUtils {
     final ObjectMapper mapper = JacksonConfig.createMapper();
 
     boolean isPssgDriveTimeBand(DriveTimeBandEntity entity) {
-      return entity.band().startsWith("{\"attributes");
+      return entity.bandPayload() == null
+          && entity.band() != null
+          && entity.band().startsWith("{\"attributes");
     }
 
     @SneakyThrows
+    PssgDriveTimeBand toBand(DriveTimeBandEntity entity) {
+      return mapper.readValue(entity.band(), PssgDriveTimeBand.class);
+    }
+
     Path2D toPath(DriveTimeBandEntity entity) {
-      PssgDriveTimeBand asBand = mapper.readValue(entity.band(), PssgDriveTimeBand.class);
+      PssgDriveTimeBand asBand = toBand(entity);
       List<List<List<Double>>> rings =
           asBand.geometry() == null ? Collections.emptyList() : asBand.geometry().rings();
       checkState(!rings.isEmpty());
@@ -0,0 +1,152 @@
+package gov.va.api.lighthouse.facilities;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Selects the k nearest of a stream of candidates with a bounded max-heap of primitive distances,
+ * so ranking n candidates costs O(n log k) instead of a full sort. Candidates at the same distance
+ * keep the order in which they were offered, matching a stable sort.
+ */
+final class NearestSelector<T> {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final int limit;
+
+  private final ToDoubleFunction<T> distance;
+
+  private Object[] values;
+
+  private double[] distances;
+
+  private int[] sequences;
+
+  private int size;
+
+  private int offered;
+
+  private NearestSelector(int limit, ToDoubleFunction<T> distance) {
+    checkArgument(limit >= 0);
+    this.limit = limit;
+    this.distance = distance;
+    int capacity = Math.min(limit, INITIAL_CAPACITY);
+    values = new Object[capacity];
+    distances = new double[capacity];
+    sequences = new int[capacity];
+  }
+
+  /** The number of candidates needed to fill the given page, saturating at Integer.MAX_VALUE. */
+  static int limit(int page, int perPage) {
+    checkArgument(page >= 1);
+    checkArgument(perPage >= 0);
+    return (int) Math.min((long) page * perPage, Integer.MAX_VALUE);
+  }
+
+  /** Count every candidate and keep the nearest, up to the limit. */
+  static <T> Selection<T> select(
+      @NonNull Stream<T> candidates, @NonNull ToDoubleFunction<T> distance, int limit) {
+    NearestSelector<T> selector = new NearestSelector<>(limit, distance);
+    candidates.sequential().forEach(selector::offer);
+    return selector.selection();
+  }
+
+  private void grow() {
+    int capacity = (int) Math.min(Math.max(values.length * 2L, INITIAL_CAPACITY), limit);
+    values = Arrays.copyOf(values, capacity);
+    distances = Arrays.copyOf(distances, capacity);
+    sequences = Arrays.copyOf(sequences, capacity);
+  }
+
+  private void offer(T value) {
+    double d = distance.applyAsDouble(value);
+    int sequence = offered++;
+    if (size < limit) {
+      if (size == values.length) {
+        grow();
+      }
+      set(size, value, d, sequence);
+      siftUp(size++);
+    } else if (limit > 0 && d < distances[0]) {
+      set(0, value, d, sequence);
+      siftDown(0, size);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Selection<T> selection() {
+    // Heap sort in place, the farthest candidate is moved to the end each time
+    for (int end = size - 1; end > 0; end--) {
+      swap(0, end);
+      siftDown(0, end);
+    }
+    List<T> nearest = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      nearest.add((T) values[i]);
+    }
+    return new Selection<>(offered, nearest);
+  }
+
+  private void set(int index, Object value, double d, int sequence) {
+    values[index] = value;
+    distances[index] = d;
+    sequences[index] = sequence;
+  }
+
+  private void siftDown(int index, int end) {
+    int i = index;
+    while (true) {
+      int left = 2 * i + 1;
+      if (left >= end) {
+        return;
+      }
+      int right = left + 1;
+      int worst = right < end && worse(right, left) ? right : left;
+      if (!worse(worst, i)) {
+        return;
+      }
+      swap(i, worst);
+      i = worst;
+    }
+  }
+
+  private void siftUp(int index) {
+    int i = index;
+    while (i > 0) {
+      int parent = (i - 1) / 2;
+      if (!worse(i, parent)) {
+        return;
+      }
+      swap(i, parent);
+      i = parent;
+    }
+  }
+
+  private void swap(int a, int b) {
+    Object value = values[a];
+    double d = distances[a];
+    int sequence = sequences[a];
+    set(a, values[b], distances[b], sequences[b]);
+    set(b, value, d, sequence);
+  }
+
+  /** Farther away, or the same distance and offered later. */
+  private boolean worse(int a, int b) {
+    int comparison = Double.compare(distances[a], distances[b]);
+    return comparison > 0 || (comparison == 0 && sequences[a] > sequences[b]);
+  }
+
+  /** The nearest candidates, in ascending order of distance, and how many were offered in total. */
+  @Value
+  static class Selection<T> {
+    int total;
+
+    List<T> nearest;
+  }
+}
@@ -0,0 +1,102 @@
+package gov.va.api.lighthouse.facilities;
+
+import com.google.common.base.Throwables;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of facilities that have already been transformed into an API version. Entries are keyed
+ * by facility ID and entity version (plus the last update time, since IDs can be deleted and
+ * reloaded with a fresh version), so a facility that has changed is simply rendered again under a
+ * new key and the stale entry ages out. Rendered facilities are shared, callers must not modify
+ * them.
+ */
+@Component
+public class RenderedFacilityCache {
+  static final String CACHE_NAME = "rendered-facilities";
+
+  private final Cache cache;
+
+  @Builder
+  RenderedFacilityCache(@Autowired CacheManager cacheManager) {
+    cache = cacheManager.getCache(CACHE_NAME);
+  }
+
+  private static Key key(
+      FacilityEntity.Pk id,
+      int version,
+      Instant lastUpdated,
+      String apiVersion,
+      List<String> serviceSources) {
+    return Key.builder()
+        .id(id)
+        .version(version)
+        .lastUpdated(lastUpdated)
+        .apiVersion(apiVersion)
+        .serviceSources(serviceSources == null ? List.of() : List.copyOf(serviceSources))
+        .build();
+  }
+
+  /**
+   * The rendering of the facility at the given version, if there is one. The payload is not needed
+   * to look it up.
+   */
+  @SuppressWarnings("unchecked")
+  <T> Optional<T> find(
+      @NonNull FacilityVersionRepository.FacilityVersion facility,
+      @NonNull String apiVersion,
+      List<String> serviceSources) {
+    if (cache == null || facility.version() == null) {
+      return Optional.empty();
+    }
+    Key key =
+        key(facility.id(), facility.version(), facility.lastUpdated(), apiVersion, serviceSources);
+    return Optional.ofNullable(cache.get(key)).map(v -> (T) v.get());
+  }
+
+  /**
+   * Get the rendered facility for the entity, rendering and caching it if necessary. Entities
+   * without an ID or version, e.g. ones that have not been saved, are always rendered.
+   */
+  @SuppressWarnings("unchecked")
+  <T> T get(
+      @NonNull HasFacilityPayload entity,
+      @NonNull String apiVersion,
+      List<String> serviceSources,
+      @NonNull Supplier<T> render) {
+    if (cache == null || entity.id() == null || entity.version() == null) {
+      return render.get();
+    }
+    Key key =
+        key(entity.id(), entity.version(), entity.lastUpdated(), apiVersion, serviceSources);
+    try {
+      return (T) cache.get(key, render::get);
+    } catch (Cache.ValueRetrievalException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  @Value
+  @Builder
+  private static final class Key {
+    FacilityEntity.Pk id;
+
+    int version;
+
+    Instant lastUpdated;
+
+    String apiVersion;
+
+    List<String> serviceSources;
+  }
+}
@@ -0,0 +1,257 @@
+package gov.va.api.lighthouse.facilities;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Immutable R-tree, bulk loaded with the Sort-Tile-Recursive algorithm. X is longitude and Y is
+ * latitude. The tree supports rectangle searches and best-first nearest neighbor traversal with a
+ * caller supplied distance function, so the same tree can be searched with planar or haversine
+ * distances.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+final class StrTree<T> {
+  static final int NODE_CAPACITY = 16;
+
+  private final Node<T> root;
+
+  @Getter private final int size;
+
+  /** Build a tree containing the given values. */
+  static <T> StrTree<T> of(
+      @NonNull Collection<T> values, @NonNull Function<T, Envelope> envelope) {
+    List<Node<T>> nodes =
+        values.stream().map(v -> new Node<>(envelope.apply(v), v, List.of())).collect(toList());
+    if (nodes.isEmpty()) {
+      return new StrTree<>(null, 0);
+    }
+    while (nodes.size() > 1) {
+      nodes = pack(nodes);
+    }
+    return new StrTree<>(nodes.get(0), values.size());
+  }
+
+  /** Group nodes into parents of at most NODE_CAPACITY children, keeping neighbors together. */
+  private static <T> List<Node<T>> pack(List<Node<T>> nodes) {
+    int parentCount = (nodes.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+    int sliceCount = (int) Math.ceil(Math.sqrt(parentCount));
+    int sliceSize = sliceCount * NODE_CAPACITY;
+    List<Node<T>> byX = new ArrayList<>(nodes);
+    byX.sort(Comparator.comparingDouble(n -> n.envelope().centerX()));
+    List<Node<T>> parents = new ArrayList<>(parentCount);
+    for (int sliceStart = 0; sliceStart < byX.size(); sliceStart += sliceSize) {
+      List<Node<T>> slice =
+          new ArrayList<>(byX.subList(sliceStart, Math.min(sliceStart + sliceSize, byX.size())));
+      slice.sort(Comparator.comparingDouble(n -> n.envelope().centerY()));
+      for (int start = 0; start < slice.size(); start += NODE_CAPACITY) {
+        List<Node<T>> children =
+            List.copyOf(slice.subList(start, Math.min(start + NODE_CAPACITY, slice.size())));
+        Envelope envelope = children.get(0).envelope();
+        for (Node<T> child : children) {
+          envelope = envelope.union(child.envelope());
+        }
+        parents.add(new Node<>(envelope, null, children));
+      }
+    }
+    return parents;
+  }
+
+  /**
+   * Values in ascending order of distance. Subtrees are only opened when their lower bound distance
+   * could beat the next value, so taking the first k values touches roughly log(n) + k nodes.
+   * Values at the same distance are ordered by the tie breaker.
+   *
+   * @param lowerBound the smallest possible distance to anything within an envelope
+   * @param distance the exact distance to a value
+   */
+  Stream<Neighbor<T>> nearest(
+      @NonNull ToDoubleFunction<Envelope> lowerBound,
+      @NonNull ToDoubleFunction<T> distance,
+      @NonNull Comparator<T> tieBreaker) {
+    Iterator<Neighbor<T>> iterator = new NearestIterator<>(root, lowerBound, distance, tieBreaker);
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(
+            iterator, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE),
+        false);
+  }
+
+  /** Values whose envelope intersects the given rectangle, in no particular order. */
+  List<T> search(double minX, double maxX, double minY, double maxY) {
+    List<T> results = new ArrayList<>();
+    if (root == null) {
+      return results;
+    }
+    Envelope query = Envelope.of(minX, maxX, minY, maxY);
+    Deque<Node<T>> pending = new ArrayDeque<>();
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      Node<T> node = pending.pop();
+      if (!node.envelope().intersects(query)) {
+        continue;
+      }
+      if (node.isValue()) {
+        results.add(node.value());
+      } else {
+        node.children().forEach(pending::push);
+      }
+    }
+    return results;
+  }
+
+  /** Axis aligned bounding rectangle. */
+  @Value(staticConstructor = "of")
+  static class Envelope {
+    double minX;
+
+    double maxX;
+
+    double minY;
+
+    double maxY;
+
+    static Envelope point(double x, double y) {
+      return of(x, x, y, y);
+    }
+
+    double centerX() {
+      return (minX + maxX) / 2;
+    }
+
+    double centerY() {
+      return (minY + maxY) / 2;
+    }
+
+    boolean intersects(Envelope other) {
+      return other.minX <= maxX && other.maxX >= minX && other.minY <= maxY && other.maxY >= minY;
+    }
+
+    Envelope union(Envelope other) {
+      return of(
+          Math.min(minX, other.minX),
+          Math.max(maxX, other.maxX),
+          Math.min(minY, other.minY),
+          Math.max(maxY, other.maxY));
+    }
+  }
+
+  /** A value found by a nearest neighbor search, along with its distance. */
+  @Value(staticConstructor = "of")
+  static class Neighbor<T> {
+    T value;
+
+    double distance;
+  }
+
+  @Value
+  private static class Node<T> {
+    Envelope envelope;
+
+    T value;
+
+    List<Node<T>> children;
+
+    boolean isValue() {
+      return children.isEmpty();
+    }
+  }
+
+  private static final class NearestIterator<T> implements Iterator<Neighbor<T>> {
+    private final ToDoubleFunction<Envelope> lowerBound;
+
+    private final ToDoubleFunction<T> distance;
+
+    private final PriorityQueue<Candidate<T>> queue;
+
+    private Neighbor<T> next;
+
+    NearestIterator(
+        Node<T> root,
+        ToDoubleFunction<Envelope> lowerBound,
+        ToDoubleFunction<T> distance,
+        Comparator<T> tieBreaker) {
+      this.lowerBound = lowerBound;
+      this.distance = distance;
+      /*
+       * Ties are broken with subtrees first, so that every value at a given distance is in the
+       * queue before any of them are returned.
+       */
+      Comparator<Candidate<T>> order =
+          Comparator.<Candidate<T>>comparingDouble(Candidate::distance)
+              .thenComparing(c -> c.node().isValue())
+              .thenComparing(
+                  (left, right) ->
+                      left.node().isValue()
+                          ? tieBreaker.compare(left.node().value(), right.node().value())
+                          : 0);
+      queue = new PriorityQueue<>(order);
+      if (root != null) {
+        offer(root);
+      }
+    }
+
+    private Neighbor<T> advance() {
+      while (!queue.isEmpty()) {
+        Candidate<T> candidate = queue.poll();
+        if (candidate.node().isValue()) {
+          return Neighbor.of(candidate.node().value(), candidate.distance());
+        }
+        candidate.node().children().forEach(this::offer);
+      }
+      return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next == null) {
+        next = advance();
+      }
+      return next != null;
+    }
+
+    @Override
+    public Neighbor<T> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Neighbor<T> result = next;
+      next = null;
+      return result;
+    }
+
+    private void offer(Node<T> node) {
+      queue.add(
+          new Candidate<>(
+              node,
+              node.isValue()
+                  ? distance.applyAsDouble(node.value())
+                  : lowerBound.applyAsDouble(node.envelope())));
+    }
+  }
+
+  @Value
+  private static class Candidate<T> {
+    Node<T> node;
+
+    double distance;
+  }
+}
@@ -0,0 +1,41 @@
+package gov.va.api.lighthouse.facilities;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import lombok.NonNull;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * Jackson message converter that records how long each response takes to write, by response type.
+ * The time includes writing to the client, which is where large responses spend it.
+ */
+class TimedJsonMessageConverter extends MappingJackson2HttpMessageConverter {
+  private final MeterRegistry meterRegistry;
+
+  TimedJsonMessageConverter(
+      @NonNull MappingJackson2HttpMessageConverter converter,
+      @NonNull MeterRegistry meterRegistry) {
+    super(converter.getObjectMapper());
+    setSupportedMediaTypes(converter.getSupportedMediaTypes());
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+      throws IOException {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    try {
+      super.writeInternal(object, type, outputMessage);
+    } finally {
+      sample.stop(
+          FacilityMetrics.timer(
+              meterRegistry,
+              FacilityMetrics.SERIALIZATION,
+              "type",
+              object == null ? "null" : object.getClass().getSimpleName()));
+    }
+  }
+}
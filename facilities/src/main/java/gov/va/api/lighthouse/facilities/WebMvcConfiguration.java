@@ -1,14 +1,47 @@
 package gov.va.api.lighthouse.facilities;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 class WebMvcConfiguration implements WebMvcConfigurer {
+  private final ConditionalGetInterceptor conditionalGets;
+
+  private final MeterRegistry meterRegistry;
+
+  WebMvcConfiguration(
+      @Autowired ConditionalGetInterceptor conditionalGets,
+      @Autowired MeterRegistry meterRegistry) {
+    this.conditionalGets = conditionalGets;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(conditionalGets);
+  }
+
   @Override
   public void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
     configurer.defaultContentType(MediaType.APPLICATION_JSON);
   }
+
+  /** Time JSON responses, keeping the configured object mappers and media types. */
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.replaceAll(
+        converter ->
+            converter.getClass() == MappingJackson2HttpMessageConverter.class
+                ? new TimedJsonMessageConverter(
+                    (MappingJackson2HttpMessageConverter) converter, meterRegistry)
+                : converter);
+  }
 }
@@ -411,9 +411,7 @@ public class CmsOverlayControllerV0Test {
     }
     // Verify that facility is updated with detailed services from overlay
     FacilityEntity updatedFacilityEntity = mockFacilityRepository.findById(pk).get();
-    DatamartFacility datamartFacility =
-        DatamartFacilitiesJacksonConfig.createMapper()
-            .readValue(updatedFacilityEntity.facility(), DatamartFacility.class);
+    DatamartFacility datamartFacility = FacilityPayloads.read(updatedFacilityEntity);
     Facility facility = FacilityTransformerV0.toFacility(datamartFacility);
     // Only Covid-19 service should be present in facility attributes, if present in detailed
     // services overlay for facility
@@ -667,9 +665,7 @@ public class CmsOverlayControllerV0Test {
                             .equals(DatamartFacility.HealthService.Cardiology.serviceId()))
                 .toList());
     FacilityEntity updatedFacilityEntity = mockFacilityRepository.findById(pk).get();
-    DatamartFacility updatedDatamartFacility =
-        DatamartFacilitiesJacksonConfig.createMapper()
-            .readValue(updatedFacilityEntity.facility(), DatamartFacility.class);
+    DatamartFacility updatedDatamartFacility = FacilityPayloads.read(updatedFacilityEntity);
     // Verify that in active services are remove from facility services list
     DatamartFacility.Services facilityServices =
         Services.builder()
@@ -759,9 +759,7 @@ public class CmsOverlayControllerV1Test {
     }
     // Verify that facility is updated with detailed services from overlay
     FacilityEntity updatedFacilityEntity = mockFacilityRepository.findById(pk).get();
-    DatamartFacility datamartFacility =
-        DatamartFacilitiesJacksonConfig.createMapper()
-            .readValue(updatedFacilityEntity.facility(), DatamartFacility.class);
+    DatamartFacility datamartFacility = FacilityPayloads.read(updatedFacilityEntity);
     Facility facility =
         FacilityTransformerV1.toFacility(
             datamartFacility, linkerUrl, List.of("ATC", "CMS", "DST", "internal", "BISL"));
@@ -0,0 +1,159 @@
+package gov.va.api.lighthouse.facilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+public class ConditionalGetInterceptorTest {
+  FacilityRepository fr = mock(FacilityRepository.class);
+
+  FacilitySnapshotManager snapshots = mock(FacilitySnapshotManager.class);
+
+  ConditionalGetInterceptor interceptor =
+      ConditionalGetInterceptor.builder()
+          .facilityRepository(fr)
+          .facilitySnapshots(snapshots)
+          .build();
+
+  FacilitiesControllerV1 controller =
+      FacilitiesControllerV1.builder()
+          .facilityRepository(fr)
+          .baseUrl("http://foo/")
+          .basePath("bp")
+          .serviceSources(List.of())
+          .build();
+
+  @SneakyThrows
+  private HandlerMethod handler(String name, Class<?>... parameterTypes) {
+    return new HandlerMethod(
+        controller, FacilitiesControllerV1.class.getDeclaredMethod(name, parameterTypes));
+  }
+
+  private MockHttpServletRequest read(String id, String ifNoneMatch) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/facilities/" + id);
+    request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("id", id));
+    if (ifNoneMatch != null) {
+      request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+    }
+    return request;
+  }
+
+  private static FacilityVersionRepository.FacilityVersion version(
+      FacilityEntity.Pk pk, int version, long lastUpdatedMillis) {
+    return FacilityVersionRepository.FacilityVersion.builder()
+        .id(pk)
+        .version(version)
+        .lastUpdated(Instant.ofEpochMilli(lastUpdatedMillis))
+        .build();
+  }
+
+  @Test
+  void datasetTagIsWeak() {
+    when(snapshots.fingerprint())
+        .thenReturn(
+            FacilitySnapshotManager.Fingerprint.builder()
+                .count(3)
+                .versionTotal(7L)
+                .lastUpdated(Instant.ofEpochMilli(1000))
+                .build());
+    HandlerMethod handler = handler("all", int.class, int.class);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertThat(
+            interceptor.preHandle(
+                new MockHttpServletRequest("GET", "/v1/facilities"), response, handler))
+        .isTrue();
+    assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("W/\"v1-all-3-7-1000\"");
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/facilities");
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"v1-all-3-7-1000\"");
+    response = new MockHttpServletResponse();
+    assertThat(interceptor.preHandle(request, response, handler)).isFalse();
+    assertThat(response.getStatus()).isEqualTo(304);
+  }
+
+  @Test
+  void facilityTagChangesWhenFacilityIsReloaded() {
+    FacilityEntity.Pk pk = FacilityEntity.Pk.fromIdString("vha_691GB");
+    when(fr.findVersionsByIdIn(List.of(pk))).thenReturn(List.of(version(pk, 0, 1000)));
+    HandlerMethod handler = handler("readJson", String.class);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertThat(interceptor.preHandle(read("vha_691GB", null), response, handler)).isTrue();
+    String original = response.getHeader(HttpHeaders.ETAG);
+    // Removed, then loaded again at version 0
+    when(fr.findVersionsByIdIn(List.of(pk))).thenReturn(List.of());
+    response = new MockHttpServletResponse();
+    assertThat(interceptor.preHandle(read("vha_691GB", original), response, handler)).isTrue();
+    assertThat(response.getHeader(HttpHeaders.ETAG)).isNull();
+    when(fr.findVersionsByIdIn(List.of(pk))).thenReturn(List.of(version(pk, 0, 2000)));
+    response = new MockHttpServletResponse();
+    assertThat(interceptor.preHandle(read("vha_691GB", original), response, handler)).isTrue();
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getHeader(HttpHeaders.ETAG))
+        .isEqualTo("\"v1-readJson-vha_691GB-0-2000\"")
+        .isNotEqualTo(original);
+  }
+
+  @Test
+  void facilityTagIsStrongAndSkipsPayload() {
+    FacilityEntity.Pk pk = FacilityEntity.Pk.fromIdString("vha_691GB");
+    when(fr.findVersionsByIdIn(List.of(pk))).thenReturn(List.of(version(pk, 3, 1000)));
+    HandlerMethod handler = handler("readJson", String.class);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertThat(interceptor.preHandle(read("vha_691GB", null), response, handler)).isTrue();
+    assertThat(response.getHeader(HttpHeaders.ETAG))
+        .isEqualTo("\"v1-readJson-vha_691GB-3-1000\"");
+    response = new MockHttpServletResponse();
+    assertThat(
+            interceptor.preHandle(
+                read("vha_691GB", "\"v1-readJson-vha_691GB-3-1000\""), response, handler))
+        .isFalse();
+    assertThat(response.getStatus()).isEqualTo(304);
+    // A newer version is sent in full
+    when(fr.findVersionsByIdIn(List.of(pk))).thenReturn(List.of(version(pk, 4, 1000)));
+    response = new MockHttpServletResponse();
+    assertThat(
+            interceptor.preHandle(
+                read("vha_691GB", "\"v1-readJson-vha_691GB-3-1000\""), response, handler))
+        .isTrue();
+    assertThat(response.getHeader(HttpHeaders.ETAG))
+        .isEqualTo("\"v1-readJson-vha_691GB-4-1000\"");
+    verify(fr, never()).findById(any());
+  }
+
+  @Test
+  void unannotatedHandlersAreNotValidated() {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertThat(
+            interceptor.preHandle(
+                new MockHttpServletRequest("GET", "/v1/facilities"),
+                response,
+                handler("allCsv", String.class)))
+        .isTrue();
+    assertThat(response.getHeader(HttpHeaders.ETAG)).isNull();
+    verifyNoInteractions(snapshots);
+  }
+
+  @Test
+  void unknownFacilitiesAreLeftToTheHandler() {
+    when(fr.findVersionsByIdIn(any())).thenReturn(List.of());
+    HandlerMethod handler = handler("readJson", String.class);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertThat(interceptor.preHandle(read("vha_999", "*"), response, handler)).isTrue();
+    assertThat(interceptor.preHandle(read("nope", "*"), response, handler)).isTrue();
+    assertThat(response.getHeader(HttpHeaders.ETAG)).isNull();
+  }
+}
@@ -0,0 +1,121 @@
+package gov.va.api.lighthouse.facilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gov.va.api.lighthouse.facilities.api.pssg.PathEncoder;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+@DataJpaTest
+public class DriveTimeBandGridManagerTest {
+  @Autowired DriveTimeBandRepository repository;
+
+  @Autowired DriveTimeBandGridRepository gridRepository;
+
+  DriveTimeBandGridManager manager;
+
+  private static BigDecimal dec(double value) {
+    return BigDecimal.valueOf(value);
+  }
+
+  /** A square band centered on the origin. */
+  private DriveTimeBandEntity band(String station, int fromMinutes, int toMinutes, double size) {
+    int scaled = (int) (size * PathEncoder.SCALE);
+    int[] ring = {-scaled, -scaled, scaled, -scaled, scaled, scaled, -scaled, scaled};
+    return DriveTimeBandEntity.builder()
+        .id(DriveTimeBandEntity.Pk.of(station, fromMinutes, toMinutes))
+        .minLongitude(-size)
+        .maxLongitude(size)
+        .minLatitude(-size)
+        .maxLatitude(size)
+        .monthYear("JAN2022")
+        .bandPayload(PathEncoder.create().encodeScaledRings(new int[][] {ring}))
+        .build();
+  }
+
+  private Map<String, DriveTimeBandEntity.Pk> bands(double longitude, double latitude) {
+    return manager.lookup(dec(longitude), dec(latitude), null).orElseThrow().bands();
+  }
+
+  @Test
+  void bandsChangedRasterizesStations() {
+    manager.load();
+    repository.save(band("3", 0, 10, 3));
+    manager.bandsChanged(List.of(DriveTimeBandEntity.Pk.of("3", 0, 10)));
+    assertThat(bands(2.5, 2.5)).isEqualTo(Map.of("3", DriveTimeBandEntity.Pk.of("3", 0, 10)));
+    assertThat(gridRepository.findById(DriveTimeBandGridManager.GRID_ID).orElseThrow().bandCount())
+        .isEqualTo(3);
+    manager.refresh();
+    assertThat(gridRepository.findById(DriveTimeBandGridManager.GRID_ID).orElseThrow().bandCount())
+        .isEqualTo(4);
+  }
+
+  @Test
+  void loadBuildsAndSavesGrid() {
+    assertThat(manager.lookup(dec(0), dec(0), null)).isEmpty();
+    assertThat(manager.load()).isEqualTo(2);
+    assertThat(bands(0.5, 0.5))
+        .isEqualTo(
+            Map.of(
+                "1", DriveTimeBandEntity.Pk.of("1", 0, 10),
+                "2", DriveTimeBandEntity.Pk.of("2", 0, 10)));
+    assertThat(bands(1.5, 1.5)).isEqualTo(Map.of("1", DriveTimeBandEntity.Pk.of("1", 10, 20)));
+    assertThat(manager.lookup(dec(1), dec(0), null).orElseThrow().boundaryStations())
+        .containsExactlyInAnyOrder("1", "2");
+    DriveTimeBandGridEntity saved =
+        gridRepository.findById(DriveTimeBandGridManager.GRID_ID).orElseThrow();
+    assertThat(saved.bandCount()).isEqualTo(3);
+    assertThat(saved.tileSize()).isEqualTo(1000);
+    assertThat(DriveTimeBandGrid.fromBytes(saved.grid()).stationCount()).isEqualTo(2);
+  }
+
+  @Test
+  void otherChangesRebuildGrid() {
+    manager.load();
+    repository.save(band("3", 0, 10, 3));
+    repository.save(band("4", 0, 10, 3));
+    manager.bandsChanged(List.of(DriveTimeBandEntity.Pk.of("3", 0, 10)));
+    assertThat(bands(2.5, 2.5)).containsOnlyKeys("3");
+    manager.refresh();
+    assertThat(bands(2.5, 2.5)).containsOnlyKeys("3", "4");
+  }
+
+  @Test
+  void savedGridIsLoaded() {
+    DriveTimeBandGrid empty = DriveTimeBandGrid.of(1000, List.of());
+    gridRepository.save(
+        DriveTimeBandGridEntity.builder()
+            .id(DriveTimeBandGridManager.GRID_ID)
+            .bandCount(3)
+            .bandVersionTotal(0)
+            .tileSize(1000)
+            .grid(empty.toBytes())
+            .build());
+    assertThat(manager.load()).isEqualTo(0);
+    assertThat(bands(0.5, 0.5)).isEmpty();
+    DriveTimeBandGridManager coarse =
+        DriveTimeBandGridManager.builder()
+            .repository(repository)
+            .gridRepository(gridRepository)
+            .tileDegrees(0.1)
+            .build();
+    assertThat(coarse.load()).isEqualTo(2);
+  }
+
+  @BeforeEach
+  void setup() {
+    repository.save(band("1", 0, 10, 1));
+    repository.save(band("1", 10, 20, 2));
+    repository.save(band("2", 0, 10, 1));
+    manager =
+        DriveTimeBandGridManager.builder()
+            .repository(repository)
+            .gridRepository(gridRepository)
+            .build();
+  }
+}
@@ -0,0 +1,110 @@
+package gov.va.api.lighthouse.facilities;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class DriveTimeBandGridTest {
+  private static final int TILE_SIZE = 1000;
+
+  private static DriveTimeBandGrid grid() {
+    return DriveTimeBandGrid.of(
+        TILE_SIZE, List.of(station("1", 0, 50_000, 100_000), station("2", 150_000, 50_000)));
+  }
+
+  /** Edges of a square centered on the point, in scaled coordinates. */
+  private static DriveTimeBandPolygon.Edges square(int center, int halfWidth) {
+    DriveTimeBandPolygon.Edges edges = DriveTimeBandPolygon.edges();
+    edges.startRing(4);
+    edges.coordinate(center - halfWidth, center - halfWidth);
+    edges.coordinate(center + halfWidth, center - halfWidth);
+    edges.coordinate(center + halfWidth, center + halfWidth);
+    edges.coordinate(center - halfWidth, center + halfWidth);
+    edges.endRing();
+    return edges;
+  }
+
+  /** A station with a 10 minute band for each square, closest first. */
+  private static DriveTimeBandGrid.Station station(
+      String stationNumber, int center, int... halfWidths) {
+    return DriveTimeBandGrid.rasterize(
+        TILE_SIZE,
+        stationNumber,
+        IntStream.range(0, halfWidths.length)
+            .mapToObj(i -> DriveTimeBandEntity.Pk.of(stationNumber, i * 10, i * 10 + 10))
+            .collect(toList()),
+        IntStream.of(halfWidths).mapToObj(w -> square(center, w)).collect(toList()));
+  }
+
+  @Test
+  void bandsBeyondFourteenAreBoundaries() {
+    int[] halfWidths = IntStream.rangeClosed(1, 16).map(i -> i * 10_000).toArray();
+    DriveTimeBandGrid grid = DriveTimeBandGrid.of(TILE_SIZE, List.of(station("1", 0, halfWidths)));
+    assertThat(grid.lookup(1.35, 0, null).bands())
+        .isEqualTo(Map.of("1", DriveTimeBandEntity.Pk.of("1", 130, 140)));
+    assertThat(grid.lookup(1.45, 0, null).bands()).isEmpty();
+    assertThat(grid.lookup(1.45, 0, null).boundaryStations()).containsExactly("1");
+  }
+
+  @Test
+  void bytesRoundTrip() {
+    DriveTimeBandGrid grid = DriveTimeBandGrid.fromBytes(grid().toBytes());
+    assertThat(grid.tileSize()).isEqualTo(TILE_SIZE);
+    assertThat(grid.stationCount()).isEqualTo(2);
+    assertThat(grid.estimatedBytes()).isEqualTo(grid().estimatedBytes());
+    assertThat(grid.lookup(0.75, 0, null)).isEqualTo(grid().lookup(0.75, 0, null));
+    assertThat(grid.lookup(2, 2, null)).isEqualTo(grid().lookup(2, 2, null));
+    assertThat(grid.lookup(2, 1.5, null)).isEqualTo(grid().lookup(2, 1.5, null));
+  }
+
+  @Test
+  void interiorTilesAreAnsweredByLookup() {
+    DriveTimeBandGrid grid = grid();
+    assertThat(grid.lookup(0.1, -0.1, null).bands())
+        .isEqualTo(Map.of("1", DriveTimeBandEntity.Pk.of("1", 0, 10)));
+    assertThat(grid.lookup(0.499, 0, null).bands())
+        .isEqualTo(Map.of("1", DriveTimeBandEntity.Pk.of("1", 0, 10)));
+    assertThat(grid.lookup(0.75, 0, null).bands())
+        .isEqualTo(Map.of("1", DriveTimeBandEntity.Pk.of("1", 10, 20)));
+    assertThat(grid.lookup(0.75, 0, null).boundaryStations()).isEmpty();
+    assertThat(grid.lookup(1.5, 1.5, null).bands())
+        .isEqualTo(Map.of("2", DriveTimeBandEntity.Pk.of("2", 0, 10)));
+    assertThat(grid.lookup(0.95, 0.95, null).bands())
+        .isEqualTo(Map.of("1", DriveTimeBandEntity.Pk.of("1", 10, 20)));
+  }
+
+  @Test
+  void maxDriveTimeLeavesOutFartherBands() {
+    DriveTimeBandGrid grid = grid();
+    assertThat(grid.lookup(0.75, 0, 10).bands()).isEmpty();
+    assertThat(grid.lookup(0.1, 0, 10).bands()).containsOnlyKeys("1");
+  }
+
+  @Test
+  void tilesCrossedByEdgesAreBoundaries() {
+    DriveTimeBandGrid grid = grid();
+    DriveTimeBandGrid.Lookup lookup = grid.lookup(0.5, 0, null);
+    assertThat(lookup.bands()).isEmpty();
+    assertThat(lookup.boundaryStations()).containsExactly("1");
+    lookup = grid.lookup(1.0, 1.0, null);
+    assertThat(lookup.bands()).isEmpty();
+    assertThat(lookup.boundaryStations()).containsExactlyInAnyOrder("1", "2");
+    assertThat(grid.lookup(-1.5, 0, null).bands()).isEmpty();
+    assertThat(grid.lookup(-1.5, 0, null).boundaryStations()).isEmpty();
+  }
+
+  @Test
+  void withStationsReplacesRasters() {
+    DriveTimeBandGrid grid =
+        grid().withStations(List.of("1", "2"), List.of(station("1", 0, 20_000)));
+    assertThat(grid.stationCount()).isEqualTo(1);
+    assertThat(grid.lookup(0.1, 0, null).bands())
+        .isEqualTo(Map.of("1", DriveTimeBandEntity.Pk.of("1", 0, 10)));
+    assertThat(grid.lookup(0.75, 0, null).bands()).isEmpty();
+    assertThat(grid.lookup(1.5, 1.5, null).bands()).isEmpty();
+  }
+}
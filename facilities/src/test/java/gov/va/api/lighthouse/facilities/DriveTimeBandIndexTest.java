@@ -0,0 +1,158 @@
+package gov.va.api.lighthouse.facilities;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+@DataJpaTest
+public class DriveTimeBandIndexTest {
+  @Autowired DriveTimeBandRepository repository;
+
+  DriveTimeBandIndex index;
+
+  private static BigDecimal dec(double value) {
+    return BigDecimal.valueOf(value);
+  }
+
+  private DriveTimeBandEntity band(String station, int fromMinutes, int toMinutes, double size) {
+    return DriveTimeBandEntity.builder()
+        .id(DriveTimeBandEntity.Pk.of(station, fromMinutes, toMinutes))
+        .minLongitude(-size)
+        .maxLongitude(size)
+        .minLatitude(-size)
+        .maxLatitude(size)
+        .monthYear("JAN2022")
+        .band("band-" + station + "-" + toMinutes)
+        .build();
+  }
+
+  private List<String> candidateNames(double longitude, double latitude, Integer maxDriveTime) {
+    return index
+        .candidates(dec(longitude), dec(latitude), maxDriveTime)
+        .orElseThrow()
+        .bands()
+        .stream()
+        .map(e -> e.id().name())
+        .sorted()
+        .collect(toList());
+  }
+
+  @Test
+  void bandsChangedReplacesBoundsOfStations() {
+    index.bandsChanged(List.of(DriveTimeBandEntity.Pk.of("1", 20, 30)));
+    assertThat(index.candidates(dec(0), dec(0), null)).isEmpty();
+    index.rebuild();
+    repository.save(band("1", 20, 30, 3));
+    repository.save(band("3", 0, 10, 3));
+    index.bandsChanged(List.of(DriveTimeBandEntity.Pk.of("1", 20, 30)));
+    assertThat(candidateNames(0.5, 0.5, null))
+        .containsExactly("1-0-10", "1-10-20", "1-20-30", "2-0-10");
+    assertThat(candidateNames(2.5, 2.5, null)).containsExactly("1-20-30");
+    // Not uploaded by this node, so left for the refresh check
+    index.rebuildIfStale();
+    assertThat(candidateNames(2.5, 2.5, null)).containsExactly("1-20-30", "3-0-10");
+  }
+
+  @Test
+  void candidatesAreBandsContainingPoint() {
+    assertThat(index.rebuild()).isEqualTo(3);
+    assertThat(candidateNames(0.5, 0.5, null)).containsExactly("1-0-10", "1-10-20", "2-0-10");
+    assertThat(candidateNames(1.5, 1.5, null)).containsExactly("1-10-20");
+    assertThat(candidateNames(0.5, 0.5, 10)).containsExactly("1-0-10", "2-0-10");
+    assertThat(candidateNames(5, 5, null)).isEmpty();
+    assertThat(index.candidates(dec(0), dec(0), null).orElseThrow().bands())
+        .extracting(DriveTimeBandEntity::band)
+        .contains("band-1-10");
+  }
+
+  @Test
+  void decodedCandidatesAreBuiltFromBounds() {
+    DriveTimeBandPathCache pathCache =
+        DriveTimeBandPathCache.builder()
+            .cacheManager(new CaffeineCacheManager(DriveTimeBandPathCache.CACHE_NAME))
+            .build();
+    index = DriveTimeBandIndex.builder().repository(repository).pathCache(pathCache).build();
+    repository.save(InternalDriveTimeBandControllerTest.Entities.diamond("4-0-10", 100));
+    index.rebuild();
+    var loaded = index.candidates(dec(100), dec(100), null).orElseThrow();
+    assertThat(loaded.decoded()).isEmpty();
+    DriveTimeBandEntity band = loaded.bands().get(0);
+    assertThat(band.band()).isNotNull();
+    DriveTimeBandPolygon polygon = loaded.polygon(band);
+    assertThat(polygon.contains(100, 100)).isTrue();
+    var decoded = index.candidates(dec(100), dec(100), null).orElseThrow();
+    assertThat(decoded.bands())
+        .singleElement()
+        .satisfies(
+            b -> {
+              assertThat(b.id()).isEqualTo(band.id());
+              assertThat(b.band()).isNull();
+              assertThat(b.bandPayload()).isNull();
+              assertThat(decoded.polygon(b)).isSameAs(polygon);
+            });
+  }
+
+  @Test
+  void findAllBoundsOmitsBand() {
+    assertThat(repository.findAllBounds())
+        .contains(
+            DriveTimeBandBoundsRepository.DriveTimeBandBounds.builder()
+                .id(DriveTimeBandEntity.Pk.of("1", 10, 20))
+                .version(0)
+                .monthYear("JAN2022")
+                .minLongitude(-2)
+                .maxLongitude(2)
+                .minLatitude(-2)
+                .maxLatitude(2)
+                .build())
+        .hasSize(3);
+  }
+
+  @Test
+  void findBoundsByStationNumberIn() {
+    assertThat(repository.findBoundsByStationNumberIn(List.of("1", "9")))
+        .extracting(b -> b.id().name())
+        .containsExactlyInAnyOrder("1-0-10", "1-10-20");
+    assertThat(repository.findBoundsByStationNumberIn(List.of())).isEmpty();
+  }
+
+  @Test
+  void findPayloadsByIdInOmitsMissingBands() {
+    var ids =
+        List.of(DriveTimeBandEntity.Pk.of("1", 10, 20), DriveTimeBandEntity.Pk.of("9", 0, 10));
+    assertThat(repository.findPayloadsByIdIn(ids))
+        .containsExactly(
+            DriveTimeBandBoundsRepository.DriveTimeBandPayload.builder()
+                .id(DriveTimeBandEntity.Pk.of("1", 10, 20))
+                .version(0)
+                .monthYear("JAN2022")
+                .band("band-1-20")
+                .build());
+    assertThat(repository.findPayloadsByIdIn(List.of())).isEmpty();
+  }
+
+  @Test
+  void indexIsRebuiltWhenStale() {
+    assertThat(index.candidates(dec(0), dec(0), null)).isEmpty();
+    index.rebuildIfStale();
+    assertThat(candidateNames(2.5, 2.5, null)).isEmpty();
+    repository.save(band("3", 0, 10, 3));
+    index.rebuildIfStale();
+    assertThat(candidateNames(2.5, 2.5, null)).containsExactly("3-0-10");
+  }
+
+  @BeforeEach
+  void setup() {
+    repository.save(band("1", 0, 10, 1));
+    repository.save(band("1", 10, 20, 2));
+    repository.save(band("2", 0, 10, 1));
+    index = DriveTimeBandIndex.builder().repository(repository).build();
+  }
+}
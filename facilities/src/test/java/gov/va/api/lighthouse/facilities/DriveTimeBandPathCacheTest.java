@@ -0,0 +1,130 @@
+package gov.va.api.lighthouse.facilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import gov.va.api.lighthouse.facilities.api.pssg.PathEncoder;
+import gov.va.api.lighthouse.facilities.api.pssg.PssgDriveTimeBand;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+public class DriveTimeBandPathCacheTest {
+  private SimpleMeterRegistry registry;
+
+  private DriveTimeBandPathCache cache;
+
+  private DriveTimeBandEntity band(String stationNumber, int version, String monthYear) {
+    PssgDriveTimeBand band =
+        PssgDriveTimeBand.builder()
+            .attributes(
+                PssgDriveTimeBand.Attributes.builder()
+                    .stationNumber(stationNumber)
+                    .fromBreak(0)
+                    .toBreak(10)
+                    .monthYear(monthYear)
+                    .build())
+            .geometry(
+                PssgDriveTimeBand.Geometry.builder()
+                    .rings(
+                        List.of(
+                            List.of(
+                                PssgDriveTimeBand.coord(0, 2),
+                                PssgDriveTimeBand.coord(1, 0),
+                                PssgDriveTimeBand.coord(0, -2),
+                                PssgDriveTimeBand.coord(-1, 0))))
+                    .build())
+            .build();
+    return DriveTimeBandEntity.builder()
+        .id(DriveTimeBandEntity.Pk.of(stationNumber, 0, 10))
+        .minLongitude(-1)
+        .maxLongitude(1)
+        .minLatitude(-2)
+        .maxLatitude(2)
+        .monthYear(monthYear)
+        .band(PathEncoder.create().encodeToBase64(band))
+        .version(version)
+        .build();
+  }
+
+  private double gauge(String suffix) {
+    return registry.get(FacilityMetrics.DRIVE_TIME_BAND_PATHS + suffix).gauge().value();
+  }
+
+  @Test
+  void decodesOncePerVersion() {
+    DriveTimeBandPolygon polygon = cache.polygon(band("666", 0, "JAN2022"));
+    assertThat(polygon.contains(0, 0)).isTrue();
+    assertThat(cache.polygon(band("666", 0, "JAN2022"))).isSameAs(polygon);
+    assertThat(cache.polygon(band("666", 1, "JAN2022"))).isNotSameAs(polygon);
+    assertThat(cache.polygon(band("666", 1, "FEB2022"))).isNotSameAs(polygon);
+    assertThat(gauge(".size")).isEqualTo(3);
+    assertThat(gauge(".hit.ratio")).isEqualTo(0.25);
+    assertThat(gauge(".bytes"))
+        .isEqualTo(3 * polygon.estimatedBytes())
+        .isGreaterThan(4 * 4 * Integer.BYTES);
+  }
+
+  @Test
+  void decodedOnlyFindsCachedVersion() {
+    DriveTimeBandEntity band = band("666", 0, "JAN2022");
+    assertThat(cache.decoded(band.id(), 0, "JAN2022")).isEmpty();
+    DriveTimeBandPolygon polygon = cache.polygon(band);
+    assertThat(cache.decoded(band.id(), 0, "JAN2022")).containsSame(polygon);
+    assertThat(cache.decoded(band.id(), 1, "JAN2022")).isEmpty();
+    assertThat(cache.decoded(band.id(), 0, "FEB2022")).isEmpty();
+    assertThat(DriveTimeBandPathCache.builder().build().decoded(band.id(), 0, "JAN2022")).isEmpty();
+  }
+
+  @Test
+  void intersectionsUseCachedPaths() {
+    List<DriveTimeBandEntity> bands = List.of(band("666", 0, "JAN2022"), band("777", 0, "JAN2022"));
+    var candidates = DriveTimeBandIndex.Candidates.of(bands, cache);
+    assertThat(NearbyUtils.intersections(BigDecimal.ZERO, BigDecimal.ZERO, candidates))
+        .containsOnlyKeys("666", "777");
+    assertThat(NearbyUtils.intersections(BigDecimal.ZERO, BigDecimal.ZERO, candidates))
+        .containsOnlyKeys("666", "777");
+    assertThat(gauge(".hit.ratio")).isEqualTo(0.5);
+    assertThat(
+            NearbyUtils.intersections(
+                BigDecimal.TEN, BigDecimal.TEN, DriveTimeBandIndex.Candidates.of(bands, null)))
+        .isEmpty();
+  }
+
+  @Test
+  void invalidateEvictsEveryVersionOfBand() {
+    DriveTimeBandPolygon polygon = cache.polygon(band("666", 0, "JAN2022"));
+    cache.polygon(band("666", 1, "FEB2022"));
+    cache.polygon(band("777", 0, "JAN2022"));
+    cache.invalidate(List.of(DriveTimeBandEntity.Pk.of("666", 0, 10)));
+    assertThat(gauge(".size")).isEqualTo(1);
+    assertThat(cache.polygon(band("666", 0, "JAN2022"))).isNotSameAs(polygon);
+  }
+
+  @BeforeEach
+  void setup() {
+    CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    cacheManager.registerCustomCache(
+        DriveTimeBandPathCache.CACHE_NAME,
+        Caffeine.newBuilder()
+            .executor(Runnable::run)
+            .maximumWeight(1_000_000)
+            .weigher(DriveTimeBandPathCache::weigh)
+            .recordStats()
+            .build());
+    registry = new SimpleMeterRegistry();
+    cache =
+        DriveTimeBandPathCache.builder().cacheManager(cacheManager).meterRegistry(registry).build();
+  }
+
+  @Test
+  void uncachedWithoutCacheManager() {
+    DriveTimeBandPathCache uncached = DriveTimeBandPathCache.builder().build();
+    DriveTimeBandEntity band = band("666", 0, "JAN2022");
+    assertThat(uncached.polygon(band)).isNotSameAs(uncached.polygon(band));
+    uncached.invalidate(List.of(band.id()));
+  }
+}
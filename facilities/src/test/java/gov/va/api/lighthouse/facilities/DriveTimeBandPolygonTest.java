@@ -0,0 +1,139 @@
+package gov.va.api.lighthouse.facilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gov.va.api.lighthouse.facilities.api.pssg.PathEncoder;
+import java.awt.geom.Path2D;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class DriveTimeBandPolygonTest {
+  /** Counter-clockwise square centered on the origin, in scaled coordinates. */
+  private static int[] square(int halfWidth) {
+    return new int[] {
+      -halfWidth, -halfWidth, halfWidth, -halfWidth, halfWidth, halfWidth, -halfWidth, halfWidth
+    };
+  }
+
+  /** Irregular ring around the origin with the given number of points, in scaled coordinates. */
+  private static int[] star(int points, long seed) {
+    Random random = new Random(seed);
+    int[] ring = new int[points * 2];
+    for (int i = 0; i < points; i++) {
+      double angle = 2 * Math.PI * i / points;
+      double radius = 100_000 + random.nextInt(100_000);
+      ring[2 * i] = (int) (radius * Math.cos(angle));
+      ring[2 * i + 1] = (int) (radius * Math.sin(angle));
+    }
+    return ring;
+  }
+
+  private static Path2D toPath(int[]... rings) {
+    Path2D path = new Path2D.Double();
+    for (int[] ring : rings) {
+      path.moveTo(ring[0] / 100_000.0, ring[1] / 100_000.0);
+      for (int i = 2; i < ring.length; i += 2) {
+        path.lineTo(ring[i] / 100_000.0, ring[i + 1] / 100_000.0);
+      }
+      path.closePath();
+    }
+    return path;
+  }
+
+  @Test
+  void bucketedPolygonAgreesWithPath() {
+    int[] ring = star(2000, 1);
+    DriveTimeBandPolygon polygon = DriveTimeBandPolygon.of(new int[][] {ring});
+    assertThat(polygon.isBucketed()).isTrue();
+    Path2D path = toPath(ring);
+    Random random = new Random(2);
+    for (int i = 0; i < 10_000; i++) {
+      double x = random.nextDouble() * 4 - 2;
+      double y = random.nextDouble() * 4 - 2;
+      assertThat(polygon.contains(x, y)).as("%s,%s", x, y).isEqualTo(path.contains(x, y));
+    }
+  }
+
+  @Test
+  void classifiedTilesAgreeWithPath() {
+    int[] ring = star(1000, 6);
+    int[] hole = {0, 0, 0, 20_000, 20_000, 20_000, 20_000, 0};
+    PathEncoder encoder = PathEncoder.create();
+    DriveTimeBandPolygon.Edges edges = DriveTimeBandPolygon.edges();
+    encoder.decode(encoder.encodeScaledRings(new int[][] {ring, hole}), edges);
+    assertThat(edges.minX()).isGreaterThanOrEqualTo(-200_000);
+    assertThat(edges.maxY()).isLessThanOrEqualTo(200_000);
+    byte[] tiles = edges.classify(-200_000, -200_000, 5_000, 80, 80);
+    assertThat(tiles).contains(DriveTimeBandPolygon.INSIDE, DriveTimeBandPolygon.PARTIAL);
+    Path2D path = toPath(ring, hole);
+    Random random = new Random(7);
+    for (int i = 0; i < 10_000; i++) {
+      double x = random.nextDouble() * 4 - 2;
+      double y = random.nextDouble() * 4 - 2;
+      int tile = (int) ((y + 2) * 20) * 80 + (int) ((x + 2) * 20);
+      if (tiles[tile] != DriveTimeBandPolygon.PARTIAL) {
+        assertThat(tiles[tile] == DriveTimeBandPolygon.INSIDE)
+            .as("%s,%s", x, y)
+            .isEqualTo(path.contains(x, y));
+      }
+    }
+  }
+
+  @Test
+  void decodedEdgesMatchScaledRings() {
+    int[] ring = star(1000, 5);
+    PathEncoder encoder = PathEncoder.create();
+    DriveTimeBandPolygon.Edges edges = DriveTimeBandPolygon.edges();
+    encoder.decode(encoder.encodeScaledRings(new int[][] {ring, square(10_000)}), edges);
+    DriveTimeBandPolygon decoded = edges.toPolygon();
+    DriveTimeBandPolygon fromRings = DriveTimeBandPolygon.of(new int[][] {ring, square(10_000)});
+    assertThat(decoded.edgeCount()).isEqualTo(fromRings.edgeCount());
+    assertThat(decoded.estimatedBytes()).isEqualTo(fromRings.estimatedBytes());
+    assertThat(decoded.contains(0, 0)).isTrue();
+    assertThat(decoded.contains(0.5, 0)).isEqualTo(fromRings.contains(0.5, 0));
+  }
+
+  @Test
+  void emptyPolygonContainsNothing() {
+    assertThat(DriveTimeBandPolygon.of(new int[][] {}).contains(0, 0)).isFalse();
+    assertThat(DriveTimeBandPolygon.of(new int[][] {{5, 5, 10, 5}}).contains(0, 0)).isFalse();
+  }
+
+  @Test
+  void interiorRingIsHole() {
+    int[] hole = square(50_000);
+    int[] reversed = new int[hole.length];
+    for (int i = 0; i < hole.length; i += 2) {
+      reversed[hole.length - 2 - i] = hole[i];
+      reversed[hole.length - 1 - i] = hole[i + 1];
+    }
+    DriveTimeBandPolygon polygon = DriveTimeBandPolygon.of(new int[][] {square(100_000), reversed});
+    assertThat(polygon.contains(0, 0)).isFalse();
+    assertThat(polygon.contains(0.75, 0.75)).isTrue();
+    assertThat(polygon.contains(1.5, 0)).isFalse();
+  }
+
+  @Test
+  void ofPathMatchesScaledRings() {
+    int[] ring = star(500, 3);
+    DriveTimeBandPolygon fromRings = DriveTimeBandPolygon.of(new int[][] {ring, square(10_000)});
+    DriveTimeBandPolygon fromPath = DriveTimeBandPolygon.of(toPath(ring, square(10_000)));
+    assertThat(fromPath.edgeCount()).isEqualTo(fromRings.edgeCount());
+    assertThat(fromPath.estimatedBytes()).isEqualTo(fromRings.estimatedBytes());
+    Random random = new Random(4);
+    for (int i = 0; i < 1_000; i++) {
+      double x = random.nextDouble() * 4 - 2;
+      double y = random.nextDouble() * 4 - 2;
+      assertThat(fromPath.contains(x, y)).isEqualTo(fromRings.contains(x, y));
+    }
+  }
+
+  @Test
+  void overlappingRingsStayFilled() {
+    DriveTimeBandPolygon polygon = DriveTimeBandPolygon.of(new int[][] {square(100), square(100)});
+    assertThat(polygon.isBucketed()).isFalse();
+    assertThat(polygon.edgeCount()).isEqualTo(4);
+    assertThat(polygon.contains(0, 0)).isTrue();
+    assertThat(polygon.contains(0.002, 0)).isFalse();
+  }
+}
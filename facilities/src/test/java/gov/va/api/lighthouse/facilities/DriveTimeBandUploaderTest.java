@@ -0,0 +1,111 @@
+package gov.va.api.lighthouse.facilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gov.va.api.lighthouse.facilities.api.pssg.PssgDriveTimeBand;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+public class DriveTimeBandUploaderTest {
+  @Autowired DriveTimeBandRepository repository;
+
+  @Autowired TransactionTemplate transactions;
+
+  @Autowired EntityManager entityManager;
+
+  @Autowired EntityManagerFactory entityManagerFactory;
+
+  private static PssgDriveTimeBand band(String name, int offset) {
+    return InternalDriveTimeBandControllerTest.Entities.diamondBand(name, offset);
+  }
+
+  private DriveTimeBandUploader uploader() {
+    return DriveTimeBandUploader.builder()
+        .repository(repository)
+        .transactions(transactions)
+        .entityManager(entityManager)
+        .chunkSize(2)
+        .encoderThreads(2)
+        .build();
+  }
+
+  private int managedEntities(EntityManager requestEntityManager) {
+    return requestEntityManager.unwrap(Session.class).getStatistics().getEntityCount();
+  }
+
+  @Test
+  void repeatedBandIsWrittenOnce() {
+    var upload = uploader().upload(List.of(band("a-1-2", 10), band("a-1-2", 20)));
+    assertThat(upload.created()).containsExactly("a-1-2");
+    assertThat(upload.updated()).containsExactly("a-1-2");
+    assertThat(upload.changed()).containsExactly(DriveTimeBandEntity.Pk.fromName("a-1-2"));
+    var saved = repository.findById(DriveTimeBandEntity.Pk.fromName("a-1-2")).orElseThrow();
+    assertThat(NearbyUtils.toPolygon(saved).contains(20, 20)).isTrue();
+  }
+
+  /**
+   * Runs each chunk in a real transaction, sharing one entity manager bound to the thread as
+   * open-in-view does for a request.
+   */
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  void sharedEntityManagerIsClearedAfterEachChunk() {
+    EntityManager requestEntityManager = entityManagerFactory.createEntityManager();
+    TransactionSynchronizationManager.bindResource(
+        entityManagerFactory, new EntityManagerHolder(requestEntityManager));
+    try {
+      var upload =
+          uploader().upload(List.of(band("a-1-2", 10), band("b-1-2", 20), band("c-1-2", 30)));
+      assertThat(upload.created()).containsExactly("a-1-2", "b-1-2", "c-1-2");
+      assertThat(managedEntities(requestEntityManager)).isZero();
+      upload = uploader().upload(List.of(band("a-1-2", 100), band("d-1-2", 40)));
+      assertThat(upload.created()).containsExactly("d-1-2");
+      assertThat(upload.updated()).containsExactly("a-1-2");
+      assertThat(managedEntities(requestEntityManager)).isZero();
+      assertThat(repository.count()).isEqualTo(4);
+      var a12 = repository.findById(DriveTimeBandEntity.Pk.fromName("a-1-2")).orElseThrow();
+      assertThat(a12.version()).isEqualTo(1);
+      assertThat(NearbyUtils.toPolygon(a12).contains(100, 100)).isTrue();
+    } finally {
+      TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+      requestEntityManager.close();
+      repository.deleteAll();
+    }
+  }
+
+  @Test
+  void uploadCreatesAndUpdatesInChunks() {
+    uploader().upload(List.of(band("a-1-2", 10), band("b-1-2", 20)));
+    var upload =
+        uploader()
+            .upload(
+                List.of(
+                    band("a-1-2", 100),
+                    band("b-1-2", 200),
+                    band("c-1-2", 300),
+                    band("c-2-3", 400),
+                    band("d-1-2", 500)));
+    assertThat(upload.created()).containsExactly("c-1-2", "c-2-3", "d-1-2");
+    assertThat(upload.updated()).containsExactly("a-1-2", "b-1-2");
+    assertThat(upload.changed()).hasSize(5);
+    assertThat(upload.timings()).containsOnlyKeys("encode", "prefetch", "write");
+    assertThat(repository.count()).isEqualTo(5);
+    var a12 = repository.findById(DriveTimeBandEntity.Pk.fromName("a-1-2")).orElseThrow();
+    assertThat(a12.minLongitude()).isEqualTo(99);
+    assertThat(a12.maxLatitude()).isEqualTo(102);
+    assertThat(a12.band()).isNull();
+    assertThat(NearbyUtils.toPolygon(a12).contains(100, 100)).isTrue();
+    assertThat(NearbyUtils.toPolygon(a12).contains(10, 10)).isFalse();
+  }
+}
@@ -6,6 +6,7 @@ import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -23,10 +24,12 @@ import gov.va.api.lighthouse.facilities.api.v0.GeoFacility;
 import gov.va.api.lighthouse.facilities.api.v0.GeoFacilityReadResponse;
 import gov.va.api.lighthouse.facilities.api.v0.PageLinks;
 import gov.va.api.lighthouse.facilities.api.v0.Pagination;
+import java.io.ByteArrayOutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -39,6 +42,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 public class FacilitiesControllerV0Test {
   private static final ObjectMapper MAPPER = createMapper();
@@ -57,13 +64,17 @@ public class FacilitiesControllerV0Test {
   @SneakyThrows
   void all() {
     FacilitySamples samples = FacilitySamples.defaultSamples(linkerUrl);
-    when(fr.findAllProjectedBy())
+    when(fr.findAllProjectedBy(
+            PageRequest.of(0, FacilityExports.CHUNK_SIZE, FacilityEntity.naturalOrder())))
         .thenReturn(
             List.of(
                 samples.facilityEntity("vha_691GB"),
                 samples.facilityEntity("vha_740GA"),
                 samples.facilityEntity("vha_757")));
-    String actual = controller(baseUrl, basePath).all();
+    ResponseEntity<?> response = controller(baseUrl, basePath).all("application/geo+json", null);
+    assertThat(response.getHeaders().getContentType())
+        .isEqualTo(MediaType.parseMediaType("application/geo+json"));
+    String actual = body(response);
     assertThat(
             FacilitiesJacksonConfigV0.createMapper()
                 .readValue(actual, GeoFacilitiesResponse.class)
@@ -74,13 +85,16 @@ public class FacilitiesControllerV0Test {
   @Test
   void allCsv() {
     FacilitySamples samples = FacilitySamples.defaultSamples(linkerUrl);
-    when(fr.findAllProjectedBy())
+    when(fr.findAllProjectedBy(
+            PageRequest.of(0, FacilityExports.CHUNK_SIZE, FacilityEntity.naturalOrder())))
         .thenReturn(
             List.of(
                 samples.facilityEntity("vha_691GB"),
                 samples.facilityEntity("vha_740GA"),
                 samples.facilityEntity("vha_757")));
-    String actual = controller(baseUrl, basePath).allCsv();
+    ResponseEntity<?> response = controller(baseUrl, basePath).allCsv(null);
+    assertThat(response.getHeaders().getContentType()).isEqualTo(FacilityExports.TEXT_CSV);
+    String actual = body(response);
     List<String> actualLines = Splitter.onPattern("\\r?\\n").omitEmptyStrings().splitToList(actual);
     assertThat(actualLines.size()).isEqualTo(4);
     assertThat(actualLines.get(0)).isEqualTo(Joiner.on(",").join(CsvTransformerV0.HEADERS));
@@ -107,6 +121,13 @@ public class FacilitiesControllerV0Test {
                 + "730AM-600PM,730AM-600PM,730AM-600PM,730AM-600PM,800AM-400PM,800AM-400PM,NORMAL,");
   }
 
+  @SneakyThrows
+  private static String body(ResponseEntity<?> response) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((StreamingResponseBody) response.getBody()).writeTo(out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
   private FacilitiesControllerV0 controller(@NonNull String baseUrl, @NonNull String basePath) {
     return FacilitiesControllerV0.builder()
         .facilityRepository(fr)
@@ -128,8 +149,10 @@ public class FacilitiesControllerV0Test {
             new NullPointerException(
                 "Cannot invoke \"gov.va.api.lighthouse.facilities.HasFacilityPayload.facility()\" because \"entity\" is null"));
     when(fr.findAllProjectedBy()).thenThrow(new NullPointerException("oh noes"));
-    assertThrows(NullPointerException.class, () -> controller(baseUrl, basePath).all());
-    assertThrows(NullPointerException.class, () -> controller(baseUrl, basePath).allCsv());
+    when(fr.findAllProjectedBy(any(Pageable.class)))
+        .thenThrow(new NullPointerException("oh noes"));
+    assertThrows(NullPointerException.class, () -> controller(baseUrl, basePath).all(null, null));
+    assertThrows(NullPointerException.class, () -> controller(baseUrl, basePath).allCsv(null));
     // Nested exception ExceptionsUtils.InvalidParameter
     Method entitiesByBoundingBoxMethod =
         FacilitiesControllerV0.class.getDeclaredMethod(
@@ -234,7 +257,8 @@ public class FacilitiesControllerV0Test {
 
   @Test
   void geoFacilitiesByBoundingBox() {
-    when(fr.findAll(
+    FacilityEntity entity = FacilitySamples.defaultSamples(linkerUrl).facilityEntity("vha_740GA");
+    when(fr.findAllLocations(
             FacilityRepository.BoundingBoxSpecification.builder()
                 .minLongitude(BigDecimal.valueOf(-97.65).min(BigDecimal.valueOf(-97.67)))
                 .maxLongitude(BigDecimal.valueOf(-97.65).max(BigDecimal.valueOf(-97.67)))
@@ -244,7 +268,15 @@ public class FacilitiesControllerV0Test {
                 .services(facilityServices())
                 .mobile(Boolean.FALSE)
                 .build()))
-        .thenReturn(List.of(FacilitySamples.defaultSamples(linkerUrl).facilityEntity("vha_740GA")));
+        .thenReturn(
+            List.of(
+                FacilityLocationRepository.FacilityLocation.builder()
+                    .id(entity.id())
+                    .latitude(entity.latitude())
+                    .longitude(entity.longitude())
+                    .mobile(entity.mobile())
+                    .build()));
+    when(fr.findByIdIn(List.of(entity.id()))).thenReturn(List.of(entity));
     assertThat(
             controller(baseUrl, basePath)
                 .geoFacilitiesByBoundingBox(
@@ -3,39 +3,54 @@ package gov.va.api.lighthouse.facilities;
 import static gov.va.api.lighthouse.facilities.FacilitiesJacksonConfigV1.createMapper;
 import static gov.va.api.lighthouse.facilities.api.ServiceLinkBuilder.buildLinkerUrlV1;
 import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import gov.va.api.lighthouse.facilities.DatamartFacility.HealthService;
 import gov.va.api.lighthouse.facilities.DatamartFacility.Service.Source;
+import gov.va.api.lighthouse.facilities.api.v1.FacilitiesBatchRequest;
 import gov.va.api.lighthouse.facilities.api.v1.FacilitiesResponse;
 import gov.va.api.lighthouse.facilities.api.v1.Facility;
 import gov.va.api.lighthouse.facilities.api.v1.FacilityReadResponse;
 import gov.va.api.lighthouse.facilities.api.v1.PageLinks;
 import gov.va.api.lighthouse.facilities.api.v1.Pagination;
+import java.io.ByteArrayOutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.IntStream;
+import javax.validation.Validation;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 public class FacilitiesControllerV1Test {
   private static final ObjectMapper MAPPER_V1 = createMapper();
@@ -54,7 +69,8 @@ public class FacilitiesControllerV1Test {
   @SneakyThrows
   void all() {
     FacilitySamples samples = FacilitySamples.defaultSamples(linkerUrl);
-    when(fr.findAllProjectedBy())
+    when(fr.count()).thenReturn(3L);
+    when(fr.findAllProjectedBy(PageRequest.of(0, 3, FacilityEntity.naturalOrder())))
         .thenReturn(
             List.of(
                 samples.facilityEntity("vha_691GB"),
@@ -107,13 +123,16 @@ public class FacilitiesControllerV1Test {
   @Test
   void allCsv() {
     FacilitySamples samples = FacilitySamples.defaultSamples(linkerUrl);
-    when(fr.findAllProjectedBy())
+    when(fr.findAllProjectedBy(
+            PageRequest.of(0, FacilityExports.CHUNK_SIZE, FacilityEntity.naturalOrder())))
         .thenReturn(
             List.of(
                 samples.facilityEntity("vha_691GB"),
                 samples.facilityEntity("vha_740GA"),
                 samples.facilityEntity("vha_757")));
-    String actual = controller(baseUrl, basePath).allCsv();
+    ResponseEntity<?> response = controller(baseUrl, basePath).allCsv(null);
+    assertThat(response.getHeaders().getContentType()).isEqualTo(FacilityExports.TEXT_CSV);
+    String actual = body(response);
     List<String> actualLines = Splitter.onPattern("\\r?\\n").omitEmptyStrings().splitToList(actual);
     assertThat(actualLines.size()).isEqualTo(4);
     assertThat(actualLines.get(0)).isEqualTo(Joiner.on(",").join(CsvTransformerV0.HEADERS));
@@ -140,6 +159,13 @@ public class FacilitiesControllerV1Test {
                 + "730AM-600PM,730AM-600PM,730AM-600PM,730AM-600PM,800AM-400PM,800AM-400PM,NORMAL,");
   }
 
+  @SneakyThrows
+  private static String body(ResponseEntity<?> response) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((StreamingResponseBody) response.getBody()).writeTo(out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
   private FacilitiesControllerV1 controller(@NonNull String baseUrl, @NonNull String basePath) {
     return FacilitiesControllerV1.builder()
         .facilityRepository(fr)
@@ -162,8 +188,10 @@ public class FacilitiesControllerV1Test {
         .isInstanceOf(InvocationTargetException.class)
         .hasCause(new NullPointerException("entity is marked non-null but is null"));
     when(fr.findAllProjectedBy()).thenThrow(new NullPointerException("oh noes"));
+    when(fr.findAllProjectedBy(any(Pageable.class)))
+        .thenThrow(new NullPointerException("oh noes"));
     assertThrows(NullPointerException.class, () -> controller(baseUrl, basePath).all(1, 2));
-    assertThrows(NullPointerException.class, () -> controller(baseUrl, basePath).allCsv());
+    assertThrows(NullPointerException.class, () -> controller(baseUrl, basePath).allCsv(null));
     // Nested exception ExceptionsUtils.InvalidParameter
     Method entitiesByBoundingBoxMethod =
         FacilitiesControllerV1.class.getDeclaredMethod(
@@ -330,17 +358,95 @@ public class FacilitiesControllerV1Test {
   }
 
   @Test
-  void jsonFacilitiesByIds() {
+  void jsonFacilitiesBatch() {
     when(fr.findByIdIn(
             List.of(
+                FacilityEntity.Pk.of(FacilityEntity.Type.vha, "757"),
                 FacilityEntity.Pk.of(FacilityEntity.Type.vha, "691GB"),
-                FacilityEntity.Pk.of(FacilityEntity.Type.vha, "740GA"),
-                FacilityEntity.Pk.of(FacilityEntity.Type.vha, "757"))))
+                FacilityEntity.Pk.of(FacilityEntity.Type.vha, "740GA"))))
         .thenReturn(
             List.of(
-                FacilitySamples.defaultSamples(linkerUrl).facilityEntity("vha_740GA"),
                 FacilitySamples.defaultSamples(linkerUrl).facilityEntity("vha_691GB"),
+                FacilitySamples.defaultSamples(linkerUrl).facilityEntity("vha_740GA"),
                 FacilitySamples.defaultSamples(linkerUrl).facilityEntity("vha_757")));
+    assertThat(
+            controller(baseUrl, basePath)
+                .jsonFacilitiesBatch(
+                    FacilitiesBatchRequest.builder()
+                        .ids(List.of("vha_757", "x", "vha_691GB", " ", "vha_740GA", "vha_757"))
+                        .build()))
+        .isEqualTo(
+            FacilitiesResponse.builder()
+                .data(
+                    List.of(
+                        FacilitySamples.defaultSamples(linkerUrl).facilityV1("vha_757"),
+                        FacilitySamples.defaultSamples(linkerUrl).facilityV1("vha_691GB"),
+                        FacilitySamples.defaultSamples(linkerUrl).facilityV1("vha_740GA")))
+                .build());
+  }
+
+  @Test
+  void jsonFacilitiesBatch_tooManyIds() {
+    List<String> ids =
+        IntStream.rangeClosed(1, FacilitiesBatchRequest.MAX_IDS + 1)
+            .mapToObj(i -> "vha_" + i)
+            .collect(toList());
+    FacilitiesBatchRequest request = FacilitiesBatchRequest.builder().ids(ids).build();
+    assertThat(Validation.buildDefaultValidatorFactory().getValidator().validate(request))
+        .extracting(v -> v.getPropertyPath().toString())
+        .containsExactly("ids");
+  }
+
+  @Test
+  void jsonFacilitiesBatch_usesRenderedFacilities() {
+    var entity = FacilitySamples.defaultSamples(linkerUrl).facilityEntity("vha_691GB");
+    entity.version(3);
+    when(fr.findVersionsByIdIn(List.of(entity.id())))
+        .thenReturn(
+            List.of(
+                FacilityVersionRepository.FacilityVersion.builder()
+                    .id(entity.id())
+                    .version(3)
+                    .lastUpdated(entity.lastUpdated())
+                    .build()));
+    when(fr.findByIdIn(List.of(entity.id()))).thenReturn(List.of(entity));
+    CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    cacheManager.registerCustomCache(
+        RenderedFacilityCache.CACHE_NAME, Caffeine.newBuilder().build());
+    FacilitiesControllerV1 controller =
+        FacilitiesControllerV1.builder()
+            .facilityRepository(fr)
+            .renderedFacilities(RenderedFacilityCache.builder().cacheManager(cacheManager).build())
+            .baseUrl(baseUrl)
+            .basePath(basePath)
+            .serviceSources(List.of("ATC", "CMS", "DST", "internal", "BISL"))
+            .build();
+    FacilitiesBatchRequest request =
+        FacilitiesBatchRequest.builder().ids(List.of("vha_691GB")).build();
+    FacilitiesResponse expected =
+        FacilitiesResponse.builder()
+            .data(List.of(FacilitySamples.defaultSamples(linkerUrl).facilityV1("vha_691GB")))
+            .build();
+    assertThat(controller.jsonFacilitiesBatch(request)).isEqualTo(expected);
+    assertThat(controller.jsonFacilitiesBatch(request)).isEqualTo(expected);
+    verify(fr, times(1)).findByIdIn(any());
+  }
+
+  @Test
+  void jsonFacilitiesByIds() {
+    when(fr.findIdsByIdIn(
+            List.of(
+                FacilityEntity.Pk.of(FacilityEntity.Type.vha, "691GB"),
+                FacilityEntity.Pk.of(FacilityEntity.Type.vha, "740GA"),
+                FacilityEntity.Pk.of(FacilityEntity.Type.vha, "757"))))
+        .thenReturn(
+            List.of(
+                FacilityEntity.Pk.of(FacilityEntity.Type.vha, "740GA"),
+                FacilityEntity.Pk.of(FacilityEntity.Type.vha, "691GB"),
+                FacilityEntity.Pk.of(FacilityEntity.Type.vha, "757")));
+    when(fr.findByIdIn(List.of(FacilityEntity.Pk.of(FacilityEntity.Type.vha, "740GA"))))
+        .thenReturn(
+            List.of(FacilitySamples.defaultSamples(linkerUrl).facilityEntity("vha_740GA")));
     assertThat(
             controller(baseUrl, basePath)
                 .jsonFacilitiesByIds("x,vha_691GB,,x,,vha_740GA,vha_757", 2, 1))
@@ -375,16 +481,16 @@ public class FacilitiesControllerV1Test {
 
   @Test
   void jsonFacilitiesByIds_perPageZero() {
-    when(fr.findByIdIn(
+    when(fr.findIdsByIdIn(
             List.of(
                 FacilityEntity.Pk.of(FacilityEntity.Type.vha, "691GB"),
                 FacilityEntity.Pk.of(FacilityEntity.Type.vha, "740GA"),
                 FacilityEntity.Pk.of(FacilityEntity.Type.vha, "757"))))
         .thenReturn(
             List.of(
-                FacilitySamples.defaultSamples(linkerUrl).facilityEntity("vha_691GB"),
-                FacilitySamples.defaultSamples(linkerUrl).facilityEntity("vha_740GA"),
-                FacilitySamples.defaultSamples(linkerUrl).facilityEntity("vha_757")));
+                FacilityEntity.Pk.of(FacilityEntity.Type.vha, "691GB"),
+                FacilityEntity.Pk.of(FacilityEntity.Type.vha, "740GA"),
+                FacilityEntity.Pk.of(FacilityEntity.Type.vha, "757")));
     assertThat(
             controller(baseUrl, basePath)
                 .jsonFacilitiesByIds("x,vha_691GB,,x,,vha_740GA,vha_757", 2, 0))
@@ -613,8 +719,12 @@ public class FacilitiesControllerV1Test {
 
   @Test
   void jsonFacilitiesByVisn() {
-    when(fr.findByVisn("test_visn"))
-        .thenReturn(List.of(FacilitySamples.defaultSamples(linkerUrl).facilityEntity(facilityId)));
+    when(fr.findByVisn("test_visn", PageRequest.of(0, 1, FacilityEntity.naturalOrder())))
+        .thenReturn(
+            new PageImpl<>(
+                List.of(FacilitySamples.defaultSamples(linkerUrl).facilityEntity(facilityId)),
+                PageRequest.of(0, 1, FacilityEntity.naturalOrder()),
+                1));
     assertThat(controller(baseUrl, basePath).jsonFacilitiesByVisn("test_visn", 1, 1))
         .isEqualTo(
             FacilitiesResponse.builder()
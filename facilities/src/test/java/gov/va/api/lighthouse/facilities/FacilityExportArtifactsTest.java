@@ -0,0 +1,135 @@
+package gov.va.api.lighthouse.facilities;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+public class FacilityExportArtifactsTest {
+  @TempDir Path directory;
+
+  FacilitySnapshotManager snapshots = mock(FacilitySnapshotManager.class);
+
+  AtomicInteger writes = new AtomicInteger();
+
+  FacilityExportArtifacts artifacts;
+
+  private static FacilityEntity entity(String id) {
+    return FacilityEntity.builder().id(FacilityEntity.Pk.fromIdString(id)).build();
+  }
+
+  private static FacilitySnapshot snapshot(String... ids) {
+    return FacilitySnapshot.of(Stream.of(ids).map(id -> entity(id)).collect(toList()));
+  }
+
+  @SneakyThrows
+  private static String ungzip(Path path) {
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+      return new String(in.readAllBytes(), UTF_8);
+    }
+  }
+
+  @Test
+  void acceptsGzip() {
+    assertThat(FacilityExportArtifacts.acceptsGzip(null)).isFalse();
+    assertThat(FacilityExportArtifacts.acceptsGzip("identity")).isFalse();
+    assertThat(FacilityExportArtifacts.acceptsGzip("gzip")).isTrue();
+    assertThat(FacilityExportArtifacts.acceptsGzip("br;q=1.0, GZIP;q=0.5")).isTrue();
+    assertThat(FacilityExportArtifacts.acceptsGzip("gzip;q=0, deflate")).isFalse();
+    assertThat(FacilityExportArtifacts.acceptsGzip("gzip;q=x")).isFalse();
+  }
+
+  @Test
+  void exportsAreNotServedAfterTheSnapshotChanges() {
+    FacilitySnapshot first = snapshot("vha_402");
+    when(snapshots.current()).thenReturn(Optional.of(first));
+    artifacts.rebuild();
+    assertThat(artifacts.current("ids")).isPresent();
+    when(snapshots.current()).thenReturn(Optional.of(first.with(entity("vha_405"))));
+    assertThat(artifacts.current("ids")).isEmpty();
+    artifacts.rebuildIfStale();
+    assertThat(artifacts.current("ids")).isPresent();
+    artifacts.rebuildIfStale();
+    assertThat(writes.get()).isEqualTo(2);
+  }
+
+  @Test
+  void nothingIsBuiltWithoutSnapshot() {
+    when(snapshots.current()).thenReturn(Optional.empty());
+    artifacts.rebuild();
+    assertThat(artifacts.current("ids")).isEmpty();
+    assertThat(writes.get()).isEqualTo(0);
+  }
+
+  @Test
+  @SneakyThrows
+  void rebuildWritesIdentityAndGzipCopies() {
+    when(snapshots.current()).thenReturn(Optional.of(snapshot("vha_402", "vba_348")));
+    artifacts.rebuild();
+    FacilityExportArtifacts.Artifact artifact = artifacts.current("ids").get();
+    assertThat(Files.readString(artifact.identity())).isEqualTo("vba_348,vha_402");
+    assertThat(ungzip(artifact.gzip())).isEqualTo("vba_348,vha_402");
+    ResponseEntity<Resource> identity = artifact.response(MediaType.TEXT_PLAIN, "identity");
+    assertThat(identity.getHeaders().getETag()).isEqualTo("\"" + artifact.etag() + "\"");
+    assertThat(identity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+    assertThat(identity.getHeaders().getFirst(HttpHeaders.VARY))
+        .isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+    assertThat(identity.getBody().contentLength()).isEqualTo(15);
+    ResponseEntity<Resource> gzip = artifact.response(MediaType.TEXT_PLAIN, "gzip, deflate");
+    assertThat(gzip.getHeaders().getETag()).isEqualTo("\"" + artifact.etag() + "-gzip\"");
+    assertThat(gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+    assertThat(gzip.getBody().getFile().toPath()).isEqualTo(artifact.gzip());
+  }
+
+  @Test
+  void replacedFilesAreDeletedOnTheFollowingRebuild() {
+    when(snapshots.current()).thenReturn(Optional.of(snapshot("vha_402")));
+    artifacts.rebuild();
+    Path first = artifacts.current("ids").get().identity();
+    when(snapshots.current()).thenReturn(Optional.of(snapshot("vha_405")));
+    artifacts.rebuild();
+    assertThat(first).exists();
+    artifacts.rebuild();
+    assertThat(first).doesNotExist();
+    assertThat(artifacts.current("ids").get().identity()).exists();
+  }
+
+  @BeforeEach
+  void setup() {
+    artifacts =
+        FacilityExportArtifacts.builder()
+            .facilitySnapshots(snapshots)
+            .directory(directory.toString())
+            .build();
+    artifacts.register(
+        "ids",
+        snapshot ->
+            out -> {
+              writes.incrementAndGet();
+              out.write(
+                  String.join(
+                          ",",
+                          snapshot.entries().stream()
+                              .map(e -> e.id().toIdString())
+                              .toArray(String[]::new))
+                      .getBytes(UTF_8));
+            });
+  }
+}
@@ -0,0 +1,109 @@
+package gov.va.api.lighthouse.facilities;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Streams;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+public class FacilityExportsTest {
+  FacilityRepository fr = mock(FacilityRepository.class);
+
+  private static List<HasFacilityPayload> entities(int first, int count) {
+    return IntStream.range(first, first + count)
+        .mapToObj(
+            i ->
+                FacilityEntity.builder()
+                    .id(FacilityEntity.Pk.of(FacilityEntity.Type.vha, String.format("%04d", i)))
+                    .build())
+        .collect(toList());
+  }
+
+  private static PageRequest page(int page) {
+    return PageRequest.of(page, FacilityExports.CHUNK_SIZE, FacilityEntity.naturalOrder());
+  }
+
+  @SneakyThrows
+  private static String write(StreamingResponseBody body) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    body.writeTo(out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void chunksStopAfterShortPage() {
+    when(fr.findAllProjectedBy(page(0))).thenReturn(entities(0, FacilityExports.CHUNK_SIZE));
+    when(fr.findAllProjectedBy(page(1))).thenReturn(entities(FacilityExports.CHUNK_SIZE, 3));
+    Iterator<List<HasFacilityPayload>> chunks = FacilityExports.chunks(fr, Optional.empty());
+    assertThat(Streams.stream(chunks).map(List::size).collect(toList()))
+        .containsExactly(FacilityExports.CHUNK_SIZE, 3);
+    verify(fr, never()).findAllProjectedBy(page(2));
+  }
+
+  @Test
+  void csv() {
+    when(fr.findAllProjectedBy(any(Pageable.class))).thenReturn(entities(0, 2));
+    assertThat(
+            write(
+                FacilityExports.csv(
+                    FacilityExports.chunks(fr, Optional.empty()),
+                    List.of("id", "name"),
+                    e -> List.of(e.id().toIdString(), "Café, " + e.id().stationNumber()))))
+        .isEqualTo("id,name\r\nvha_0000,\"Café, 0000\"\r\nvha_0001,\"Café, 0001\"\r\n");
+  }
+
+  @Test
+  void emptyGeoJson() {
+    assertThat(
+            write(
+                FacilityExports.geoJson(
+                    new ObjectMapper(), FacilityExports.chunks(fr, Optional.empty()), e -> e)))
+        .isEqualTo("{\"type\":\"FeatureCollection\",\"features\":[]}");
+  }
+
+  @Test
+  void geoJson() {
+    when(fr.findAllProjectedBy(any(Pageable.class))).thenReturn(entities(0, 2));
+    assertThat(
+            write(
+                FacilityExports.geoJson(
+                    new ObjectMapper(),
+                    FacilityExports.chunks(fr, Optional.empty()),
+                    e -> Map.of("id", e.id().toIdString()))))
+        .isEqualTo(
+            "{\"type\":\"FeatureCollection\",\"features\":"
+                + "[{\"id\":\"vha_0000\"},{\"id\":\"vha_0001\"}]}");
+  }
+
+  @Test
+  void negotiate() {
+    List<MediaType> producible =
+        List.of(MediaType.APPLICATION_JSON, MediaType.parseMediaType("application/geo+json"));
+    assertThat(FacilityExports.negotiate(null, producible)).isEqualTo(MediaType.APPLICATION_JSON);
+    assertThat(FacilityExports.negotiate("*/*", producible)).isEqualTo(MediaType.APPLICATION_JSON);
+    assertThat(FacilityExports.negotiate("application/geo+json", producible))
+        .isEqualTo(MediaType.parseMediaType("application/geo+json"));
+    assertThat(
+            FacilityExports.negotiate(
+                "application/json;q=0.5, application/geo+json", producible))
+        .isEqualTo(MediaType.parseMediaType("application/geo+json"));
+  }
+}
@@ -0,0 +1,56 @@
+package gov.va.api.lighthouse.facilities;
+
+import static gov.va.api.lighthouse.facilities.DatamartFacilitiesJacksonConfig.createMapper;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+public class FacilityPayloadsTest {
+  FacilitySamples samples = FacilitySamples.defaultSamples("http://foo/");
+
+  @SneakyThrows
+  private String json(DatamartFacility facility) {
+    return createMapper().writeValueAsString(facility);
+  }
+
+  @Test
+  void emptyAndUnknownPayloadsAreRejected() {
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> FacilityPayloads.decode(new byte[0]));
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> FacilityPayloads.decode(new byte[] {7, 1, 2}));
+  }
+
+  @Test
+  void jsonRowsAreRead() {
+    FacilityEntity entity = samples.facilityEntity("vha_740GA");
+    DatamartFacility facility = FacilityPayloads.read(entity);
+    FacilityEntity legacy =
+        FacilityEntity.builder().id(entity.id()).facility(json(facility)).build();
+    assertThat(FacilityPayloads.read(legacy)).isEqualTo(facility);
+    FacilityPayloads.write(legacy, FacilityPayloads.read(legacy));
+    assertThat(legacy.facility()).isNull();
+    assertThat(FacilityPayloads.read(legacy)).isEqualTo(facility);
+  }
+
+  @Test
+  void largePayloadsAreDeflated() {
+    FacilityEntity entity = samples.facilityEntity("vha_691GB");
+    assertThat(entity.facility()).isNull();
+    assertThat(entity.facilityPayload()[0]).isEqualTo(FacilityPayloads.SMILE_DEFLATED);
+    DatamartFacility facility = FacilityPayloads.read(entity);
+    assertThat(FacilityPayloads.decode(FacilityPayloads.encode(facility))).isEqualTo(facility);
+    assertThat(entity.facilityPayload().length).isLessThan(json(facility).length());
+  }
+
+  @Test
+  void smallPayloadsAreNotDeflated() {
+    DatamartFacility facility =
+        DatamartFacility.builder().id("vha_402").type(DatamartFacility.Type.va_facilities).build();
+    byte[] payload = FacilityPayloads.encode(facility);
+    assertThat(payload[0]).isEqualTo(FacilityPayloads.SMILE);
+    assertThat(FacilityPayloads.decode(payload)).isEqualTo(facility);
+  }
+}
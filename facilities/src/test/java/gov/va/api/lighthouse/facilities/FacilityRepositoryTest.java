@@ -5,9 +5,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 
 @DataJpaTest
 public class FacilityRepositoryTest {
@@ -34,6 +36,142 @@ public class FacilityRepositoryTest {
     assertThat(repository.findAllIds()).containsExactlyElementsOf(expected);
   }
 
+  @Test
+  void findAllLocations() {
+    var now = Instant.now();
+    repository.save(
+        facilityEntity("1", now)
+            .latitude(28.5)
+            .longitude(-80.7)
+            .mobile(true)
+            .services(Set.of("\"urology\"")));
+    repository.save(facilityEntity("2", now).latitude(30.0).longitude(-80.7));
+    assertThat(
+            repository.findAllLocations(
+                FacilityRepository.StationNumbersSpecification.builder()
+                    .stationNumbers(Set.of("1", "3"))
+                    .facilityType(FacilityEntity.Type.vha)
+                    .services(Set.of("\"urology\""))
+                    .build()))
+        .containsExactly(
+            FacilityLocationRepository.FacilityLocation.builder()
+                .id(FacilityEntity.Pk.of(FacilityEntity.Type.vha, "1"))
+                .latitude(28.5)
+                .longitude(-80.7)
+                .mobile(true)
+                .build());
+  }
+
+  @Test
+  void findAllProjectedByPage() {
+    var now = Instant.now();
+    for (String stnNumber : List.of("3", "1", "4", "2", "5")) {
+      repository.save(facilityEntity(stnNumber, now));
+    }
+    assertThat(repository.findAllProjectedBy(PageRequest.of(1, 2, FacilityEntity.naturalOrder())))
+        .extracting(e -> e.id().stationNumber())
+        .containsExactly("3", "4");
+  }
+
+  @Test
+  void findIdsByIdIn() {
+    var now = Instant.now();
+    repository.save(facilityEntity("1", now));
+    repository.save(facilityEntity("2", now));
+    assertThat(
+            repository.findIdsByIdIn(
+                List.of(
+                    FacilityEntity.Pk.of(FacilityEntity.Type.vha, "2"),
+                    FacilityEntity.Pk.of(FacilityEntity.Type.vha, "3"))))
+        .containsExactly(FacilityEntity.Pk.of(FacilityEntity.Type.vha, "2"));
+  }
+
+  @Test
+  void findVersionsByIdIn() {
+    var now = Instant.parse("2022-03-01T00:00:00Z");
+    repository.save(facilityEntity("1", now));
+    repository.save(facilityEntity("2", now));
+    var pk = FacilityEntity.Pk.of(FacilityEntity.Type.vha, "2");
+    assertThat(
+            repository.findVersionsByIdIn(
+                List.of(pk, FacilityEntity.Pk.of(FacilityEntity.Type.vha, "3"))))
+        .containsExactly(
+            FacilityVersionRepository.FacilityVersion.builder()
+                .id(pk)
+                .version(repository.findById(pk).orElseThrow().version())
+                .lastUpdated(now)
+                .build());
+    assertThat(repository.findVersionsByIdIn(List.of())).isEmpty();
+  }
+
+  @Test
+  void findByRadius() {
+    var now = Instant.now();
+    // Roughly 69 miles per degree of latitude
+    repository.save(facilityEntity("near", now).latitude(28.5).longitude(-80.7));
+    repository.save(facilityEntity("far", now).latitude(30.0).longitude(-80.7));
+    repository.save(facilityEntity("west", now).latitude(28.1).longitude(-82.0));
+    FacilityRepository.RadiusSpecification spec =
+        FacilityRepository.RadiusSpecification.builder()
+            .latitude(28.1)
+            .longitude(-80.7)
+            .radius(50)
+            .build();
+    assertThat(repository.findAll(spec))
+        .extracting(e -> e.id().stationNumber())
+        .containsExactly("near");
+  }
+
+  @Test
+  void radiusLongitudeIsUnconstrainedNearPolesAndAntiMeridian() {
+    assertThat(
+            FacilityRepository.RadiusSpecification.builder()
+                .latitude(89.5)
+                .longitude(0)
+                .radius(50)
+                .build()
+                .longitudeDelta())
+        .isNaN();
+    assertThat(
+            FacilityRepository.RadiusSpecification.builder()
+                .latitude(13.4)
+                .longitude(179.9)
+                .radius(50)
+                .build()
+                .longitudeDelta())
+        .isNaN();
+    assertThat(
+            FacilityRepository.RadiusSpecification.builder()
+                .latitude(0)
+                .longitude(0)
+                .radius(69.09)
+                .build()
+                .longitudeDelta())
+        .isBetween(1.0, 1.01);
+  }
+
+  @Test
+  void findByServiceKeys() {
+    var now = Instant.now();
+    repository.save(facilityEntity("1", now).services(Set.of("\"cardiology\"", "\"urology\"")));
+    repository.save(facilityEntity("2", now).services(Set.of("\"audiology\"")));
+    repository.save(facilityEntity("3", now));
+    assertThat(repository.findById(FacilityEntity.Pk.of(FacilityEntity.Type.vha, "1")).get())
+        .extracting(FacilityEntity::serviceKeys)
+        .isEqualTo(
+            Set.of(
+                FacilityEntity.serviceKey("\"cardiology\""),
+                FacilityEntity.serviceKey("\"urology\"")));
+    assertThat(
+            repository.findAll(
+                FacilityRepository.TypeServicesIdsSpecification.builder()
+                    .services(Set.of("\"urology\"", "\"audiology\"", "\"optometry\""))
+                    .build()))
+        .extracting(e -> e.id().stationNumber())
+        .containsExactlyInAnyOrder("1", "2");
+    assertThat(repository.findMissingServiceKeys(PageRequest.of(0, 10))).isEmpty();
+  }
+
   @Test
   void lastUpdated() {
     var aLongTimeAgo = Instant.parse("2020-01-20T02:20:00Z");
@@ -0,0 +1,82 @@
+package gov.va.api.lighthouse.facilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+public class FacilityServiceKeyBackfillTest {
+  @Autowired FacilityRepository repository;
+
+  @Autowired TransactionTemplate transactions;
+
+  @Autowired EntityManager entityManager;
+
+  @Autowired JdbcTemplate jdbc;
+
+  private FacilityEntity facilityEntity(String stnNumber, Set<String> services) {
+    return FacilityEntity.builder()
+        .id(FacilityEntity.Pk.of(FacilityEntity.Type.vha, stnNumber))
+        .facility("vha_" + stnNumber)
+        .services(services)
+        .lastUpdated(Instant.now())
+        .build();
+  }
+
+  @Test
+  void facilitiesSavedWithoutKeysMatchServicesAfterStartup() {
+    repository.save(facilityEntity("1", Set.of("\"cardiology\"", "\"urology\"")));
+    repository.save(facilityEntity("2", Set.of("\"audiology\"")));
+    repository.save(facilityEntity("3", Set.of()));
+    entityManager.flush();
+    // Rows saved before service keys existed
+    jdbc.update("delete from app.facility_service_keys");
+    entityManager.clear();
+    FacilityRepository.TypeServicesIdsSpecification urology =
+        FacilityRepository.TypeServicesIdsSpecification.builder()
+            .services(Set.of("\"urology\""))
+            .build();
+    assertThat(repository.findAll(urology)).isEmpty();
+    assertThat(repository.findMissingServiceKeys(PageRequest.of(0, 10)))
+        .extracting(e -> e.id().stationNumber())
+        .containsExactlyInAnyOrder("1", "2");
+    FacilityServiceKeyBackfill.builder()
+        .facilityRepository(repository)
+        .transactions(transactions)
+        .build()
+        .initialize();
+    entityManager.flush();
+    entityManager.clear();
+    assertThat(repository.findMissingServiceKeys(PageRequest.of(0, 10))).isEmpty();
+    assertThat(repository.findAll(urology))
+        .extracting(e -> e.id().stationNumber())
+        .containsExactly("1");
+  }
+
+  @Test
+  void findMissingServiceKeysAndIdNotIn() {
+    repository.save(facilityEntity("1", Set.of("\"urology\"")));
+    entityManager.flush();
+    jdbc.update("delete from app.facility_service_keys");
+    entityManager.clear();
+    assertThat(
+            repository.findMissingServiceKeysAndIdNotIn(
+                Set.of(FacilityEntity.Pk.of(FacilityEntity.Type.vha, "1")),
+                PageRequest.of(0, 10)))
+        .isEmpty();
+    assertThat(
+            repository.findMissingServiceKeysAndIdNotIn(
+                Set.of(FacilityEntity.Pk.of(FacilityEntity.Type.vha, "2")),
+                PageRequest.of(0, 10)))
+        .extracting(e -> e.id().stationNumber())
+        .containsExactly("1");
+  }
+}
@@ -0,0 +1,155 @@
+package gov.va.api.lighthouse.facilities;
+
+import static gov.va.api.lighthouse.facilities.api.ServiceLinkBuilder.buildLinkerUrlV0;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@DataJpaTest
+@ExtendWith(SpringExtension.class)
+public class FacilitySnapshotTest {
+  @Autowired private FacilityRepository repo;
+
+  private String linkerUrl;
+
+  private FacilitiesControllerV0 controller(FacilitySnapshotManager snapshots) {
+    return FacilitiesControllerV0.builder()
+        .facilityRepository(repo)
+        .facilitySnapshots(snapshots)
+        .baseUrl("http://foo/")
+        .basePath("bp")
+        .build();
+  }
+
+  private FacilitySnapshotManager snapshots() {
+    return FacilitySnapshotManager.builder().facilityRepository(repo).build();
+  }
+
+  @BeforeEach
+  void setup() {
+    linkerUrl = buildLinkerUrlV0("http://foo/", "bp");
+    repo.save(FacilitySamples.defaultSamples(linkerUrl).facilityEntity("vha_691GB"));
+    repo.save(FacilitySamples.defaultSamples(linkerUrl).facilityEntity("vha_740GA"));
+    repo.save(FacilitySamples.defaultSamples(linkerUrl).facilityEntity("vha_757"));
+  }
+
+  @Test
+  void indexes() {
+    FacilitySnapshot snapshot = snapshots().rebuild();
+    assertThat(snapshot.size()).isEqualTo(3);
+    assertThat(snapshot.entries())
+        .extracting(e -> e.id().toIdString())
+        .containsExactly("vha_691GB", "vha_740GA", "vha_757");
+    assertThat(snapshot.findByState("OH", null, null, null))
+        .extracting(e -> e.id().toIdString())
+        .containsExactly("vha_757");
+    assertThat(snapshot.findByState("OH", FacilityEntity.Type.vba, null, null)).isEmpty();
+    assertThat(
+            snapshot.findByIds(
+                List.of(
+                    FacilityEntity.Pk.fromIdString("vha_757"),
+                    FacilityEntity.Pk.fromIdString("vha_nope"),
+                    FacilityEntity.Pk.fromIdString("vha_691GB"))))
+        .extracting(e -> e.id().toIdString())
+        .containsExactly("vha_757", "vha_691GB");
+    assertThat(
+            snapshot.findById(FacilityEntity.Pk.fromIdString("vha_757")).get().datamartFacility())
+        .isPresent();
+  }
+
+  @Test
+  void matchesDatabase() {
+    FacilitySnapshotManager snapshots = snapshots();
+    snapshots.rebuild();
+    assertThat(
+            controller(snapshots)
+                .jsonFacilitiesByState("oh", null, List.of("urology"), null, 1, 1))
+        .isEqualTo(
+            controller(null).jsonFacilitiesByState("oh", null, List.of("urology"), null, 1, 1));
+    assertThat(controller(snapshots).jsonFacilitiesByZip("43219", "HEALTH", null, null, 1, 10))
+        .isEqualTo(controller(null).jsonFacilitiesByZip("43219", "HEALTH", null, null, 1, 10));
+    assertThat(controller(snapshots).jsonFacilitiesByIds("vha_757,vha_691GB", 1, 10))
+        .isEqualTo(controller(null).jsonFacilitiesByIds("vha_757,vha_691GB", 1, 10));
+    List<BigDecimal> bbox =
+        List.of(
+            new BigDecimal("-185"),
+            new BigDecimal("-90"),
+            new BigDecimal("185"),
+            new BigDecimal("90"));
+    assertThat(controller(snapshots).jsonFacilitiesByBoundingBox(bbox, null, null, null, 1, 10))
+        .isEqualTo(controller(null).jsonFacilitiesByBoundingBox(bbox, null, null, null, 1, 10));
+    assertThat(
+            controller(snapshots)
+                .jsonFacilitiesByLatLong(
+                    new BigDecimal("28.112464"),
+                    new BigDecimal("-80.7015994"),
+                    null,
+                    null,
+                    "HEALTH",
+                    List.of("primarycare"),
+                    false,
+                    1,
+                    10))
+        .isEqualTo(
+            controller(null)
+                .jsonFacilitiesByLatLong(
+                    new BigDecimal("28.112464"),
+                    new BigDecimal("-80.7015994"),
+                    null,
+                    null,
+                    "HEALTH",
+                    List.of("primarycare"),
+                    false,
+                    1,
+                    10));
+  }
+
+  @Test
+  void otherWritesAreRebuiltAfterLocalUpdate() {
+    FacilitySnapshotManager snapshots = snapshots();
+    snapshots.rebuild();
+    // Written by another node, so the snapshot is not told
+    FacilityEntity vha691 = repo.findById(FacilityEntity.Pk.fromIdString("vha_691GB")).get();
+    vha691.state("TX");
+    repo.save(vha691);
+    FacilityEntity vha757 = repo.findById(FacilityEntity.Pk.fromIdString("vha_757")).get();
+    vha757.state("FL");
+    snapshots.update(repo.save(vha757));
+    assertThat(snapshots.current().get().findByState("TX", null, null, null)).isEmpty();
+    snapshots.rebuildIfStale();
+    assertThat(snapshots.current().get().findByState("TX", null, null, null))
+        .extracting(e -> e.id().toIdString())
+        .containsExactly("vha_691GB");
+  }
+
+  @Test
+  void updateAndRemove() {
+    FacilitySnapshotManager snapshots = snapshots();
+    assertThat(snapshots.current()).isEmpty();
+    snapshots.rebuild();
+    FacilityEntity vha757 = repo.findById(FacilityEntity.Pk.fromIdString("vha_757")).get();
+    vha757.state("FL");
+    snapshots.update(repo.save(vha757));
+    FacilitySnapshot updated = snapshots.current().get();
+    snapshots.rebuildIfStale();
+    assertThat(snapshots.current().get()).isSameAs(updated);
+    assertThat(snapshots.current().get().findByState("OH", null, null, null)).isEmpty();
+    assertThat(snapshots.current().get().findByState("FL", null, null, null))
+        .extracting(e -> e.id().toIdString())
+        .contains("vha_757");
+    repo.delete(vha757);
+    snapshots.remove(vha757.id());
+    FacilitySnapshot removed = snapshots.current().get();
+    snapshots.rebuildIfStale();
+    assertThat(snapshots.current().get()).isSameAs(removed);
+    assertThat(snapshots.current().get().findById(vha757.id())).isEmpty();
+    assertThat(snapshots.current().get().size()).isEqualTo(2);
+  }
+}
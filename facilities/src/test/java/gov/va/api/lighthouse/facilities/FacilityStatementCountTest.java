@@ -0,0 +1,126 @@
+package gov.va.api.lighthouse.facilities;
+
+import static gov.va.api.lighthouse.facilities.api.ServiceLinkBuilder.buildLinkerUrlV0;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Statements issued per request must not grow with the number of facilities, which they would if
+ * service collections were loaded a facility at a time.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class FacilityStatementCountTest {
+  private static final int FACILITIES = 40;
+
+  @Autowired private FacilityRepository facilityRepository;
+
+  @Autowired private CmsOverlayRepository cmsOverlayRepository;
+
+  @PersistenceContext private EntityManager entityManager;
+
+  private FacilitiesControllerV0 controller() {
+    return FacilitiesControllerV0.builder()
+        .facilityRepository(facilityRepository)
+        .baseUrl("http://foo/")
+        .basePath("bp")
+        .build();
+  }
+
+  /** Statistics from here on, with nothing left in the persistence context to load from. */
+  private Statistics statistics() {
+    entityManager.flush();
+    entityManager.clear();
+    Statistics statistics =
+        entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    return statistics;
+  }
+
+  @Test
+  void boundingBox() {
+    Statistics statistics = statistics();
+    List<BigDecimal> bbox =
+        List.of(
+            new BigDecimal("-185"),
+            new BigDecimal("-90"),
+            new BigDecimal("185"),
+            new BigDecimal("90"));
+    assertThat(controller().jsonFacilitiesByBoundingBox(bbox, null, null, null, 1, 10).data())
+        .hasSize(10);
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+  }
+
+  @Test
+  void cmsOverlays() {
+    for (int i = 0; i < FACILITIES; i++) {
+      cmsOverlayRepository.save(
+          CmsOverlayEntity.builder()
+              .id(FacilityEntity.Pk.of(FacilityEntity.Type.vc, "0" + i))
+              .overlayServices(new HashSet<>(Set.of("Covid19Vaccine")))
+              .build());
+    }
+    Statistics statistics = statistics();
+    cmsOverlayRepository
+        .findAll()
+        .forEach(e -> assertThat(e.overlayServices()).containsExactly("Covid19Vaccine"));
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+  }
+
+  @Test
+  void reloadReads() {
+    Statistics statistics = statistics();
+    facilityRepository
+        .findAll()
+        .forEach(
+            e -> {
+              assertThat(e.services()).isNotEmpty();
+              assertThat(e.serviceKeys()).isNotEmpty();
+              assertThat(e.overlayServices()).containsExactly("Covid19Vaccine");
+            });
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(10);
+  }
+
+  @BeforeEach
+  void setup() {
+    FacilitySamples samples = FacilitySamples.defaultSamples(buildLinkerUrlV0("http://foo/", "bp"));
+    for (int i = 0; i < FACILITIES; i++) {
+      facilityRepository.save(
+          samples
+              .facilityEntity("vha_757")
+              .id(FacilityEntity.Pk.of(FacilityEntity.Type.vha, "757-" + i))
+              .overlayServices(new HashSet<>(Set.of("Covid19Vaccine"))));
+    }
+  }
+
+  @Test
+  void snapshot() {
+    Statistics statistics = statistics();
+    FacilitySnapshotManager snapshots =
+        FacilitySnapshotManager.builder().facilityRepository(facilityRepository).build();
+    assertThat(snapshots.rebuild().size()).isEqualTo(FACILITIES);
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(10);
+  }
+
+  @Test
+  void state() {
+    Statistics statistics = statistics();
+    assertThat(controller().jsonFacilitiesByState("oh", null, null, null, 1, 10).data())
+        .hasSize(10);
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+  }
+}
@@ -2,15 +2,20 @@ package gov.va.api.lighthouse.facilities;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import gov.va.api.health.autoconfig.configuration.JacksonConfig;
 import gov.va.api.lighthouse.facilities.api.pssg.BandResult;
 import gov.va.api.lighthouse.facilities.api.pssg.PathEncoder;
 import gov.va.api.lighthouse.facilities.api.pssg.PssgDriveTimeBand;
 import gov.va.api.lighthouse.facilities.api.pssg.PssgResponse;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -62,6 +67,17 @@ public class InternalDriveTimeBandControllerTest {
                 .build());
   }
 
+  @Test
+  void getBandByNameReturnsPayloadAsBase64() {
+    var e = Entities.diamond("a-1-2", 100);
+    e.bandPayload(NearbyUtils.toBandPayload(e));
+    e.band(null);
+    when(repo.findById(e.id())).thenReturn(Optional.of(e));
+    assertThat(
+            PathEncoder.create().decodeScaledRingsFromBase64(controller().band("a-1-2").band()))
+        .isEqualTo(PathEncoder.create().decodeScaledRings(e.bandPayload()));
+  }
+
   @Test
   void getBandByNameThrowsExceptionForUnknownBand() {
     when(repo.findById(DriveTimeBandEntity.Pk.fromName("a-1-2"))).thenReturn(Optional.empty());
@@ -69,6 +85,37 @@ public class InternalDriveTimeBandControllerTest {
         .isThrownBy(() -> controller().band("a-1-2"));
   }
 
+  @Test
+  @SneakyThrows
+  void populateBandPayloadsConvertsTextBands() {
+    var a12 = Entities.diamond("a-1-2", 100);
+    var a23 = Entities.diamond("a-2-3", 200);
+    a23.band(JacksonConfig.createMapper().writeValueAsString(Entities.diamondBand("a-2-3", 200)));
+    when(repo.findByBandPayloadIsNull(any())).thenReturn(List.of(a12, a23), List.of());
+    controller().populateBandPayloads();
+    verify(repo).saveAll(List.of(a12, a23));
+    assertThat(a12.band()).isNull();
+    assertThat(a23.band()).isNull();
+    assertThat(NearbyUtils.toPolygon(a12).contains(100, 100)).isTrue();
+    assertThat(NearbyUtils.toPolygon(a23).contains(200, 200)).isTrue();
+    assertThat(NearbyUtils.toPolygon(a23).contains(100, 100)).isFalse();
+  }
+
+  @Test
+  void populateBandPayloadsSkipsUndecodableBands() {
+    var a12 = Entities.diamond("a-1-2", 100);
+    var broken = Entities.diamond("b-1-2", 100);
+    broken.band("%%% not a band %%%");
+    when(repo.findByBandPayloadIsNull(any())).thenReturn(List.of(broken, a12));
+    when(repo.findByBandPayloadIsNullAndIdNotIn(eq(Set.of(broken.id())), any()))
+        .thenReturn(List.of());
+    controller().populateBandPayloads();
+    verify(repo).saveAll(List.of(a12));
+    assertThat(a12.band()).isNull();
+    assertThat(broken.band()).isEqualTo("%%% not a band %%%");
+    assertThat(broken.bandPayload()).isNull();
+  }
+
   @Test
   void updateBandCreatesNewRecord() {
     // exists
@@ -81,21 +128,27 @@ public class InternalDriveTimeBandControllerTest {
     var a23 = Entities.diamond("a-2-3", 200);
     // create
     var a34 = Entities.diamond("a-3-4", 300);
-    when(repo.findById(a12.id())).thenReturn(Optional.of(existingA12));
-    when(repo.findById(a23.id())).thenReturn(Optional.of(existingA23));
-    when(repo.findById(a34.id())).thenReturn(Optional.empty());
-    controller()
-        .update(
-            PssgResponse.builder()
-                .features(
-                    List.of(
-                        Entities.diamondBand("a-1-2", 100),
-                        Entities.diamondBand("a-2-3", 200),
-                        Entities.diamondBand("a-3-4", 300)))
-                .build());
-    verify(repo).save(a12);
-    verify(repo).save(a23);
-    verify(repo).save(a34);
+    when(repo.findIdsByIdIn(List.of(a12.id(), a23.id(), a34.id())))
+        .thenReturn(List.of(a12.id(), a23.id()));
+    when(repo.findByIdIn(List.of(a12.id(), a23.id())))
+        .thenReturn(List.of(existingA12, existingA23));
+    var response =
+        controller()
+            .update(
+                PssgResponse.builder()
+                    .features(
+                        List.of(
+                            Entities.diamondBand("a-1-2", 100),
+                            Entities.diamondBand("a-2-3", 200),
+                            Entities.diamondBand("a-3-4", 300)))
+                    .build());
+    verify(repo).saveAll(List.of(a12, a23, a34));
+    assertThat(response.bandsCreated()).containsExactly("a-3-4");
+    assertThat(response.bandsUpdated()).containsExactly("a-1-2", "a-2-3");
+    assertThat(response.timings()).containsOnlyKeys("encode", "prefetch", "write", "refresh");
+    assertThat(existingA12.maxLatitude()).isEqualTo(102);
+    assertThat(existingA12.band()).isNull();
+    assertThat(NearbyUtils.toPolygon(existingA12).contains(100, 100)).isTrue();
   }
 
   static final class Entities {
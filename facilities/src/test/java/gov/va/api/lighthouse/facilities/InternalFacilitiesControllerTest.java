@@ -54,6 +54,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -1339,6 +1340,30 @@ public class InternalFacilitiesControllerTest {
         .containsOnly(_overlayEntity(datamartCmsOverlay, "vha_f1"));
   }
 
+  @Test
+  @SneakyThrows
+  void populateFacilityPayloadsSkipsUnreadableFacilities() {
+    DatamartFacility readable = _facility("vha_f1", "FL", "South", 1.2, 3.4, List.of());
+    facilityRepository.save(
+        _facilityEntity(readable)
+            .facility(DatamartFacilitiesJacksonConfig.createMapper().writeValueAsString(readable))
+            .facilityPayload(null));
+    facilityRepository.save(
+        _facilityEntity(_facility("vha_f2", "FL", "South", 1.2, 3.4, List.of()))
+            .facility("not a facility")
+            .facilityPayload(null));
+    // Runs again from the start, the unreadable facility does not block it
+    _controller().populateFacilityPayloads();
+    _controller().populateFacilityPayloads();
+    assertThat(facilityRepository.findByFacilityPayloadIsNull(PageRequest.of(0, 10)))
+        .extracting(e -> e.id().toIdString())
+        .containsExactly("vha_f2");
+    FacilityEntity converted =
+        facilityRepository.findById(FacilityEntity.Pk.fromIdString("vha_f1")).get();
+    assertThat(converted.facility()).isNull();
+    assertThat(FacilityPayloads.read(converted).id()).isEqualTo("vha_f1");
+  }
+
   @Test
   public void populateException() {
     FacilityEntity mockEntity = mock(FacilityEntity.class);
@@ -1716,8 +1741,11 @@ public class InternalFacilitiesControllerTest {
     assertThat(f1.attributes().operationalHoursSpecialInstructions())
         .isEqualTo(SPECIAL_INSTRUCTION_UPDATED_1);
     assertThat(
-            facilityRepository.findById(FacilityEntity.Pk.fromIdString("vha_f1")).get().facility())
-        .contains(SPECIAL_INSTRUCTION_UPDATED_1);
+            FacilityPayloads.read(
+                    facilityRepository.findById(FacilityEntity.Pk.fromIdString("vha_f1")).get())
+                .attributes()
+                .operationalHoursSpecialInstructions())
+        .isEqualTo(SPECIAL_INSTRUCTION_UPDATED_1);
     _controller()
         .updateAndSave(
             response,
@@ -1726,8 +1754,11 @@ public class InternalFacilitiesControllerTest {
     assertThat(f2.attributes().operationalHoursSpecialInstructions())
         .isEqualTo(SPECIAL_INSTRUCTION_UPDATED_2);
     assertThat(
-            facilityRepository.findById(FacilityEntity.Pk.fromIdString("vha_f2")).get().facility())
-        .contains(SPECIAL_INSTRUCTION_UPDATED_2);
+            FacilityPayloads.read(
+                    facilityRepository.findById(FacilityEntity.Pk.fromIdString("vha_f2")).get())
+                .attributes()
+                .operationalHoursSpecialInstructions())
+        .isEqualTo(SPECIAL_INSTRUCTION_UPDATED_2);
     _controller()
         .updateAndSave(
             response,
@@ -1736,8 +1767,11 @@ public class InternalFacilitiesControllerTest {
     assertThat(f3.attributes().operationalHoursSpecialInstructions())
         .isEqualTo(SPECIAL_INSTRUCTION_UPDATED_3);
     assertThat(
-            facilityRepository.findById(FacilityEntity.Pk.fromIdString("vha_f3")).get().facility())
-        .contains(SPECIAL_INSTRUCTION_UPDATED_3);
+            FacilityPayloads.read(
+                    facilityRepository.findById(FacilityEntity.Pk.fromIdString("vha_f3")).get())
+                .attributes()
+                .operationalHoursSpecialInstructions())
+        .isEqualTo(SPECIAL_INSTRUCTION_UPDATED_3);
   }
 
   @Test
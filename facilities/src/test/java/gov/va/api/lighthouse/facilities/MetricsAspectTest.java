@@ -0,0 +1,99 @@
+package gov.va.api.lighthouse.facilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.data.domain.PageImpl;
+
+public class MetricsAspectTest {
+  SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  FacilityRepository mockRepository = mock(FacilityRepository.class);
+
+  FacilityRepository repository = proxy(mockRepository);
+
+  private static FacilityEntity entity(String id, String json) {
+    return FacilityEntity.builder().id(FacilityEntity.Pk.fromIdString(id)).facility(json).build();
+  }
+
+  private FacilityRepository proxy(FacilityRepository target) {
+    AspectJProxyFactory factory = new AspectJProxyFactory(target);
+    factory.addAspect(MetricsAspect.builder().meterRegistry(registry).build());
+    return factory.getProxy();
+  }
+
+  @Test
+  void failuresAreTaggedWithException() {
+    when(mockRepository.findAllIds()).thenThrow(new IllegalStateException("fugazi"));
+    assertThatExceptionOfType(IllegalStateException.class)
+        .isThrownBy(() -> repository.findAllIds());
+    assertThat(
+            registry
+                .get(FacilityMetrics.REPOSITORY)
+                .tags("method", "findAllIds", "exception", "IllegalStateException")
+                .timer()
+                .count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void payloadBytes() {
+    FacilityEntity entity = entity("vha_402", "{}").facilityPayload(new byte[10]);
+    assertThat(MetricsAspect.lobBytes(Optional.of(entity))).isEqualTo(12);
+    assertThat(
+            MetricsAspect.lobBytes(
+                DriveTimeBandEntity.builder()
+                    .id(DriveTimeBandEntity.Pk.of("402", 0, 10))
+                    .band("abcd")
+                    .build()))
+        .isEqualTo(4);
+    assertThat(MetricsAspect.lobBytes(List.of(FacilityEntity.Pk.fromIdString("vha_402"))))
+        .isEqualTo(0);
+  }
+
+  @Test
+  void repositoryCallsAreTimedAndMeasured() {
+    when(mockRepository.findByVisn("8"))
+        .thenReturn(List.of(entity("vha_402", "{\"a\":1}"), entity("vha_405", "é")));
+    assertThat(repository.findByVisn("8")).hasSize(2);
+    assertThat(
+            registry
+                .get(FacilityMetrics.REPOSITORY)
+                .tags("repository", "FacilityRepository", "method", "findByVisn")
+                .tag("exception", "none")
+                .timer()
+                .count())
+        .isEqualTo(1);
+    assertThat(
+            registry
+                .get(FacilityMetrics.REPOSITORY_ROWS)
+                .tag("method", "findByVisn")
+                .summary()
+                .totalAmount())
+        .isEqualTo(2);
+    assertThat(
+            registry
+                .get(FacilityMetrics.REPOSITORY_LOB_BYTES)
+                .tag("method", "findByVisn")
+                .summary()
+                .totalAmount())
+        .isEqualTo(7 + "é".length());
+  }
+
+  @Test
+  void rows() {
+    assertThat(MetricsAspect.rows(null)).isEqualTo(0);
+    assertThat(MetricsAspect.rows(Optional.empty())).isEqualTo(0);
+    assertThat(MetricsAspect.rows(Optional.of(1))).isEqualTo(1);
+    assertThat(MetricsAspect.rows(List.of(1, 2, 3))).isEqualTo(3);
+    assertThat(MetricsAspect.rows(new PageImpl<>(List.of(1, 2)))).isEqualTo(2);
+    assertThat(MetricsAspect.rows(3L)).isEqualTo(1);
+  }
+}
@@ -43,6 +43,8 @@ public class NearbyV1Test {
 
   @Autowired DriveTimeBandRepository driveTimeBandRepository;
 
+  @Autowired DriveTimeBandGridRepository driveTimeBandGridRepository;
+
   @Mock RestTemplate restTemplate = mock(RestTemplate.class);
 
   private String baseUrl;
@@ -273,6 +275,39 @@ public class NearbyV1Test {
     assertThat(response).isEqualTo(hitVha666());
   }
 
+  @Test
+  void hitWithGrid() {
+    facilityRepository.save(_facilityEntity(_facilityHealth("vha_666")));
+    facilityRepository.save(_facilityEntity(_facilityHealth("vha_777")));
+    driveTimeBandRepository.save(_entity(_diamondBand("666", 0, 10, 0)));
+    driveTimeBandRepository.save(_entity(_diamondBand("777", 80, 90, 5)));
+    DriveTimeBandGridManager grid =
+        DriveTimeBandGridManager.builder()
+            .repository(driveTimeBandRepository)
+            .gridRepository(driveTimeBandGridRepository)
+            .build();
+    assertThat(grid.load()).isEqualTo(2);
+    NearbyControllerV1 controller =
+        NearbyControllerV1.builder()
+            .facilityRepository(facilityRepository)
+            .driveTimeBandRepository(driveTimeBandRepository)
+            .driveTimeBandGrid(grid)
+            .serviceSources(List.of("ATC", "CMS", "DST", "internal", "BISL"))
+            .build();
+    // interior tile
+    assertThat(controller.nearbyLatLong(BigDecimal.ZERO, BigDecimal.ZERO, null, null))
+        .isEqualTo(hitVha666());
+    // boundary tile, tested against the polygon
+    assertThat(
+            controller.nearbyLatLong(
+                new BigDecimal("0.001"), new BigDecimal("0.999"), null, null))
+        .isEqualTo(hitVha666());
+    assertThat(controller.nearbyLatLong(BigDecimal.ZERO, BigDecimal.ZERO, null, 90))
+        .isEqualTo(hitVha666());
+    assertThat(controller.nearbyLatLong(new BigDecimal("3"), BigDecimal.ZERO, null, null).data())
+        .isEmpty();
+  }
+
   NearbyResponse hitVha666() {
     return NearbyResponse.builder()
         .data(
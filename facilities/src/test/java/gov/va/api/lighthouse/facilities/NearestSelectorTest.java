@@ -0,0 +1,59 @@
+package gov.va.api.lighthouse.facilities;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class NearestSelectorTest {
+  /** Candidates are indexes into the distance array, so ties are easy to spot. */
+  private static double[] distances(int count) {
+    Random random = new Random(1234);
+    double[] distances = new double[count];
+    for (int i = 0; i < count; i++) {
+      // Few distinct values, so there are plenty of ties
+      distances[i] = random.nextInt(50) / 4.0;
+    }
+    return distances;
+  }
+
+  @Test
+  void limit() {
+    assertThat(NearestSelector.limit(1, 10)).isEqualTo(10);
+    assertThat(NearestSelector.limit(3, 0)).isEqualTo(0);
+    assertThat(NearestSelector.limit(Integer.MAX_VALUE, 10)).isEqualTo(Integer.MAX_VALUE);
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> NearestSelector.limit(0, 10));
+  }
+
+  @Test
+  void matchesStableSort() {
+    double[] distances = distances(1000);
+    List<Integer> sorted =
+        IntStream.range(0, distances.length)
+            .boxed()
+            .sorted(Comparator.comparingDouble(i -> distances[i]))
+            .collect(toList());
+    for (int limit : new int[] {0, 1, 10, 17, 999, 1000, 5000}) {
+      NearestSelector.Selection<Integer> selection =
+          NearestSelector.select(
+              IntStream.range(0, distances.length).boxed(), i -> distances[i], limit);
+      assertThat(selection.total()).isEqualTo(distances.length);
+      assertThat(selection.nearest())
+          .containsExactlyElementsOf(sorted.subList(0, Math.min(limit, sorted.size())));
+    }
+  }
+
+  @Test
+  void nothingOffered() {
+    NearestSelector.Selection<String> selection =
+        NearestSelector.select(List.<String>of().stream(), s -> 0, 10);
+    assertThat(selection.total()).isEqualTo(0);
+    assertThat(selection.nearest()).isEmpty();
+  }
+}
@@ -0,0 +1,117 @@
+package gov.va.api.lighthouse.facilities;
+
+import static gov.va.api.lighthouse.facilities.api.ServiceLinkBuilder.buildLinkerUrlV0;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+public class RenderedFacilityCacheTest {
+  private CaffeineCacheManager cacheManager;
+
+  private RenderedFacilityCache cache;
+
+  private AtomicInteger renders;
+
+  private FacilityEntity entity(int version) {
+    FacilityEntity entity =
+        FacilitySamples.defaultSamples(buildLinkerUrlV0("http://foo/", "bp"))
+            .facilityEntity("vha_691GB");
+    entity.version(version);
+    entity.lastUpdated(Instant.parse("2022-03-01T00:00:00Z"));
+    return entity;
+  }
+
+  private Supplier<String> render(String value) {
+    return () -> {
+      renders.incrementAndGet();
+      return value;
+    };
+  }
+
+  @BeforeEach
+  void setup() {
+    cacheManager = new CaffeineCacheManager();
+    cacheManager.registerCustomCache(
+        RenderedFacilityCache.CACHE_NAME, Caffeine.newBuilder().recordStats().build());
+    cache = RenderedFacilityCache.builder().cacheManager(cacheManager).build();
+    renders = new AtomicInteger();
+  }
+
+  private CacheStats stats() {
+    return ((CaffeineCache) cacheManager.getCache(RenderedFacilityCache.CACHE_NAME))
+        .getNativeCache()
+        .stats();
+  }
+
+  @Test
+  void findsRenderingByVersion() {
+    FacilityEntity entity = entity(2);
+    FacilityVersionRepository.FacilityVersion version =
+        FacilityVersionRepository.FacilityVersion.builder()
+            .id(entity.id())
+            .version(2)
+            .lastUpdated(entity.lastUpdated())
+            .build();
+    assertThat(cache.<String>find(version, "v1", List.of("ATC"))).isEmpty();
+    cache.get(entity, "v1", List.of("ATC"), render("a"));
+    assertThat(cache.<String>find(version, "v1", List.of("ATC"))).contains("a");
+    assertThat(cache.<String>find(version, "v0", null)).isEmpty();
+    assertThat(
+            cache.<String>find(
+                FacilityVersionRepository.FacilityVersion.builder()
+                    .id(entity.id())
+                    .version(3)
+                    .lastUpdated(entity.lastUpdated())
+                    .build(),
+                "v1",
+                List.of("ATC")))
+        .isEmpty();
+  }
+
+  @Test
+  void renderFailuresAreNotWrapped() {
+    assertThatExceptionOfType(IllegalStateException.class)
+        .isThrownBy(
+            () ->
+                cache.get(
+                    entity(0),
+                    "v1",
+                    null,
+                    () -> {
+                      throw new IllegalStateException("boom");
+                    }));
+  }
+
+  @Test
+  void rendersOncePerVersion() {
+    assertThat(cache.get(entity(0), "v1", List.of("ATC"), render("a"))).isEqualTo("a");
+    assertThat(cache.get(entity(0), "v1", List.of("ATC"), render("b"))).isEqualTo("a");
+    assertThat(renders.get()).isEqualTo(1);
+    assertThat(cache.get(entity(1), "v1", List.of("ATC"), render("c"))).isEqualTo("c");
+    assertThat(cache.get(entity(1), "v0", null, render("d"))).isEqualTo("d");
+    assertThat(cache.get(entity(1), "v1", List.of("CMS"), render("e"))).isEqualTo("e");
+    assertThat(renders.get()).isEqualTo(4);
+    assertThat(stats().hitCount()).isEqualTo(1);
+    assertThat(stats().missCount()).isEqualTo(4);
+  }
+
+  @Test
+  void unsavedEntitiesAreNotCached() {
+    FacilityEntity unsaved = entity(0);
+    unsaved.version(null);
+    assertThat(cache.get(unsaved, "v1", null, render("a"))).isEqualTo("a");
+    assertThat(cache.get(unsaved, "v1", null, render("b"))).isEqualTo("b");
+    assertThat(renders.get()).isEqualTo(2);
+    assertThat(stats().requestCount()).isEqualTo(0);
+  }
+}
@@ -0,0 +1,121 @@
+package gov.va.api.lighthouse.facilities;
+
+import static gov.va.api.lighthouse.facilities.FacilityUtils.haversine;
+import static gov.va.api.lighthouse.facilities.FacilityUtils.haversineLowerBound;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class StrTreeTest {
+  private static final Comparator<double[]> TIE_BREAKER =
+      Comparator.<double[]>comparingDouble(p -> p[0]).thenComparingDouble(p -> p[1]);
+
+  private static List<double[]> points(int count) {
+    Random random = new Random(8675309);
+    List<double[]> points = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      points.add(new double[] {random.nextDouble() * 360 - 180, random.nextDouble() * 170 - 85});
+    }
+    // Duplicate locations must all be found
+    points.add(new double[] {-80.7, 28.1});
+    points.add(new double[] {-80.7, 28.1});
+    return points;
+  }
+
+  private static StrTree<double[]> tree(List<double[]> points) {
+    return StrTree.of(points, p -> StrTree.Envelope.point(p[0], p[1]));
+  }
+
+  @Test
+  void empty() {
+    StrTree<double[]> tree = tree(List.of());
+    assertThat(tree.size()).isEqualTo(0);
+    assertThat(tree.search(-180, 180, -90, 90)).isEmpty();
+    assertThat(tree.nearest(e -> 0, p -> 0, TIE_BREAKER)).isEmpty();
+  }
+
+  @Test
+  void lowerBoundNeverExceedsDistance() {
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      double lng = random.nextDouble() * 360 - 180;
+      double lat = random.nextDouble() * 180 - 90;
+      double minLng = random.nextDouble() * 360 - 180;
+      double maxLng = Math.min(180, minLng + random.nextDouble() * 40);
+      double minLat = random.nextDouble() * 180 - 90;
+      double maxLat = Math.min(90, minLat + random.nextDouble() * 20);
+      double bound = haversineLowerBound(lng, lat, minLng, maxLng, minLat, maxLat);
+      for (double[] corner :
+          List.of(
+              new double[] {minLng, minLat},
+              new double[] {minLng, maxLat},
+              new double[] {maxLng, minLat},
+              new double[] {maxLng, maxLat},
+              new double[] {(minLng + maxLng) / 2, (minLat + maxLat) / 2})) {
+        assertThat(bound).isLessThanOrEqualTo(haversine(corner[0], corner[1], lng, lat));
+      }
+    }
+    // Across the anti-meridian
+    assertThat(haversineLowerBound(179.5, 0, -180, -179, -1, 1)).isLessThan(35);
+    assertThat(haversineLowerBound(-80, 28, -80, -80, 28, 28)).isEqualTo(0);
+  }
+
+  @Test
+  void nearest() {
+    List<double[]> points = points(5000);
+    StrTree<double[]> tree = tree(points);
+    double lng = -80.7015994;
+    double lat = 28.112464;
+    List<double[]> expected =
+        points.stream()
+            .sorted(
+                Comparator.<double[]>comparingDouble(p -> haversine(p[0], p[1], lng, lat))
+                    .thenComparing(TIE_BREAKER))
+            .limit(25)
+            .collect(toList());
+    assertThat(
+            tree.nearest(
+                    e -> haversineLowerBound(lng, lat, e.minX(), e.maxX(), e.minY(), e.maxY()),
+                    p -> haversine(p[0], p[1], lng, lat),
+                    TIE_BREAKER)
+                .limit(25)
+                .map(StrTree.Neighbor::value)
+                .collect(toList()))
+        .containsExactlyElementsOf(expected);
+    assertThat(
+            tree.nearest(
+                    e -> haversineLowerBound(lng, lat, e.minX(), e.maxX(), e.minY(), e.maxY()),
+                    p -> haversine(p[0], p[1], lng, lat),
+                    TIE_BREAKER)
+                .count())
+        .isEqualTo(points.size());
+  }
+
+  @Test
+  void search() {
+    List<double[]> points = points(5000);
+    StrTree<double[]> tree = tree(points);
+    assertThat(tree.size()).isEqualTo(points.size());
+    IntStream.range(0, 20)
+        .forEach(
+            i -> {
+              double minX = -180 + i * 15;
+              double maxX = minX + 20;
+              double minY = -60 + i * 5;
+              double maxY = minY + 10;
+              assertThat(tree.search(minX, maxX, minY, maxY))
+                  .containsExactlyInAnyOrderElementsOf(
+                      points.stream()
+                          .filter(p -> p[0] >= minX && p[0] <= maxX)
+                          .filter(p -> p[1] >= minY && p[1] <= maxY)
+                          .collect(toList()));
+            });
+    assertThat(tree.search(-80.7, -80.7, 28.1, 28.1)).hasSize(2);
+  }
+}
@@ -0,0 +1,34 @@
+package gov.va.api.lighthouse.facilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+public class TimedJsonMessageConverterTest {
+  @Test
+  @SneakyThrows
+  void writesAreTimedByType() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MappingJackson2HttpMessageConverter original = new MappingJackson2HttpMessageConverter();
+    original.setSupportedMediaTypes(List.of(MediaType.APPLICATION_JSON));
+    TimedJsonMessageConverter converter = new TimedJsonMessageConverter(original, registry);
+    assertThat(converter.getSupportedMediaTypes()).containsExactly(MediaType.APPLICATION_JSON);
+    MockHttpOutputMessage message = new MockHttpOutputMessage();
+    converter.write(new ArrayList<>(List.of("a", "b")), MediaType.APPLICATION_JSON, message);
+    assertThat(message.getBodyAsString()).isEqualTo("[\"a\",\"b\"]");
+    assertThat(
+            registry
+                .get(FacilityMetrics.SERIALIZATION)
+                .tag("type", "ArrayList")
+                .timer()
+                .count())
+        .isEqualTo(1);
+  }
+}